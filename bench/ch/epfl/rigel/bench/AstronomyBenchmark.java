@@ -0,0 +1,194 @@
+package ch.epfl.rigel.bench;
+
+import ch.epfl.rigel.astronomy.AstronomicalEventSearch;
+import ch.epfl.rigel.astronomy.EphemerisCache;
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.astronomy.HorizontalSky;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.Moon;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.SiderealTime;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.SunModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.rigel.bench.BenchmarkData.SAMPLES;
+import static ch.epfl.rigel.bench.BenchmarkData.WHERE;
+
+/**
+ * Bancs d'essai du paquetage astronomy : construction du ciel observé, modèles de la Lune
+ * et des planètes, cache d'éphémérides, temps sidéral, recherche d'événements astronomiques
+ * et chargement du catalogue HYG. Chaque appel utilise l'instant suivant d'un tableau
+ * d'instants de 2020, pour que le JIT ne puisse pas réutiliser le résultat précédent.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AstronomyBenchmark {
+
+    private StarCatalogue catalogue;
+    private byte[] hygCatalogue;
+    private StereographicProjection projection;
+    private HorizontalSky horizontalSky;
+    private EphemerisCache ephemerides;
+
+    private long[] instants;
+    private ZonedDateTime[] dateTimes;
+    private double[] days;
+    private EclipticToEquatorialConversion[] conversions;
+    private int next;
+
+    /**
+     * Charge le catalogue et prépare les instants, ainsi que les valeurs qui en dépendent.
+     */
+    @Setup
+    public void setUp() {
+        catalogue = BenchmarkData.catalogue();
+        hygCatalogue = BenchmarkData.hygCatalogue();
+        projection = new StereographicProjection(BenchmarkData.CENTER);
+
+        instants = BenchmarkData.instants();
+        dateTimes = new ZonedDateTime[SAMPLES];
+        days = new double[SAMPLES];
+        conversions = new EclipticToEquatorialConversion[SAMPLES];
+        for(int i = 0; i < SAMPLES; ++i) {
+            dateTimes[i] = ZonedDateTime.ofInstant(Instant.ofEpochMilli(instants[i]), ZoneId.of("Europe/Zurich"));
+            days[i] = Epoch.J2010.daysUntil(instants[i]);
+            conversions[i] = EclipticToEquatorialConversion.ofDaysSinceJ2010(days[i]);
+        }
+        horizontalSky = new HorizontalSky(instants[0], WHERE, catalogue);
+        ephemerides = new EphemerisCache();
+    }
+
+    /**
+     * Retourne l'index de l'instant suivant.
+     */
+    private int nextIndex() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    /**
+     * Ciel observé complet, comme au changement d'instant dans l'interface : positions
+     * horizontales de tous les astres puis projection.
+     */
+    @Benchmark
+    public ObservedSky observedSky() {
+        return new ObservedSky(instants[nextIndex()], WHERE, projection, catalogue);
+    }
+
+    /**
+     * Ciel observé à partir d'un ciel horizontal déjà calculé, comme au changement de
+     * direction de la vue dans l'interface : projection seule.
+     */
+    @Benchmark
+    public ObservedSky observedSkyProjectionOnly() {
+        return new ObservedSky(horizontalSky, projection);
+    }
+
+    @Benchmark
+    public Moon moonAt() {
+        int i = nextIndex();
+        return MoonModel.MOON.at(days[i], conversions[i]);
+    }
+
+    /**
+     * Les sept planètes autres que la Terre à un même instant, comme pour une image.
+     */
+    @Benchmark
+    public void planetsAt(Blackhole blackhole) {
+        int i = nextIndex();
+        for(PlanetModel planet : PlanetModel.ALL)
+            if(planet != PlanetModel.EARTH)
+                blackhole.consume(planet.at(days[i], conversions[i]));
+    }
+
+    /**
+     * Le Soleil, la Lune et les planètes à un même instant, comme pour une image, par les
+     * modèles analytiques.
+     */
+    @Benchmark
+    public void bodiesAnalytic(Blackhole blackhole) {
+        int i = nextIndex();
+        blackhole.consume(SunModel.SUN.at(days[i], conversions[i]));
+        blackhole.consume(MoonModel.MOON.at(days[i], conversions[i]));
+        for(PlanetModel planet : PlanetModel.ALL)
+            if(planet != PlanetModel.EARTH)
+                blackhole.consume(planet.at(days[i], conversions[i]));
+    }
+
+    /**
+     * Les mêmes astres que bodiesAnalytic, obtenus du cache d'éphémérides. Les fenêtres de
+     * 2020 tiennent dans le cache, et sont donc calculées pendant l'échauffement.
+     */
+    @Benchmark
+    public void bodiesEphemerisCache(Blackhole blackhole) {
+        int i = nextIndex();
+        blackhole.consume(ephemerides.sun(days[i]));
+        blackhole.consume(ephemerides.moon(days[i]));
+        for(PlanetModel planet : PlanetModel.ALL)
+            if(planet != PlanetModel.EARTH)
+                blackhole.consume(ephemerides.planet(planet, days[i]));
+    }
+
+    @Benchmark
+    public double siderealTimeLocal() {
+        return SiderealTime.local(dateTimes[nextIndex()], WHERE);
+    }
+
+    @Benchmark
+    public double siderealTimeLocalEpochMillis() {
+        return SiderealTime.local(instants[nextIndex()], WHERE);
+    }
+
+    /**
+     * Chargement complet du catalogue HYG depuis la mémoire, sans les entrées/sorties.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public StarCatalogue.Builder hygDatabaseLoad() throws IOException {
+        StarCatalogue.Builder builder = new StarCatalogue.Builder();
+        HygDatabaseLoader.INSTANCE.load(new ByteArrayInputStream(hygCatalogue), builder);
+        return builder;
+    }
+
+    /**
+     * Recherche de tous les événements astronomiques du 1er janvier 2000 au 1er janvier 2100
+     * à 0h UTC.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<AstronomicalEventSearch.Event> eventSearchCentury() {
+        return new AstronomicalEventSearch().search(946_684_800_000L, 4_102_444_800_000L);
+    }
+}
@@ -0,0 +1,111 @@
+package ch.epfl.rigel.bench;
+
+import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.ConstellationDrawLoader;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * Données communes aux bancs d'essai : catalogue de l'interface, lieu et direction
+ * d'observation initiaux de l'interface, et instants tirés au hasard (avec une graine
+ * fixe, pour que deux exécutions mesurent les mêmes calculs).
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+final class BenchmarkData {
+
+    /**
+     * Nombre d'entrées des tableaux parcourus par les bancs d'essai, puissance de deux.
+     */
+    static final int SAMPLES = 1024;
+
+    /**
+     * Lieu d'observation initial de l'interface (EPFL).
+     */
+    static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(6.57, 46.52);
+
+    /**
+     * Centre de la vue initial de l'interface.
+     */
+    static final HorizontalCoordinates CENTER = HorizontalCoordinates.ofDeg(180.000000000001, 15);
+
+    /**
+     * Premier instant possible : 1er janvier 2020 à 0h UTC (Unité : milli-secondes depuis le
+     * 1er janvier 1970 UTC).
+     */
+    private static final long FIRST_INSTANT = 1_577_836_800_000L;
+    private static final long YEAR_MILLIS = 365L * 24 * 60 * 60 * 1000;
+    private static final long SEED = 2020;
+
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+    private static final String ASTERISM_CATALOGUE_NAME = "/asterisms.txt";
+    private static final String CONSTELLATION_NAME = "/constellation_drawing.txt";
+
+    private BenchmarkData() {}
+
+    /**
+     * Retourne le contenu de la ressource donnée.
+     *
+     * @param name nom de la ressource.
+     * @return le contenu de la ressource.
+     * @throws UncheckedIOException en cas d'erreur d'entrée/sortie.
+     */
+    static byte[] resource(String name) {
+        try (InputStream stream = Objects.requireNonNull(BenchmarkData.class.getResourceAsStream(name))) {
+            return stream.readAllBytes();
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retourne le contenu du catalogue HYG.
+     *
+     * @return le contenu du catalogue HYG.
+     */
+    static byte[] hygCatalogue() {
+        return resource(HYG_CATALOGUE_NAME);
+    }
+
+    /**
+     * Charge le catalogue de l'interface : étoiles HYG, astérismes et constellations.
+     *
+     * @return le catalogue.
+     * @throws UncheckedIOException en cas d'erreur d'entrée/sortie.
+     */
+    static StarCatalogue catalogue() {
+        try {
+            return new StarCatalogue.Builder()
+                    .loadFrom(new ByteArrayInputStream(hygCatalogue()), HygDatabaseLoader.INSTANCE)
+                    .loadFrom(new ByteArrayInputStream(resource(ASTERISM_CATALOGUE_NAME)), AsterismLoader.INSTANCE)
+                    .loadFrom(new ByteArrayInputStream(resource(CONSTELLATION_NAME)),
+                            ConstellationDrawLoader.INSTANCE)
+                    .build();
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retourne SAMPLES instants tirés uniformément en 2020.
+     *
+     * @return les instants (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     */
+    static long[] instants() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        long[] instants = new long[SAMPLES];
+        for(int i = 0; i < SAMPLES; ++i)
+            instants[i] = FIRST_INSTANT + random.nextLong(YEAR_MILLIS);
+        return instants;
+    }
+}
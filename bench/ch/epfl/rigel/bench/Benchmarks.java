@@ -0,0 +1,35 @@
+package ch.epfl.rigel.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lance les bancs d'essai avec le profileur de ramasse-miettes, qui ajoute à chaque débit
+ * le taux d'allocation (gc.alloc.rate, en Mo/s, et gc.alloc.rate.norm, en octets par
+ * opération).
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {}
+
+    /**
+     * Lance les bancs d'essai dont le nom correspond à l'expression régulière donnée en
+     * argument, ou tous les bancs d'essai du paquetage s'il n'y en a pas.
+     *
+     * @param args expression régulière facultative.
+     * @throws RunnerException si un banc d'essai échoue.
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : Benchmarks.class.getPackageName() + ".*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,112 @@
+package ch.epfl.rigel.bench;
+
+import ch.epfl.rigel.astronomy.StarTable;
+import ch.epfl.rigel.coordinates.CartesianCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.rigel.bench.BenchmarkData.SAMPLES;
+import static ch.epfl.rigel.math.Angle.ofDeg;
+import static java.lang.Math.tan;
+
+/**
+ * Bancs d'essai du paquetage coordinates : conversion équatoriale vers horizontale et
+ * projection stéréographique, appliquées une à une comme par les appels publics. Les
+ * coordonnées converties et projetées sont celles d'étoiles du catalogue, les points
+ * déprojetés ceux d'un canevas de l'interface.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CoordinatesBenchmark {
+
+    /**
+     * Champ de vue initial de l'interface (Unité : degrés).
+     */
+    private static final double FIELD_OF_VIEW_DEG = 100;
+    /**
+     * Rapport hauteur/largeur du canevas initial de l'interface.
+     */
+    private static final double CANVAS_ASPECT_RATIO = 600.0 / 800.0;
+    private static final long SEED = 2020;
+
+    private EquatorialToHorizontalConversion conversion;
+    private StereographicProjection projection;
+
+    private EquatorialCoordinates[] equatorialPositions;
+    private HorizontalCoordinates[] horizontalPositions;
+    private CartesianCoordinates[] planePoints;
+    private int next;
+
+    /**
+     * Prend les positions de SAMPLES étoiles du catalogue, réparties dans tout le catalogue,
+     * et tire SAMPLES points du plan visibles sur le canevas.
+     */
+    @Setup
+    public void setUp() {
+        StarTable stars = BenchmarkData.catalogue().starTable();
+        conversion = EquatorialToHorizontalConversion.ofEpochMillis(BenchmarkData.instants()[0], BenchmarkData.WHERE);
+        projection = new StereographicProjection(BenchmarkData.CENTER);
+
+        equatorialPositions = new EquatorialCoordinates[SAMPLES];
+        horizontalPositions = new HorizontalCoordinates[SAMPLES];
+        for(int i = 0; i < SAMPLES; ++i) {
+            int star = (int) ((long) i * stars.size() / SAMPLES);
+            equatorialPositions[i] = EquatorialCoordinates.of(stars.ra(star), stars.dec(star));
+            horizontalPositions[i] = conversion.apply(equatorialPositions[i]);
+        }
+
+        // Demi-largeur, dans le plan, du champ de vue horizontal.
+        double halfWidth = 2 * tan(ofDeg(FIELD_OF_VIEW_DEG) / 4);
+        double halfHeight = halfWidth * CANVAS_ASPECT_RATIO;
+        SplittableRandom random = new SplittableRandom(SEED);
+        planePoints = new CartesianCoordinates[SAMPLES];
+        for(int i = 0; i < SAMPLES; ++i)
+            planePoints[i] = CartesianCoordinates.of(random.nextDouble(-halfWidth, halfWidth),
+                    random.nextDouble(-halfHeight, halfHeight));
+    }
+
+    /**
+     * Retourne l'index des coordonnées suivantes.
+     */
+    private int nextIndex() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public HorizontalCoordinates equatorialToHorizontal() {
+        return conversion.apply(equatorialPositions[nextIndex()]);
+    }
+
+    @Benchmark
+    public CartesianCoordinates stereographicApply() {
+        return projection.apply(horizontalPositions[nextIndex()]);
+    }
+
+    @Benchmark
+    public HorizontalCoordinates stereographicInverseApply() {
+        return projection.inverseApply(planePoints[nextIndex()]);
+    }
+}
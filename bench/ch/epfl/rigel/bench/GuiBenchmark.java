@@ -0,0 +1,57 @@
+package ch.epfl.rigel.bench;
+
+import ch.epfl.rigel.astronomy.StarTable;
+import ch.epfl.rigel.gui.BlackBodyColor;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.rigel.bench.BenchmarkData.SAMPLES;
+
+/**
+ * Bancs d'essai du paquetage gui qui ne demandent pas la boîte à outils JavaFX : couleur
+ * des étoiles selon leur température, pour les températures des étoiles du catalogue.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GuiBenchmark {
+
+    private double[] temperatures;
+    private int next;
+
+    /**
+     * Prend les températures de SAMPLES étoiles, réparties dans tout le catalogue, et charge
+     * la table des couleurs.
+     */
+    @Setup
+    public void setUp() {
+        StarTable stars = BenchmarkData.catalogue().starTable();
+        temperatures = new double[SAMPLES];
+        for(int i = 0; i < SAMPLES; ++i)
+            temperatures[i] = stars.colorTemperature((int) ((long) i * stars.size() / SAMPLES));
+        BlackBodyColor.colorForTemperature(temperatures[0]);
+    }
+
+    @Benchmark
+    public Color blackBodyColor() {
+        next = (next + 1) & (SAMPLES - 1);
+        return BlackBodyColor.colorForTemperature(temperatures[next]);
+    }
+}
@@ -0,0 +1,102 @@
+package ch.epfl.rigel.bench;
+
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.SunModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bancs d'essai de l'évaluation du Soleil, de la Lune et des planètes sur une année de
+ * 2020 à la minute (525 600 instants), par tableaux d'instants (CelestialObjectModel.at)
+ * et instant par instant, comme pour une table d'éphémérides.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBatchBenchmark {
+
+    private static final int MINUTES_PER_YEAR = 365 * 24 * 60;
+    private static final long FIRST_INSTANT = 1_577_836_800_000L; // 1er janvier 2020 à 0h UTC
+    private static final long MINUTE_MILLIS = 60 * 1000;
+
+    private double[] days, ra, dec, angularSizes, magnitudes;
+
+    /**
+     * Prépare les instants et les tableaux de résultats.
+     */
+    @Setup
+    public void setUp() {
+        days = new double[MINUTES_PER_YEAR];
+        for(int i = 0; i < MINUTES_PER_YEAR; ++i)
+            days[i] = Epoch.J2010.daysUntil(FIRST_INSTANT + i * MINUTE_MILLIS);
+        ra = new double[MINUTES_PER_YEAR];
+        dec = new double[MINUTES_PER_YEAR];
+        angularSizes = new double[MINUTES_PER_YEAR];
+        magnitudes = new double[MINUTES_PER_YEAR];
+    }
+
+    @Benchmark
+    public double[] sunBatch() {
+        SunModel.SUN.at(days, ra, dec, angularSizes, magnitudes);
+        return ra;
+    }
+
+    @Benchmark
+    public void sunPerInstant(Blackhole blackhole) {
+        for(double day : days)
+            blackhole.consume(SunModel.SUN.at(day, EclipticToEquatorialConversion.ofDaysSinceJ2010(day)));
+    }
+
+    @Benchmark
+    public double[] moonBatch() {
+        MoonModel.MOON.at(days, ra, dec, angularSizes, magnitudes);
+        return ra;
+    }
+
+    @Benchmark
+    public void moonPerInstant(Blackhole blackhole) {
+        for(double day : days)
+            blackhole.consume(MoonModel.MOON.at(day, EclipticToEquatorialConversion.ofDaysSinceJ2010(day)));
+    }
+
+    /**
+     * Les sept planètes autres que la Terre, l'une après l'autre.
+     */
+    @Benchmark
+    public double[] planetsBatch() {
+        for(PlanetModel planet : PlanetModel.ALL)
+            if(planet != PlanetModel.EARTH)
+                planet.at(days, ra, dec, angularSizes, magnitudes);
+        return ra;
+    }
+
+    @Benchmark
+    public void planetsPerInstant(Blackhole blackhole) {
+        for(double day : days) {
+            EclipticToEquatorialConversion conversion = EclipticToEquatorialConversion.ofDaysSinceJ2010(day);
+            for(PlanetModel planet : PlanetModel.ALL)
+                if(planet != PlanetModel.EARTH)
+                    blackhole.consume(planet.at(day, conversion));
+        }
+    }
+}
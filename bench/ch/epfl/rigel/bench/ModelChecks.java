@@ -0,0 +1,691 @@
+package ch.epfl.rigel.bench;
+
+import ch.epfl.rigel.astronomy.AstronomicalEventSearch;
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.CelestialObjectModel;
+import ch.epfl.rigel.astronomy.EphemerisCache;
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.Moon;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.Planet;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.PositionIndex;
+import ch.epfl.rigel.astronomy.RiseTransitSetCalculator;
+import ch.epfl.rigel.astronomy.SkyPartition;
+import ch.epfl.rigel.astronomy.Star;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.StarTable;
+import ch.epfl.rigel.astronomy.Sun;
+import ch.epfl.rigel.astronomy.SunModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static ch.epfl.rigel.astronomy.RiseTransitSetCalculator.NO_EVENT;
+import static ch.epfl.rigel.math.Angle.normalizePositive;
+import static java.lang.Math.*;
+
+/**
+ * Vérifications de l'exactitude des calculs rapides du paquetage astronomy, par comparaison
+ * avec les modèles analytiques. Contrairement aux bancs d'essai, elles n'ont pas besoin de
+ * JMH. Chaque vérification affiche l'écart maximal mesuré et la limite qu'il doit respecter ;
+ * le programme se termine avec le code 1 si une limite est dépassée.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class ModelChecks {
+
+    /**
+     * Nombre d'instants tirés au hasard par défaut.
+     */
+    private static final int DEFAULT_INSTANTS = 200_000;
+
+    /**
+     * Demi-largeur de la période des instants tirés, centrée sur J2010 (Unité : jours).
+     */
+    private static final double HALF_PERIOD_DAYS = 8 * 365.25;
+
+    /**
+     * Début des périodes des levers, passages au méridien et couchers : 1er mars 2020 à 0h
+     * UTC (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     */
+    private static final long EVENTS_START = 1_583_020_800_000L;
+    private static final long MINUTE_MILLIS = 60 * 1000, DAY_MILLIS = 24 * 60 * MINUTE_MILLIS;
+
+    /**
+     * Abaissement apparent de l'horizon dû à la réfraction, comme dans RiseTransitSetCalculator
+     * (Unité : radians).
+     */
+    private static final double REFRACTION = toRadians(34.0 / 60);
+    private static final int ALTITUDE = 0, HOUR_ANGLE = 1;
+
+    /**
+     * Période de la recherche d'événements astronomiques : du 1er janvier 2000 au 1er janvier
+     * 2100 à 0h UTC (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     */
+    private static final long SEARCH_START = 946_684_800_000L, SEARCH_END = 4_102_444_800_000L;
+    private static final long YEAR_2020 = 1_577_836_800_000L, YEAR_2021 = 1_609_459_200_000L;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+
+    /**
+     * Éclipses de 2020 : instants des nouvelles et pleines lunes correspondantes, arrondis à la
+     * minute, d'après les tables publiées (NASA).
+     */
+    private static final List<Instant> SOLAR_ECLIPSES_2020 = List.of(
+            Instant.parse("2020-06-21T06:41:00Z"), Instant.parse("2020-12-14T16:17:00Z"));
+    private static final List<Instant> LUNAR_ECLIPSES_2020 = List.of(
+            Instant.parse("2020-01-10T19:21:00Z"), Instant.parse("2020-06-05T19:12:00Z"),
+            Instant.parse("2020-07-05T04:44:00Z"), Instant.parse("2020-11-30T09:30:00Z"));
+
+    /**
+     * Grande conjonction de Jupiter et Saturne, en longitude écliptique.
+     */
+    private static final Instant GREAT_CONJUNCTION_2020 = Instant.parse("2020-12-21T13:30:00Z");
+
+    /**
+     * Colonnes du fichier HYG lues par HygDatabaseLoader, et nombre total de colonnes.
+     */
+    private static final int HYG_HIP = 1, HYG_MAG = 13, HYG_CI = 16, HYG_RARAD = 23, HYG_DECRAD = 24, HYG_CON = 29;
+    private static final int HYG_COLUMNS = 37;
+
+    /**
+     * Nombre de cônes de vue tirés au hasard par taille de cellule, et nombre d'étoiles
+     * ajoutées au catalogue, tirées uniformément ou près des pôles.
+     */
+    private static final int CONES = 2000, UNIFORM_STARS = 20_000, POLAR_STARS = 2000;
+
+    /**
+     * Tailles des cellules de la partition du ciel vérifiées (Unité : degrés).
+     */
+    private static final double[] CELL_SIZES_DEG = {0.5, 1, 4, 10, 45, 120};
+
+    /**
+     * Nombre d'ensembles de positions tirés au hasard, et nombre de requêtes par ensemble.
+     */
+    private static final int POSITION_SETS = 500, POSITION_QUERIES = 200;
+
+    private static final long SEED = 2010;
+    private static final double ARCSEC = toRadians(1.0 / 3600);
+
+    private static boolean failed;
+
+    private ModelChecks() {}
+
+    /**
+     * Lance toutes les vérifications.
+     *
+     * @param args nombre facultatif d'instants tirés au hasard.
+     */
+    public static void main(String[] args) {
+        int instants = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_INSTANTS;
+
+        checkEphemerisCache(instants);
+        checkBatchModels(instants);
+        checkRiseTransitSet();
+        checkEventSearch();
+        checkHygNumbers(instants);
+        checkSkyPartition();
+        checkPositionIndex();
+
+        if(failed)
+            System.exit(1);
+    }
+
+    /**
+     * Compare le Soleil, la Lune et les planètes du cache d'éphémérides (de tolérance et
+     * capacité par défaut) à ceux des modèles analytiques, à des instants tirés au hasard
+     * sur seize ans : positions et tailles angulaires à moins de la tolérance du cache,
+     * magnitudes des planètes à moins de 0.01 et phase de la Lune à moins de 0.001.
+     */
+    private static void checkEphemerisCache(int instants) {
+        EphemerisCache cache = new EphemerisCache();
+        SplittableRandom random = new SplittableRandom(SEED);
+        double position = 0, size = 0, magnitude = 0, phase = 0;
+
+        for(int n = 0; n < instants; ++n) {
+            double days = random.nextDouble(-HALF_PERIOD_DAYS, HALF_PERIOD_DAYS);
+            EclipticToEquatorialConversion conversion = EclipticToEquatorialConversion.ofDaysSinceJ2010(days);
+
+            Sun sun = SunModel.SUN.at(days, conversion), cachedSun = cache.sun(days);
+            position = max(position, angle(sun.equatorialPos(), cachedSun.equatorialPos()));
+            size = max(size, abs(sun.angularSize() - cachedSun.angularSize()));
+
+            Moon moon = MoonModel.MOON.at(days, conversion), cachedMoon = cache.moon(days);
+            position = max(position, angle(moon.equatorialPos(), cachedMoon.equatorialPos()));
+            size = max(size, abs(moon.angularSize() - cachedMoon.angularSize()));
+            phase = max(phase, abs(moon.phase() - cachedMoon.phase()));
+
+            for(PlanetModel model : PlanetModel.ALL) {
+                if(model == PlanetModel.EARTH)
+                    continue;
+                Planet planet = model.at(days, conversion), cachedPlanet = cache.planet(model, days);
+                position = max(position, angle(planet.equatorialPos(), cachedPlanet.equatorialPos()));
+                size = max(size, abs(planet.angularSize() - cachedPlanet.angularSize()));
+                magnitude = max(magnitude, abs(planet.magnitude() - cachedPlanet.magnitude()));
+            }
+        }
+
+        double tolerance = cache.tolerance() / ARCSEC;
+        check("cache d'éphémérides, position", position / ARCSEC, tolerance, "\"");
+        check("cache d'éphémérides, taille angulaire", size / ARCSEC, tolerance, "\"");
+        check("cache d'éphémérides, magnitude des planètes", magnitude, 0.01, "");
+        check("cache d'éphémérides, phase de la Lune", phase, 1e-3, "");
+    }
+
+    /**
+     * Compare l'évaluation par tableaux d'instants du Soleil, de la Lune et des planètes
+     * (CelestialObjectModel.at et PlanetModel.allAt) à l'évaluation instant par instant,
+     * dont elle doit donner exactement les mêmes valeurs.
+     */
+    private static void checkBatchModels(int instants) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        double[] days = new double[instants];
+        for(int i = 0; i < instants; ++i)
+            days[i] = random.nextDouble(-HALF_PERIOD_DAYS, HALF_PERIOD_DAYS);
+
+        List<CelestialObjectModel<?>> models = new ArrayList<>(List.of(SunModel.SUN, MoonModel.MOON));
+        for(PlanetModel planet : PlanetModel.ALL)
+            if(planet != PlanetModel.EARTH)
+                models.add(planet);
+
+        int count = PlanetModel.ALL.size();
+        double[][] allRa = new double[count][instants], allDec = new double[count][instants];
+        double[][] allSizes = new double[count][instants], allMagnitudes = new double[count][instants];
+        PlanetModel.allAt(days, allRa, allDec, allSizes, allMagnitudes);
+
+        double error = 0, allError = 0;
+        double[] ra = new double[instants], dec = new double[instants];
+        double[] sizes = new double[instants], magnitudes = new double[instants];
+        for(CelestialObjectModel<?> model : models) {
+            model.at(days, ra, dec, sizes, magnitudes);
+            for(int i = 0; i < instants; ++i) {
+                CelestialObject object = model.at(days[i], EclipticToEquatorialConversion.ofDaysSinceJ2010(days[i]));
+                error = max(error, difference(object, ra[i], dec[i], sizes[i], magnitudes[i]));
+                if(model instanceof PlanetModel) {
+                    int p = ((PlanetModel) model).ordinal();
+                    allError = max(allError,
+                            difference(object, allRa[p][i], allDec[p][i], allSizes[p][i], allMagnitudes[p][i]));
+                }
+            }
+        }
+
+        check("évaluation par tableaux, écart aux objets", error, 0, "");
+        check("évaluation de toutes les planètes, écart aux objets", allError, 0, "");
+    }
+
+    /**
+     * Vérifie les levers, passages au méridien et couchers de RiseTransitSetCalculator :
+     * ceux des étoiles du catalogue sur un jour, ceux du Soleil, de la Lune et des planètes
+     * sur trente jours. À chaque événement, la hauteur au-dessus de l'horizon apparent (du
+     * bord supérieur pour les objets mobiles) ou l'angle horaire doit être nul ; et chaque
+     * événement doit être le premier trouvé en échantillonnant la période à la minute.
+     */
+    private static void checkRiseTransitSet() {
+        StarCatalogue catalogue = BenchmarkData.catalogue();
+        RiseTransitSetCalculator calculator = new RiseTransitSetCalculator(catalogue, BenchmarkData.WHERE);
+
+        StarTable stars = catalogue.starTable();
+        long starsEnd = EVENTS_START + DAY_MILLIS;
+        compareEvents("étoiles", calculator.stars(EVENTS_START, starsEnd), stars.size(), starsEnd, 1,
+                (i, time, conversion) -> state(conversion, EquatorialCoordinates.of(stars.ra(i), stars.dec(i)), 0));
+
+        List<CelestialObjectModel<?>> models = new ArrayList<>(List.of(SunModel.SUN, MoonModel.MOON));
+        List<String> names = new ArrayList<>(List.of(StarCatalogue.SUN_NAME, StarCatalogue.MOON_NAME));
+        for(PlanetModel planet : PlanetModel.ALL)
+            if(planet != PlanetModel.EARTH) {
+                models.add(planet);
+                names.add(planet.getName());
+            }
+        long end = EVENTS_START + 30 * DAY_MILLIS;
+        compareEvents("Soleil, Lune et planètes", calculator.named(names, EVENTS_START, end), names.size(), end, 20,
+                (i, time, conversion) -> {
+                    CelestialObject object = models.get(i).at(Epoch.J2010.daysUntil(time),
+                            new EclipticToEquatorialConversion(time));
+                    return state(conversion, object.equatorialPos(), object.angularSize());
+                });
+    }
+
+    /**
+     * Vérifie la recherche d'événements astronomiques sur un siècle : les événements doivent
+     * être triés par date ; les six éclipses de 2020, et elles seules, doivent être trouvées à
+     * moins d'une heure des instants publiés, et la grande conjonction de Jupiter et Saturne
+     * du 21 décembre 2020 à moins de douze heures (les modèles simplifiés de Jupiter et
+     * Saturne ne sont pas plus précis).
+     */
+    private static void checkEventSearch() {
+        long start = System.nanoTime();
+        List<AstronomicalEventSearch.Event> events = new AstronomicalEventSearch().search(SEARCH_START, SEARCH_END);
+        System.out.printf(Locale.ROOT, "       recherche d'événements, 2000 à 2100 : %d événements en %.3f s%n",
+                events.size(), (System.nanoTime() - start) / 1e9);
+
+        int unsorted = 0;
+        for(int i = 1; i < events.size(); ++i)
+            if(events.get(i).epochMillis() < events.get(i - 1).epochMillis())
+                ++unsorted;
+        check("recherche d'événements, événements non triés", unsorted, 0, "");
+
+        List<Long> solar = new ArrayList<>(), lunar = new ArrayList<>(), conjunctions = new ArrayList<>();
+        for(AstronomicalEventSearch.Event event : events) {
+            if(event.epochMillis() < YEAR_2020 || event.epochMillis() >= YEAR_2021)
+                continue;
+            switch(event.type()) {
+                case SOLAR_ECLIPSE:
+                    solar.add(event.epochMillis());
+                    break;
+                case LUNAR_ECLIPSE:
+                    lunar.add(event.epochMillis());
+                    break;
+                case CONJUNCTION:
+                    if(event.first().equals(PlanetModel.JUPITER.getName())
+                            && event.second().equals(PlanetModel.SATURN.getName()))
+                        conjunctions.add(event.epochMillis());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        check("recherche d'événements, éclipses de Soleil en 2020",
+                hours(solar, SOLAR_ECLIPSES_2020), 1, " h");
+        check("recherche d'événements, éclipses de Lune en 2020",
+                hours(lunar, LUNAR_ECLIPSES_2020), 1, " h");
+        check("recherche d'événements, conjonction de Jupiter et Saturne en 2020",
+                hours(conjunctions, List.of(GREAT_CONJUNCTION_2020)), 12, " h");
+    }
+
+    /**
+     * Retourne le plus grand écart, en heures, entre les instants trouvés et les instants
+     * attendus, dans l'ordre ; ou l'infini si leurs nombres diffèrent.
+     */
+    private static double hours(List<Long> found, List<Instant> expected) {
+        if(found.size() != expected.size())
+            return Double.POSITIVE_INFINITY;
+
+        long error = 0;
+        for(int i = 0; i < found.size(); ++i)
+            error = max(error, abs(found.get(i) - expected.get(i).toEpochMilli()));
+        return (double) error / HOUR_MILLIS;
+    }
+
+    /**
+     * Hauteur au-dessus de l'horizon apparent et angle horaire, dans [-π, π[, des objets
+     * d'une liste à un instant.
+     */
+    @FunctionalInterface
+    private interface State {
+        double[] at(int index, long time, EquatorialToHorizontalConversion conversion);
+    }
+
+    /**
+     * Retourne la hauteur du bord supérieur de l'objet de position et taille angulaire
+     * données au-dessus de l'horizon apparent, et son angle horaire dans [-π, π[.
+     */
+    private static double[] state(EquatorialToHorizontalConversion conversion, EquatorialCoordinates equ,
+                                  double angularSize) {
+        double altitude = conversion.apply(equ).alt() + angularSize / 2 + REFRACTION;
+        double hourAngle = normalizePositive(conversion.localSiderealTime() - equ.ra() + PI) - PI;
+        return new double[] {altitude, hourAngle};
+    }
+
+    /**
+     * Compare les événements calculés de count objets, de EVENTS_START à end, à ceux trouvés
+     * en échantillonnant leur état à la minute, et vérifie que l'état est nul à chaque
+     * événement, à limit secondes d'arc près.
+     */
+    private static void compareEvents(String name, RiseTransitSetCalculator.Events events, int count, long end,
+                                      double limit, State state) {
+        long[][] sampled = new long[3][count];
+        for(long[] times : sampled)
+            Arrays.fill(times, RiseTransitSetCalculator.NO_EVENT);
+
+        double[][] previous = new double[count][];
+        for(long time = EVENTS_START; time <= end; time += MINUTE_MILLIS) {
+            EquatorialToHorizontalConversion conversion = EquatorialToHorizontalConversion.ofEpochMillis(
+                    time, BenchmarkData.WHERE);
+            for(int i = 0; i < count; ++i) {
+                double[] next = state.at(i, time, conversion);
+                if(previous[i] != null) {
+                    // L'instant retenu est la fin de la minute où l'état change de signe.
+                    if(previous[i][ALTITUDE] < 0 && next[ALTITUDE] >= 0 && sampled[0][i] == NO_EVENT)
+                        sampled[0][i] = time;
+                    if(previous[i][ALTITUDE] >= 0 && next[ALTITUDE] < 0 && sampled[2][i] == NO_EVENT)
+                        sampled[2][i] = time;
+                    if(previous[i][HOUR_ANGLE] < 0 && next[HOUR_ANGLE] >= 0
+                            && next[HOUR_ANGLE] - previous[i][HOUR_ANGLE] < PI && sampled[1][i] == NO_EVENT)
+                        sampled[1][i] = time;
+                }
+                previous[i] = next;
+            }
+        }
+
+        int mismatches = 0;
+        double error = 0;
+        for(int i = 0; i < count; ++i) {
+            long[] computed = {events.rise(i), events.transit(i), events.set(i)};
+            for(int e = 0; e < computed.length; ++e) {
+                if(sampled[e][i] == NO_EVENT || computed[e] == NO_EVENT) {
+                    // Un événement dans la dernière minute peut échapper à l'échantillonnage.
+                    if(sampled[e][i] != computed[e] && computed[e] < end - MINUTE_MILLIS)
+                        ++mismatches;
+                    continue;
+                }
+                if(computed[e] < sampled[e][i] - MINUTE_MILLIS - 1000 || computed[e] > sampled[e][i] + 1000)
+                    ++mismatches;
+
+                double[] at = state.at(i, computed[e], EquatorialToHorizontalConversion.ofEpochMillis(
+                        computed[e], BenchmarkData.WHERE));
+                error = max(error, abs(at[e == 1 ? HOUR_ANGLE : ALTITUDE]));
+            }
+        }
+
+        check("levers, passages et couchers (" + name + "), événements différents", mismatches, 0, "");
+        check("levers, passages et couchers (" + name + "), écart à l'horizon ou au méridien",
+                error / ARCSEC, limit, "\"");
+    }
+
+    /**
+     * Vérifie que HygDatabaseLoader lit les nombres exactement comme parseDouble : ceux
+     * du catalogue HYG, des décimaux de 16 à 18 chiffres significatifs autour de chaque
+     * puissance de deux de 2^-60 à 1, et des décimaux tirés au hasard ; et que les champs
+     * sans aucun chiffre (".", "-", etc.) sont rejetés comme par parseDouble.
+     */
+    private static void checkHygNumbers(int instants) {
+        String[] lines = new String(BenchmarkData.hygCatalogue(), StandardCharsets.US_ASCII).split("\r?\n");
+        List<Star> hyg = loadHyg(String.join("\n", lines));
+        int mismatches = 0;
+        for(int i = 1; i < lines.length; ++i) {
+            HygRow expected = new HygRow(lines[i].split(",", -1));
+            Star star = hyg.get(i - 1);
+            if(star.equatorialPos().ra() != expected.ra || star.equatorialPos().dec() != expected.dec
+                    || star.magnitude() != expected.magnitude || star.colorIndex() != expected.colorIndex)
+                ++mismatches;
+        }
+        check("lecture du catalogue HYG, nombres différents de parseDouble", mismatches, 0, "");
+
+        List<String> decimals = new ArrayList<>();
+        for(int k = -60; k <= 0; ++k)
+            for(int digits = 16; digits <= 18; ++digits) {
+                BigDecimal power = new BigDecimal(scalb(1.0, k)).round(new MathContext(digits));
+                // Chiffres jusqu'au digits-ième chiffre significatif, même nuls.
+                power = power.setScale(digits - 1 - (power.precision() - power.scale() - 1));
+                for(int offset = -50; offset <= 50; ++offset) {
+                    BigDecimal value = power.add(power.ulp().multiply(BigDecimal.valueOf(offset)));
+                    decimals.add(value.toPlainString());
+                    decimals.add(value.negate().toPlainString());
+                }
+            }
+        SplittableRandom random = new SplittableRandom(SEED);
+        for(int n = 0; n < instants; ++n) {
+            long mantissa = random.nextLong(1, 1_000_000_000_000_000_000L);
+            decimals.add(new BigDecimal(mantissa).scaleByPowerOfTen(-18 - random.nextInt(4)).toPlainString());
+        }
+
+        StringBuilder file = new StringBuilder(lines[0]);
+        for(String decimal : decimals)
+            file.append('\n').append(hygLine(decimal));
+        List<Star> stars = loadHyg(file.toString());
+        mismatches = 0;
+        for(int i = 0; i < decimals.size(); ++i)
+            if(stars.get(i).equatorialPos().dec() != Double.parseDouble(decimals.get(i)))
+                ++mismatches;
+        check("lecture de décimaux, nombres différents de parseDouble", mismatches, 0, "");
+
+        int accepted = 0;
+        for(String malformed : List.of(".", "-", "+", "-.", "+.")) {
+            try {
+                loadHyg(lines[0] + "\n" + hygLine(malformed));
+                ++accepted;
+            } catch(NumberFormatException e) {
+                // Rejeté, comme par parseDouble.
+            }
+        }
+        check("lecture de champs sans chiffre, champs acceptés", accepted, 0, "");
+    }
+
+    /**
+     * Valeurs d'une ligne du fichier HYG lues avec parseDouble, comme HygDatabaseLoader
+     * doit les lire : 0 pour un champ vide.
+     */
+    private static final class HygRow {
+        private final double ra, dec;
+        private final float magnitude, colorIndex;
+
+        private HygRow(String[] fields) {
+            ra = normalizePositive(parse(fields[HYG_RARAD]));
+            dec = parse(fields[HYG_DECRAD]);
+            magnitude = (float) parse(fields[HYG_MAG]);
+            colorIndex = (float) parse(fields[HYG_CI]);
+        }
+
+        private static double parse(String field) {
+            return field.isEmpty() ? 0 : Double.parseDouble(field);
+        }
+    }
+
+    /**
+     * Retourne une ligne du fichier HYG d'une étoile de déclinaison donnée.
+     */
+    private static String hygLine(String decrad) {
+        String[] fields = new String[HYG_COLUMNS];
+        Arrays.fill(fields, "");
+        fields[HYG_HIP] = "1";
+        fields[HYG_RARAD] = "0";
+        fields[HYG_DECRAD] = decrad;
+        fields[HYG_CON] = "Ori";
+        return String.join(",", fields);
+    }
+
+    /**
+     * Retourne les étoiles du fichier HYG donné, lues par HygDatabaseLoader, dans l'ordre
+     * du fichier.
+     */
+    private static List<Star> loadHyg(String file) {
+        try {
+            return new StarCatalogue.Builder()
+                    .loadFrom(new ByteArrayInputStream(file.getBytes(StandardCharsets.US_ASCII)),
+                            HygDatabaseLoader.INSTANCE)
+                    .stars();
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Vérifie SkyPartition.starsIntersecting par force brute : pour des cônes de vue tirés
+     * au hasard, avec ou sans zénith, chaque étoile d'index inférieur au nombre demandé qui
+     * est dans le cône (et au-dessus de l'horizon) doit être retournée, et les index
+     * retournés doivent être distincts et inférieurs au nombre demandé. Les étoiles sont
+     * celles du catalogue, des étoiles tirées uniformément sur la sphère et des étoiles à
+     * moins d'un degré des pôles, pôles compris.
+     */
+    private static void checkSkyPartition() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StarTable catalogue = BenchmarkData.catalogue().starTable();
+        StarTable.Builder builder = new StarTable.Builder(catalogue.size() + UNIFORM_STARS + POLAR_STARS);
+        for(int i = 0; i < catalogue.size(); ++i)
+            builder.add(catalogue.hipparcosId(i), catalogue.name(i), catalogue.ra(i), catalogue.dec(i),
+                    catalogue.magnitude(i), catalogue.colorIndex(i));
+        for(int i = 0; i < UNIFORM_STARS; ++i)
+            builder.add(0, "?", random.nextDouble(0, 2 * PI), asin(random.nextDouble(-1, 1)), 0, 0);
+        for(int i = 0; i < POLAR_STARS; ++i) {
+            double fromPole = i % 10 == 0 ? 0 : random.nextDouble(0, toRadians(1));
+            builder.add(0, "?", random.nextDouble(0, 2 * PI), (i % 2 == 0 ? 1 : -1) * (PI / 2 - fromPole), 0, 0);
+        }
+        StarTable stars = builder.build();
+
+        double[] unitVectors = new double[3 * stars.size()];
+        for(int i = 0; i < stars.size(); ++i)
+            System.arraycopy(unitVector(stars.ra(i), stars.dec(i)), 0, unitVectors, 3 * i, 3);
+
+        int missed = 0, invalid = 0;
+        for(double cellSizeDeg : CELL_SIZES_DEG) {
+            SkyPartition partition = new SkyPartition(stars, toRadians(cellSizeDeg));
+            for(int n = 0; n < CONES; ++n) {
+                // Un cône sur quatre est centré près d'un pôle.
+                double viewDec = n % 4 == 0
+                        ? (n % 8 == 0 ? 1 : -1) * (PI / 2 - random.nextDouble(0, 0.05))
+                        : asin(random.nextDouble(-1, 1));
+                double[] view = unitVector(random.nextDouble(0, 2 * PI), viewDec);
+                double viewRadius = random.nextDouble(0, PI / 2);
+                double[] zenith = random.nextBoolean()
+                        ? unitVector(random.nextDouble(0, 2 * PI), asin(random.nextDouble(-1, 1)))
+                        : null;
+                int count = random.nextInt(stars.size() + 1);
+
+                boolean[] found = new boolean[stars.size()];
+                for(int index : partition.starsIntersecting(view, viewRadius, zenith, count)) {
+                    if(index < 0 || index >= count || found[index])
+                        ++invalid;
+                    else
+                        found[index] = true;
+                }
+
+                double cosRadius = cos(viewRadius);
+                for(int i = 0; i < count; ++i)
+                    if(!found[i] && dot(unitVectors, i, view) >= cosRadius
+                            && (zenith == null || dot(unitVectors, i, zenith) >= 0))
+                        ++missed;
+            }
+        }
+
+        check("partition du ciel, étoiles du cône manquantes", missed, 0, "");
+        check("partition du ciel, index invalides ou répétés", invalid, 0, "");
+    }
+
+    /**
+     * Vérifie PositionIndex par comparaison avec un parcours linéaire, sur des ensembles
+     * de positions tirés au hasard sur une grille grossière (pour de nombreux doublons et
+     * distances égales), dont certaines ne sont pas définies ou infinies : nearest doit
+     * retourner la position la plus proche, et à distance égale celle d'indice le plus
+     * grand ; nearest des k plus proches doit retourner les k premières dans cet ordre ;
+     * within doit retourner exactement les positions du disque.
+     */
+    private static void checkPositionIndex() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        double[] nonFinite = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        int nearestErrors = 0, kNearestErrors = 0, withinErrors = 0;
+
+        for(int set = 0; set < POSITION_SETS; ++set) {
+            int size = random.nextInt(set % 10 == 0 ? 4 : 2000);
+            double[] positions = new double[2 * size];
+            for(int i = 0; i < positions.length; ++i)
+                positions[i] = random.nextInt(50) == 0
+                        ? nonFinite[random.nextInt(nonFinite.length)]
+                        : random.nextInt(-20, 21) / 4.0;
+            PositionIndex index = new PositionIndex(positions);
+
+            for(int q = 0; q < POSITION_QUERIES; ++q) {
+                // Un point sur deux est sur la grille, pour des distances égales.
+                boolean onGrid = q % 2 == 0;
+                double gridX = random.nextInt(-24, 25) / 4.0, gridY = random.nextInt(-24, 25) / 4.0;
+                double x = onGrid ? gridX : gridX + random.nextDouble(-0.5, 0.5);
+                double y = onGrid ? gridY : gridY + random.nextDouble(-0.5, 0.5);
+                double maxDistance = q % 10 == 0 ? Double.POSITIVE_INFINITY : random.nextInt(0, 13) / 4.0;
+                int k = random.nextInt(0, 8);
+
+                // Positions finies à au plus maxDistance, de la plus proche à la plus éloignée,
+                // puis par indice décroissant.
+                List<Integer> ordered = new ArrayList<>();
+                for(int i = 0; i < size; ++i)
+                    if(Double.isFinite(positions[2 * i]) && Double.isFinite(positions[2 * i + 1])
+                            && distanceSquare(positions, i, x, y) <= maxDistance * maxDistance)
+                        ordered.add(i);
+                ordered.sort((i, j) -> {
+                    int byDistance = Double.compare(distanceSquare(positions, i, x, y),
+                            distanceSquare(positions, j, x, y));
+                    return byDistance != 0 ? byDistance : Integer.compare(j, i);
+                });
+
+                if(index.nearest(x, y, maxDistance) != (ordered.isEmpty() ? -1 : ordered.get(0)))
+                    ++nearestErrors;
+
+                int[] expected = ordered.stream().limit(k).mapToInt(Integer::intValue).toArray();
+                if(!Arrays.equals(index.nearest(x, y, k, maxDistance), expected))
+                    ++kNearestErrors;
+
+                int[] within = index.within(x, y, maxDistance);
+                int[] inDisk = ordered.stream().mapToInt(Integer::intValue).sorted().toArray();
+                Arrays.sort(within);
+                if(!Arrays.equals(within, inDisk))
+                    ++withinErrors;
+            }
+        }
+
+        check("index des positions, plus proche différente", nearestErrors, 0, "");
+        check("index des positions, plus proches différentes", kNearestErrors, 0, "");
+        check("index des positions, positions du disque différentes", withinErrors, 0, "");
+    }
+
+    /**
+     * Retourne la distance au carré entre la i-ème position du tableau et le point, calculée
+     * comme par PositionIndex.
+     */
+    private static double distanceSquare(double[] positions, int i, double x, double y) {
+        double deltaX = positions[2 * i] - x, deltaY = positions[2 * i + 1] - y;
+        return deltaX * deltaX + deltaY * deltaY;
+    }
+
+    /**
+     * Retourne le vecteur unitaire de la direction équatoriale donnée.
+     */
+    private static double[] unitVector(double ra, double dec) {
+        return new double[] {cos(dec) * cos(ra), cos(dec) * sin(ra), sin(dec)};
+    }
+
+    /**
+     * Retourne le produit scalaire du i-ème vecteur unitaire du tableau et du vecteur donné.
+     */
+    private static double dot(double[] unitVectors, int i, double[] v) {
+        return unitVectors[3 * i] * v[0] + unitVectors[3 * i + 1] * v[1] + unitVectors[3 * i + 2] * v[2];
+    }
+
+    /**
+     * Retourne le plus grand écart entre les valeurs de l'objet et celles données.
+     */
+    private static double difference(CelestialObject object, double ra, double dec, double size, double magnitude) {
+        return max(max(abs(object.equatorialPos().ra() - ra), abs(object.equatorialPos().dec() - dec)),
+                max(abs(object.angularSize() - size), abs(object.magnitude() - magnitude)));
+    }
+
+    /**
+     * Affiche le résultat d'une vérification, et la marque comme échouée si l'écart
+     * dépasse la limite.
+     *
+     * @param name nom de la vérification.
+     * @param error écart maximal mesuré.
+     * @param limit écart maximal permis.
+     * @param unit unité des écarts.
+     */
+    private static void check(String name, double error, double limit, String unit) {
+        boolean passed = error <= limit;
+        failed |= !passed;
+        System.out.printf(Locale.ROOT, "%-6s %s : %.4g%s (limite %.4g%s)%n",
+                passed ? "OK" : "ÉCHEC", name, error, unit, limit, unit);
+    }
+
+    /**
+     * Retourne l'angle entre deux positions équatoriales (Unité : radians), calculé à partir
+     * de leurs vecteurs unitaires pour rester exact aux très petits angles.
+     */
+    private static double angle(EquatorialCoordinates p, EquatorialCoordinates q) {
+        double px = cos(p.dec()) * cos(p.ra()), py = cos(p.dec()) * sin(p.ra()), pz = sin(p.dec());
+        double qx = cos(q.dec()) * cos(q.ra()), qy = cos(q.dec()) * sin(q.ra()), qz = sin(q.dec());
+        double cx = py * qz - pz * qy, cy = pz * qx - px * qz, cz = px * qy - py * qx;
+        return atan2(sqrt(cx * cx + cy * cy + cz * cz), px * qx + py * qy + pz * qz);
+    }
+}
@@ -6,9 +6,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Chargeur d'astérismes.
@@ -24,13 +22,6 @@ public enum AsterismLoader implements StarCatalogue.Loader {
         try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
              inputStream) {
 
-            Map<Integer, Star> hippOfStars = new HashMap<>();
-            List<Star> starsBuilder = builder.stars();
-
-            for(Star star : starsBuilder) {
-                hippOfStars.put(star.hipparcosId(), star);
-            }
-
             String line = br.readLine();
             String[] parts;
 
@@ -44,7 +35,7 @@ public enum AsterismLoader implements StarCatalogue.Loader {
 
                 for (String hipp : parts) {
                     hipparcos = Integer.parseInt(hipp);
-                    starsInAsterisms.add(hippOfStars.get(hipparcos));
+                    starsInAsterisms.add(builder.starOfHipparcos(hipparcos).orElseThrow());
                 }
 
                 builder.addAsterism(new Asterism(starsInAsterisms));
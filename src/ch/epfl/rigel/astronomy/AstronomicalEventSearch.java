@@ -0,0 +1,353 @@
+package ch.epfl.rigel.astronomy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import ch.epfl.rigel.Preconditions;
+
+import static ch.epfl.rigel.astronomy.StarCatalogue.MOON_NAME;
+import static ch.epfl.rigel.astronomy.StarCatalogue.SUN_NAME;
+import static ch.epfl.rigel.math.Angle.*;
+import static java.lang.Math.*;
+
+/**
+ * Recherche, sur de longues périodes, des conjonctions et oppositions des planètes, des
+ * phases de la Lune et des éclipses possibles de Soleil et de Lune.
+ *
+ * <p>Chaque événement est l'annulation d'un écart de longitude écliptique géocentrique
+ * entre deux astres. Cet écart est échantillonné avec un pas adapté à la vitesse
+ * angulaire maximale des deux astres : tant qu'il est grand, aucun changement de signe
+ * ne peut avoir lieu avant longtemps et le pas est long. Chaque changement de signe est
+ * ensuite affiné par dichotomie. La période est découpée en fenêtres traitées en
+ * parallèle sur un ForkJoinPool.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class AstronomicalEventSearch {
+
+    /**
+     * Types d'événements recherchés.
+     */
+    public enum Type {
+        CONJUNCTION, OPPOSITION, NEW_MOON, FIRST_QUARTER, FULL_MOON, LAST_QUARTER, SOLAR_ECLIPSE, LUNAR_ECLIPSE
+    }
+
+    /**
+     * Latitude écliptique maximale de la Lune, à la nouvelle et à la pleine Lune, pour
+     * qu'une éclipse (éventuellement partielle ou par la pénombre) soit possible (Unité : radians).
+     */
+    private static final double SOLAR_ECLIPSE_LIMIT = ofDeg(1.58), LUNAR_ECLIPSE_LIMIT = ofDeg(1.58);
+
+    /**
+     * Vitesses maximales, en valeur absolue, des longitudes écliptiques géocentriques, avec
+     * une marge d'environ 10 % (Unité : radians par jour). Celles des planètes sont indexées
+     * par ordinal.
+     */
+    private static final double SUN_MAX_RATE = ofDeg(1.1), MOON_MAX_RATE = ofDeg(16.5);
+    private static final double[] PLANET_MAX_RATES = {
+            ofDeg(2.3), ofDeg(1.4), 0, ofDeg(0.9), ofDeg(0.27), ofDeg(0.15), ofDeg(0.07), ofDeg(0.045)
+    };
+
+    /**
+     * Pas d'échantillonnage minimal et précision des instants affinés (Unité : jours).
+     */
+    private static final double MIN_STEP = 1.0 / 24, PRECISION = 1.0 / (24 * 60);
+
+    /**
+     * Durée des fenêtres traitées en parallèle (Unité : jours).
+     */
+    private static final double WINDOW = 365.25;
+
+    private final ForkJoinPool pool;
+    private final List<Track> tracks;
+
+    /**
+     * Construit une recherche exécutée sur le ForkJoinPool commun.
+     */
+    public AstronomicalEventSearch() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construit une recherche exécutée sur le ForkJoinPool donné.
+     *
+     * @param pool ForkJoinPool sur lequel traiter les fenêtres.
+     */
+    public AstronomicalEventSearch(ForkJoinPool pool) {
+        this.pool = pool;
+
+        List<Track> tracks = new ArrayList<>();
+        List<PlanetModel> planets = new ArrayList<>(PlanetModel.ALL);
+        planets.remove(PlanetModel.EARTH);
+        for(int i = 0; i < planets.size(); ++i) {
+            PlanetModel planet = planets.get(i);
+            for(PlanetModel other : planets.subList(i + 1, planets.size()))
+                tracks.add(new Track(Type.CONJUNCTION, planet, other, 0));
+            tracks.add(new Track(Type.CONJUNCTION, planet, SunModel.SUN, 0));
+            if(planet.ordinal() > PlanetModel.EARTH.ordinal())
+                tracks.add(new Track(Type.OPPOSITION, planet, SunModel.SUN, PI));
+        }
+        tracks.add(new Track(Type.NEW_MOON, MoonModel.MOON, SunModel.SUN, 0));
+        tracks.add(new Track(Type.FIRST_QUARTER, MoonModel.MOON, SunModel.SUN, PI / 2));
+        tracks.add(new Track(Type.FULL_MOON, MoonModel.MOON, SunModel.SUN, PI));
+        tracks.add(new Track(Type.LAST_QUARTER, MoonModel.MOON, SunModel.SUN, 3 * PI / 2));
+        this.tracks = List.copyOf(tracks);
+    }
+
+    /**
+     * Retourne les événements de la période donnée, triés par date. Une éclipse possible
+     * suit la nouvelle ou la pleine Lune correspondante.
+     *
+     * @param start début de la période (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param end fin de la période (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @return les événements de la période, triés par date.
+     * @throws IllegalArgumentException si la fin précède le début.
+     */
+    public List<Event> search(long start, long end) {
+        Preconditions.checkArgument(end >= start);
+        double startDays = Epoch.J2010.daysUntil(start);
+        double endDays = Epoch.J2010.daysUntil(end);
+        int windows = (int) ceil((endDays - startDays) / WINDOW);
+
+        List<Event> events = pool.invoke(new WindowTask(tracks, startDays, endDays, 0, windows));
+        events.sort(Comparator.comparingLong(Event::epochMillis));
+        return events;
+    }
+
+    /**
+     * Recherche les événements d'une suite de fenêtres, en la divisant en deux tant
+     * qu'elle contient plus d'une fenêtre.
+     */
+    private static final class WindowTask extends RecursiveTask<List<Event>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Track> tracks;
+        private final double startDays, endDays;
+        private final int from, to;
+
+        private WindowTask(List<Track> tracks, double startDays, double endDays, int from, int to) {
+            this.tracks = tracks;
+            this.startDays = startDays;
+            this.endDays = endDays;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Event> compute() {
+            if(to - from <= 1) {
+                List<Event> events = new ArrayList<>();
+                double w0 = startDays + from * WINDOW;
+                double w1 = min(endDays, w0 + WINDOW);
+                for(Track track : tracks)
+                    track.scan(w0, w1, events);
+                return events;
+            }
+
+            int middle = (from + to) >>> 1;
+            WindowTask left = new WindowTask(tracks, startDays, endDays, from, middle);
+            left.fork();
+            List<Event> events = new WindowTask(tracks, startDays, endDays, middle, to).compute();
+            events.addAll(0, left.join());
+            return events;
+        }
+    }
+
+    /**
+     * Écart de longitude écliptique entre deux astres (moins un décalage), dont les
+     * annulations sont les événements d'un type donné.
+     */
+    private static final class Track {
+
+        private final Type type;
+        private final CelestialObjectModel<?> first, second;
+        private final double offset;
+        private final double maxRate;
+
+        private Track(Type type, CelestialObjectModel<?> first, CelestialObjectModel<?> second, double offset) {
+            this.type = type;
+            this.first = first;
+            this.second = second;
+            this.offset = offset;
+            this.maxRate = maxRate(first) + maxRate(second);
+        }
+
+        /**
+         * Ajoute à events les événements de [w0, w1] (Unité : jours depuis J2010).
+         */
+        private void scan(double w0, double w1, List<Event> events) {
+            double[] a = new double[2], b = new double[2];
+            double t = w0;
+            double f = value(t, a, b);
+
+            while(t < w1) {
+                // L'écart ne peut pas changer de plus de |f| avant next : il ne s'annule pas entre t et next.
+                double next = min(w1, t + max(MIN_STEP, abs(f) / maxRate));
+                double g = value(next, a, b);
+                // Un changement de signe de plus de π est un passage par ±π, et non par 0.
+                if((f < 0) != (g < 0) && abs(g - f) < PI)
+                    addEvents(refine(t, next, f, a, b), a, b, events);
+                t = next;
+                f = g;
+            }
+        }
+
+        /**
+         * Retourne, à PRECISION près, l'instant de [t0, t1] où l'écart change de signe,
+         * sachant qu'il vaut f0 en t0.
+         */
+        private double refine(double t0, double t1, double f0, double[] a, double[] b) {
+            while(t1 - t0 > PRECISION) {
+                double middle = (t0 + t1) / 2;
+                if((value(middle, a, b) < 0) == (f0 < 0))
+                    t0 = middle;
+                else
+                    t1 = middle;
+            }
+            return (t0 + t1) / 2;
+        }
+
+        /**
+         * Ajoute à events l'événement de l'instant donné, suivi de l'éclipse possible
+         * qu'une nouvelle ou une pleine Lune peut entraîner.
+         */
+        private void addEvents(double days, double[] a, double[] b, List<Event> events) {
+            value(days, a, b);
+            long epochMillis = Epoch.J2010.epochMillisAfter(days);
+            double latitudeDifference = a[1] - b[1];
+            events.add(new Event(type, epochMillis, name(first), name(second), latitudeDifference));
+
+            if(type == Type.NEW_MOON && abs(latitudeDifference) < SOLAR_ECLIPSE_LIMIT)
+                events.add(new Event(Type.SOLAR_ECLIPSE, epochMillis, name(first), name(second), latitudeDifference));
+            else if(type == Type.FULL_MOON && abs(latitudeDifference) < LUNAR_ECLIPSE_LIMIT)
+                events.add(new Event(Type.LUNAR_ECLIPSE, epochMillis, name(first), name(second), latitudeDifference));
+        }
+
+        /**
+         * Retourne l'écart de longitude, dans [-π, π[, à l'instant donné, et laisse dans a
+         * et b la longitude et la latitude écliptiques des deux astres.
+         */
+        private double value(double days, double[] a, double[] b) {
+            ecliptic(first, days, a);
+            ecliptic(second, days, b);
+            return normalizePositive(a[0] - b[0] - offset + PI) - PI;
+        }
+    }
+
+    /**
+     * Écrit la longitude et la latitude écliptiques géocentriques de l'astre à l'instant
+     * donné aux index 0 et 1 de lonLat.
+     */
+    private static void ecliptic(CelestialObjectModel<?> model, double days, double[] lonLat) {
+        if(model == SunModel.SUN) {
+            SunModel sun = SunModel.SUN;
+            lonLat[0] = sun.eclipticLongitude(sun.trueAnomaly(sun.meanAnomaly(days)));
+            lonLat[1] = 0;
+        } else if(model == MoonModel.MOON)
+            MoonModel.MOON.eclipticAt(days, lonLat);
+        else
+            ((PlanetModel) model).eclipticAt(days, lonLat);
+    }
+
+    /**
+     * Retourne la vitesse maximale de la longitude écliptique de l'astre (Unité : radians par jour).
+     */
+    private static double maxRate(CelestialObjectModel<?> model) {
+        if(model == SunModel.SUN)
+            return SUN_MAX_RATE;
+        else if(model == MoonModel.MOON)
+            return MOON_MAX_RATE;
+        return PLANET_MAX_RATES[((PlanetModel) model).ordinal()];
+    }
+
+    /**
+     * Retourne le nom de l'astre.
+     */
+    private static String name(CelestialObjectModel<?> model) {
+        if(model == SunModel.SUN)
+            return SUN_NAME;
+        else if(model == MoonModel.MOON)
+            return MOON_NAME;
+        return ((PlanetModel) model).getName();
+    }
+
+    /**
+     * Événement astronomique : instant où la longitude écliptique géocentrique du premier
+     * astre est égale à celle du second, plus un décalage dépendant du type (0 pour une
+     * conjonction ou une nouvelle Lune, π pour une opposition ou une pleine Lune, etc.).
+     */
+    public static final class Event {
+
+        private final Type type;
+        private final long epochMillis;
+        private final String first, second;
+        private final double latitudeDifference;
+
+        private Event(Type type, long epochMillis, String first, String second, double latitudeDifference) {
+            this.type = type;
+            this.epochMillis = epochMillis;
+            this.first = first;
+            this.second = second;
+            this.latitudeDifference = latitudeDifference;
+        }
+
+        /**
+         * Retourne le type de l'événement.
+         *
+         * @return le type de l'événement.
+         */
+        public Type type() {
+            return type;
+        }
+
+        /**
+         * Retourne l'instant de l'événement.
+         *
+         * @return l'instant de l'événement (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+         */
+        public long epochMillis() {
+            return epochMillis;
+        }
+
+        /**
+         * Retourne le nom du premier astre (la planète, ou la Lune pour ses phases et les éclipses).
+         *
+         * @return le nom du premier astre.
+         */
+        public String first() {
+            return first;
+        }
+
+        /**
+         * Retourne le nom du second astre (le Soleil, sauf pour la conjonction de deux planètes).
+         *
+         * @return le nom du second astre.
+         */
+        public String second() {
+            return second;
+        }
+
+        /**
+         * Retourne la latitude écliptique du premier astre moins celle du second à l'instant
+         * de l'événement, c'est-à-dire leur écart au moment d'une conjonction.
+         *
+         * @return la différence de latitude écliptique (Unité : radians).
+         */
+        public double latitudeDifference() {
+            return latitudeDifference;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %s/%s (%s, Δβ=%.4f°)",
+                    type, first, second, Instant.ofEpochMilli(epochMillis), toDeg(latitudeDifference));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Chargeur de catalogue depuis une image binaire produite par CatalogueCompiler.
+ * Les étoiles, astérismes et constellations sont lus directement depuis l'image,
+ * sans analyse de texte.
+ *
+ * <p>Format (gros-boutiste) : en-tête MAGIC, VERSION, taille et somme de contrôle
+ * CRC32 des données, suivies des données : table des noms, colonnes des étoiles,
+ * astérismes (index des étoiles dans l'image) et constellations.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public enum BinaryCatalogueLoader implements StarCatalogue.Loader {
+    INSTANCE();
+
+    static final int MAGIC = 0x5249474C; // "RIGL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES * 3 + Long.BYTES;
+
+    @Override
+    public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
+        try (inputStream) {
+            load(ByteBuffer.wrap(inputStream.readAllBytes()), builder);
+        }
+    }
+
+    /**
+     * Charge l'image binaire du fichier donné, projetée en mémoire, et ajoute son
+     * contenu au catalogue en cours de construction du bâtisseur.
+     *
+     * @param path chemin de l'image binaire.
+     * @param builder bâtisseur de catalogue d'étoiles.
+     * @throws IOException en cas d'erreur d'entrée/sortie ou si l'image n'est pas valide.
+     */
+    public void load(Path path, StarCatalogue.Builder builder) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), builder);
+        }
+    }
+
+    /**
+     * Ajoute le contenu de l'image binaire au catalogue en cours de construction.
+     *
+     * @param image image binaire, lue depuis sa position courante.
+     * @param builder bâtisseur de catalogue d'étoiles.
+     * @throws IOException si l'image n'est pas valide.
+     */
+    private void load(ByteBuffer image, StarCatalogue.Builder builder) throws IOException {
+        ByteBuffer payload = checkedPayload(image);
+
+        // Noms
+        String[] names = new String[payload.getInt()];
+        for(int i = 0; i < names.length; ++i)
+            names[i] = string(payload);
+
+        // Étoiles
+        int count = payload.getInt();
+        int[] hipparcosIds = ints(payload, count);
+        int[] nameIds = ints(payload, count);
+        double[] ra = doubles(payload, count);
+        double[] dec = doubles(payload, count);
+        float[] magnitudes = floats(payload, count);
+        float[] colorIndexes = floats(payload, count);
+
+        int firstStar = builder.stars().size();
+        for(int i = 0; i < count; ++i)
+            builder.addStar(hipparcosIds[i], names[nameIds[i]], ra[i], dec[i], magnitudes[i], colorIndexes[i]);
+
+        // Astérismes
+        List<Star> stars = builder.stars();
+        int asterismCount = payload.getInt();
+        List<Star> starsInAsterism = new ArrayList<>();
+        for(int a = 0; a < asterismCount; ++a) {
+            starsInAsterism.clear();
+            for(int index : ints(payload, payload.getInt()))
+                starsInAsterism.add(stars.get(firstStar + index));
+            builder.addAsterism(new Asterism(starsInAsterism));
+        }
+
+        // Constellations
+        int constellationCount = payload.getInt();
+        for(int c = 0; c < constellationCount; ++c) {
+            String imageName = string(payload);
+            String star1 = string(payload);
+            String star2 = string(payload);
+            double deltaAngle = payload.getDouble();
+            double scaleFactor = payload.getDouble();
+            builder.addConstellation(new Constellation("/" + imageName + ".png", star1, star2,
+                    deltaAngle, scaleFactor));
+        }
+    }
+
+    /**
+     * Vérifie l'en-tête de l'image et retourne ses données.
+     *
+     * @param image image binaire.
+     * @return les données de l'image, dont la somme de contrôle a été vérifiée.
+     * @throws IOException si l'en-tête ou la somme de contrôle n'est pas valide.
+     */
+    private static ByteBuffer checkedPayload(ByteBuffer image) throws IOException {
+        if(image.remaining() < HEADER_SIZE || image.getInt() != MAGIC)
+            throw new IOException("Image de catalogue invalide");
+
+        int version = image.getInt();
+        if(version != VERSION)
+            throw new IOException("Version d'image de catalogue non supportée : " + version);
+
+        int length = image.getInt();
+        long checksum = image.getLong();
+        if(length < 0 || length > image.remaining())
+            throw new IOException("Image de catalogue tronquée");
+
+        ByteBuffer payload = image.slice();
+        payload.limit(length);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if(crc.getValue() != checksum)
+            throw new IOException("Somme de contrôle de l'image de catalogue incorrecte");
+
+        return payload;
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] ints(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static float[] floats(ByteBuffer buffer, int count) {
+        float[] values = new float[count];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + count * Float.BYTES);
+        return values;
+    }
+
+    private static double[] doubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,216 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static ch.epfl.rigel.astronomy.BinaryCatalogueLoader.MAGIC;
+import static ch.epfl.rigel.astronomy.BinaryCatalogueLoader.VERSION;
+
+/**
+ * Compilateur du catalogue HYG, des astérismes et des constellations en une image
+ * binaire lue par BinaryCatalogueLoader.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class CatalogueCompiler {
+
+    private CatalogueCompiler() {}
+
+    /**
+     * Compile les fichiers donnés en arguments : catalogue HYG, astérismes,
+     * constellations, puis image binaire à produire. Avec l'option --tiles :
+     * catalogue au format HYG, astérismes, puis fichier de tuiles à produire.
+     *
+     * @param args chemins des fichiers sources et du fichier à produire.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length == 4 && args[0].equals("--tiles")) {
+            try (InputStream hygStream = Files.newInputStream(Path.of(args[1]));
+                 InputStream asterismStream = Files.newInputStream(Path.of(args[2]));
+                 OutputStream tilesStream = new BufferedOutputStream(Files.newOutputStream(Path.of(args[3])))) {
+                compileTiles(hygStream, asterismStream, tilesStream);
+            }
+            return;
+        }
+
+        if(args.length != 4) {
+            System.err.println("Usage : CatalogueCompiler <hygdata.csv> <asterisms.txt> "
+                    + "<constellation_drawing.txt> <catalogue.bin>");
+            System.err.println("        CatalogueCompiler --tiles <hygdata.csv> <asterisms.txt> <catalogue.tiles>");
+            System.exit(1);
+        }
+
+        try (InputStream hygStream = Files.newInputStream(Path.of(args[0]));
+             InputStream asterismStream = Files.newInputStream(Path.of(args[1]));
+             InputStream constellationStream = Files.newInputStream(Path.of(args[2]));
+             OutputStream imageStream = Files.newOutputStream(Path.of(args[3]))) {
+            compile(hygStream, asterismStream, constellationStream, imageStream);
+        }
+    }
+
+    /**
+     * Compile le catalogue HYG, les astérismes et les constellations en une image binaire.
+     *
+     * @param hygStream flot du catalogue HYG.
+     * @param asterismStream flot des astérismes.
+     * @param constellationStream flot des constellations.
+     * @param imageStream flot dans lequel écrire l'image binaire.
+     * @throws IOException en cas d'erreur d'entrée/sortie, ou si un astérisme
+     *          contient une étoile absente du catalogue.
+     */
+    public static void compile(InputStream hygStream, InputStream asterismStream,
+                               InputStream constellationStream, OutputStream imageStream) throws IOException {
+        List<Star> stars = new StarCatalogue.Builder()
+                .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                .stars();
+        // Les étoiles sont écrites dans l'ordre du catalogue, pour que le chargement n'ait pas à les trier.
+        StarTable table = StarTable.of(stars).sortedByMagnitude();
+
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+
+        // Noms : les étoiles sans nom propre partagent le même nom par constellation.
+        Map<String, Integer> nameIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int[] starNameIds = new int[table.size()];
+        for(int i = 0; i < table.size(); ++i)
+            starNameIds[i] = nameIds.computeIfAbsent(table.name(i), name -> {
+                names.add(name);
+                return names.size() - 1;
+            });
+
+        payload.writeInt(names.size());
+        for(String name : names)
+            writeString(payload, name);
+
+        // Étoiles, par colonnes
+        payload.writeInt(table.size());
+        for(int i = 0; i < table.size(); ++i)
+            payload.writeInt(table.hipparcosId(i));
+        for(int nameId : starNameIds)
+            payload.writeInt(nameId);
+        for(int i = 0; i < table.size(); ++i)
+            payload.writeDouble(table.ra(i));
+        for(int i = 0; i < table.size(); ++i)
+            payload.writeDouble(table.dec(i));
+        for(int i = 0; i < table.size(); ++i)
+            payload.writeFloat(table.magnitude(i));
+        for(int i = 0; i < table.size(); ++i)
+            payload.writeFloat(table.colorIndex(i));
+
+        // Astérismes, sous forme d'index dans la table
+        List<String> asterismLines = lines(asterismStream);
+        payload.writeInt(asterismLines.size());
+        for(String line : asterismLines) {
+            String[] parts = line.split(",");
+            payload.writeInt(parts.length);
+            for(String hipparcos : parts) {
+                int index = table.indexOf(Integer.parseInt(hipparcos));
+                if(index == -1)
+                    throw new IOException("Étoile d'astérisme absente du catalogue : " + hipparcos);
+                payload.writeInt(index);
+            }
+        }
+
+        // Constellations
+        List<String> constellationLines = lines(constellationStream);
+        payload.writeInt(constellationLines.size());
+        for(String line : constellationLines) {
+            String[] parts = line.split(",");
+            writeString(payload, parts[0]);
+            writeString(payload, parts[1]);
+            writeString(payload, parts[2]);
+            payload.writeDouble(Double.parseDouble(parts[3]));
+            payload.writeDouble(Double.parseDouble(parts[4]));
+        }
+        payload.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(payloadBytes.toByteArray());
+
+        DataOutputStream image = new DataOutputStream(imageStream);
+        image.writeInt(MAGIC);
+        image.writeInt(VERSION);
+        image.writeInt(payloadBytes.size());
+        image.writeLong(crc.getValue());
+        payloadBytes.writeTo(image);
+        image.flush();
+    }
+
+    /**
+     * Compile un catalogue au format HYG, éventuellement de plusieurs millions d'étoiles,
+     * en un fichier de tuiles lu par TiledStarFile. Les étoiles des astérismes sont
+     * placées dans le premier niveau, chargé avec le catalogue. Le catalogue est lu par
+     * blocs et ses étoiles réparties au fur et à mesure dans des fichiers temporaires
+     * (voir TiledStarFile.Writer) : il n'est jamais entièrement en mémoire.
+     *
+     * @param hygStream flot du catalogue au format HYG.
+     * @param asterismStream flot des astérismes.
+     * @param tilesStream flot dans lequel écrire le fichier de tuiles.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    public static void compileTiles(InputStream hygStream, InputStream asterismStream,
+                                    OutputStream tilesStream) throws IOException {
+        Set<Integer> asterismStars = new HashSet<>();
+        for(String line : lines(asterismStream))
+            for(String hipparcos : line.split(","))
+                asterismStars.add(Integer.parseInt(hipparcos));
+
+        try (TiledStarFile.Writer writer = new TiledStarFile.Writer(asterismStars::contains,
+                SkyPartition.DEFAULT_CELL_SIZE, TiledStarFile.DEFAULT_LEVEL_LIMITS)) {
+            HygDatabaseLoader.INSTANCE.forEachStar(hygStream, writer::add);
+            writer.writeTo(tilesStream);
+        }
+    }
+
+    /**
+     * Retourne les lignes du flot donné, puis le ferme.
+     *
+     * @param inputStream flot d'entrée.
+     * @return les lignes du flot.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    private static List<String> lines(InputStream inputStream) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
+             inputStream) {
+            String line = br.readLine();
+            while(line != null) {
+                lines.add(line);
+                line = br.readLine();
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Écrit une chaîne encodée en UTF-8, précédée de sa longueur en octets.
+     *
+     * @param output flot de sortie.
+     * @param string chaîne à écrire.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+}
@@ -1,6 +1,8 @@
 package ch.epfl.rigel.astronomy;
 
+import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
 
 /**
  * Interface d'un objet Céleste.
@@ -8,7 +10,7 @@ import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
  * @author Jean-Baptiste Moreau (296189)
  * @author Ali Raed Ben Mustapha (300392)
  */
-public interface CelestialObjectModel<O> {
+public interface CelestialObjectModel<O extends CelestialObject> {
 
     /**
      * Retourne un nouvel objet céleste à une position calculé en fonction de la date à laquelle on veut le voir.
@@ -18,4 +20,48 @@ public interface CelestialObjectModel<O> {
      * @return un nouvel objet céleste de type 'O' à une position calculé en fonction de 'daysSinceJ2010'
      */
     public abstract O at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion);
+
+    /**
+     * Calcule l'objet céleste à chacun des instants donnés et écrit sa position équatoriale,
+     * sa taille angulaire et sa magnitude à l'index correspondant des tableaux donnés. Le
+     * transformateur écliptique vers équatorial de chaque instant est celui de cet instant.
+     *
+     * <p>L'implémentation par défaut appelle at pour chaque instant ; celles des modèles
+     * l'évitent pour ne créer aucun objet par astre.</p>
+     *
+     * @param daysSinceJ2010 instants, en nombre de jours depuis la date J2010.
+     * @param ra tableau des ascensions droites (Unité : radians).
+     * @param dec tableau des déclinaisons (Unité : radians).
+     * @param angularSizes tableau des tailles angulaires (Unité : radians), ou null.
+     * @param magnitudes tableau des magnitudes, ou null.
+     * @throws IllegalArgumentException si un tableau est plus court que celui des instants.
+     */
+    public default void at(double[] daysSinceJ2010, double[] ra, double[] dec,
+                           double[] angularSizes, double[] magnitudes) {
+        checkBatch(daysSinceJ2010, ra, dec, angularSizes, magnitudes);
+
+        for(int i = 0; i < daysSinceJ2010.length; ++i) {
+            O object = at(daysSinceJ2010[i], EclipticToEquatorialConversion.ofDaysSinceJ2010(daysSinceJ2010[i]));
+            EquatorialCoordinates equatorialPos = object.equatorialPos();
+            ra[i] = equatorialPos.ra();
+            dec[i] = equatorialPos.dec();
+            if(angularSizes != null)
+                angularSizes[i] = object.angularSize();
+            if(magnitudes != null)
+                magnitudes[i] = object.magnitude();
+        }
+    }
+
+    /**
+     * Vérifie que les tableaux donnés à at sont assez grands pour les instants.
+     *
+     * @throws IllegalArgumentException si un tableau est plus court que celui des instants.
+     */
+    static void checkBatch(double[] daysSinceJ2010, double[] ra, double[] dec,
+                           double[] angularSizes, double[] magnitudes) {
+        int count = daysSinceJ2010.length;
+        Preconditions.checkArgument(ra.length >= count && dec.length >= count
+                && (angularSizes == null || angularSizes.length >= count)
+                && (magnitudes == null || magnitudes.length >= count));
+    }
 }
@@ -12,13 +12,12 @@ import java.util.Objects;
  */
 public class Constellation {
 
-    private final Image image;
+    private final String imageName;
     private final String star1;
     private final String star2;
-    private final double width;
-    private final double height;
     private final double scaleFactor;
     private final double deltaAngle;
+    private Image image;
 
     /**
      * Constructeur d'une constellation.
@@ -30,24 +29,34 @@ public class Constellation {
      * @param scaleFactor facteur arbitraire.
      */
     public Constellation(String imageName, String star1, String star2, double deltaAngle, double scaleFactor) {
-        image = new Image(Objects.requireNonNull(getClass().getResourceAsStream(imageName)));
+        this.imageName = imageName;
         this.star1 = star1;
         this.star2 = star2;
         this.deltaAngle = deltaAngle;
         this.scaleFactor = scaleFactor;
-        width = image.getWidth();
-        height = image.getHeight();
     }
 
     /**
-     * Retourne l'image de la constellation.
+     * Retourne l'image de la constellation, chargée au premier appel : le catalogue peut
+     * ainsi être utilisé sans la boîte à outils JavaFX.
      *
      * @return l'image de la constellation.
      */
     public Image getImage() {
+        if(image == null)
+            image = new Image(Objects.requireNonNull(getClass().getResourceAsStream(imageName)));
         return image;
     }
 
+    /**
+     * Retourne le nom de la ressource de l'image de la constellation.
+     *
+     * @return le nom de la ressource de l'image.
+     */
+    public String getImageName() {
+        return imageName;
+    }
+
     /**
      * Retourne le nom de l'étoile une.
      *
@@ -90,7 +99,7 @@ public class Constellation {
      * @return la largeur de l'image.
      */
     public double getWidth() {
-        return width;
+        return getImage().getWidth();
     }
 
     /**
@@ -99,6 +108,6 @@ public class Constellation {
      * @return la hauteur de l'image.
      */
     public double getHeight() {
-        return height;
+        return getImage().getHeight();
     }
 }
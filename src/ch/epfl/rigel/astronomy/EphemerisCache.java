@@ -0,0 +1,461 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EclipticCoordinates;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import static ch.epfl.rigel.math.Angle.*;
+import static java.lang.Math.*;
+
+/**
+ * Cache d'éphémérides du Soleil, de la Lune et des planètes.
+ *
+ * <p>Pour chaque astre, le temps est découpé en fenêtres de longueur fixe. Dans chaque
+ * fenêtre, les valeurs du modèle analytique (vecteur unitaire équatorial, taille angulaire,
+ * magnitude...) sont approchées par des polynômes de Tchebychev, calculés au premier usage
+ * de la fenêtre et vérifiés entre leurs nœuds contre le modèle analytique : les positions
+ * obtenues sont à moins de la tolérance de celles du modèle. Si le degré maximal ne suffit
+ * pas, le modèle analytique est utilisé tel quel dans la fenêtre. Les fenêtres les moins
+ * récemment utilisées sont oubliées au-delà de la capacité du cache.</p>
+ *
+ * <p>Le cache peut être utilisé par plusieurs fils : une fenêtre est calculée hors du
+ * verrou du cache, par le premier fil qui en a besoin, et les autres fils qui en ont
+ * besoin attendent son résultat, sans bloquer ceux qui utilisent d'autres fenêtres.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class EphemerisCache {
+
+    /**
+     * Tolérance par défaut sur les positions et tailles angulaires (Unité : radians).
+     */
+    public static final double DEFAULT_TOLERANCE = ofArcsec(1);
+
+    /**
+     * Nombre de fenêtres gardées par défaut, tous astres confondus.
+     */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private static final double MAGNITUDE_TOLERANCE = 0.01;
+    private static final double PHASE_TOLERANCE = 1e-3;
+    private static final int MIN_NODES = 8;
+    private static final int MAX_NODES = 64;
+
+    private final double tolerance;
+    private final Body<?>[] bodies;
+    private final LinkedHashMap<Long, CompletableFuture<Window>> windows;
+
+    /**
+     * Construit un cache d'éphémérides vide.
+     *
+     * @param tolerance écart maximal entre les positions et tailles angulaires du cache et
+     *                  celles des modèles analytiques (Unité : radians).
+     * @param capacity nombre maximal de fenêtres gardées.
+     * @throws IllegalArgumentException si la tolérance ou la capacité n'est pas strictement positive.
+     */
+    public EphemerisCache(double tolerance, int capacity) {
+        Preconditions.checkArgument(tolerance > 0 && capacity > 0);
+        this.tolerance = tolerance;
+
+        PlanetModel[] planets = PlanetModel.values();
+        bodies = new Body<?>[planets.length + 2];
+        bodies[0] = new SunBody();
+        bodies[1] = new MoonBody();
+        for(PlanetModel planet : planets)
+            if(planet != PlanetModel.EARTH)
+                bodies[planet.ordinal() + 2] = new PlanetBody(planet);
+
+        windows = new LinkedHashMap<>(2 * capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<Window>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Construit un cache d'éphémérides vide, de tolérance et capacité par défaut.
+     */
+    public EphemerisCache() {
+        this(DEFAULT_TOLERANCE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Retourne la tolérance du cache (Unité : radians).
+     *
+     * @return la tolérance du cache (Unité : radians).
+     */
+    public double tolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Retourne le Soleil à l'instant donné.
+     *
+     * @param daysSinceJ2010 nombre de jours depuis J2010 (peut être négatif).
+     * @return le Soleil à cet instant.
+     */
+    public Sun sun(double daysSinceJ2010) {
+        return at(bodies[0], daysSinceJ2010);
+    }
+
+    /**
+     * Retourne la Lune à l'instant donné.
+     *
+     * @param daysSinceJ2010 nombre de jours depuis J2010 (peut être négatif).
+     * @return la Lune à cet instant.
+     */
+    public Moon moon(double daysSinceJ2010) {
+        return at(bodies[1], daysSinceJ2010);
+    }
+
+    /**
+     * Retourne la planète à l'instant donné.
+     *
+     * @param planet modèle de la planète, autre que la Terre.
+     * @param daysSinceJ2010 nombre de jours depuis J2010 (peut être négatif).
+     * @return la planète à cet instant.
+     * @throws IllegalArgumentException si la planète est la Terre.
+     */
+    public Planet planet(PlanetModel planet, double daysSinceJ2010) {
+        Preconditions.checkArgument(planet != PlanetModel.EARTH);
+        return at(bodies[planet.ordinal() + 2], daysSinceJ2010);
+    }
+
+    /**
+     * Retourne l'astre à l'instant donné, en calculant sa fenêtre si elle n'est pas
+     * dans le cache, ou en attendant qu'un autre fil ait fini de la calculer.
+     */
+    @SuppressWarnings("unchecked")
+    private <O extends CelestialObject> O at(Body<?> b, double days) {
+        Body<O> body = (Body<O>) b;
+        long index = (long) floor(days / body.windowLength);
+        long key = index * bodies.length + body.id;
+
+        CompletableFuture<Window> future, fitted = null;
+        synchronized (windows) {
+            future = windows.get(key);
+            if(future == null) {
+                fitted = new CompletableFuture<>();
+                future = fitted;
+                windows.put(key, future);
+            }
+        }
+
+        if(fitted != null) {
+            try {
+                fitted.complete(fit(body, index * body.windowLength));
+            } catch (RuntimeException | Error e) {
+                synchronized (windows) {
+                    windows.remove(key, fitted);
+                }
+                fitted.completeExceptionally(e);
+                throw e;
+            }
+        }
+        Window window = future.join();
+
+        if(window.coefficients == null)
+            return body.analytic(days);
+
+        double x = 2 * (days - window.start) / body.windowLength - 1;
+        double[] values = new double[window.coefficients.length];
+        for(int v = 0; v < values.length; ++v)
+            values[v] = clenshaw(window.coefficients[v], x);
+        return body.object(values);
+    }
+
+    /**
+     * Approche les valeurs de l'astre sur la fenêtre commençant à start par des polynômes
+     * de Tchebychev, de degré croissant jusqu'à respecter les tolérances.
+     */
+    private Window fit(Body<?> body, double start) {
+        for(int nodes = MIN_NODES; nodes <= MAX_NODES; nodes *= 2) {
+            double[][] samples = new double[nodes][];
+            for(int k = nodes - 1; k >= 0; --k) {
+                // Les nœuds sont parcourus dans l'ordre chronologique, pour dérouler les angles.
+                double x = cos(PI * (k + 0.5) / nodes);
+                samples[k] = body.values(start + (x + 1) / 2 * body.windowLength);
+                if(k < nodes - 1)
+                    unwrap(body, samples[k + 1], samples[k]);
+            }
+
+            int valueCount = samples[0].length;
+            double[][] coefficients = new double[valueCount][nodes];
+            for(int v = 0; v < valueCount; ++v) {
+                for(int j = 0; j < nodes; ++j) {
+                    double sum = 0;
+                    for(int k = 0; k < nodes; ++k)
+                        sum += samples[k][v] * cos(PI * j * (k + 0.5) / nodes);
+                    coefficients[v][j] = 2 * sum / nodes;
+                }
+                coefficients[v][0] /= 2;
+            }
+
+            if(isAccurate(body, start, coefficients, nodes))
+                return new Window(start, coefficients);
+        }
+        return new Window(start, null);
+    }
+
+    /**
+     * Retourne vrai si et seulement si les polynômes respectent les tolérances aux extrémités
+     * de la fenêtre et entre chaque paire de nœuds consécutifs.
+     */
+    private boolean isAccurate(Body<?> body, double start, double[][] coefficients, int nodes) {
+        double[] fitted = new double[coefficients.length];
+        for(int k = 0; k <= nodes; ++k) {
+            double x = cos(PI * k / nodes);
+            double[] exact = body.values(start + (x + 1) / 2 * body.windowLength);
+            for(int v = 0; v < fitted.length; ++v)
+                fitted[v] = clenshaw(coefficients[v], x);
+
+            if(angle(fitted, exact) > tolerance)
+                return false;
+            for(int v = 3; v < fitted.length; ++v) {
+                double error = fitted[v] - exact[v];
+                if(body.isAngle(v))
+                    error = normalizePositive(error + PI) - PI;
+                if(abs(error) > body.tolerance(v, tolerance))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Déroule les angles de next pour qu'ils diffèrent de moins d'un demi-tour de ceux de previous.
+     */
+    private static void unwrap(Body<?> body, double[] previous, double[] next) {
+        for(int v = 3; v < next.length; ++v)
+            if(body.isAngle(v))
+                next[v] = previous[v] + normalizePositive(next[v] - previous[v] + PI) - PI;
+    }
+
+    /**
+     * Retourne l'angle entre les vecteurs formés des trois premières valeurs.
+     */
+    private static double angle(double[] u, double[] v) {
+        double cx = u[1] * v[2] - u[2] * v[1];
+        double cy = u[2] * v[0] - u[0] * v[2];
+        double cz = u[0] * v[1] - u[1] * v[0];
+        return atan2(sqrt(cx * cx + cy * cy + cz * cz), u[0] * v[0] + u[1] * v[1] + u[2] * v[2]);
+    }
+
+    /**
+     * Évalue la série de Tchebychev de coefficients donnés en x, dans [-1, 1],
+     * par l'algorithme de Clenshaw.
+     */
+    private static double clenshaw(double[] coefficients, double x) {
+        double b1 = 0, b2 = 0;
+        for(int j = coefficients.length - 1; j >= 1; --j) {
+            double b0 = 2 * x * b1 - b2 + coefficients[j];
+            b2 = b1;
+            b1 = b0;
+        }
+        return x * b1 - b2 + coefficients[0];
+    }
+
+    /**
+     * Retourne la position équatoriale correspondant au vecteur formé des trois premières
+     * valeurs, qui n'a pas besoin d'être unitaire.
+     */
+    private static EquatorialCoordinates equatorialPos(double[] values) {
+        double norm = sqrt(values[0] * values[0] + values[1] * values[1] + values[2] * values[2]);
+        return EquatorialCoordinates.of(normalizeAngle(atan2(values[1], values[0])),
+                asin(max(-1, min(1, values[2] / norm))));
+    }
+
+    /**
+     * Retourne l'angle ramené dans [0, 2π[ (normalizePositive peut, par arrondi, retourner 2π).
+     */
+    private static double normalizeAngle(double angle) {
+        double normalized = normalizePositive(angle);
+        return normalized < TAU ? normalized : 0;
+    }
+
+    /**
+     * Fenêtre de temps et coefficients de Tchebychev de chaque valeur, ou null si
+     * le modèle analytique doit être utilisé.
+     */
+    private static final class Window {
+
+        private final double start;
+        private final double[][] coefficients;
+
+        private Window(double start, double[][] coefficients) {
+            this.start = start;
+            this.coefficients = coefficients;
+        }
+    }
+
+    /**
+     * Astre du cache : les trois premières valeurs sont les composantes de son vecteur
+     * unitaire équatorial, suivies de valeurs propres à l'astre.
+     */
+    private abstract static class Body<O extends CelestialObject> {
+
+        private final int id;
+        private final double windowLength;
+
+        /**
+         * @param id index de l'astre dans le cache.
+         * @param windowLength longueur des fenêtres (Unité : jours).
+         */
+        private Body(int id, double windowLength) {
+            this.id = id;
+            this.windowLength = windowLength;
+        }
+
+        /**
+         * Retourne l'astre calculé par le modèle analytique.
+         */
+        abstract O analytic(double daysSinceJ2010);
+
+        /**
+         * Retourne l'astre correspondant aux valeurs données.
+         */
+        abstract O object(double[] values);
+
+        /**
+         * Retourne les valeurs de l'astre propres à l'astre, après son vecteur unitaire.
+         */
+        abstract double[] extraValues(O object);
+
+        /**
+         * Retourne vrai si et seulement si la valeur d'index v est un angle défini à un tour près.
+         */
+        boolean isAngle(int v) {
+            return false;
+        }
+
+        /**
+         * Retourne la tolérance sur la valeur d'index v.
+         */
+        abstract double tolerance(int v, double angleTolerance);
+
+        /**
+         * Retourne les valeurs du modèle analytique à l'instant donné.
+         */
+        double[] values(double daysSinceJ2010) {
+            O object = analytic(daysSinceJ2010);
+            double[] extra = extraValues(object);
+            double[] values = new double[3 + extra.length];
+
+            EquatorialCoordinates equ = object.equatorialPos();
+            values[0] = cos(equ.dec()) * cos(equ.ra());
+            values[1] = cos(equ.dec()) * sin(equ.ra());
+            values[2] = sin(equ.dec());
+            System.arraycopy(extra, 0, values, 3, extra.length);
+            return values;
+        }
+    }
+
+    /**
+     * Soleil : taille angulaire, longitude écliptique et anomalie moyenne.
+     */
+    private static final class SunBody extends Body<Sun> {
+
+        private SunBody() {
+            super(0, 32);
+        }
+
+        @Override
+        Sun analytic(double daysSinceJ2010) {
+            return SunModel.SUN.at(daysSinceJ2010, EclipticToEquatorialConversion.ofDaysSinceJ2010(daysSinceJ2010));
+        }
+
+        @Override
+        Sun object(double[] values) {
+            return new Sun(EclipticCoordinates.of(normalizeAngle(values[4]), 0), equatorialPos(values),
+                    (float) values[3], (float) normalizeAngle(values[5]));
+        }
+
+        @Override
+        double[] extraValues(Sun sun) {
+            return new double[] {sun.angularSize(), sun.eclipticPos().lon(), sun.meanAnomaly()};
+        }
+
+        @Override
+        boolean isAngle(int v) {
+            return v >= 4;
+        }
+
+        @Override
+        double tolerance(int v, double angleTolerance) {
+            return angleTolerance;
+        }
+    }
+
+    /**
+     * Lune : taille angulaire et phase. Le Soleil n'est calculé qu'une fois par instant.
+     */
+    private static final class MoonBody extends Body<Moon> {
+
+        private MoonBody() {
+            super(1, 2);
+        }
+
+        @Override
+        Moon analytic(double daysSinceJ2010) {
+            EclipticToEquatorialConversion conversion =
+                    EclipticToEquatorialConversion.ofDaysSinceJ2010(daysSinceJ2010);
+            return MoonModel.MOON.at(daysSinceJ2010, conversion, SunModel.SUN.at(daysSinceJ2010, conversion));
+        }
+
+        @Override
+        Moon object(double[] values) {
+            return new Moon(equatorialPos(values), (float) values[3], 0, (float) max(0, min(1, values[4])));
+        }
+
+        @Override
+        double[] extraValues(Moon moon) {
+            return new double[] {moon.angularSize(), moon.phase()};
+        }
+
+        @Override
+        double tolerance(int v, double angleTolerance) {
+            return v == 3 ? angleTolerance : PHASE_TOLERANCE;
+        }
+    }
+
+    /**
+     * Planète : taille angulaire et magnitude.
+     */
+    private static final class PlanetBody extends Body<Planet> {
+
+        private final PlanetModel model;
+
+        private PlanetBody(PlanetModel model) {
+            // Les planètes intérieures bougent plus vite dans le ciel.
+            super(model.ordinal() + 2, model.ordinal() <= PlanetModel.MARS.ordinal() ? 8 : 32);
+            this.model = model;
+        }
+
+        @Override
+        Planet analytic(double daysSinceJ2010) {
+            return model.at(daysSinceJ2010, EclipticToEquatorialConversion.ofDaysSinceJ2010(daysSinceJ2010));
+        }
+
+        @Override
+        Planet object(double[] values) {
+            return new Planet(model.getName(), equatorialPos(values), (float) values[3], (float) values[4]);
+        }
+
+        @Override
+        double[] extraValues(Planet planet) {
+            return new double[] {planet.angularSize(), planet.magnitude()};
+        }
+
+        @Override
+        double tolerance(int v, double angleTolerance) {
+            return v == 3 ? angleTolerance : MAGNITUDE_TOLERANCE;
+        }
+    }
+}
@@ -23,6 +23,7 @@ public enum Epoch {
 
     Epoch(ZonedDateTime zonedDateTime) {
         this.zonedDateTime = zonedDateTime;
+        this.epochMillis = zonedDateTime.toInstant().toEpochMilli();
     }
 
     /**
@@ -35,6 +36,7 @@ public enum Epoch {
     private static final double MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
 
     private final ZonedDateTime zonedDateTime;
+    private final long epochMillis;
 
     /**
      * Retourne le nombre de jour qui s'est écoulé depuis cette époque (this).
@@ -57,4 +59,39 @@ public enum Epoch {
     public double julianCenturiesUntil(ZonedDateTime when) {
         return daysUntil(when) / JULIENS_CENTURY;
     }
+
+    /**
+     * Retourne le nombre de jour qui s'est écoulé depuis cette époque (this)
+     * jusqu'à l'instant donné, sans passer par java.time.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @return un double représentant le nombre de jour qui s'est écoulé depuis
+     *          cette époque (this).
+     */
+    public double daysUntil(long epochMillis) {
+        return (epochMillis - this.epochMillis) / MILLIS_PER_DAY;
+    }
+
+    /**
+     * Retourne le nombre de siècles Julien qui s'est écoulé depuis cette époque (this)
+     * jusqu'à l'instant donné, sans passer par java.time.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @return un double représentant le nombre de siècles Julien qui s'est écoulé
+     *          depuis cette époque (this).
+     */
+    public double julianCenturiesUntil(long epochMillis) {
+        return daysUntil(epochMillis) / JULIENS_CENTURY;
+    }
+
+    /**
+     * Retourne l'instant situé le nombre de jours donné après cette époque (this),
+     * à la milli-seconde près.
+     *
+     * @param days nombre de jours (peut être négatif).
+     * @return l'instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     */
+    public long epochMillisAfter(double days) {
+        return epochMillis + Math.round(days * MILLIS_PER_DAY);
+    }
 }
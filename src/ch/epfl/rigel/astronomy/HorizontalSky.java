@@ -0,0 +1,302 @@
+package ch.epfl.rigel.astronomy;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.epfl.rigel.coordinates.*;
+import ch.epfl.rigel.math.RotationMatrix;
+import ch.epfl.rigel.metrics.Metrics;
+import ch.epfl.rigel.metrics.ObservedSkyPhaseEvent;
+import ch.epfl.rigel.metrics.Timer;
+
+import static ch.epfl.rigel.astronomy.StarCatalogue.SUN_NAME;
+
+/**
+ * Ciel en coordonnées horizontales à un instant et depuis un lieu donnés.
+ * Ne dépend pas du centre de la projection, et peut donc être réutilisé
+ * tant que seule la vue change.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class HorizontalSky {
+
+    /**
+     * Écart maximal à l'instant de référence pour lequel le temps sidéral est
+     * obtenu par rotation rigide autour du pôle céleste (Unité : jours).
+     */
+    private static final double MAX_RIGID_ROTATION_DAYS = 1;
+
+    // Chronomètres du calcul du Soleil, de la Lune et des planètes (voir Metrics).
+    private static final Timer SUN_TIMER = Metrics.timer("sky.sun");
+    private static final Timer MOON_TIMER = Metrics.timer("sky.moon");
+    private static final Timer PLANETS_TIMER = Metrics.timer("sky.planets");
+
+    private final StarCatalogue catalogue;
+    private final EphemerisCache ephemerides;
+    private final GeographicCoordinates where;
+    private final double daysSinceJ2010;
+    private final Sun sun;
+    private final Moon moon;
+    private final List<Planet> planets;
+    private final HorizontalCoordinates sunPosition, moonPosition;
+    private final List<HorizontalCoordinates> planetsPositions;
+    private final EquatorialToHorizontalConversion equatorialToHorizontal;
+    private final RotationMatrix starsRotation;
+    private final HorizontalSky reference;
+
+    /**
+     * Construit le ciel en coordonnées horizontales.
+     *
+     * @param when année, mois, jour, heure, fuseau horaire.
+     * @param where position d'observation.
+     * @param catalogue catalogue contenant les étoiles et les astérismes.
+     */
+    public HorizontalSky(ZonedDateTime when, GeographicCoordinates where, StarCatalogue catalogue) {
+        this(when.toInstant().toEpochMilli(), where, catalogue);
+    }
+
+    /**
+     * Construit le ciel en coordonnées horizontales à un instant exprimé en
+     * milli-secondes, sans passer par java.time.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param where position d'observation.
+     * @param catalogue catalogue contenant les étoiles et les astérismes.
+     */
+    public HorizontalSky(long epochMillis, GeographicCoordinates where, StarCatalogue catalogue) {
+        this(epochMillis, where, catalogue, null);
+    }
+
+    /**
+     * Construit le ciel en coordonnées horizontales à un instant exprimé en milli-secondes,
+     * en obtenant le Soleil, la Lune et les planètes du cache d'éphémérides donné. Les
+     * ciels obtenus par at utilisent le même cache.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param where position d'observation.
+     * @param catalogue catalogue contenant les étoiles et les astérismes.
+     * @param ephemerides cache d'éphémérides, ou null pour utiliser les modèles analytiques.
+     */
+    public HorizontalSky(long epochMillis, GeographicCoordinates where, StarCatalogue catalogue,
+                         EphemerisCache ephemerides) {
+        this(epochMillis, where, catalogue, ephemerides,
+                EquatorialToHorizontalConversion.ofEpochMillis(epochMillis, where), null);
+    }
+
+    /**
+     * Construit le ciel en coordonnées horizontales à partir d'un transformateur déjà calculé.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param where position d'observation.
+     * @param catalogue catalogue contenant les étoiles et les astérismes.
+     * @param ephemerides cache d'éphémérides, ou null.
+     * @param equatorialToHorizontal transformateur équatorial vers horizontal à l'instant epochMillis.
+     * @param reference ciel de référence dont le temps sidéral a été avancé, ou null.
+     */
+    private HorizontalSky(long epochMillis, GeographicCoordinates where, StarCatalogue catalogue,
+                          EphemerisCache ephemerides, EquatorialToHorizontalConversion equatorialToHorizontal,
+                          HorizontalSky reference) {
+        this.catalogue = catalogue;
+        this.ephemerides = ephemerides;
+        this.where = where;
+        this.equatorialToHorizontal = equatorialToHorizontal;
+        this.starsRotation = equatorialToHorizontal.rotationMatrix();
+        this.reference = reference == null ? this : reference;
+
+        daysSinceJ2010 = Epoch.J2010.daysUntil(epochMillis);
+        EclipticToEquatorialConversion eclipticToEquatorial = ephemerides == null
+                ? new EclipticToEquatorialConversion(epochMillis)
+                : null;
+
+        // Pour le Soleil
+        long start = System.nanoTime();
+        ObservedSkyPhaseEvent event = new ObservedSkyPhaseEvent(SUN_TIMER.name());
+        sun = ephemerides == null
+                ? SunModel.SUN.at(daysSinceJ2010, eclipticToEquatorial)
+                : ephemerides.sun(daysSinceJ2010);
+        sunPosition = equatorialToHorizontal.apply(sun.equatorialPos());
+        SUN_TIMER.commit(event, start);
+
+        // Pour la Lune (le Soleil n'est pas recalculé)
+        start = System.nanoTime();
+        event = new ObservedSkyPhaseEvent(MOON_TIMER.name());
+        moon = ephemerides == null
+                ? MoonModel.MOON.at(daysSinceJ2010, eclipticToEquatorial, sun)
+                : ephemerides.moon(daysSinceJ2010);
+        moonPosition = equatorialToHorizontal.apply(moon.equatorialPos());
+        MOON_TIMER.commit(event, start);
+
+        // Pour les planètes
+        start = System.nanoTime();
+        event = new ObservedSkyPhaseEvent(PLANETS_TIMER.name());
+        List<Planet> planets = new ArrayList<>();
+        List<HorizontalCoordinates> planetsPositions = new ArrayList<>();
+        Planet currentPlanet;
+
+        for(PlanetModel planet : PlanetModel.values())
+        {
+            if (planet == PlanetModel.EARTH)
+                continue;
+
+            currentPlanet = ephemerides == null
+                    ? planet.at(daysSinceJ2010, eclipticToEquatorial)
+                    : ephemerides.planet(planet, daysSinceJ2010);
+            planets.add(currentPlanet);
+            planetsPositions.add(equatorialToHorizontal.apply(currentPlanet.equatorialPos()));
+        }
+        this.planets = List.copyOf(planets);
+        this.planetsPositions = List.copyOf(planetsPositions);
+        PLANETS_TIMER.commit(event, start);
+    }
+
+    /**
+     * Retourne le ciel en coordonnées horizontales à l'instant et au lieu donnés,
+     * pour le même catalogue. Si le lieu n'a pas changé et que l'instant est proche,
+     * le temps sidéral local est avancé à partir de celui du ciel de référence
+     * (rotation rigide autour du pôle céleste) au lieu d'être recalculé depuis
+     * l'instant ; seuls le Soleil, la Lune et les planètes sont recalculés.
+     *
+     * @param when année, mois, jour, heure, fuseau horaire.
+     * @param where position d'observation.
+     * @return le ciel en coordonnées horizontales à l'instant et au lieu donnés.
+     */
+    public HorizontalSky at(ZonedDateTime when, GeographicCoordinates where) {
+        return at(when.toInstant().toEpochMilli(), where);
+    }
+
+    /**
+     * Retourne le ciel en coordonnées horizontales à l'instant, exprimé en milli-secondes,
+     * et au lieu donnés, pour le même catalogue (voir at(ZonedDateTime, GeographicCoordinates)).
+     * N'utilise pas java.time, et peut donc être appelée à chaque image d'une animation.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param where position d'observation.
+     * @return le ciel en coordonnées horizontales à l'instant et au lieu donnés.
+     */
+    public HorizontalSky at(long epochMillis, GeographicCoordinates where) {
+        boolean sameLocation = where.lon() == this.where.lon() && where.lat() == this.where.lat();
+        double elapsedDays = Epoch.J2010.daysUntil(epochMillis) - reference.daysSinceJ2010;
+
+        if(!sameLocation || Math.abs(elapsedDays) > MAX_RIGID_ROTATION_DAYS)
+            return new HorizontalSky(epochMillis, where, catalogue, ephemerides);
+
+        EquatorialToHorizontalConversion equatorialToHorizontal = new EquatorialToHorizontalConversion(
+                reference.equatorialToHorizontal.localSiderealTime() + SiderealTime.advanceDuring(elapsedDays),
+                where);
+        return new HorizontalSky(epochMillis, where, catalogue, ephemerides, equatorialToHorizontal, reference);
+    }
+
+    /**
+     * Retourne le catalogue utilisé.
+     *
+     * @return le catalogue utilisé.
+     */
+    public StarCatalogue catalogue() {
+        return catalogue;
+    }
+
+    /**
+     * Retourne la position d'observation.
+     *
+     * @return la position d'observation.
+     */
+    public GeographicCoordinates where() {
+        return where;
+    }
+
+    /**
+     * Retourne le Soleil.
+     *
+     * @return le Soleil.
+     */
+    public Sun sun() {
+        return sun;
+    }
+
+    /**
+     * Retourne la position du Soleil en coordonnées horizontales.
+     *
+     * @return la position du Soleil en coordonnées horizontales.
+     */
+    public HorizontalCoordinates sunPosition() {
+        return sunPosition;
+    }
+
+    /**
+     * Retourne la Lune.
+     *
+     * @return la Lune.
+     */
+    public Moon moon() {
+        return moon;
+    }
+
+    /**
+     * Retourne la position de la Lune en coordonnées horizontales.
+     *
+     * @return la position de la Lune en coordonnées horizontales.
+     */
+    public HorizontalCoordinates moonPosition() {
+        return moonPosition;
+    }
+
+    /**
+     * Retourne la liste des sept planètes extraterrestres du système solaire.
+     *
+     * @return la liste des sept planètes extraterrestres.
+     */
+    public List<Planet> planets() {
+        return planets;
+    }
+
+    /**
+     * Retourne les positions en coordonnées horizontales des sept planètes
+     * extraterrestres, dans le même ordre que planets().
+     *
+     * @return les positions en coordonnées horizontales des planètes.
+     */
+    public List<HorizontalCoordinates> planetsPositions() {
+        return planetsPositions;
+    }
+
+    /**
+     * Retourne la rotation qui transforme les vecteurs unitaires équatoriaux des étoiles
+     * du catalogue en vecteurs horizontaux (nord, est, zénith). Les étoiles ne sont
+     * ainsi tournées qu'une fois, lors de la projection.
+     *
+     * @return la rotation des coordonnées équatoriales vers horizontales.
+     */
+    RotationMatrix starsRotation() {
+        return starsRotation;
+    }
+
+    /**
+     * Retourne les coordonnées horizontales de l'objet céleste.
+     *
+     * @param name nom de l'objet céleste.
+     * @return les coordonnées horizontales de l'objet céleste.
+     */
+    public HorizontalCoordinates horizontalPosition(String name) {
+        HorizontalCoordinates horizontalCoordinates;
+
+        if(catalogue.isStarPresent(name)) {
+            Star star = catalogue.getStar(name);
+            horizontalCoordinates = equatorialToHorizontal.apply(star.equatorialPos());
+
+        } else if(catalogue.isPlanetPresent(name)) {
+            horizontalCoordinates = null;
+            for(int i = 0; i < planets.size(); ++i)
+                if(planets.get(i).name().equals(name))
+                    horizontalCoordinates = planetsPositions.get(i);
+
+        } else if(name.equals(SUN_NAME)) {
+            horizontalCoordinates = sunPosition;
+
+        } else  {
+            horizontalCoordinates = moonPosition;
+        }
+        return horizontalCoordinates;
+    }
+}
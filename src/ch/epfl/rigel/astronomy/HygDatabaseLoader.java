@@ -1,12 +1,15 @@
 package ch.epfl.rigel.astronomy;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-
-import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static ch.epfl.rigel.math.Angle.normalizePositive;
 import static java.lang.Double.parseDouble;
@@ -14,6 +17,29 @@ import static java.lang.Double.parseDouble;
 public enum HygDatabaseLoader implements StarCatalogue.Loader {
     INSTANCE();
 
+    /**
+     * Taille minimale d'un morceau du fichier analysé par une tâche (Unité : octets).
+     */
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Taille des blocs du fichier lus puis analysés d'un coup (Unité : octets).
+     */
+    private static final int BLOCK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Nombre de morceaux par fil du fork-join pool.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Puissances de dix représentables exactement par un double.
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     private enum HygColumns{
         ID, HIP, HD, HR, GL, BF, PROPER, RA, DEC, DIST, PMRA, PMDEC,
         RV, MAG, ABSMAG, SPECT, CI, X, Y, Z, VX, VY, VZ,
@@ -21,56 +47,350 @@ public enum HygDatabaseLoader implements StarCatalogue.Loader {
         COMP, COMP_PRIMARY, BASE, LUM, VAR, VAR_MIN, VAR_MAX;
     }
 
+    /**
+     * Nombre de colonnes lues : les colonnes suivant CON ne sont pas utilisées.
+     */
+    private static final int COLUMN_COUNT = HygColumns.CON.ordinal() + 1;
+
+    /**
+     * Nombre maximal de chiffres significatifs convertis sans parseDouble.
+     */
+    private static final int MAX_FAST_DIGITS = 18;
+
+    /**
+     * Retourne le double le plus proche de mantissa / 10^decimals, ou NaN s'il ne
+     * peut pas être déterminé avec certitude.
+     *
+     * Si la mantisse est représentable exactement, une seule division arrondie suffit.
+     * Sinon, le quotient approché q est corrigé tant que l'erreur exacte
+     * mantissa - q * 10^decimals (calculée avec fma) n'est pas inférieure à un
+     * demi-ulp, du côté de l'erreur : sous une puissance de deux, l'ulp du double
+     * précédent est la moitié de celui de q. Les cas trop proches d'un milieu sont
+     * rendus à parseDouble.
+     *
+     * @param mantissa chiffres significatifs, au plus 18.
+     * @param decimals nombre de décimales, au plus 22.
+     * @return le double le plus proche, ou NaN.
+     */
+    private static double decimal(long mantissa, int decimals) {
+        double power = EXACT_POWERS_OF_TEN[decimals];
+        if(mantissa < 1L << 53)
+            return mantissa / power;
+
+        double high = mantissa;
+        long low = mantissa - (long) high;
+        double quotient = high / power;
+
+        for(int step = 0; step < 2; ++step) {
+            double product = quotient * power;
+            double productLow = Math.fma(quotient, power, -product);
+            double error = (high - product) - productLow + low;
+            double ulp = error < 0 ? Math.ulp(Math.nextDown(quotient)) : Math.ulp(quotient);
+            double halfUlp = ulp * power / 2;
+
+            if(Math.abs(error) < halfUlp * (1 - 1e-9))
+                return quotient;
+            if(Math.abs(error) <= halfUlp * (1 + 1e-9))
+                break;
+            quotient = error > 0 ? Math.nextUp(quotient) : Math.nextDown(quotient);
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Destinataire des étoiles lues par forEachStar.
+     */
+    @FunctionalInterface
+    interface StarSink {
+
+        /**
+         * Reçoit une étoile du fichier.
+         *
+         * @param hipparcosId le numéro Hipparcos de l'étoile.
+         * @param name le nom de l'étoile.
+         * @param ra l'ascension droite de l'étoile (Unité : radians).
+         * @param dec la déclinaison de l'étoile (Unité : radians).
+         * @param magnitude la magnitude de l'étoile.
+         * @param colorIndex l'indice de couleur de l'étoile.
+         * @throws IOException en cas d'erreur d'entrée/sortie.
+         */
+        void accept(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex)
+                throws IOException;
+    }
+
     @Override
     public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
-             inputStream) {
-            br.readLine();
-            String line = br.readLine();
+        forEachStar(inputStream, builder::addStar);
+    }
 
-            String[] parts;
-            Star star;
-            String name;
-            double rarad, decrad;
-
-            while (line != null){
-                parts = line.split(",");
-
-                if (parts[HygColumns.PROPER.ordinal()].equals("")) {
-                    name = parts[HygColumns.CON.ordinal()];
-                    if (parts[HygColumns.BAYER.ordinal()].equals(""))
-                        name = "? " + name;
-                    else
-                        name = parts[HygColumns.BAYER.ordinal()] + " " + name;
-                } else
-                    name = parts[HygColumns.PROPER.ordinal()];
-
-                rarad = normalizePositive(
-                        parseDouble(parts[HygColumns.RARAD.ordinal()])
-                );
-                decrad = parseDouble(parts[HygColumns.DECRAD.ordinal()]);
-
-                star = new Star(
-                        (int) conversionToNumbers(parts[HygColumns.HIP.ordinal()]),
-                        name,
-                        EquatorialCoordinates.of(rarad, decrad),
-                        conversionToNumbers(parts[HygColumns.MAG.ordinal()]),
-                        conversionToNumbers(parts[HygColumns.CI.ordinal()])
-                );
-                builder.addStar(star);
-
-                line = br.readLine();
+    /**
+     * Lit les étoiles du flot au format HYG, puis le ferme, et les passe une à une, dans
+     * l'ordre du fichier, au destinataire. Le fichier est lu par blocs d'environ BLOCK_SIZE
+     * octets, coupés à des fins de lignes : seul un bloc est en mémoire à la fois, quelle
+     * que soit la taille du fichier. Chaque bloc est découpé en morceaux analysés en
+     * parallèle sans découper les lignes en chaînes.
+     *
+     * @param inputStream flot d'entrée.
+     * @param sink destinataire des étoiles.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    void forEachStar(InputStream inputStream, StarSink sink) throws IOException {
+        // Les noms des étoiles sans nom propre ni désignation de Bayer ne dépendent que
+        // de la constellation : on partage une seule chaîne par constellation, retrouvée
+        // à partir des octets de son abréviation.
+        Map<Integer, String> unnamedStars = new ConcurrentHashMap<>();
+
+        try (inputStream) {
+            byte[] block = new byte[BLOCK_SIZE];
+            int length = 0;
+            boolean firstBlock = true;
+            boolean lastBlock = false;
+            while(!lastBlock) {
+                length += inputStream.readNBytes(block, length, block.length - length);
+                lastBlock = length < block.length;
+
+                // Le bloc s'arrête après sa dernière ligne complète ; une ligne plus longue
+                // que le bloc l'agrandit.
+                int end = lastBlock ? length : lastLineEnd(block, length);
+                if(end == 0 && !lastBlock) {
+                    block = Arrays.copyOf(block, 2 * block.length);
+                    continue;
+                }
+
+                // La première ligne contient le nom des colonnes.
+                int start = firstBlock ? nextLine(block, 0, end) : 0;
+                firstBlock = false;
+                for(Chunk chunk : chunks(block, start, end, unnamedStars))
+                    for(int i = 0; i < chunk.size; ++i)
+                        sink.accept(chunk.hipparcosIds[i], chunk.names[i], chunk.ra[i], chunk.dec[i],
+                                chunk.magnitudes[i], chunk.colorIndexes[i]);
+
+                System.arraycopy(block, end, block, 0, length - end);
+                length -= end;
             }
+        }
+    }
+
+    /**
+     * Analyse en parallèle les lignes de data comprises entre start et end, et retourne
+     * les morceaux obtenus dans l'ordre du fichier.
+     */
+    private static List<Chunk> chunks(byte[] data, int start, int end, Map<Integer, String> unnamedStars) {
+        int[] bounds = chunkBounds(data, start, end);
+        return IntStream.range(0, bounds.length - 1)
+                .parallel()
+                .mapToObj(i -> new Chunk(data, bounds[i], bounds[i + 1], unnamedStars))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retourne les limites des morceaux des données, chacune au début d'une ligne.
+     *
+     * @param data données du fichier.
+     * @param start début de la première ligne d'étoile.
+     * @param end fin des données.
+     * @return les limites des morceaux, de start à end.
+     */
+    private static int[] chunkBounds(byte[] data, int start, int end) {
+        int chunkCount = CHUNKS_PER_THREAD * ForkJoinPool.getCommonPoolParallelism();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, (end - start) / Math.max(chunkCount, 1) + 1);
 
+        int[] bounds = new int[2];
+        int count = 0;
+        bounds[count++] = start;
+        int bound = start;
+        while(bound < end) {
+            bound = nextLine(data, Math.min((long) bound + chunkSize, end), end);
+            if(count == bounds.length)
+                bounds = Arrays.copyOf(bounds, 2 * count);
+            bounds[count++] = bound;
         }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Retourne l'indice du début de la ligne suivant la position donnée, ou end s'il
+     * n'y en a pas avant end.
+     */
+    private static int nextLine(byte[] data, long position, int end) {
+        int i = (int) position;
+        while(i < end && data[i] != '\n')
+            ++i;
+        return Math.min(i + 1, end);
+    }
 
+    /**
+     * Retourne l'indice suivant la dernière fin de ligne des length premiers octets, ou
+     * 0 s'ils n'en contiennent pas.
+     */
+    private static int lastLineEnd(byte[] data, int length) {
+        int i = length;
+        while(i > 0 && data[i - 1] != '\n')
+            --i;
+        return i;
     }
 
-    private float conversionToNumbers(String string) {
-        if(string.equals(""))
-            return 0;
-        else
-            return (float) parseDouble(string);
+    /**
+     * Étoiles d'un morceau du fichier, stockées par colonnes.
+     */
+    private static final class Chunk {
+
+        private final byte[] data;
+        private final int[] fieldStarts, fieldEnds;
+        private int size;
+        private int[] hipparcosIds;
+        private String[] names;
+        private double[] ra, dec;
+        private float[] magnitudes, colorIndexes;
+
+        /**
+         * Analyse les lignes de data comprises entre start et end.
+         */
+        private Chunk(byte[] data, int start, int end, Map<Integer, String> unnamedStars) {
+            this.data = data;
+            fieldStarts = new int[COLUMN_COUNT];
+            fieldEnds = new int[COLUMN_COUNT];
+
+            int capacity = Math.max(16, (end - start) / 200);
+            hipparcosIds = new int[capacity];
+            names = new String[capacity];
+            ra = new double[capacity];
+            dec = new double[capacity];
+            magnitudes = new float[capacity];
+            colorIndexes = new float[capacity];
+
+            int lineStart = start;
+            while(lineStart < end) {
+                int lineEnd = lineStart;
+                while(lineEnd < end && data[lineEnd] != '\n')
+                    ++lineEnd;
+                int next = lineEnd + 1;
+                if(lineEnd > lineStart && data[lineEnd - 1] == '\r')
+                    --lineEnd;
+
+                if(lineEnd > lineStart)
+                    addLine(lineStart, lineEnd, unnamedStars);
+                lineStart = next;
+            }
+        }
+
+        /**
+         * Ajoute l'étoile de la ligne [start, end[.
+         */
+        private void addLine(int start, int end, Map<Integer, String> unnamedStars) {
+            Arrays.fill(fieldStarts, end);
+            Arrays.fill(fieldEnds, end);
+
+            int field = 0;
+            fieldStarts[0] = start;
+            for(int i = start; i < end && field < COLUMN_COUNT; ++i)
+                if(data[i] == ',') {
+                    fieldEnds[field++] = i;
+                    if(field < COLUMN_COUNT)
+                        fieldStarts[field] = i + 1;
+                }
+
+            String name;
+            if (isEmpty(HygColumns.PROPER)) {
+                if (isEmpty(HygColumns.BAYER))
+                    name = length(HygColumns.CON) <= 3
+                            ? unnamedStars.computeIfAbsent(key(HygColumns.CON), k -> "? " + string(HygColumns.CON))
+                            : "? " + string(HygColumns.CON);
+                else
+                    name = string(HygColumns.BAYER) + " " + string(HygColumns.CON);
+            } else
+                name = string(HygColumns.PROPER);
+
+            if(size == hipparcosIds.length)
+                grow();
+
+            hipparcosIds[size] = (int) number(HygColumns.HIP);
+            names[size] = name;
+            ra[size] = normalizePositive(number(HygColumns.RARAD));
+            dec[size] = number(HygColumns.DECRAD);
+            magnitudes[size] = (float) number(HygColumns.MAG);
+            colorIndexes[size] = (float) number(HygColumns.CI);
+            ++size;
+        }
+
+        /**
+         * Retourne une clé identifiant le contenu d'une colonne d'au plus trois
+         * octets : sa longueur suivie de ses octets.
+         */
+        private int key(HygColumns column) {
+            int start = fieldStarts[column.ordinal()];
+            int key = length(column);
+            for(int i = start; i < fieldEnds[column.ordinal()]; ++i)
+                key = key << 8 | (data[i] & 0xFF);
+            return key;
+        }
+
+        private int length(HygColumns column) {
+            return fieldEnds[column.ordinal()] - fieldStarts[column.ordinal()];
+        }
+
+        private boolean isEmpty(HygColumns column) {
+            return fieldStarts[column.ordinal()] == fieldEnds[column.ordinal()];
+        }
+
+        private String string(HygColumns column) {
+            int start = fieldStarts[column.ordinal()];
+            return new String(data, start, fieldEnds[column.ordinal()] - start, StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Retourne la valeur numérique de la colonne, ou 0 si elle est vide.
+         * Les nombres décimaux simples d'au plus 18 chiffres significatifs sont
+         * convertis sans chaîne intermédiaire, avec le même résultat que parseDouble
+         * (voir decimal) ; les autres, dont ceux sans aucun chiffre, sont confiés à
+         * parseDouble, qui lève NumberFormatException s'ils sont mal formés.
+         */
+        private double number(HygColumns column) {
+            int start = fieldStarts[column.ordinal()];
+            int end = fieldEnds[column.ordinal()];
+            if(start == end)
+                return 0;
+
+            int i = start;
+            boolean negative = data[i] == '-';
+            if(negative || data[i] == '+')
+                ++i;
+
+            long mantissa = 0;
+            int digits = 0, decimals = 0;
+            boolean point = false, anyDigit = false;
+            for(; i < end; ++i) {
+                byte c = data[i];
+                if(c >= '0' && c <= '9') {
+                    anyDigit = true;
+                    if(mantissa != 0 || c != '0')
+                        ++digits;
+                    if(digits <= MAX_FAST_DIGITS)
+                        mantissa = 10 * mantissa + (c - '0');
+                    if(point)
+                        ++decimals;
+                } else if(c == '.' && !point)
+                    point = true;
+                else
+                    break;
+            }
+
+            double value;
+            if(i < end || !anyDigit || digits > MAX_FAST_DIGITS || decimals >= EXACT_POWERS_OF_TEN.length
+                    || Double.isNaN(value = decimal(mantissa, decimals)))
+                return parseDouble(string(column));
+            return negative ? -value : value;
+        }
+
+        private void grow() {
+            int capacity = 2 * hipparcosIds.length;
+            hipparcosIds = Arrays.copyOf(hipparcosIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            ra = Arrays.copyOf(ra, capacity);
+            dec = Arrays.copyOf(dec, capacity);
+            magnitudes = Arrays.copyOf(magnitudes, capacity);
+            colorIndexes = Arrays.copyOf(colorIndexes, capacity);
+        }
     }
 
 }
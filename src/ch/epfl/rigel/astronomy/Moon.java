@@ -37,6 +37,15 @@ public final class Moon extends CelestialObject {
         this.phase = (float) checkInInterval(INTERVAL_PHASE, phase);
     }
 
+    /**
+     * Retourne la phase de la Lune.
+     *
+     * @return la phase de la Lune (comprise entre 0 et 1).
+     */
+    public double phase() {
+        return phase;
+    }
+
     @Override
     public String info() {
         return String.format(Locale.ROOT, name() + " (%.1f%%)", phase * 100);
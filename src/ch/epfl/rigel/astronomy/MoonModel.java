@@ -27,6 +27,11 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
 
     private static final double THETA_0 = ofDeg(0.5181);
 
+    /**
+     * Index des valeurs calculées par state.
+     */
+    private static final int LON = 0, LAT = 1, ANGULAR_SIZE = 2, PHASE = 3, STATE_SIZE = 4;
+
     /**
      * Longitude moyenne de la Lune (Unité : radians).
      */
@@ -73,14 +78,90 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
 
     @Override
     public Moon at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion) {
+        return at(daysSinceJ2010, eclipticToEquatorialConversion,
+                SunModel.SUN.at(daysSinceJ2010, eclipticToEquatorialConversion));
+    }
+
+    /**
+     * Retourne la Lune à l'instant donné, à partir du Soleil déjà calculé au même instant.
+     *
+     * @param daysSinceJ2010 nombre de jours depuis la date J2010 (peut être négatif).
+     * @param eclipticToEquatorialConversion transformateur de coordonnées écliptiques en coordonnées équatoriales.
+     * @param sun le Soleil au même instant.
+     * @return la Lune à l'instant donné.
+     */
+    public Moon at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion, Sun sun) {
+        double[] state = new double[STATE_SIZE];
+        state(daysSinceJ2010, sun.eclipticPos().lon(), sun.meanAnomaly(), state);
+
+        EquatorialCoordinates equatorialPos = eclipticToEquatorialConversion.apply(
+                EclipticCoordinates.of(state[LON], state[LAT]));
+
+        return new Moon(
+                equatorialPos,
+                (float) state[ANGULAR_SIZE],
+                0,
+                (float) state[PHASE]
+        );
+    }
+
+    /**
+     * Calcule la Lune à chacun des instants donnés, sans créer d'objet par instant autre
+     * que le transformateur écliptique vers équatorial. La longitude et l'anomalie moyenne
+     * du Soleil, seules utiles, sont calculées sans construire le Soleil.
+     */
+    @Override
+    public void at(double[] daysSinceJ2010, double[] ra, double[] dec, double[] angularSizes, double[] magnitudes) {
+        CelestialObjectModel.checkBatch(daysSinceJ2010, ra, dec, angularSizes, magnitudes);
+
+        double[] state = new double[STATE_SIZE];
+        for(int i = 0; i < daysSinceJ2010.length; ++i) {
+            double days = daysSinceJ2010[i];
+            double MO = SunModel.SUN.meanAnomaly(days);
+            double lambdaO = SunModel.SUN.eclipticLongitude(SunModel.SUN.trueAnomaly(MO));
+            // Comme Sun, qui garde son anomalie moyenne en float.
+            state(days, lambdaO, (float) MO, state);
+
+            EclipticToEquatorialConversion.ofDaysSinceJ2010(days).apply(state[LON], state[LAT], ra, dec, i);
+            if(angularSizes != null)
+                angularSizes[i] = state[ANGULAR_SIZE];
+            if(magnitudes != null)
+                magnitudes[i] = 0;
+        }
+    }
+
+    /**
+     * Calcule la longitude et la latitude écliptiques de la Lune à l'instant donné, et les
+     * écrit aux index 0 et 1 de lonLat.
+     *
+     * @param daysSinceJ2010 nombre de jours depuis la date J2010 (peut être négatif).
+     * @param lonLat tableau dans lequel écrire la longitude et la latitude (Unité : radians).
+     */
+    void eclipticAt(double daysSinceJ2010, double[] lonLat) {
+        double MO = SunModel.SUN.meanAnomaly(daysSinceJ2010);
+        double lambdaO = SunModel.SUN.eclipticLongitude(SunModel.SUN.trueAnomaly(MO));
+
+        double[] state = new double[STATE_SIZE];
+        state(daysSinceJ2010, lambdaO, (float) MO, state);
+        lonLat[0] = state[LON];
+        lonLat[1] = state[LAT];
+    }
+
+    /**
+     * Calcule la longitude et la latitude écliptiques, la taille angulaire et la phase de la
+     * Lune à l'instant donné, à partir de la longitude écliptique et de l'anomalie moyenne du
+     * Soleil au même instant, et les écrit dans state (voir LON, LAT, ANGULAR_SIZE et PHASE).
+     *
+     * @param daysSinceJ2010 nombre de jours depuis la date J2010 (peut être négatif).
+     * @param lambdaO longitude écliptique géocentrique du Soleil (Unité : radians).
+     * @param MO anomalie moyenne du Soleil (Unité : radians).
+     * @param state tableau dans lequel écrire les valeurs.
+     */
+    private void state(double daysSinceJ2010, double lambdaO, double MO, double[] state) {
 
         double l = averageOrbitalLongitude(daysSinceJ2010);
         double Mm = meanAnomaly(l, daysSinceJ2010);
 
-        Sun sun = SunModel.SUN.at(daysSinceJ2010, eclipticToEquatorialConversion);
-        double lambdaO = sun.eclipticPos().lon();
-
-        double MO = sun.meanAnomaly();
         double sinMO = sin(MO);
 
         double Ev = evection(l, lambdaO, Mm);
@@ -100,15 +181,9 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
                 sinMO
         );
 
-        EclipticCoordinates eclipticPos = eclipticLongitude(l_sec, N_prime);
-        EquatorialCoordinates equatorialPos = eclipticToEquatorialConversion.apply(eclipticPos);
-
-        return new Moon(
-                equatorialPos,
-                angularSize(Mm_prime, Ec),
-                0,
-                phase(l_sec, lambdaO)
-        );
+        eclipticPosition(l_sec, N_prime, state);
+        state[ANGULAR_SIZE] = angularSize(Mm_prime, Ec);
+        state[PHASE] = phase(l_sec, lambdaO);
     }
 
     /**
@@ -255,21 +330,20 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
     }
 
     /**
-     * Retourne la longitude écliptique (Unité : radians).
+     * Calcule la longitude et la latitude écliptiques (Unité : radians) et les écrit
+     * dans state.
      *
      * @param l_sec longitude orbitale vraie (Unité : radians).
      * @param N_prime longitude corrigée du nœud ascendant (Unité : radians).
-     * @return la longitude écliptique (Unité : radians).
+     * @param state tableau dans lequel écrire les valeurs.
      */
-    private EclipticCoordinates eclipticLongitude(double l_sec, double N_prime) {
+    private void eclipticPosition(double l_sec, double N_prime, double[] state) {
         double numerator = sin(l_sec - N_prime) * cos_i;
         double denominator = cos(l_sec - N_prime);
 
         double lambdaM = atan2(numerator, denominator) + N_prime;
-        lambdaM = normalizePositive(lambdaM);
-        double BetaM = asin(sin(l_sec - N_prime) * sin_i);
-
-        return EclipticCoordinates.of(lambdaM, BetaM);
+        state[LON] = normalizePositive(lambdaM);
+        state[LAT] = asin(sin(l_sec - N_prime) * sin_i);
     }
 
     /**
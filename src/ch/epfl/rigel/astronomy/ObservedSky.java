@@ -4,8 +4,11 @@ import java.time.ZonedDateTime;
 import java.util.*;
 
 import ch.epfl.rigel.coordinates.*;
+import ch.epfl.rigel.math.RotationMatrix;
+import ch.epfl.rigel.metrics.Metrics;
+import ch.epfl.rigel.metrics.ObservedSkyPhaseEvent;
+import ch.epfl.rigel.metrics.Timer;
 
-import static ch.epfl.rigel.astronomy.StarCatalogue.SUN_NAME;
 import static ch.epfl.rigel.math.TrigoFunctions.distanceSquare;
 
 /**
@@ -16,18 +19,22 @@ import static ch.epfl.rigel.math.TrigoFunctions.distanceSquare;
  */
 public class ObservedSky {
 
+    private static final StarTable NO_STARS = StarTable.of(List.of());
+
+    // Chronomètre de la projection des étoiles (voir Metrics) ; le Soleil, la Lune et les
+    // planètes sont chronométrés par HorizontalSky.
+    private static final Timer STARS_TIMER = Metrics.timer("sky.stars");
+
+    private final HorizontalSky horizontalSky;
     private final StarCatalogue catalogue;
     private final StereographicProjection projection;
-    private final Sun sun;
-    private final Moon moon;
-    private final ArrayList<Planet> planets;
-    private final ArrayList<Star> stars;
+    private final StarTable stars, faintStars;
     private final CartesianCoordinates sunPosition, moonPosition;
-    private final HorizontalCoordinates sunPosHorCoords;
-    private final double[] planetsPositions, starsPositions;
-    private final EclipticToEquatorialConversion eclipticToEquatorial;
-    private final EquatorialToHorizontalConversion equatorialToHorizontal;
-    private final double daysSinceJ2010;
+    private final double[] planetsPositions, starsPositions, asterismStarsPositions, faintStarsPositions;
+    private final int[] projectedStars;
+    private final double limitingMagnitude;
+    private final int visibleStarsCount;
+    private PositionIndex starsPositionIndex;
 
     /**
      * Construit une nouvelle observation du ciel.
@@ -40,65 +47,150 @@ public class ObservedSky {
     public ObservedSky(ZonedDateTime when, GeographicCoordinates where,
                        StereographicProjection projection, StarCatalogue catalogue)
     {
-        this.catalogue = catalogue;
-        this.projection = projection;
+        this(new HorizontalSky(when, where, catalogue), projection);
+    }
+
+    /**
+     * Construit une nouvelle observation du ciel à un instant exprimé en milli-secondes,
+     * sans passer par java.time.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param where position d'observation.
+     * @param projection projection stéréographique à utiliser.
+     * @param catalogue catalogue contenant les étoiles et les astérismes.
+     */
+    public ObservedSky(long epochMillis, GeographicCoordinates where,
+                       StereographicProjection projection, StarCatalogue catalogue)
+    {
+        this(new HorizontalSky(epochMillis, where, catalogue), projection);
+    }
 
-        eclipticToEquatorial = new EclipticToEquatorialConversion(when);
-        equatorialToHorizontal = new EquatorialToHorizontalConversion(when, where);
-        daysSinceJ2010 = Epoch.J2010.daysUntil(when);
+    /**
+     * Construit une nouvelle observation du ciel à partir du ciel en coordonnées
+     * horizontales, en ne calculant que la projection. Permet de changer de vue
+     * sans refaire les calculs qui dépendent de l'instant et du lieu d'observation.
+     *
+     * @param horizontalSky ciel en coordonnées horizontales.
+     * @param projection projection stéréographique à utiliser.
+     */
+    public ObservedSky(HorizontalSky horizontalSky, StereographicProjection projection)
+    {
+        this(horizontalSky, projection, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Construit une nouvelle observation du ciel à partir du ciel en coordonnées
+     * horizontales, en ne projetant que les étoiles de magnitude inférieure ou égale
+     * à la magnitude limite, ainsi que les étoiles des astérismes.
+     *
+     * @param horizontalSky ciel en coordonnées horizontales.
+     * @param projection projection stéréographique à utiliser.
+     * @param limitingMagnitude magnitude limite des étoiles projetées.
+     */
+    public ObservedSky(HorizontalSky horizontalSky, StereographicProjection projection, double limitingMagnitude)
+    {
+        this(horizontalSky, projection, limitingMagnitude, Math.PI, false);
+    }
+
+    /**
+     * Construit une nouvelle observation du ciel à partir du ciel en coordonnées
+     * horizontales, en ne projetant que les étoiles de magnitude inférieure ou égale
+     * à la magnitude limite qui se trouvent dans une cellule de la partition du ciel
+     * du catalogue coupant le cône de vue, ainsi que les étoiles des astérismes. Seules
+     * les étoiles projetées ont une position, de sorte que le coût ne dépend pas de la
+     * taille du catalogue.
+     *
+     * @param horizontalSky ciel en coordonnées horizontales.
+     * @param projection projection stéréographique à utiliser, dont le centre est l'axe du cône de vue.
+     * @param limitingMagnitude magnitude limite des étoiles projetées.
+     * @param viewRadius rayon angulaire du cône de vue (Unité : radians), π pour tout le ciel.
+     * @param cullBelowHorizon vrai si les cellules entièrement sous l'horizon doivent être ignorées.
+     */
+    public ObservedSky(HorizontalSky horizontalSky, StereographicProjection projection, double limitingMagnitude,
+                       double viewRadius, boolean cullBelowHorizon)
+    {
+        this.horizontalSky = horizontalSky;
+        this.catalogue = horizontalSky.catalogue();
+        this.projection = projection;
+        this.limitingMagnitude = limitingMagnitude;
 
         // Pour le Soleil
-        sun = SunModel.SUN.at(daysSinceJ2010, eclipticToEquatorial);
-        sunPosHorCoords = equatorialToHorizontal.apply(sun.equatorialPos());
-        sunPosition = projection.apply(sunPosHorCoords);
+        sunPosition = projection.apply(horizontalSky.sunPosition());
 
         // Pour la Lune
-        moon = MoonModel.MOON.at(daysSinceJ2010, eclipticToEquatorial);
-        moonPosition = projection.apply(equatorialToHorizontal.apply(moon.equatorialPos()));
+        moonPosition = projection.apply(horizontalSky.moonPosition());
 
         // Pour les planètes
-        int size = (PlanetModel.values().length - 1) * 2;
-        planetsPositions = new double[size];
+        List<HorizontalCoordinates> planetsHorizontalPositions = horizontalSky.planetsPositions();
+        planetsPositions = new double[planetsHorizontalPositions.size() * 2];
 
-        Planet currentPlanet;
         CartesianCoordinates currentPlanetPosition;
-
-        planets = new ArrayList<>();
         int count = 0;
 
-        for(PlanetModel planet : PlanetModel.values())
+        for(HorizontalCoordinates planetPosition : planetsHorizontalPositions)
         {
-            if (planet == PlanetModel.EARTH)
-                continue;
-
-            currentPlanet = planet.at(daysSinceJ2010, eclipticToEquatorial);
-            planets.add(currentPlanet);
-            currentPlanetPosition = projection
-                    .apply(equatorialToHorizontal.apply(currentPlanet.equatorialPos()));
+            currentPlanetPosition = projection.apply(planetPosition);
             planetsPositions[count] = currentPlanetPosition.x();
             planetsPositions[count+1] = currentPlanetPosition.y();
             count += 2;
         }
 
-        // Pour les étoiles
-        List<Star> starsCatalogue = catalogue.stars();
-        size = starsCatalogue.size() * 2;
-        starsPositions = new double[size];
+        // Pour les étoiles : le catalogue étant trié par magnitude, les étoiles visibles
+        // en forment le début.
+        long start = System.nanoTime();
+        ObservedSkyPhaseEvent event = new ObservedSkyPhaseEvent(STARS_TIMER.name());
+        stars = catalogue.starTable();
+        visibleStarsCount = stars.countUpToMagnitude(limitingMagnitude);
+        RotationMatrix starsRotation = horizontalSky.starsRotation();
+        double[] view = projection.centerUnitVector(starsRotation);
+        double[] zenith = cullBelowHorizon
+                ? new double[] {starsRotation.at(2, 0), starsRotation.at(2, 1), starsRotation.at(2, 2)}
+                : null;
+
+        if(viewRadius >= Math.PI && !cullBelowHorizon) {
+            projectedStars = new int[visibleStarsCount];
+            Arrays.setAll(projectedStars, i -> i);
+            starsPositions = new double[2 * visibleStarsCount];
+            projection.applyToUnitVectors(starsRotation, stars.unitVectors(), starsPositions, visibleStarsCount);
+        } else {
+            // Seules les étoiles des cellules du ciel qui coupent le cône de vue (et, si demandé,
+            // ne sont pas entièrement sous l'horizon) sont projetées.
+            projectedStars = catalogue.skyPartition().starsIntersecting(view, viewRadius, zenith,
+                    visibleStarsCount);
+            starsPositions = new double[2 * projectedStars.length];
+            projection.applyToUnitVectors(starsRotation, stars.unitVectors(), starsPositions, projectedStars);
+        }
 
-        stars = new ArrayList<>();
-        CartesianCoordinates currentStarPosition;
-        count = 0;
+        // Les astérismes sont toujours dessinés en entier.
+        int[] asterismStars = catalogue.asterismStarIndices();
+        asterismStarsPositions = new double[2 * asterismStars.length];
+        projection.applyToUnitVectors(starsRotation, stars.unitVectors(), asterismStarsPositions, asterismStars);
+
+        // Pour les étoiles faibles des tuiles déjà chargées du cône de vue, s'il y en a
+        faintStars = catalogue.tiledStars()
+                .map(tiles -> tiles.residentStars(view, viewRadius, zenith, limitingMagnitude))
+                .orElse(NO_STARS);
+        faintStarsPositions = new double[faintStars.size() * 2];
+        projection.applyToUnitVectors(starsRotation, faintStars.unitVectors(), faintStarsPositions);
+        STARS_TIMER.commit(event, start);
+    }
 
-        for(Star currentStar : starsCatalogue)
-        {
-            stars.add(currentStar);
-            currentStarPosition = projection
-                    .apply(equatorialToHorizontal.apply(currentStar.equatorialPos()));
-            starsPositions[count] = currentStarPosition.x();
-            starsPositions[count + 1] = currentStarPosition.y();
-            count += 2;
-        }
+    /**
+     * Retourne le ciel en coordonnées horizontales dont est issue cette observation.
+     *
+     * @return le ciel en coordonnées horizontales.
+     */
+    public HorizontalSky horizontalSky() {
+        return horizontalSky;
+    }
 
+    /**
+     * Retourne la projection stéréographique utilisée par cette observation.
+     *
+     * @return la projection stéréographique utilisée.
+     */
+    public StereographicProjection projection() {
+        return projection;
     }
 
     /**
@@ -108,26 +200,7 @@ public class ObservedSky {
      * @return les coordonnées horizontales de l'objet céleste.
      */
     public HorizontalCoordinates getHorCoordsCelestialObject(String name) {
-        HorizontalCoordinates horizontalCoordinates;
-
-        if(catalogue.isStarPresent(name)) {
-            Star star = catalogue.getStar(name);
-            horizontalCoordinates = equatorialToHorizontal.apply(star.equatorialPos());
-
-        } else if(catalogue.isPlanetPresent(name)) {
-            Planet planet = catalogue.getPlanet(name)
-                    .at(daysSinceJ2010, eclipticToEquatorial);
-            horizontalCoordinates = equatorialToHorizontal.apply(planet.equatorialPos());
-
-        } else if(name.equals(SUN_NAME)) {
-            Sun sun = SunModel.SUN.at(daysSinceJ2010, eclipticToEquatorial);
-            horizontalCoordinates = equatorialToHorizontal.apply(sun.equatorialPos());
-
-        } else  {
-            Moon moon = MoonModel.MOON.at(daysSinceJ2010, eclipticToEquatorial);
-            horizontalCoordinates = equatorialToHorizontal.apply(moon.equatorialPos());
-        }
-        return horizontalCoordinates;
+        return horizontalSky.horizontalPosition(name);
     }
 
     /**
@@ -146,7 +219,7 @@ public class ObservedSky {
      * @return le Soleil sous la forme d'une instance de Sun.
      */
     public Sun sun() {
-        return sun;
+        return horizontalSky.sun();
     }
 
     /**
@@ -165,7 +238,7 @@ public class ObservedSky {
      * @return la positions du Soleil en coordonnées horizontales.
      */
     public HorizontalCoordinates sunPosHorizontalCoords() {
-        return sunPosHorCoords;
+        return horizontalSky.sunPosition();
     }
 
     /**
@@ -174,7 +247,7 @@ public class ObservedSky {
      * @return la Lune sous la forme d'une instance de Moon.
      */
     public Moon moon() {
-        return moon;
+        return horizontalSky.moon();
     }
 
     /**
@@ -194,7 +267,7 @@ public class ObservedSky {
      *          sous la forme d'une List de Planet.
      */
     public List<Planet> planets(){
-        return List.copyOf(planets);
+        return horizontalSky.planets();
     }
 
     /**
@@ -210,21 +283,103 @@ public class ObservedSky {
     /**
      * Retourne la liste des étoiles.
      *
-     * @return la liste des étoiles, sous la forme d'une List de Star.
+     * @return la liste des étoiles, sous la forme d'une List de Star
+     *          dont les éléments sont créés à la demande.
      */
     public List<Star> stars(){
-        return List.copyOf(stars);
+        return stars.asList();
     }
 
     /**
-     * Retourne les coordonnées cartésiennes des étoiles.
+     * Retourne la table des étoiles, dans le même ordre que leurs positions.
      *
-     * @return les coordonnées cartésiennes des étoiles dans un tableau de double.
+     * @return la table des étoiles.
+     */
+    public StarTable starTable() {
+        return stars;
+    }
+
+    /**
+     * Retourne les coordonnées cartésiennes des étoiles projetées (de magnitude inférieure
+     * ou égale à la magnitude limite et dans le cône de vue), dans l'ordre de projectedStars.
+     *
+     * @return les coordonnées cartésiennes des étoiles projetées dans un tableau de double.
      */
     public double[] starsPositions(){
         return starsPositions.clone();
     }
 
+    /**
+     * Retourne les index dans la table des étoiles des étoiles projetées, dans l'ordre
+     * de leurs positions.
+     *
+     * @return les index des étoiles projetées.
+     */
+    public int[] projectedStars() {
+        return projectedStars.clone();
+    }
+
+    /**
+     * Retourne les coordonnées cartésiennes des étoiles des astérismes, toujours
+     * projetées, dans l'ordre donné par asterismStarsIndex.
+     *
+     * @return les coordonnées cartésiennes des étoiles des astérismes dans un tableau de double.
+     */
+    public double[] asterismStarsPositions() {
+        return asterismStarsPositions.clone();
+    }
+
+    /**
+     * Retourne les étoiles faibles du fichier de tuiles du catalogue, chargées et
+     * visibles lors de cette observation, hors du catalogue lui-même.
+     *
+     * @return la table des étoiles faibles, vide si le catalogue n'a pas de fichier de tuiles.
+     */
+    public StarTable faintStarTable() {
+        return faintStars;
+    }
+
+    /**
+     * Retourne les coordonnées cartésiennes des étoiles faibles, dans l'ordre de leur table.
+     *
+     * @return les coordonnées cartésiennes des étoiles faibles dans un tableau de double.
+     */
+    public double[] faintStarsPositions() {
+        return faintStarsPositions.clone();
+    }
+
+    /**
+     * Retourne la magnitude limite des étoiles projetées.
+     *
+     * @return la magnitude limite des étoiles projetées.
+     */
+    public double limitingMagnitude() {
+        return limitingMagnitude;
+    }
+
+    /**
+     * Retourne le nombre d'étoiles visibles, c'est-à-dire de magnitude inférieure ou
+     * égale à la magnitude limite : ce sont les premières étoiles de la table. Celles
+     * qui sont hors du cône de vue ne sont pas projetées.
+     *
+     * @return le nombre d'étoiles visibles.
+     */
+    public int visibleStarsCount() {
+        return visibleStarsCount;
+    }
+
+    /**
+     * Retourne l'index spatial des positions des étoiles projetées, construit lors du
+     * premier appel. Les indices de l'index sont ceux de starsPositions.
+     *
+     * @return l'index spatial des positions des étoiles.
+     */
+    public synchronized PositionIndex starsPositionIndex() {
+        if(starsPositionIndex == null)
+            starsPositionIndex = new PositionIndex(starsPositions);
+        return starsPositionIndex;
+    }
+
     /**
      * Retourne la liste des astérismes.
      *
@@ -245,6 +400,17 @@ public class ObservedSky {
         return catalogue.asterismIndices(asterism);
     }
 
+    /**
+     * Retourne les indices des positions des étoiles de l'astérisme dans
+     * asterismStarsPositions, dans l'ordre de l'astérisme.
+     *
+     * @param asterism astérisme du catalogue.
+     * @return les indices des positions des étoiles de l'astérisme.
+     */
+    public List<Integer> asterismStarsIndex(Asterism asterism) {
+        return catalogue.asterismStarSlots(asterism);
+    }
+
     /**
      * Retourne la liste des constellations.
      *
@@ -272,33 +438,30 @@ public class ObservedSky {
 
         if(point == null) return closestObject;
 
-        for (int i = 0; i < starsPositions.length; i += 2)
-        {
-            stepDistance = distanceSquare(point, starsPositions[i], starsPositions[i + 1]);
-            if(stepDistance <= closestDistance) {
-                closestObject = Optional.of(stars.get(i / 2));
-                closestDistance = stepDistance;
-            }
+        int closestStar = starsPositionIndex().nearest(point.x(), point.y(), maxDistance);
+        if(closestStar != -1) {
+            closestObject = Optional.of(stars.star(projectedStars[closestStar]));
+            closestDistance = distanceSquare(point, starsPositions[2 * closestStar], starsPositions[2 * closestStar + 1]);
         }
 
         for(int i = 0; i < planetsPositions.length; i += 2)
         {
             stepDistance = distanceSquare(point, planetsPositions[i], planetsPositions[i + 1]);
             if(stepDistance <= closestDistance) {
-                closestObject = Optional.of(planets.get(i / 2));
+                closestObject = Optional.of(horizontalSky.planets().get(i / 2));
                 closestDistance = stepDistance;
             }
         }
 
         stepDistance = distanceSquare(point, sunPosition);
         if(stepDistance <= closestDistance) {
-            closestObject = Optional.of(sun);
+            closestObject = Optional.of(horizontalSky.sun());
             closestDistance = stepDistance;
         }
 
         stepDistance = distanceSquare(point, moonPosition);
         if(stepDistance <= closestDistance) {
-            closestObject = Optional.of(moon);
+            closestObject = Optional.of(horizontalSky.moon());
         }
 
         return closestObject;
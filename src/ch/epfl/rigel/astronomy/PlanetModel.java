@@ -6,6 +6,7 @@ import static java.lang.Math.*;
 
 import java.util.List;
 
+import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.coordinates.EclipticCoordinates;
 import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
 import ch.epfl.rigel.coordinates.EquatorialCoordinates;
@@ -35,6 +36,11 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
             30.1985, 1.7673, 131.879, 62.20, -6.87);
 
     public static List<PlanetModel> ALL = List.of(values());
+
+    /**
+     * Index des valeurs calculées par state.
+     */
+    private static final int LON = 0, LAT = 1, ANGULAR_SIZE = 2, MAGNITUDE = 3, STATE_SIZE = 4;
     
     /**
      * Le nom de la planète.
@@ -114,6 +120,123 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
     @Override
     public Planet at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion) {
 
+        double V_earth = trueAnomaly(
+                meanAnomaly(daysSinceJ2010, EARTH),
+                EARTH
+        );
+
+        double[] state = new double[STATE_SIZE];
+        state(daysSinceJ2010, radius(V_earth, EARTH), longitudeHeliocentric(V_earth, EARTH), state);
+
+        EquatorialCoordinates equaCoords = eclipticToEquatorialConversion.apply(
+                EclipticCoordinates.of(state[LON], state[LAT]));
+
+        return new Planet(
+                name,
+                equaCoords,
+                (float) state[ANGULAR_SIZE],
+                (float) state[MAGNITUDE]
+        );
+    }
+
+    /**
+     * Calcule la planète à chacun des instants donnés, sans créer d'objet par instant
+     * autre que le transformateur écliptique vers équatorial.
+     */
+    @Override
+    public void at(double[] daysSinceJ2010, double[] ra, double[] dec, double[] angularSizes, double[] magnitudes) {
+        CelestialObjectModel.checkBatch(daysSinceJ2010, ra, dec, angularSizes, magnitudes);
+        Preconditions.checkArgument(this != EARTH);
+
+        double[] state = new double[STATE_SIZE];
+        for(int i = 0; i < daysSinceJ2010.length; ++i) {
+            double V_earth = trueAnomaly(meanAnomaly(daysSinceJ2010[i], EARTH), EARTH);
+            state(daysSinceJ2010[i], radius(V_earth, EARTH), longitudeHeliocentric(V_earth, EARTH), state);
+            write(state, EclipticToEquatorialConversion.ofDaysSinceJ2010(daysSinceJ2010[i]),
+                    ra, dec, angularSizes, magnitudes, i);
+        }
+    }
+
+    /**
+     * Calcule toutes les planètes autres que la Terre à chacun des instants donnés, en ne
+     * calculant qu'une fois par instant la position de la Terre et le transformateur
+     * écliptique vers équatorial. Les tableaux sont indexés par l'ordinal de la planète,
+     * puis par instant ; ceux de la Terre ne sont pas utilisés et peuvent être null.
+     *
+     * @param daysSinceJ2010 instants, en nombre de jours depuis la date J2010.
+     * @param ra tableaux des ascensions droites (Unité : radians).
+     * @param dec tableaux des déclinaisons (Unité : radians).
+     * @param angularSizes tableaux des tailles angulaires (Unité : radians), ou null.
+     * @param magnitudes tableaux des magnitudes, ou null.
+     * @throws IllegalArgumentException si un tableau est plus court que celui des instants.
+     */
+    public static void allAt(double[] daysSinceJ2010, double[][] ra, double[][] dec,
+                             double[][] angularSizes, double[][] magnitudes) {
+        for(PlanetModel planet : ALL)
+            if(planet != EARTH)
+                CelestialObjectModel.checkBatch(daysSinceJ2010, ra[planet.ordinal()], dec[planet.ordinal()],
+                        angularSizes == null ? null : angularSizes[planet.ordinal()],
+                        magnitudes == null ? null : magnitudes[planet.ordinal()]);
+
+        double[] state = new double[STATE_SIZE];
+        for(int i = 0; i < daysSinceJ2010.length; ++i) {
+            double V_earth = trueAnomaly(meanAnomaly(daysSinceJ2010[i], EARTH), EARTH);
+            double R = radius(V_earth, EARTH);
+            double L = longitudeHeliocentric(V_earth, EARTH);
+            EclipticToEquatorialConversion conversion =
+                    EclipticToEquatorialConversion.ofDaysSinceJ2010(daysSinceJ2010[i]);
+
+            for(PlanetModel planet : ALL) {
+                if(planet == EARTH)
+                    continue;
+                int p = planet.ordinal();
+                planet.state(daysSinceJ2010[i], R, L, state);
+                write(state, conversion, ra[p], dec[p], angularSizes == null ? null : angularSizes[p],
+                        magnitudes == null ? null : magnitudes[p], i);
+            }
+        }
+    }
+
+    /**
+     * Calcule la longitude et la latitude écliptiques géocentriques de cette planète (this)
+     * à l'instant donné, et les écrit aux index 0 et 1 de lonLat.
+     *
+     * @param daysSinceJ2010 nombre de jours depuis la date J2010 (peut être négatif).
+     * @param lonLat tableau dans lequel écrire la longitude et la latitude (Unité : radians).
+     */
+    void eclipticAt(double daysSinceJ2010, double[] lonLat) {
+        double V_earth = trueAnomaly(meanAnomaly(daysSinceJ2010, EARTH), EARTH);
+
+        double[] state = new double[STATE_SIZE];
+        state(daysSinceJ2010, radius(V_earth, EARTH), longitudeHeliocentric(V_earth, EARTH), state);
+        lonLat[0] = state[LON];
+        lonLat[1] = state[LAT];
+    }
+
+    /**
+     * Écrit les valeurs calculées par state à l'index donné des tableaux.
+     */
+    private static void write(double[] state, EclipticToEquatorialConversion conversion, double[] ra, double[] dec,
+                              double[] angularSizes, double[] magnitudes, int index) {
+        conversion.apply(state[LON], state[LAT], ra, dec, index);
+        if(angularSizes != null)
+            angularSizes[index] = state[ANGULAR_SIZE];
+        if(magnitudes != null)
+            magnitudes[index] = state[MAGNITUDE];
+    }
+
+    /**
+     * Calcule la longitude et la latitude écliptiques géocentriques, la taille angulaire et
+     * la magnitude de cette planète (this) à l'instant donné, à partir de la position de la
+     * Terre au même instant, et les écrit dans state (voir LON, LAT, ANGULAR_SIZE et MAGNITUDE).
+     *
+     * @param daysSinceJ2010 nombre de jours depuis la date J2010 (peut être négatif).
+     * @param R distance Terre Soleil (Unité : UA).
+     * @param L longitude héliocentrique de la Terre (Unité : radians).
+     * @param state tableau dans lequel écrire les valeurs.
+     */
+    private void state(double daysSinceJ2010, double R, double L, double[] state) {
+
         double V = trueAnomaly(
                 meanAnomaly(daysSinceJ2010)
         );
@@ -127,31 +250,15 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
         double r_proj = radiusProjectedOnEcliptic(r, phi);
         double l_proj = longitudeProjectedOnEcliptic(l, sin_l_omega);
 
-        double V_earth = trueAnomaly(
-                meanAnomaly(daysSinceJ2010, EARTH),
-                EARTH
-        );
-        
-        double R = radius(V_earth, EARTH);
-        double L = longitudeHeliocentric(V_earth, EARTH);
-
         double lambda = lonEclipticGeocentric(R, L, r_proj, l_proj);
-
-        EclipticCoordinates eclipticCoords = EclipticCoordinates.of(
-                lambda,
-                latitude(R, L, r_proj, l_proj, lambda, phi)
-        );
-        EquatorialCoordinates equaCoords = eclipticToEquatorialConversion.apply(eclipticCoords);
+        state[LON] = lambda;
+        state[LAT] = latitude(R, L, r_proj, l_proj, lambda, phi);
 
         double p = distancePlanetEarth(R, r, L, l, phi);
         double F = phase(l, lambda);
 
-        return new Planet(
-                name,
-                equaCoords,
-                angularSize(p),
-                magnitude(r, p, F)
-        );
+        state[ANGULAR_SIZE] = angularSize(p);
+        state[MAGNITUDE] = magnitude(r, p, F);
     }
 
     /**
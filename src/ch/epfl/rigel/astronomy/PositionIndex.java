@@ -0,0 +1,243 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.Arrays;
+
+import ch.epfl.rigel.Preconditions;
+
+/**
+ * Index spatial (arbre k-d implicite) de positions dans le plan, permettant de
+ * trouver les positions proches d'un point sans parcourir toutes les positions.
+ * Les positions non définies ou infinies ne sont pas indexées.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class PositionIndex {
+
+    private final double[] positions;
+    private final int[] tree;
+
+    /**
+     * Construit l'index des positions données, qui ne sont pas copiées.
+     *
+     * @param positions positions sous la forme x0, y0, x1, y1, ...
+     * @throws IllegalArgumentException si le tableau est de taille impaire.
+     */
+    public PositionIndex(double[] positions) {
+        Preconditions.checkArgument(positions.length % 2 == 0);
+        this.positions = positions;
+
+        int count = 0;
+        int[] indices = new int[positions.length / 2];
+        for(int i = 0; i < indices.length; ++i)
+            if(Double.isFinite(positions[2 * i]) && Double.isFinite(positions[2 * i + 1]))
+                indices[count++] = i;
+
+        tree = Arrays.copyOf(indices, count);
+        build(0, count, 0);
+    }
+
+    /**
+     * Retourne l'indice de la position la plus proche du point, à une distance
+     * d'au plus maxDistance. En cas d'égalité, l'indice le plus grand est retenu.
+     *
+     * @param x abscisse du point.
+     * @param y ordonnée du point.
+     * @param maxDistance distance maximale de la recherche.
+     * @return l'indice de la position la plus proche, ou -1 s'il n'y en a pas.
+     */
+    public int nearest(double x, double y, double maxDistance) {
+        int[] nearest = nearest(x, y, 1, maxDistance);
+        return nearest.length == 0 ? -1 : nearest[0];
+    }
+
+    /**
+     * Retourne les indices des k positions les plus proches du point, à une distance
+     * d'au plus maxDistance, de la plus proche à la plus éloignée.
+     *
+     * @param x abscisse du point.
+     * @param y ordonnée du point.
+     * @param k nombre maximal de positions.
+     * @param maxDistance distance maximale de la recherche.
+     * @return les indices des positions les plus proches, triés par distance croissante.
+     * @throws IllegalArgumentException si k est négatif.
+     */
+    public int[] nearest(double x, double y, int k, double maxDistance) {
+        Preconditions.checkArgument(k >= 0);
+        Neighbours neighbours = new Neighbours(k, maxDistance * maxDistance);
+        if(k > 0)
+            searchNearest(0, tree.length, 0, x, y, neighbours);
+        return Arrays.copyOf(neighbours.indices, neighbours.size);
+    }
+
+    /**
+     * Retourne les indices des positions à une distance d'au plus radius du point,
+     * dans un ordre quelconque.
+     *
+     * @param x abscisse du point.
+     * @param y ordonnée du point.
+     * @param radius rayon de la recherche.
+     * @return les indices des positions dans le disque.
+     */
+    public int[] within(double x, double y, double radius) {
+        int[] found = new int[8];
+        int count = 0;
+        double radiusSquare = radius * radius;
+
+        // Parcours en profondeur sans récursion : pile d'intervalles [lo, hi[ et de profondeurs.
+        int[] stack = new int[3 * 64];
+        int top = 0;
+        stack[top++] = 0; stack[top++] = tree.length; stack[top++] = 0;
+
+        while(top > 0) {
+            int depth = stack[--top], hi = stack[--top], lo = stack[--top];
+            if(lo >= hi)
+                continue;
+
+            int mid = (lo + hi) >>> 1;
+            int index = tree[mid];
+            if(distanceSquare(index, x, y) <= radiusSquare) {
+                if(count == found.length)
+                    found = Arrays.copyOf(found, 2 * count);
+                found[count++] = index;
+            }
+
+            double delta = delta(index, depth, x, y);
+            if(delta <= 0 || delta * delta <= radiusSquare) {
+                stack[top++] = lo; stack[top++] = mid; stack[top++] = depth + 1;
+            }
+            if(delta >= 0 || delta * delta <= radiusSquare) {
+                stack[top++] = mid + 1; stack[top++] = hi; stack[top++] = depth + 1;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Retourne le nombre de positions indexées.
+     *
+     * @return le nombre de positions indexées.
+     */
+    public int size() {
+        return tree.length;
+    }
+
+    /**
+     * Recherche récursive des plus proches voisins dans le sous-arbre [lo, hi[.
+     */
+    private void searchNearest(int lo, int hi, int depth, double x, double y, Neighbours neighbours) {
+        if(lo >= hi)
+            return;
+
+        int mid = (lo + hi) >>> 1;
+        int index = tree[mid];
+        neighbours.offer(index, distanceSquare(index, x, y));
+
+        double delta = delta(index, depth, x, y);
+        int nearLo = delta <= 0 ? lo : mid + 1, nearHi = delta <= 0 ? mid : hi;
+        int farLo = delta <= 0 ? mid + 1 : lo, farHi = delta <= 0 ? hi : mid;
+
+        searchNearest(nearLo, nearHi, depth + 1, x, y, neighbours);
+        // Les égalités sont explorées pour que le plus grand indice l'emporte.
+        if(delta * delta <= neighbours.bound())
+            searchNearest(farLo, farHi, depth + 1, x, y, neighbours);
+    }
+
+    /**
+     * Retourne l'écart signé entre le point et le plan séparateur du nœud.
+     */
+    private double delta(int index, int depth, double x, double y) {
+        return (depth & 1) == 0 ? x - positions[2 * index] : y - positions[2 * index + 1];
+    }
+
+    /**
+     * Retourne la distance au carré entre la position d'indice donné et le point.
+     */
+    private double distanceSquare(int index, double x, double y) {
+        double deltaX = positions[2 * index] - x;
+        double deltaY = positions[2 * index + 1] - y;
+        return deltaX * deltaX + deltaY * deltaY;
+    }
+
+    /**
+     * Construit le sous-arbre [lo, hi[ : la médiane selon l'axe de la profondeur est
+     * placée au milieu, les positions inférieures avant elle et les autres après.
+     */
+    private void build(int lo, int hi, int depth) {
+        while(hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi, mid, depth & 1);
+            build(lo, mid, depth + 1);
+            lo = mid + 1;
+            ++depth;
+        }
+    }
+
+    /**
+     * Réordonne tree[lo, hi[ pour que l'élément de rang k selon l'axe donné soit à sa place.
+     */
+    private void select(int lo, int hi, int k, int axis) {
+        int left = lo, right = hi - 1;
+        while(left < right) {
+            double pivot = positions[2 * tree[(left + right) >>> 1] + axis];
+            int i = left, j = right;
+            while(i <= j) {
+                while(positions[2 * tree[i] + axis] < pivot) ++i;
+                while(positions[2 * tree[j] + axis] > pivot) --j;
+                if(i <= j) {
+                    int swap = tree[i]; tree[i] = tree[j]; tree[j] = swap;
+                    ++i; --j;
+                }
+            }
+            if(k <= j) right = j;
+            else if(k >= i) left = i;
+            else return;
+        }
+    }
+
+    /**
+     * Les k meilleurs voisins trouvés, triés par distance croissante puis par indice décroissant.
+     */
+    private static final class Neighbours {
+
+        private final int[] indices;
+        private final double[] distances;
+        private final double maxDistanceSquare;
+        private int size;
+
+        private Neighbours(int k, double maxDistanceSquare) {
+            indices = new int[k];
+            distances = new double[k];
+            this.maxDistanceSquare = maxDistanceSquare;
+        }
+
+        /**
+         * Retourne la distance au carré au-delà de laquelle une position ne peut plus être retenue.
+         */
+        private double bound() {
+            return size < indices.length ? maxDistanceSquare : distances[size - 1];
+        }
+
+        private void offer(int index, double distance) {
+            if(distance > maxDistanceSquare)
+                return;
+
+            int position = size;
+            while(position > 0 && isBetter(index, distance, indices[position - 1], distances[position - 1]))
+                --position;
+            if(position == indices.length)
+                return;
+
+            int moved = Math.min(size, indices.length - 1) - position;
+            System.arraycopy(indices, position, indices, position + 1, moved);
+            System.arraycopy(distances, position, distances, position + 1, moved);
+            indices[position] = index;
+            distances[position] = distance;
+            size = Math.min(size + 1, indices.length);
+        }
+
+        private static boolean isBetter(int index, double distance, int otherIndex, double otherDistance) {
+            return distance < otherDistance || (distance == otherDistance && index > otherIndex);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+
+import static ch.epfl.rigel.astronomy.StarCatalogue.MOON_NAME;
+import static ch.epfl.rigel.astronomy.StarCatalogue.SUN_NAME;
+import static ch.epfl.rigel.math.Angle.*;
+import static java.lang.Math.*;
+
+/**
+ * Calculateur des heures de lever, de passage au méridien et de coucher des objets
+ * célestes d'un catalogue, pendant une période et depuis un lieu donnés.
+ *
+ * <p>Un objet se lève ou se couche lorsque son bord supérieur franchit l'horizon, compte
+ * tenu de la réfraction. La position des étoiles étant fixe, leurs heures sont obtenues
+ * directement à partir de l'angle horaire, en parallèle. Celles du Soleil, de la Lune et
+ * des planètes sont obtenues en échantillonnant leur hauteur et leur angle horaire, puis
+ * en affinant chaque changement de signe par dichotomie.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class RiseTransitSetCalculator {
+
+    /**
+     * Heure d'un événement qui n'a pas lieu pendant la période.
+     */
+    public static final long NO_EVENT = Long.MIN_VALUE;
+
+    /**
+     * Visibilité d'un objet céleste par rapport à l'horizon.
+     */
+    public enum Visibility {
+        RISES_AND_SETS, ALWAYS_ABOVE, ALWAYS_BELOW
+    }
+
+    /**
+     * Abaissement apparent de l'horizon dû à la réfraction (Unité : radians).
+     */
+    private static final double REFRACTION = ofDeg(34.0 / 60);
+
+    /**
+     * Intervalle d'échantillonnage du Soleil, de la Lune et des planètes (Unité : milli-secondes).
+     */
+    private static final long SAMPLE_STEP = 10 * 60 * 1000;
+
+    /**
+     * Précision des heures affinées par dichotomie (Unité : milli-secondes).
+     */
+    private static final long PRECISION = 1000;
+
+    private static final double MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+
+    private static final int ALTITUDE = 0, HOUR_ANGLE = 1;
+
+    private final StarCatalogue catalogue;
+    private final GeographicCoordinates where;
+
+    /**
+     * Construit un calculateur pour les objets du catalogue, observés depuis le lieu donné.
+     *
+     * @param catalogue catalogue contenant les étoiles.
+     * @param where position d'observation.
+     */
+    public RiseTransitSetCalculator(StarCatalogue catalogue, GeographicCoordinates where) {
+        this.catalogue = catalogue;
+        this.where = where;
+    }
+
+    /**
+     * Retourne les événements de toutes les étoiles du catalogue pendant la période
+     * donnée, dans l'ordre de sa table. Les étoiles sont calculées en parallèle.
+     *
+     * @param start début de la période (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param end fin de la période (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @return les événements des étoiles.
+     * @throws IllegalArgumentException si la fin précède le début.
+     */
+    public Events stars(long start, long end) {
+        Preconditions.checkArgument(end >= start);
+        StarTable stars = catalogue.starTable();
+        Events events = new Events(stars.size());
+        double localSiderealTime = EquatorialToHorizontalConversion.ofEpochMillis(start, where).localSiderealTime();
+
+        IntStream.range(0, stars.size())
+                .parallel()
+                .forEach(i -> fixed(stars.ra(i), stars.dec(i), start, end, localSiderealTime, events, i));
+        return events;
+    }
+
+    /**
+     * Retourne les événements des objets célestes nommés (voir
+     * StarCatalogue.getNameOfCelestialObjects) pendant la période donnée, dans l'ordre
+     * des noms.
+     *
+     * @param names noms du Soleil, de la Lune, de planètes ou d'étoiles du catalogue.
+     * @param start début de la période (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param end fin de la période (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @return les événements des objets, dans l'ordre des noms.
+     * @throws IllegalArgumentException si la fin précède le début ou si un nom est inconnu.
+     */
+    public Events named(List<String> names, long start, long end) {
+        Preconditions.checkArgument(end >= start);
+        Events events = new Events(names.size());
+        double localSiderealTime = EquatorialToHorizontalConversion.ofEpochMillis(start, where).localSiderealTime();
+
+        IntStream.range(0, names.size())
+                .parallel()
+                .forEach(i -> {
+                    String name = names.get(i);
+                    if(name.equals(SUN_NAME))
+                        moving(SunModel.SUN, start, end, events, i);
+                    else if(name.equals(MOON_NAME))
+                        moving(MoonModel.MOON, start, end, events, i);
+                    else if(catalogue.isPlanetPresent(name))
+                        moving(catalogue.getPlanet(name), start, end, events, i);
+                    else {
+                        Preconditions.checkArgument(catalogue.isStarPresent(name));
+                        EquatorialCoordinates equ = catalogue.getStar(name).equatorialPos();
+                        fixed(equ.ra(), equ.dec(), start, end, localSiderealTime, events, i);
+                    }
+                });
+        return events;
+    }
+
+    /**
+     * Calcule les événements d'un objet de position fixe à partir de son angle horaire,
+     * qui croît au rythme du temps sidéral.
+     */
+    private void fixed(double ra, double dec, long start, long end, double localSiderealTime,
+                       Events events, int index) {
+        double radiansPerMilli = SiderealTime.advanceDuring(1) / MILLIS_PER_DAY;
+        double h0 = -REFRACTION;
+        double cosPhiCosDelta = cos(where.lat()) * cos(dec);
+        double sinPhiSinDelta = sin(where.lat()) * sin(dec);
+
+        events.transit[index] = firstAt(ra - localSiderealTime, radiansPerMilli, start, end);
+
+        double cosH0 = (sin(h0) - sinPhiSinDelta) / cosPhiCosDelta;
+        if(cosPhiCosDelta == 0 || abs(cosH0) > 1) {
+            // Objet au pôle, ou observateur à un pôle : la hauteur ne varie pas.
+            boolean above = cosPhiCosDelta == 0 ? asin(sinPhiSinDelta) > h0 : cosH0 < -1;
+            events.visibility[index] = (byte) (above ? Visibility.ALWAYS_ABOVE : Visibility.ALWAYS_BELOW).ordinal();
+            return;
+        }
+
+        double H0 = acos(cosH0);
+        events.visibility[index] = (byte) Visibility.RISES_AND_SETS.ordinal();
+        events.rise[index] = firstAt(ra - H0 - localSiderealTime, radiansPerMilli, start, end);
+        events.set[index] = firstAt(ra + H0 - localSiderealTime, radiansPerMilli, start, end);
+    }
+
+    /**
+     * Retourne le premier instant de la période où l'angle, qui vaut angle au début de la
+     * période (à un tour près) et décroît au rythme donné, s'annule, ou NO_EVENT.
+     */
+    private static long firstAt(double angle, double radiansPerMilli, long start, long end) {
+        long time = start + round(normalizePositive(angle) / radiansPerMilli);
+        return time <= end ? time : NO_EVENT;
+    }
+
+    /**
+     * Calcule les événements d'un objet mobile en échantillonnant sa hauteur au-dessus de
+     * l'horizon apparent et son angle horaire, puis en affinant chaque changement de signe.
+     */
+    private void moving(CelestialObjectModel<?> model, long start, long end, Events events, int index) {
+        double[] previous = state(model, start);
+        boolean crosses = false;
+        boolean above = previous[ALTITUDE] >= 0;
+
+        for(long t0 = start; t0 < end; t0 += SAMPLE_STEP) {
+            long t1 = min(end, t0 + SAMPLE_STEP);
+            double[] next = state(model, t1);
+
+            if(previous[ALTITUDE] < 0 && next[ALTITUDE] >= 0) {
+                crosses = true;
+                if(events.rise[index] == NO_EVENT)
+                    events.rise[index] = refine(model, t0, t1, ALTITUDE, true);
+            } else if(previous[ALTITUDE] >= 0 && next[ALTITUDE] < 0) {
+                crosses = true;
+                if(events.set[index] == NO_EVENT)
+                    events.set[index] = refine(model, t0, t1, ALTITUDE, false);
+            }
+
+            // Passage au méridien : l'angle horaire passe de négatif à positif (et non de π à -π).
+            if(previous[HOUR_ANGLE] < 0 && next[HOUR_ANGLE] >= 0 && next[HOUR_ANGLE] - previous[HOUR_ANGLE] < PI
+                    && events.transit[index] == NO_EVENT)
+                events.transit[index] = refine(model, t0, t1, HOUR_ANGLE, true);
+
+            previous = next;
+        }
+
+        Visibility visibility = crosses
+                ? Visibility.RISES_AND_SETS
+                : above ? Visibility.ALWAYS_ABOVE : Visibility.ALWAYS_BELOW;
+        events.visibility[index] = (byte) visibility.ordinal();
+    }
+
+    /**
+     * Retourne, à PRECISION près, l'instant de [t0, t1] où la valeur donnée de l'état de
+     * l'objet devient positive (si increasing) ou négative (sinon).
+     */
+    private long refine(CelestialObjectModel<?> model, long t0, long t1, int value, boolean increasing) {
+        while(t1 - t0 > PRECISION) {
+            long middle = t0 + (t1 - t0) / 2;
+            if((state(model, middle)[value] >= 0) == increasing)
+                t1 = middle;
+            else
+                t0 = middle;
+        }
+        return t0 + (t1 - t0) / 2;
+    }
+
+    /**
+     * Retourne la hauteur du bord supérieur de l'objet au-dessus de l'horizon apparent
+     * et son angle horaire dans [-π, π[, à l'instant donné.
+     */
+    private double[] state(CelestialObjectModel<?> model, long time) {
+        double daysSinceJ2010 = Epoch.J2010.daysUntil(time);
+        CelestialObject object = model.at(daysSinceJ2010, new EclipticToEquatorialConversion(time));
+        EquatorialToHorizontalConversion equatorialToHorizontal = EquatorialToHorizontalConversion.ofEpochMillis(
+                time, where);
+
+        double altitude = equatorialToHorizontal.apply(object.equatorialPos()).alt();
+        double hourAngle = normalizePositive(equatorialToHorizontal.localSiderealTime()
+                - object.equatorialPos().ra() + PI) - PI;
+        return new double[] {altitude + object.angularSize() / 2 + REFRACTION, hourAngle};
+    }
+
+    /**
+     * Événements d'une liste d'objets célestes, stockés par colonnes : heures du premier
+     * lever, du premier passage au méridien et du premier coucher pendant la période
+     * (Unité : milli-secondes depuis le 1er janvier 1970 UTC), ou NO_EVENT, et visibilité.
+     * Pour une étoile, la visibilité ne dépend que du lieu ; pour un objet mobile, elle
+     * décrit la période.
+     */
+    public static final class Events {
+
+        private final long[] rise, transit, set;
+        private final byte[] visibility;
+
+        private Events(int size) {
+            rise = new long[size];
+            transit = new long[size];
+            set = new long[size];
+            visibility = new byte[size];
+            Arrays.fill(rise, NO_EVENT);
+            Arrays.fill(transit, NO_EVENT);
+            Arrays.fill(set, NO_EVENT);
+        }
+
+        /**
+         * Retourne le nombre d'objets.
+         *
+         * @return le nombre d'objets.
+         */
+        public int size() {
+            return visibility.length;
+        }
+
+        /**
+         * Retourne l'heure du premier lever de l'objet d'index donné pendant la période.
+         *
+         * @param index index de l'objet.
+         * @return l'heure du lever (Unité : milli-secondes depuis le 1er janvier 1970 UTC), ou NO_EVENT.
+         */
+        public long rise(int index) {
+            return rise[index];
+        }
+
+        /**
+         * Retourne l'heure du premier passage au méridien de l'objet d'index donné pendant la période.
+         *
+         * @param index index de l'objet.
+         * @return l'heure du passage (Unité : milli-secondes depuis le 1er janvier 1970 UTC), ou NO_EVENT.
+         */
+        public long transit(int index) {
+            return transit[index];
+        }
+
+        /**
+         * Retourne l'heure du premier coucher de l'objet d'index donné pendant la période.
+         *
+         * @param index index de l'objet.
+         * @return l'heure du coucher (Unité : milli-secondes depuis le 1er janvier 1970 UTC), ou NO_EVENT.
+         */
+        public long set(int index) {
+            return set[index];
+        }
+
+        /**
+         * Retourne la visibilité de l'objet d'index donné.
+         *
+         * @param index index de l'objet.
+         * @return la visibilité de l'objet.
+         */
+        public Visibility visibility(int index) {
+            return Visibility.values()[visibility[index]];
+        }
+    }
+}
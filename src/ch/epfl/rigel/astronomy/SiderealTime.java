@@ -27,6 +27,8 @@ public final class SiderealTime {
     public final static Duration DAY_DURATION = Duration.ofHours(24);
     public final static int FREQUENCY_SEC_PER_MIN = 60;
 
+    private final static long MILLIS_PER_DAY = DAY_DURATION.toMillis();
+
     private final static double FACTOR_FOR_S1 = 1.002737909;
     private final static Polynomial EQUATION =
             Polynomial.of(0.000025862, 2400.051336, 6.697374558);
@@ -53,6 +55,37 @@ public final class SiderealTime {
         return normalizePositive(Sg);
     }
 
+    /**
+     * Méthode statique retournant le temps sidéral de Greenwich en radians, à partir
+     * d'un instant exprimé en milli-secondes, sans passer par java.time.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @return un double représentant le temps sidéral de Greenwich (Unité : radians).
+     */
+    public static double greenwich(long epochMillis) {
+        long dayStart = Math.floorDiv(epochMillis, MILLIS_PER_DAY) * MILLIS_PER_DAY;
+
+        double T = Epoch.J2000.julianCenturiesUntil(dayStart);
+        double t = (epochMillis - dayStart) / MILLIS_PER_HOURS;
+
+        double S0 = EQUATION.at(T);
+        double S1 = FACTOR_FOR_S1 * t;
+
+        return normalizePositive(ofHr(S0 + S1));
+    }
+
+    /**
+     * Méthode statique retournant l'angle dont avance le temps sidéral pendant la
+     * durée donnée (Unité : radians). Le terme séculaire de S0 est négligé, ce qui
+     * reste précis à mieux que 1e-7 radian par jour.
+     *
+     * @param days durée (Unité : jours, peut être négative).
+     * @return l'avance du temps sidéral pendant cette durée (Unité : radians).
+     */
+    public static double advanceDuring(double days) {
+        return ofHr(FACTOR_FOR_S1 * days * DAY_DURATION.toHours());
+    }
+
     /**
      * Méthode statique retournant le temps sidéral local (Unité : radians).
      *
@@ -64,4 +97,16 @@ public final class SiderealTime {
         double Sl = greenwich(when) + where.lon();
         return normalizePositive(Sl);
     }
+
+    /**
+     * Méthode statique retournant le temps sidéral local (Unité : radians), à partir
+     * d'un instant exprimé en milli-secondes, sans passer par java.time.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param where l'endroit où se trouve le point considéré.
+     * @return un double représentant le temps sidéral local (Unité : radians).
+     */
+    public static double local(long epochMillis, GeographicCoordinates where) {
+        return normalizePositive(greenwich(epochMillis) + where.lon());
+    }
 }
@@ -0,0 +1,248 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import ch.epfl.rigel.Preconditions;
+
+import static ch.epfl.rigel.math.Angle.TAU;
+import static java.lang.Math.*;
+
+/**
+ * Partition de la sphère céleste en cellules de même aire, en coordonnées
+ * équatoriales, et répartition des étoiles d'une table dans ces cellules.
+ * Permet de ne considérer que les étoiles des cellules qui coupent un cône de vue.
+ *
+ * <p>La sphère est découpée en anneaux de déclinaison, eux-mêmes découpés en
+ * cellules d'ascension droite de même largeur. Le nombre de cellules d'un anneau
+ * est proportionnel au cosinus de sa déclinaison, et sa hauteur en sinus de la
+ * déclinaison à ce nombre, ce qui donne à toutes les cellules la même aire et
+ * une forme proche d'un carré (comme HEALPix).</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class SkyPartition {
+
+    /**
+     * Côté approximatif des cellules par défaut (Unité : radians).
+     */
+    public static final double DEFAULT_CELL_SIZE = toRadians(4);
+
+    private final double[] ringBounds;   // sinus des déclinaisons limites des anneaux
+    private final int[] ringFirstCell;   // index de la première cellule de chaque anneau
+    private final double[] cellCenters;  // vecteur unitaire du centre de chaque cellule
+    private final double[] cellRadii;    // rayon angulaire de chaque cellule
+    private final int[] cellStart;       // début des étoiles de chaque cellule dans cellStars
+    private final int[] cellStars;       // index des étoiles, croissants dans chaque cellule
+
+    /**
+     * Construit la partition de la sphère en cellules d'environ cellSize de côté,
+     * sans étoiles.
+     *
+     * @param cellSize côté approximatif des cellules (Unité : radians).
+     * @throws IllegalArgumentException si cellSize n'est pas strictement positif.
+     */
+    public SkyPartition(double cellSize) {
+        this(StarTable.of(List.of()), cellSize);
+    }
+
+    /**
+     * Construit la partition de la sphère en cellules d'environ cellSize de côté,
+     * et y répartit les étoiles de la table.
+     *
+     * @param stars table d'étoiles.
+     * @param cellSize côté approximatif des cellules (Unité : radians).
+     * @throws IllegalArgumentException si cellSize n'est pas strictement positif.
+     */
+    public SkyPartition(StarTable stars, double cellSize) {
+        Preconditions.checkArgument(cellSize > 0);
+
+        // Nombre de cellules de chaque anneau, proportionnel au cosinus de sa déclinaison.
+        int rings = max(2, (int) round(PI / cellSize));
+        int[] ringCells = new int[rings];
+        int cellCount = 0;
+        for(int r = 0; r < rings; ++r) {
+            double dec = -PI / 2 + (r + 0.5) * PI / rings;
+            ringCells[r] = max(1, (int) round(TAU * cos(dec) / cellSize));
+            cellCount += ringCells[r];
+        }
+
+        // Hauteur des anneaux (en sinus de la déclinaison) proportionnelle à leur nombre de cellules.
+        ringBounds = new double[rings + 1];
+        ringFirstCell = new int[rings + 1];
+        ringBounds[0] = -1;
+        for(int r = 0; r < rings; ++r) {
+            ringFirstCell[r + 1] = ringFirstCell[r] + ringCells[r];
+            ringBounds[r + 1] = r + 1 == rings ? 1 : -1 + 2.0 * ringFirstCell[r + 1] / cellCount;
+        }
+
+        cellCenters = new double[3 * cellCount];
+        cellRadii = new double[cellCount];
+        for(int r = 0; r < rings; ++r)
+            for(int c = 0; c < ringCells[r]; ++c)
+                setCellBounds(r, c, ringCells[r]);
+
+        // Répartition des étoiles, dans l'ordre de la table.
+        int[] starCells = new int[stars.size()];
+        cellStart = new int[cellCount + 1];
+        for(int i = 0; i < stars.size(); ++i) {
+            starCells[i] = cellOf(stars.ra(i), stars.dec(i));
+            ++cellStart[starCells[i] + 1];
+        }
+        for(int cell = 0; cell < cellCount; ++cell)
+            cellStart[cell + 1] += cellStart[cell];
+
+        cellStars = new int[stars.size()];
+        int[] next = Arrays.copyOf(cellStart, cellCount);
+        for(int i = 0; i < stars.size(); ++i)
+            cellStars[next[starCells[i]]++] = i;
+    }
+
+    /**
+     * Retourne le nombre de cellules de la partition.
+     *
+     * @return le nombre de cellules.
+     */
+    public int cellCount() {
+        return cellRadii.length;
+    }
+
+    /**
+     * Retourne l'index de la cellule contenant la direction donnée.
+     *
+     * @param ra ascension droite (Unité : radians), dans [0, 2π[.
+     * @param dec déclinaison (Unité : radians), dans [-π/2, π/2].
+     * @return l'index de la cellule contenant la direction.
+     */
+    public int cellOf(double ra, double dec) {
+        int ring = Arrays.binarySearch(ringBounds, sin(dec));
+        ring = ring >= 0 ? min(ring, ringBounds.length - 2) : -ring - 2;
+        ring = max(ring, 0);
+
+        int cells = ringFirstCell[ring + 1] - ringFirstCell[ring];
+        return ringFirstCell[ring] + min((int) (ra / TAU * cells), cells - 1);
+    }
+
+    /**
+     * Retourne les index des étoiles d'index strictement inférieur à count se trouvant
+     * dans une cellule qui coupe le cône de vue et, si zenith n'est pas null, qui n'est
+     * pas entièrement sous l'horizon. Toutes les étoiles du cône s'y trouvent, ainsi que
+     * quelques étoiles proches de son bord.
+     *
+     * @param view composantes x, y, z du vecteur unitaire de l'axe du cône de vue.
+     * @param viewRadius rayon angulaire du cône de vue (Unité : radians).
+     * @param zenith composantes x, y, z du vecteur unitaire du zénith, ou null.
+     * @param count nombre d'étoiles, au début de la table, à considérer.
+     * @return les index des étoiles des cellules sélectionnées, croissants dans chaque cellule.
+     */
+    public int[] starsIntersecting(double[] view, double viewRadius, double[] zenith, int count) {
+        int[] stars = new int[64];
+        int size = 0;
+
+        for(int cell = 0; cell < cellRadii.length; ++cell) {
+            if(!intersects(cell, view, viewRadius, zenith))
+                continue;
+
+            // Les index étant croissants dans la cellule, ceux inférieurs à count en forment le début.
+            int start = cellStart[cell];
+            int end = Arrays.binarySearch(cellStars, start, cellStart[cell + 1], count);
+            end = end >= 0 ? end : -end - 1;
+
+            if(size + end - start > stars.length)
+                stars = Arrays.copyOf(stars, max(2 * stars.length, size + end - start));
+            System.arraycopy(cellStars, start, stars, size, end - start);
+            size += end - start;
+        }
+        return Arrays.copyOf(stars, size);
+    }
+
+    /**
+     * Retourne les index des cellules qui coupent le cône de vue et, si zenith n'est
+     * pas null, qui ne sont pas entièrement sous l'horizon, de la plus proche à la plus
+     * éloignée de l'axe du cône.
+     *
+     * @param view composantes x, y, z du vecteur unitaire de l'axe du cône de vue.
+     * @param viewRadius rayon angulaire du cône de vue (Unité : radians).
+     * @param zenith composantes x, y, z du vecteur unitaire du zénith, ou null.
+     * @return les index des cellules sélectionnées.
+     */
+    public int[] cellsIntersecting(double[] view, double viewRadius, double[] zenith) {
+        return IntStream.range(0, cellRadii.length)
+                .filter(cell -> intersects(cell, view, viewRadius, zenith))
+                .boxed()
+                .sorted(Comparator.comparingDouble(cell -> -cosAngle(cell, view)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Retourne vrai si et seulement si la cellule coupe le cône de vue et, si zenith
+     * n'est pas null, n'est pas entièrement sous l'horizon.
+     */
+    private boolean intersects(int cell, double[] view, double viewRadius, double[] zenith) {
+        return intersects(cell, view, viewRadius) && (zenith == null || intersects(cell, zenith, PI / 2));
+    }
+
+    /**
+     * Retourne vrai si et seulement si la cellule coupe le cône d'axe et de rayon donnés.
+     */
+    private boolean intersects(int cell, double[] axis, double radius) {
+        double angularSum = radius + cellRadii[cell];
+        if(angularSum >= PI)
+            return true;
+
+        return cosAngle(cell, axis) >= cos(angularSum);
+    }
+
+    /**
+     * Retourne le cosinus de l'angle entre le centre de la cellule et la direction donnée.
+     */
+    private double cosAngle(int cell, double[] axis) {
+        return cellCenters[3 * cell] * axis[0] + cellCenters[3 * cell + 1] * axis[1]
+                + cellCenters[3 * cell + 2] * axis[2];
+    }
+
+    /**
+     * Calcule le centre et le rayon angulaire de la cellule c de l'anneau r, qui en compte cells.
+     * Le rayon est la plus grande distance angulaire entre le centre et les coins de la cellule,
+     * qui majore celle de tous ses points tant que la cellule fait au plus un demi-tour de large.
+     */
+    private void setCellBounds(int r, int c, int cells) {
+        int cell = ringFirstCell[r] + c;
+        double decLow = asin(ringBounds[r]), decHigh = asin(ringBounds[r + 1]);
+        double raLow = c * TAU / cells, raHigh = (c + 1) * TAU / cells;
+
+        double decCenter, raCenter = (raLow + raHigh) / 2;
+        if(cells == 1 && (decLow == -PI / 2 || decHigh == PI / 2))
+            decCenter = decLow == -PI / 2 ? -PI / 2 : PI / 2; // calotte polaire
+        else
+            decCenter = asin((ringBounds[r] + ringBounds[r + 1]) / 2);
+
+        cellCenters[3 * cell] = cos(decCenter) * cos(raCenter);
+        cellCenters[3 * cell + 1] = cos(decCenter) * sin(raCenter);
+        cellCenters[3 * cell + 2] = sin(decCenter);
+
+        double radius;
+        if(cells == 1 && decLow != -PI / 2 && decHigh != PI / 2)
+            radius = PI;
+        else if(cells == 1)
+            radius = PI / 2 - min(abs(decLow), abs(decHigh));
+        else
+            radius = max(max(angle(decCenter, raCenter, decLow, raLow), angle(decCenter, raCenter, decLow, raHigh)),
+                    max(angle(decCenter, raCenter, decHigh, raLow), angle(decCenter, raCenter, decHigh, raHigh)));
+
+        // Marge couvrant les erreurs d'arrondi.
+        cellRadii[cell] = radius + 1e-9;
+    }
+
+    /**
+     * Retourne la distance angulaire entre deux directions.
+     */
+    private static double angle(double dec1, double ra1, double dec2, double ra2) {
+        double cosAngle = sin(dec1) * sin(dec2) + cos(dec1) * cos(dec2) * cos(ra1 - ra2);
+        return acos(max(-1, min(1, cosAngle)));
+    }
+}
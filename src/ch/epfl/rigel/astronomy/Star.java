@@ -16,6 +16,7 @@ public final class Star extends CelestialObject {
     private static final ClosedInterval INTERVAL_COLOR_INDEX = ClosedInterval.of(-0.5, 5.5);
 
     private final int hipparcosId;
+    private final float colorIndex;
     private final int colorTemperature;
 
     /**
@@ -33,9 +34,21 @@ public final class Star extends CelestialObject {
         checkArgument(hipparcosId >= 0);
         this.hipparcosId = hipparcosId;
 
+        this.colorTemperature = colorTemperature(colorIndex);
+        this.colorIndex = colorIndex;
+    }
+
+    /**
+     * Calcul la température d'une étoile à partir de son indice de couleur (Unité : Kelvin).
+     *
+     * @param colorIndex l'indice de couleur de l'étoile.
+     * @throws IllegalArgumentException si l'indice de couleur n'est pas valide.
+     * @return la température de l'étoile (Unité : Kelvin).
+     */
+    static int colorTemperature(float colorIndex) {
         checkInInterval(INTERVAL_COLOR_INDEX, colorIndex);
         double stepMultiplication = 0.92 * colorIndex;
-        this.colorTemperature = (int) (4600 * (1 / (stepMultiplication + 1.7) + 1 / (stepMultiplication + 0.62)));
+        return (int) (4600 * (1 / (stepMultiplication + 1.7) + 1 / (stepMultiplication + 0.62)));
     }
 
     /**
@@ -47,6 +60,15 @@ public final class Star extends CelestialObject {
         return hipparcosId;
     }
 
+    /**
+     * Retourne l'indice de couleur de l'Étoile.
+     *
+     * @return l'indice de couleur de l'Étoile.
+     */
+    public float colorIndex() {
+        return colorIndex;
+    }
+
     /**
      * Calcul la température de l'Étoile à partir de son code couleur (Unité : Kelvin).
      *
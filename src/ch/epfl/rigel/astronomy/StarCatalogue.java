@@ -1,8 +1,13 @@
 package ch.epfl.rigel.astronomy;
 
+import ch.epfl.rigel.metrics.CatalogueLoadEvent;
+import ch.epfl.rigel.metrics.Metrics;
+import ch.epfl.rigel.metrics.Timer;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static ch.epfl.rigel.Preconditions.checkArgument;
 
@@ -17,12 +22,15 @@ public final class StarCatalogue {
     public static final String SUN_NAME = "Soleil";
     public static final String MOON_NAME = "Lune";
 
-    private final List<Star> listStars;
+    private final StarTable starTable;
     private final Set<Asterism> setAsterisms;
     private final List<Constellation> constellations;
     private final Map<Asterism, List<Integer>> mapAsterismsAndIndex;
-    private final Map<Star, Integer> starsIndexInCatalogue;
-    private final Map<String, Star> nameOfStars;
+    private final int[] asterismStarIndices;
+    private final Map<Asterism, List<Integer>> mapAsterismsAndSlots;
+    private final SkyPartition skyPartition;
+    private final TiledStarFile tiledStars;
+    private final Map<String, Integer> nameOfStars;
     private final Map<String, PlanetModel> nameOfPlanets;
 
     /**
@@ -30,32 +38,52 @@ public final class StarCatalogue {
      *
      * @param stars liste d'étoiles.
      * @param asterisms liste d'astérismes.
+     * @param constellations liste de constellations.
      */
     public StarCatalogue(List<Star> stars, List<Asterism> asterisms, List<Constellation> constellations) {
-        for(Asterism asterism : asterisms)
-            checkArgument(stars.containsAll(asterism.stars()));
+        this(StarTable.of(stars), asterisms, constellations);
+    }
 
-        this.listStars = List.copyOf(stars);
+    /**
+     * Construit un catalogue d'étoiles à partir d'une table d'étoiles. Les étoiles du
+     * catalogue sont triées par magnitude croissante, pour que les étoiles visibles
+     * jusqu'à une magnitude limite en forment le début.
+     *
+     * @param starTable table d'étoiles.
+     * @param asterisms liste d'astérismes.
+     * @param constellations liste de constellations.
+     * @throws IllegalArgumentException si un astérisme contient une étoile absente de la table.
+     */
+    public StarCatalogue(StarTable starTable, List<Asterism> asterisms, List<Constellation> constellations) {
+        this(starTable, asterisms, constellations, null);
+    }
+
+    /**
+     * Construit un catalogue d'étoiles à partir d'une table d'étoiles et, si tiledStars
+     * n'est pas null, des étoiles plus faibles d'un fichier de tuiles.
+     */
+    private StarCatalogue(StarTable starTable, List<Asterism> asterisms, List<Constellation> constellations,
+                          TiledStarFile tiledStars) {
+        this.tiledStars = tiledStars;
+        this.starTable = starTable.sortedByMagnitude();
         this.setAsterisms = Set.copyOf(asterisms);
         this.constellations = List.copyOf(constellations);
-        starsIndexInCatalogue = starsIndexInCatalogue();
         mapAsterismsAndIndex = mapAsterismsAndIndex();
+        asterismStarIndices = mapAsterismsAndIndex.values().stream()
+                .flatMap(List::stream)
+                .mapToInt(Integer::intValue)
+                .distinct()
+                .sorted()
+                .toArray();
+        mapAsterismsAndSlots = new HashMap<>();
+        mapAsterismsAndIndex.forEach((asterism, indices) -> mapAsterismsAndSlots.put(asterism, indices.stream()
+                .map(index -> Arrays.binarySearch(asterismStarIndices, index))
+                .collect(Collectors.toUnmodifiableList())));
+        skyPartition = new SkyPartition(this.starTable, SkyPartition.DEFAULT_CELL_SIZE);
         nameOfStars = nameOfStars();
         nameOfPlanets = nameOfPlanets();
     }
 
-    /**
-     * Retourne une map qui lie étoiles et index des étoiles dans le catalogue.
-     *
-     * @return une map qui lie étoiles et index des étoiles dans le catalogue.
-     */
-    private Map<Star, Integer> starsIndexInCatalogue() {
-        Map<Star, Integer> starsIndexInCatalogue = new HashMap<>();
-        for(int i = 0; i < listStars.size(); ++i)
-            starsIndexInCatalogue.put(listStars.get(i), i);
-        return starsIndexInCatalogue;
-    }
-
     /**
      * Retourne une map qui lie les étoiles contenues dans les astérismes à
      * leur index dans le catalogue d'étoiles.
@@ -66,11 +94,15 @@ public final class StarCatalogue {
     private Map<Asterism, List<Integer>> mapAsterismsAndIndex() {
         Map<Asterism, List<Integer>> mapAsterismInteger = new HashMap<>();
         List<Integer> asterismIndex = new ArrayList<>();
+        int index;
 
         for(Asterism asterism : setAsterisms) {
 
-            for(Star star : asterism.stars())
-                asterismIndex.add(starsIndexInCatalogue.get(star));
+            for(Star star : asterism.stars()) {
+                index = starTable.indexOf(star.hipparcosId());
+                checkArgument(index != -1);
+                asterismIndex.add(index);
+            }
 
             mapAsterismInteger.put(asterism, List.copyOf(asterismIndex));
             asterismIndex.clear();
@@ -80,16 +112,19 @@ public final class StarCatalogue {
     }
 
     /**
-     * Retourne une map liant le nom des étoiles aux étoiles.
+     * Retourne une map liant le nom des étoiles à leur index dans le catalogue.
      *
-     * @return une map liant le nom des étoiles aux étoiles.
+     * @return une map liant le nom des étoiles à leur index dans le catalogue.
      */
-    private Map<String, Star> nameOfStars() {
-        Map<String, Star> nameOfStars = new HashMap<>();
-
-        for(Star star : listStars)
-            if(star.name().charAt(0) != '?')
-                nameOfStars.put(star.name(), star);
+    private Map<String, Integer> nameOfStars() {
+        Map<String, Integer> nameOfStars = new HashMap<>();
+        String name;
+
+        for(int i = 0; i < starTable.size(); ++i) {
+            name = starTable.name(i);
+            if(name.charAt(0) != '?')
+                nameOfStars.put(name, i);
+        }
 
         return nameOfStars;
     }
@@ -126,7 +161,8 @@ public final class StarCatalogue {
      * @return l'étoile correspondant au nom.
      */
     public Star getStar(String name) {
-        return nameOfStars.get(name);
+        Integer index = nameOfStars.get(name);
+        return index == null ? null : starTable.star(index);
     }
 
     /**
@@ -168,12 +204,35 @@ public final class StarCatalogue {
     }
 
     /**
-     * Retourne la liste des Étoiles.
+     * Retourne une vue non modifiable sur la liste des Étoiles, dont les
+     * éléments sont créés à la demande.
      *
      * @return la liste des Étoiles.
      */
     public List<Star> stars() {
-        return List.copyOf(listStars);
+        return starTable.asList();
+    }
+
+    /**
+     * Retourne la table des Étoiles, dans l'ordre du catalogue (par magnitude croissante).
+     *
+     * @return la table des Étoiles.
+     */
+    public StarTable starTable() {
+        return starTable;
+    }
+
+    /**
+     * Retourne la magnitude de l'étoile la plus faible du catalogue, étoiles du fichier
+     * de tuiles comprises.
+     *
+     * @return la plus grande magnitude des étoiles du catalogue, ou -∞ s'il n'en contient aucune.
+     */
+    public double faintestMagnitude() {
+        double faintest = starTable.size() == 0
+                ? Double.NEGATIVE_INFINITY
+                : starTable.magnitude(starTable.size() - 1);
+        return tiledStars == null ? faintest : Math.max(faintest, tiledStars.faintestMagnitude());
     }
 
     /**
@@ -196,6 +255,49 @@ public final class StarCatalogue {
         return mapAsterismsAndIndex.get(asterism);
     }
 
+    /**
+     * Retourne les index, sans doublons et par ordre croissant, des étoiles
+     * appartenant à au moins un astérisme. Le tableau n'est pas copié.
+     *
+     * @return les index des étoiles des astérismes.
+     */
+    int[] asterismStarIndices() {
+        return asterismStarIndices;
+    }
+
+    /**
+     * Retourne la position, dans le tableau asterismStarIndices, de chacune des étoiles
+     * de l'astérisme donné.
+     *
+     * @param asterism astérisme du catalogue.
+     * @return les positions des étoiles de l'astérisme parmi les étoiles des astérismes.
+     * @throws IllegalArgumentException si l'astérisme n'est pas dans le catalogue.
+     */
+    List<Integer> asterismStarSlots(Asterism asterism) {
+        checkArgument(mapAsterismsAndSlots.get(asterism) != null);
+        return mapAsterismsAndSlots.get(asterism);
+    }
+
+    /**
+     * Retourne la partition du ciel en cellules de même aire contenant les étoiles
+     * du catalogue.
+     *
+     * @return la partition du ciel du catalogue.
+     */
+    public SkyPartition skyPartition() {
+        return skyPartition;
+    }
+
+    /**
+     * Retourne le fichier de tuiles contenant les étoiles plus faibles que celles
+     * du catalogue, s'il y en a un.
+     *
+     * @return le fichier de tuiles des étoiles faibles, s'il y en a un.
+     */
+    public Optional<TiledStarFile> tiledStars() {
+        return Optional.ofNullable(tiledStars);
+    }
+
     /**
      * Retourne la liste des constellations.
      *
@@ -210,12 +312,13 @@ public final class StarCatalogue {
      */
     public static final class Builder {
        
-        private final List<Star> stars;
+        private final StarTable.Builder stars;
         private final List<Asterism> asterisms;
         private final List<Constellation> constellations;
+        private TiledStarFile tiledStars;
 
         public Builder() {
-            stars = new ArrayList<>();
+            stars = new StarTable.Builder();
             asterisms = new ArrayList<>();
             constellations = new ArrayList<>();
         }
@@ -232,14 +335,44 @@ public final class StarCatalogue {
             return this;
         }
 
+        /**
+         * Ajoute une étoile au catalogue en cours de construction sans créer
+         * d'instance de Star, et retourne le bâtisseur.
+         *
+         * @param hipparcosId le numéro Hipparcos de l'étoile.
+         * @param name le nom de l'étoile.
+         * @param ra l'ascension droite de l'étoile (Unité : radians).
+         * @param dec la déclinaison de l'étoile (Unité : radians).
+         * @param magnitude la magnitude de l'étoile.
+         * @param colorIndex l'indice de couleur de l'étoile.
+         * @return le bâtisseur.
+         */
+        public Builder addStar(int hipparcosId, String name, double ra, double dec,
+                               float magnitude, float colorIndex) {
+            stars.add(hipparcosId, name, ra, dec, magnitude, colorIndex);
+            return this;
+        }
+
         /**
          * Retourne une vue non modifiable sur les étoiles du catalogue
-         * en cours de construction.
+         * en cours de construction, dont les éléments sont créés à la demande.
          *
          * @return une liste d'étoiles.
          */
         public List<Star> stars() {
-            return Collections.unmodifiableList(stars);
+            return stars.asList();
+        }
+
+        /**
+         * Retourne l'étoile du catalogue en cours de construction ayant le
+         * numéro Hipparcos donné, si elle existe.
+         *
+         * @param hipparcosId numéro Hipparcos de l'étoile.
+         * @return l'étoile ayant le numéro Hipparcos donné, si elle existe.
+         */
+        public Optional<Star> starOfHipparcos(int hipparcosId) {
+            int index = stars.indexOf(hipparcosId);
+            return index == -1 ? Optional.empty() : Optional.of(stars.star(index));
         }
 
         /**
@@ -286,11 +419,24 @@ public final class StarCatalogue {
             return Collections.unmodifiableList(constellations);
         }
 
+        /**
+         * Associe au catalogue en cours de construction le fichier de tuiles
+         * contenant les étoiles plus faibles, et retourne le bâtisseur.
+         *
+         * @param tiledStars fichier de tuiles des étoiles faibles.
+         * @return le bâtisseur.
+         */
+        public Builder setTiledStars(TiledStarFile tiledStars) {
+            this.tiledStars = Objects.requireNonNull(tiledStars);
+            return this;
+        }
+
         /**
          * Demande au chargeur 'loader' d'ajouter au catalogue les étoiles
          * et/ou astérismes qu'il obtient depuis le flot d'entrée inputStream,
          * et retourne le bâtisseur, ou lève IOException en cas d'erreur
-         * d'entrée/sortie.
+         * d'entrée/sortie. La durée du chargement est mesurée par le chronomètre
+         * catalogue.<nom du chargeur> (voir Metrics).
          *
          * @param inputStream flot d'entrée.
          * @param loader chargeur de catalogue.
@@ -298,7 +444,12 @@ public final class StarCatalogue {
          * @return le bâtisseur.
          */
         public Builder loadFrom(InputStream inputStream, Loader loader) throws IOException {
+            String loaderName = loader.getClass().getSimpleName();
+            long start = System.nanoTime();
+            CatalogueLoadEvent event = new CatalogueLoadEvent(loaderName);
+
             loader.load(inputStream, this);
+            Metrics.timer("catalogue." + loaderName).commit(event, start);
             return this;
         }
 
@@ -309,7 +460,7 @@ public final class StarCatalogue {
          * @return le catalogue.
          */
         public StarCatalogue build() {
-            return new StarCatalogue(stars, asterisms, constellations);
+            return new StarCatalogue(stars.build(), asterisms, constellations, tiledStars);
         }
 
     }
@@ -0,0 +1,566 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.ClosedInterval;
+import ch.epfl.rigel.math.RightOpenInterval;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+import static ch.epfl.rigel.Preconditions.checkArgument;
+import static ch.epfl.rigel.Preconditions.checkInInterval;
+import static ch.epfl.rigel.math.Angle.TAU;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+/**
+ * Table d'étoiles stockée par colonnes (un tableau primitif par attribut).
+ * Les instances de Star ne sont créées qu'à la demande.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class StarTable {
+
+    static final RightOpenInterval INTERVAL_RA = RightOpenInterval.of(0, TAU);
+    static final ClosedInterval INTERVAL_DEC = ClosedInterval.symmetric(TAU / 2);
+
+    /**
+     * Taille d'une étoile d'une table dans le tas, avec des références compressées de
+     * 4 octets : numéro Hipparcos, référence du nom, ascension droite, déclinaison,
+     * magnitude, indice de couleur, température de couleur, entrée de l'index des numéros
+     * Hipparcos et vecteur unitaire (Unité : octets). Les noms, partagés, n'en font pas partie.
+     */
+    static final int HEAP_BYTES_PER_STAR = Integer.BYTES + 4 + 2 * Double.BYTES + 2 * Float.BYTES
+            + Integer.BYTES + Long.BYTES + 3 * Double.BYTES;
+
+    private final int size;
+    private final int[] hipparcosIds;
+    private final String[] names;
+    private final double[] ra, dec;
+    private final float[] magnitudes, colorIndexes;
+    private final int[] colorTemperatures;
+    private final long[] hipparcosIndex;
+    private final double[] unitVectors;
+
+    /**
+     * Construit une table d'étoiles à partir des colonnes fournies, qui ne sont pas copiées.
+     */
+    private StarTable(int size, int[] hipparcosIds, String[] names, double[] ra, double[] dec,
+                      float[] magnitudes, float[] colorIndexes, int[] colorTemperatures) {
+        this(size, hipparcosIds, names, ra, dec, magnitudes, colorIndexes, colorTemperatures,
+                unitVectors(ra, dec, size));
+    }
+
+    /**
+     * Construit une table d'étoiles à partir des colonnes et des vecteurs unitaires
+     * fournis, qui ne sont pas copiés.
+     */
+    private StarTable(int size, int[] hipparcosIds, String[] names, double[] ra, double[] dec,
+                      float[] magnitudes, float[] colorIndexes, int[] colorTemperatures, double[] unitVectors) {
+        this.size = size;
+        this.hipparcosIds = hipparcosIds;
+        this.names = names;
+        this.ra = ra;
+        this.dec = dec;
+        this.magnitudes = magnitudes;
+        this.colorIndexes = colorIndexes;
+        this.colorTemperatures = colorTemperatures;
+        this.hipparcosIndex = hipparcosIndex(hipparcosIds, size);
+        this.unitVectors = unitVectors;
+    }
+
+    /**
+     * Retourne une table contenant, à la suite, les counts[i] premières étoiles de la
+     * i-ème table donnée. Les colonnes, vecteurs unitaires compris, sont copiées par
+     * blocs, sans recalcul.
+     *
+     * @param tables tables d'étoiles.
+     * @param counts nombre d'étoiles à prendre au début de chaque table.
+     * @return la table contenant les étoiles des tables, dans l'ordre.
+     * @throws IllegalArgumentException si les tailles ne correspondent pas ou si un nombre
+     *          d'étoiles n'est pas compris entre 0 et la taille de sa table.
+     */
+    public static StarTable concat(List<StarTable> tables, int[] counts) {
+        checkArgument(tables.size() == counts.length);
+        int size = 0;
+        for(int i = 0; i < counts.length; ++i) {
+            checkArgument(0 <= counts[i] && counts[i] <= tables.get(i).size);
+            size += counts[i];
+        }
+
+        int[] hipparcosIds = new int[size], colorTemperatures = new int[size];
+        String[] names = new String[size];
+        double[] ra = new double[size], dec = new double[size], unitVectors = new double[3 * size];
+        float[] magnitudes = new float[size], colorIndexes = new float[size];
+        int offset = 0;
+        for(int i = 0; i < counts.length; ++i) {
+            StarTable table = tables.get(i);
+            int count = counts[i];
+            System.arraycopy(table.hipparcosIds, 0, hipparcosIds, offset, count);
+            System.arraycopy(table.names, 0, names, offset, count);
+            System.arraycopy(table.ra, 0, ra, offset, count);
+            System.arraycopy(table.dec, 0, dec, offset, count);
+            System.arraycopy(table.magnitudes, 0, magnitudes, offset, count);
+            System.arraycopy(table.colorIndexes, 0, colorIndexes, offset, count);
+            System.arraycopy(table.colorTemperatures, 0, colorTemperatures, offset, count);
+            System.arraycopy(table.unitVectors, 0, unitVectors, 3 * offset, 3 * count);
+            offset += count;
+        }
+        return new StarTable(size, hipparcosIds, names, ra, dec, magnitudes, colorIndexes, colorTemperatures,
+                unitVectors);
+    }
+
+    /**
+     * Retourne une table contenant les étoiles de la liste, dans le même ordre.
+     *
+     * @param stars liste d'étoiles.
+     * @return une table contenant les étoiles de la liste.
+     */
+    public static StarTable of(List<Star> stars) {
+        Builder builder = new Builder(stars.size());
+        for(Star star : stars)
+            builder.add(star);
+        return builder.build();
+    }
+
+    /**
+     * Retourne une table contenant les mêmes étoiles triées par magnitude croissante,
+     * les étoiles de même magnitude restant dans le même ordre. Retourne la table
+     * elle-même si elle est déjà triée.
+     *
+     * @return la table triée par magnitude croissante.
+     */
+    public StarTable sortedByMagnitude() {
+        boolean sorted = true;
+        for(int i = 1; i < size && sorted; ++i)
+            sorted = Float.compare(magnitudes[i - 1], magnitudes[i]) <= 0;
+        if(sorted)
+            return this;
+
+        // Chaque clé contient la magnitude, rendue triable comme un entier, dans ses
+        // 32 bits de poids fort et l'index de l'étoile dans ses 32 bits de poids faible.
+        long[] keys = new long[size];
+        for(int i = 0; i < size; ++i) {
+            int bits = Float.floatToIntBits(magnitudes[i]);
+            int sortable = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+            keys[i] = ((long) sortable << Integer.SIZE) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] sortedHipparcosIds = new int[size], sortedColorTemperatures = new int[size];
+        String[] sortedNames = new String[size];
+        double[] sortedRa = new double[size], sortedDec = new double[size];
+        float[] sortedMagnitudes = new float[size], sortedColorIndexes = new float[size];
+        for(int k = 0; k < size; ++k) {
+            int i = (int) keys[k];
+            sortedHipparcosIds[k] = hipparcosIds[i];
+            sortedNames[k] = names[i];
+            sortedRa[k] = ra[i];
+            sortedDec[k] = dec[i];
+            sortedMagnitudes[k] = magnitudes[i];
+            sortedColorIndexes[k] = colorIndexes[i];
+            sortedColorTemperatures[k] = colorTemperatures[i];
+        }
+        return new StarTable(size, sortedHipparcosIds, sortedNames, sortedRa, sortedDec,
+                sortedMagnitudes, sortedColorIndexes, sortedColorTemperatures);
+    }
+
+    /**
+     * Retourne le nombre d'étoiles de magnitude inférieure ou égale à la magnitude
+     * donnée, la table devant être triée par magnitude croissante.
+     *
+     * @param limitingMagnitude magnitude limite.
+     * @return le nombre d'étoiles de magnitude inférieure ou égale à la limite.
+     */
+    public int countUpToMagnitude(double limitingMagnitude) {
+        int lo = 0, hi = size;
+        while(lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(magnitudes[mid] <= limitingMagnitude)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Retourne le nombre d'étoiles de la table.
+     *
+     * @return le nombre d'étoiles de la table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retourne la taille des colonnes de la table dans le tas (voir HEAP_BYTES_PER_STAR).
+     *
+     * @return la taille de la table dans le tas (Unité : octets).
+     */
+    long heapBytes() {
+        return (long) size * HEAP_BYTES_PER_STAR;
+    }
+
+    /**
+     * Retourne le numéro Hipparcos de l'étoile d'index donné.
+     *
+     * @param index index de l'étoile.
+     * @return le numéro Hipparcos de l'étoile.
+     */
+    public int hipparcosId(int index) {
+        return hipparcosIds[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne le nom de l'étoile d'index donné.
+     *
+     * @param index index de l'étoile.
+     * @return le nom de l'étoile.
+     */
+    public String name(int index) {
+        return names[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne l'ascension droite de l'étoile d'index donné (Unité : radians).
+     *
+     * @param index index de l'étoile.
+     * @return l'ascension droite de l'étoile (Unité : radians).
+     */
+    public double ra(int index) {
+        return ra[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne la déclinaison de l'étoile d'index donné (Unité : radians).
+     *
+     * @param index index de l'étoile.
+     * @return la déclinaison de l'étoile (Unité : radians).
+     */
+    public double dec(int index) {
+        return dec[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne la magnitude de l'étoile d'index donné.
+     *
+     * @param index index de l'étoile.
+     * @return la magnitude de l'étoile.
+     */
+    public float magnitude(int index) {
+        return magnitudes[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne l'indice de couleur de l'étoile d'index donné.
+     *
+     * @param index index de l'étoile.
+     * @return l'indice de couleur de l'étoile.
+     */
+    public float colorIndex(int index) {
+        return colorIndexes[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne la température de l'étoile d'index donné (Unité : Kelvin).
+     *
+     * @param index index de l'étoile.
+     * @return la température de l'étoile (Unité : Kelvin).
+     */
+    public int colorTemperature(int index) {
+        return colorTemperatures[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne les vecteurs unitaires équatoriaux (cos(dec)cos(ra), cos(dec)sin(ra), sin(dec))
+     * des étoiles, à la suite. Le tableau n'est pas copié et ne doit pas être modifié.
+     *
+     * @return les vecteurs unitaires équatoriaux des étoiles.
+     */
+    double[] unitVectors() {
+        return unitVectors;
+    }
+
+    /**
+     * Retourne une nouvelle instance de Star correspondant à l'étoile d'index donné.
+     *
+     * @param index index de l'étoile.
+     * @return l'étoile d'index donné.
+     */
+    public Star star(int index) {
+        Objects.checkIndex(index, size);
+        return new Star(hipparcosIds[index], names[index], EquatorialCoordinates.of(ra[index], dec[index]),
+                magnitudes[index], colorIndexes[index]);
+    }
+
+    /**
+     * Retourne l'index de la première étoile ayant le numéro Hipparcos donné,
+     * ou -1 si aucune étoile ne le possède.
+     *
+     * @param hipparcosId numéro Hipparcos.
+     * @return l'index de l'étoile, ou -1 si elle est absente.
+     */
+    public int indexOf(int hipparcosId) {
+        return indexOf(hipparcosIndex, hipparcosId);
+    }
+
+    /**
+     * Retourne une vue non modifiable de la table sous forme de liste d'étoiles,
+     * dont les éléments sont créés à la demande.
+     *
+     * @return une vue de la table sous forme de liste d'étoiles.
+     */
+    public List<Star> asList() {
+        return new StarListView(this::star, this::size);
+    }
+
+    /**
+     * Retourne un index trié des numéros Hipparcos. Chaque entrée contient le numéro
+     * Hipparcos dans ses 32 bits de poids fort et l'index de l'étoile dans ses 32 bits
+     * de poids faible, ce qui permet un tri primitif sans table associative.
+     *
+     * @param hipparcosIds numéros Hipparcos.
+     * @param size nombre d'étoiles.
+     * @return l'index trié des numéros Hipparcos.
+     */
+    private static long[] hipparcosIndex(int[] hipparcosIds, int size) {
+        long[] index = new long[size];
+        for(int i = 0; i < size; ++i)
+            index[i] = ((long) hipparcosIds[i] << Integer.SIZE) | i;
+        Arrays.sort(index);
+        return index;
+    }
+
+    /**
+     * Calcule les vecteurs unitaires équatoriaux des étoiles.
+     *
+     * @param ra ascensions droites (Unité : radians).
+     * @param dec déclinaisons (Unité : radians).
+     * @param size nombre d'étoiles.
+     * @return les composantes x, y, z des vecteurs unitaires à la suite.
+     */
+    private static double[] unitVectors(double[] ra, double[] dec, int size) {
+        double[] unitVectors = new double[3 * size];
+        double cosDec;
+
+        for(int i = 0; i < size; ++i) {
+            cosDec = cos(dec[i]);
+            unitVectors[3 * i] = cosDec * cos(ra[i]);
+            unitVectors[3 * i + 1] = cosDec * sin(ra[i]);
+            unitVectors[3 * i + 2] = sin(dec[i]);
+        }
+        return unitVectors;
+    }
+
+    /**
+     * Recherche par dichotomie l'index de la première étoile ayant le numéro Hipparcos donné.
+     *
+     * @param hipparcosIndex index trié des numéros Hipparcos.
+     * @param hipparcosId numéro Hipparcos.
+     * @return l'index de l'étoile, ou -1 si elle est absente.
+     */
+    private static int indexOf(long[] hipparcosIndex, int hipparcosId) {
+        long key = (long) hipparcosId << Integer.SIZE;
+        int low = 0, high = hipparcosIndex.length;
+
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(hipparcosIndex[middle] < key)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        if(low < hipparcosIndex.length && (int) (hipparcosIndex[low] >>> Integer.SIZE) == hipparcosId)
+            return (int) hipparcosIndex[low];
+        return -1;
+    }
+
+    /**
+     * Vue non modifiable sous forme de liste d'étoiles créées à la demande.
+     */
+    private static final class StarListView extends AbstractList<Star> implements RandomAccess {
+
+        private final IntFunction<Star> stars;
+        private final IntSupplier size;
+
+        StarListView(IntFunction<Star> stars, IntSupplier size) {
+            this.stars = stars;
+            this.size = size;
+        }
+
+        @Override
+        public Star get(int index) {
+            return stars.apply(index);
+        }
+
+        @Override
+        public int size() {
+            return size.getAsInt();
+        }
+    }
+
+    /**
+     * Bâtisseur de table d'étoiles.
+     */
+    public static final class Builder {
+
+        private static final int DEFAULT_CAPACITY = 1024;
+
+        private int size;
+        private int[] hipparcosIds;
+        private String[] names;
+        private double[] ra, dec;
+        private float[] magnitudes, colorIndexes;
+        private int[] colorTemperatures;
+        private long[] hipparcosIndex;
+
+        public Builder() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        /**
+         * Construit un bâtisseur dimensionné pour le nombre d'étoiles donné.
+         *
+         * @param capacity nombre d'étoiles attendu.
+         */
+        public Builder(int capacity) {
+            checkArgument(capacity >= 0);
+            hipparcosIds = new int[capacity];
+            names = new String[capacity];
+            ra = new double[capacity];
+            dec = new double[capacity];
+            magnitudes = new float[capacity];
+            colorIndexes = new float[capacity];
+            colorTemperatures = new int[capacity];
+        }
+
+        /**
+         * Ajoute l'étoile donnée à la table en cours de construction,
+         * et retourne le bâtisseur.
+         *
+         * @param star l'étoile à ajouter.
+         * @return le bâtisseur.
+         */
+        public Builder add(Star star) {
+            return add(star.hipparcosId(), star.name(), star.equatorialPos().ra(), star.equatorialPos().dec(),
+                    (float) star.magnitude(), star.colorIndex());
+        }
+
+        /**
+         * Ajoute une étoile à la table en cours de construction sans créer d'instance
+         * de Star, et retourne le bâtisseur.
+         *
+         * @param hipparcosId le numéro Hipparcos de l'étoile.
+         * @param name le nom de l'étoile.
+         * @param ra l'ascension droite de l'étoile (Unité : radians).
+         * @param dec la déclinaison de l'étoile (Unité : radians).
+         * @param magnitude la magnitude de l'étoile.
+         * @param colorIndex l'indice de couleur de l'étoile.
+         * @throws IllegalArgumentException si le numéro Hipparcos est négatif, si les
+         *          coordonnées ou l'indice de couleur ne sont pas valides.
+         * @return le bâtisseur.
+         */
+        public Builder add(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex) {
+            checkArgument(hipparcosId >= 0);
+            checkInInterval(INTERVAL_RA, ra);
+            checkInInterval(INTERVAL_DEC, dec);
+            int colorTemperature = Star.colorTemperature(colorIndex);
+
+            if(size == hipparcosIds.length)
+                grow();
+
+            hipparcosIds[size] = hipparcosId;
+            names[size] = Objects.requireNonNull(name);
+            this.ra[size] = ra;
+            this.dec[size] = dec;
+            magnitudes[size] = magnitude;
+            colorIndexes[size] = colorIndex;
+            colorTemperatures[size] = colorTemperature;
+            ++size;
+            hipparcosIndex = null;
+            return this;
+        }
+
+        /**
+         * Retourne le nombre d'étoiles ajoutées jusqu'alors.
+         *
+         * @return le nombre d'étoiles ajoutées jusqu'alors.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Retourne une nouvelle instance de Star correspondant à l'étoile d'index donné.
+         *
+         * @param index index de l'étoile.
+         * @return l'étoile d'index donné.
+         */
+        public Star star(int index) {
+            Objects.checkIndex(index, size);
+            return new Star(hipparcosIds[index], names[index], EquatorialCoordinates.of(ra[index], dec[index]),
+                    magnitudes[index], colorIndexes[index]);
+        }
+
+        /**
+         * Retourne l'index de la première étoile ajoutée ayant le numéro Hipparcos donné,
+         * ou -1 si aucune étoile ne le possède.
+         *
+         * @param hipparcosId numéro Hipparcos.
+         * @return l'index de l'étoile, ou -1 si elle est absente.
+         */
+        public int indexOf(int hipparcosId) {
+            if(hipparcosIndex == null)
+                hipparcosIndex = hipparcosIndex(hipparcosIds, size);
+            return StarTable.indexOf(hipparcosIndex, hipparcosId);
+        }
+
+        /**
+         * Retourne une vue non modifiable sur les étoiles ajoutées jusqu'alors,
+         * dont les éléments sont créés à la demande.
+         *
+         * @return une vue sur les étoiles ajoutées jusqu'alors.
+         */
+        public List<Star> asList() {
+            return new StarListView(this::star, this::size);
+        }
+
+        /**
+         * Retourne la table contenant les étoiles ajoutées jusqu'alors.
+         *
+         * @return la table d'étoiles.
+         */
+        public StarTable build() {
+            return new StarTable(size,
+                    Arrays.copyOf(hipparcosIds, size),
+                    Arrays.copyOf(names, size),
+                    Arrays.copyOf(ra, size),
+                    Arrays.copyOf(dec, size),
+                    Arrays.copyOf(magnitudes, size),
+                    Arrays.copyOf(colorIndexes, size),
+                    Arrays.copyOf(colorTemperatures, size));
+        }
+
+        /**
+         * Double la capacité de chacune des colonnes.
+         */
+        private void grow() {
+            int capacity = Math.max(DEFAULT_CAPACITY, 2 * hipparcosIds.length);
+            hipparcosIds = Arrays.copyOf(hipparcosIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            ra = Arrays.copyOf(ra, capacity);
+            dec = Arrays.copyOf(dec, capacity);
+            magnitudes = Arrays.copyOf(magnitudes, capacity);
+            colorIndexes = Arrays.copyOf(colorIndexes, capacity);
+            colorTemperatures = Arrays.copyOf(colorTemperatures, capacity);
+        }
+    }
+}
@@ -17,6 +17,7 @@ public final class Sun extends CelestialObject {
     protected static final double LONGITUDE_SUN_PERIGEE = 283.112438;
     protected static final double ECCENTRICITY = 0.016705;
     protected static final double THETA_0 = 0.533128;
+    static final float MAGNITUDE = -26.7f;
 
     private final EclipticCoordinates eclipticPos;
     private final float meanAnomaly;
@@ -32,7 +33,7 @@ public final class Sun extends CelestialObject {
     public Sun(EclipticCoordinates eclipticPos, EquatorialCoordinates equatorialPos,
                float angularSize, float meanAnomaly) {
 
-        super("Soleil", equatorialPos, angularSize, -26.7f);
+        super("Soleil", equatorialPos, angularSize, MAGNITUDE);
         this.eclipticPos = Objects.requireNonNull(eclipticPos);
         this.meanAnomaly = meanAnomaly;
     }
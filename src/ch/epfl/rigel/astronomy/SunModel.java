@@ -75,13 +75,33 @@ public enum SunModel implements CelestialObjectModel<Sun> {
         );
     }
 
+    /**
+     * Calcule le Soleil à chacun des instants donnés, sans créer d'objet par instant
+     * autre que le transformateur écliptique vers équatorial.
+     */
+    @Override
+    public void at(double[] daysSinceJ2010, double[] ra, double[] dec, double[] angularSizes, double[] magnitudes) {
+        CelestialObjectModel.checkBatch(daysSinceJ2010, ra, dec, angularSizes, magnitudes);
+
+        for(int i = 0; i < daysSinceJ2010.length; ++i) {
+            double V = trueAnomaly(meanAnomaly(daysSinceJ2010[i]));
+
+            EclipticToEquatorialConversion.ofDaysSinceJ2010(daysSinceJ2010[i])
+                    .apply(eclipticLongitude(V), 0, ra, dec, i);
+            if(angularSizes != null)
+                angularSizes[i] = angularSize(V);
+            if(magnitudes != null)
+                magnitudes[i] = Sun.MAGNITUDE;
+        }
+    }
+
     /**
      * Calcul de l'anomalie moyenne du Soleil à moment donnée.
      *
      * @param daysSinceJ2010 Nombre de jour depuis J2010.
      * @return l'anomalie moyenne du Soleil à un moment donnée (Unité : radians).
      */
-    private double meanAnomaly(double daysSinceJ2010) {
+    double meanAnomaly(double daysSinceJ2010) {
         return normalizePositive(
                 ANGULAR_VELOCITY * daysSinceJ2010 + epsilon_g - w_g
         );
@@ -93,7 +113,7 @@ public enum SunModel implements CelestialObjectModel<Sun> {
      * @param M Anomalie Moyenne (Unité : radians).
      * @return la vraie anomalie du Soleil (Unité : radians).
      */
-    private double trueAnomaly(double M) {
+    double trueAnomaly(double M) {
         return M + 2 * e * sin(M);
     }
 
@@ -102,7 +122,7 @@ public enum SunModel implements CelestialObjectModel<Sun> {
      * @param V Vraie anomalie (Unité : radians).
      * @return la longitude écliptique géocentrique (Unité : radians).
      */
-    private double eclipticLongitude(double V) {
+    double eclipticLongitude(double V) {
         return normalizePositive(V + w_g);
     }
 
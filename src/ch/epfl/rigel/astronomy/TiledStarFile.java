@@ -0,0 +1,670 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntPredicate;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.metrics.Metrics;
+
+/**
+ * Catalogue d'étoiles stocké hors du tas, dans un fichier découpé en tuiles par
+ * cellule de la partition du ciel (voir SkyPartition) et par niveau de magnitude.
+ *
+ * <p>Les étoiles du premier niveau (les plus brillantes, et celles des astérismes)
+ * sont ajoutées au catalogue par load, comme pour tout chargeur. Les tuiles des
+ * niveaux suivants sont lues dans le tas à la demande, sur un fil dédié, pour les
+ * seules cellules visibles et les niveaux utiles à la magnitude limite. Le budget
+ * mémoire borne la taille dans le tas des tuiles résidentes et de la table de leurs
+ * étoiles retournée par residentStars : les tuiles les moins récemment utilisées sont
+ * libérées lorsqu'il est dépassé.</p>
+ *
+ * <p>Format (gros-boutiste) : en-tête MAGIC, VERSION, côté des cellules, nombre de
+ * niveaux et magnitude maximale de chacun, table des noms, puis répertoire des
+ * tuiles (position et nombre d'étoiles de chaque tuile, niveau par niveau et cellule
+ * par cellule) et enfin les tuiles, dans le même ordre. Chaque tuile contient ses
+ * étoiles par colonnes, triées par magnitude croissante.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class TiledStarFile implements StarCatalogue.Loader, Closeable {
+
+    static final int MAGIC = 0x52474C54; // "RGLT"
+    static final int VERSION = 1;
+
+    /**
+     * Magnitudes maximales par défaut des niveaux, le dernier contenant toutes les autres étoiles.
+     */
+    public static final double[] DEFAULT_LEVEL_LIMITS = {6.5, 9, 12, Double.POSITIVE_INFINITY};
+
+    /**
+     * Taille d'une étoile dans une tuile : numéro Hipparcos, nom, ascension droite,
+     * déclinaison, magnitude et indice de couleur (Unité : octets).
+     */
+    private static final int STAR_SIZE = 2 * Integer.BYTES + 2 * Double.BYTES + 2 * Float.BYTES;
+
+    private static final System.Logger LOGGER = System.getLogger(TiledStarFile.class.getName());
+
+    private final FileChannel channel;
+    private final long memoryBudget;
+    private final SkyPartition partition;
+    private final double[] levelLimits;
+    private final String[] names;
+    private final long[] tileOffsets;
+    private final int[] tileCounts;
+    private final double faintestMagnitude;
+
+    private final LinkedHashMap<Integer, StarTable> residentTiles;
+    private final Set<Integer> loadingTiles;
+    private final List<Runnable> loadListeners;
+    private final ExecutorService loader;
+    private long residentBytes;
+    private List<Integer> lastTiles;
+    private int[] lastCounts;
+    private StarTable lastStars;
+
+    /**
+     * Ouvre le fichier de tuiles donné ; seuls son en-tête, son répertoire et la
+     * magnitude de la dernière étoile de chaque tuile sont lus.
+     *
+     * @param path chemin du fichier de tuiles.
+     * @param memoryBudget taille maximale dans le tas des tuiles résidentes et de la table
+     *                     retournée par residentStars (Unité : octets).
+     * @throws IOException en cas d'erreur d'entrée/sortie ou si le fichier n'est pas valide.
+     * @throws IllegalArgumentException si le budget est négatif.
+     */
+    public TiledStarFile(Path path, long memoryBudget) throws IOException {
+        Preconditions.checkArgument(memoryBudget >= 0);
+        this.memoryBudget = memoryBudget;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            DataInputStream header = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            checkHeader(header);
+            partition = new SkyPartition(header.readDouble());
+            levelLimits = readLevelLimits(header);
+            names = readNames(header);
+
+            int tiles = levelLimits.length * partition.cellCount();
+            tileOffsets = new long[tiles];
+            tileCounts = new int[tiles];
+            for(int tile = 0; tile < tiles; ++tile) {
+                tileOffsets[tile] = header.readLong();
+                tileCounts[tile] = header.readInt();
+            }
+            faintestMagnitude = readFaintestMagnitude();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        residentTiles = new LinkedHashMap<>(16, 0.75f, true);
+        loadingTiles = new HashSet<>();
+        loadListeners = new CopyOnWriteArrayList<>();
+        loader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "rigel-star-tiles");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Ajoute au catalogue en cours de construction les étoiles du premier niveau,
+     * lues depuis le flot d'un fichier de tuiles (normalement celui de ce fichier),
+     * et associe ce fichier au catalogue pour les niveaux suivants.
+     */
+    @Override
+    public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream))) {
+            checkHeader(input);
+            int cellCount = new SkyPartition(input.readDouble()).cellCount();
+            int levels = readLevelLimits(input).length;
+            String[] streamNames = readNames(input);
+
+            // Les tuiles du premier niveau suivent directement le répertoire.
+            int[] brightCounts = new int[cellCount];
+            for(int tile = 0; tile < levels * cellCount; ++tile) {
+                input.readLong();
+                int count = input.readInt();
+                if(tile < cellCount)
+                    brightCounts[tile] = count;
+            }
+
+            for(int count : brightCounts) {
+                byte[] bytes = input.readNBytes(count * STAR_SIZE);
+                if(bytes.length != count * STAR_SIZE)
+                    throw new IOException("Fichier de tuiles tronqué");
+
+                StarTable tile = tile(ByteBuffer.wrap(bytes), count, streamNames);
+                for(int i = 0; i < tile.size(); ++i)
+                    builder.addStar(tile.hipparcosId(i), tile.name(i), tile.ra(i), tile.dec(i),
+                            tile.magnitude(i), tile.colorIndex(i));
+            }
+        }
+        builder.setTiledStars(this);
+    }
+
+    /**
+     * Retourne les étoiles des niveaux suivant le premier, de magnitude inférieure ou
+     * égale à la magnitude limite, dont la tuile est résidente et se trouve dans une
+     * cellule qui coupe le cône de vue (voir SkyPartition.cellsIntersecting). Les tuiles
+     * manquantes sont demandées au fil de chargement, qui prévient les auditeurs une
+     * fois chacune lue. Les tuiles sont choisies par niveau puis par distance à l'axe
+     * du cône, jusqu'à la moitié du budget mémoire : les étoiles retenues sont copiées
+     * dans la table retournée, qui occupe au plus autant de place que leurs tuiles. Si
+     * les tuiles et les étoiles retenues sont les mêmes qu'à l'appel précédent, la table
+     * précédente est retournée.
+     *
+     * @param view composantes x, y, z du vecteur unitaire de l'axe du cône de vue.
+     * @param viewRadius rayon angulaire du cône de vue (Unité : radians).
+     * @param zenith composantes x, y, z du vecteur unitaire du zénith, ou null.
+     * @param limitingMagnitude magnitude limite des étoiles.
+     * @return les étoiles des tuiles résidentes.
+     */
+    public StarTable residentStars(double[] view, double viewRadius, double[] zenith, double limitingMagnitude) {
+        int[] cells = partition.cellsIntersecting(view, viewRadius, zenith);
+        List<Integer> tileIds = new ArrayList<>();
+        List<StarTable> tiles = new ArrayList<>();
+        long selectedBytes = 0;
+
+        synchronized (this) {
+            selection:
+            for(int level = 1; level < levelLimits.length && levelLimits[level - 1] < limitingMagnitude; ++level)
+                for(int cell : cells) {
+                    int tile = level * partition.cellCount() + cell;
+                    if(tileCounts[tile] == 0)
+                        continue;
+
+                    // Chaque tuile retenue compte deux fois : résidente, et copiée dans la table retournée.
+                    selectedBytes += tileHeapBytes(tile);
+                    if(2 * selectedBytes > memoryBudget)
+                        break selection;
+
+                    StarTable resident = residentTiles.get(tile);
+                    if(resident != null) {
+                        tileIds.add(tile);
+                        tiles.add(resident);
+                    }
+                    else if(loadingTiles.add(tile))
+                        loader.execute(() -> loadTile(tile));
+                }
+        }
+
+        // Les étoiles de chaque tuile étant triées par magnitude, celles retenues en forment le début.
+        int[] counts = new int[tiles.size()];
+        for(int i = 0; i < counts.length; ++i)
+            counts[i] = tiles.get(i).countUpToMagnitude(limitingMagnitude);
+
+        synchronized (this) {
+            // Le contenu d'une tuile ne change pas : seuls ses numéros sont gardés, pas ses étoiles, qui
+            // peuvent ainsi être libérées.
+            if(!tileIds.equals(lastTiles) || !Arrays.equals(counts, lastCounts)) {
+                lastStars = StarTable.concat(tiles, counts);
+                lastTiles = tileIds;
+                lastCounts = counts;
+                evictBeyondBudget();
+            }
+            return lastStars;
+        }
+    }
+
+    /**
+     * Retourne la magnitude de l'étoile la plus faible du fichier.
+     *
+     * @return la plus grande magnitude des étoiles du fichier, ou -∞ s'il n'en contient aucune.
+     */
+    public double faintestMagnitude() {
+        return faintestMagnitude;
+    }
+
+    /**
+     * Ajoute un auditeur prévenu, sur le fil de chargement, chaque fois qu'une tuile
+     * devient résidente.
+     *
+     * @param listener auditeur à ajouter.
+     */
+    public void addLoadListener(Runnable listener) {
+        loadListeners.add(listener);
+    }
+
+    /**
+     * Retourne la taille dans le tas des tuiles résidentes et de la dernière table
+     * retournée par residentStars, comptée dans le budget mémoire.
+     *
+     * @return la taille des tuiles résidentes et de la dernière table (Unité : octets).
+     */
+    public synchronized long residentBytes() {
+        return residentBytes + (lastStars == null ? 0 : lastStars.heapBytes());
+    }
+
+    /**
+     * Arrête le fil de chargement et ferme le fichier.
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    @Override
+    public void close() throws IOException {
+        loader.shutdownNow();
+        channel.close();
+    }
+
+    /**
+     * Lit la tuile dans le tas et la rend résidente, en libérant les tuiles les moins
+     * récemment utilisées au-delà du budget. Si la tuile ne peut être lue ou n'est pas
+     * valide (numéro de nom ou coordonnées hors limites, par exemple), l'erreur est
+     * journalisée et comptée (compteur tiles.failed, voir Metrics), et la tuile pourra
+     * être redemandée.
+     */
+    private void loadTile(int tile) {
+        StarTable stars;
+        try {
+            stars = tile(read(tileOffsets[tile], tileFileBytes(tile)), tileCounts[tile], names);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                loadingTiles.remove(tile);
+            }
+            Metrics.counter("tiles.failed").increment();
+            LOGGER.log(System.Logger.Level.WARNING, "Lecture de la tuile " + tile + " impossible", e);
+            return;
+        }
+
+        synchronized (this) {
+            loadingTiles.remove(tile);
+            residentTiles.put(tile, stars);
+            residentBytes += stars.heapBytes();
+            evictBeyondBudget();
+        }
+
+        for(Runnable listener : loadListeners)
+            listener.run();
+    }
+
+    /**
+     * Libère les tuiles les moins récemment utilisées tant que le budget est dépassé.
+     */
+    private synchronized void evictBeyondBudget() {
+        Iterator<StarTable> eldest = residentTiles.values().iterator();
+        while(residentBytes() > memoryBudget && eldest.hasNext()) {
+            residentBytes -= eldest.next().heapBytes();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Retourne la plus grande des magnitudes des dernières étoiles des tuiles, qui sont
+     * les plus faibles de leur tuile.
+     */
+    private double readFaintestMagnitude() throws IOException {
+        double faintest = Double.NEGATIVE_INFINITY;
+        for(int tile = 0; tile < tileCounts.length; ++tile) {
+            int count = tileCounts[tile];
+            if(count == 0)
+                continue;
+
+            // Les magnitudes suivent les numéros Hipparcos, les noms, les ascensions droites et les déclinaisons.
+            long position = tileOffsets[tile] + (long) count * (2 * Integer.BYTES + 2 * Double.BYTES)
+                    + (long) (count - 1) * Float.BYTES;
+            faintest = Math.max(faintest, read(position, Float.BYTES).getFloat());
+        }
+        return faintest;
+    }
+
+    /**
+     * Lit bytes octets du fichier depuis la position donnée.
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie ou si le fichier est tronqué.
+     */
+    private ByteBuffer read(long position, long bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(bytes));
+        while(buffer.hasRemaining())
+            if(channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Fichier de tuiles tronqué");
+        return buffer.flip();
+    }
+
+    private long tileFileBytes(int tile) {
+        return (long) tileCounts[tile] * STAR_SIZE;
+    }
+
+    /**
+     * Retourne la taille dans le tas de la tuile une fois lue (voir StarTable.HEAP_BYTES_PER_STAR).
+     */
+    private long tileHeapBytes(int tile) {
+        return (long) tileCounts[tile] * StarTable.HEAP_BYTES_PER_STAR;
+    }
+
+    /**
+     * Écrit le fichier de tuiles des étoiles données. Les étoiles dont le numéro
+     * Hipparcos satisfait alwaysBright (par exemple celles des astérismes) sont placées
+     * dans le premier niveau, quelle que soit leur magnitude.
+     *
+     * @param stars table d'étoiles.
+     * @param alwaysBright prédicat sur le numéro Hipparcos des étoiles à placer dans le premier niveau.
+     * @param cellSize côté approximatif des cellules (Unité : radians).
+     * @param levelLimits magnitudes maximales des niveaux, croissantes, la dernière infinie.
+     * @param outputStream flot dans lequel écrire le fichier.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     * @throws IllegalArgumentException si les niveaux ne sont pas valides.
+     */
+    public static void write(StarTable stars, IntPredicate alwaysBright, double cellSize, double[] levelLimits,
+                             OutputStream outputStream) throws IOException {
+        try (Writer writer = new Writer(alwaysBright, cellSize, levelLimits)) {
+            for(int i = 0; i < stars.size(); ++i)
+                writer.add(stars.hipparcosId(i), stars.name(i), stars.ra(i), stars.dec(i),
+                        stars.magnitude(i), stars.colorIndex(i));
+            writer.writeTo(outputStream);
+        }
+    }
+
+    /**
+     * Bâtisseur d'un fichier de tuiles, auquel les étoiles sont ajoutées une à une,
+     * dans un ordre quelconque, sans être gardées en mémoire.
+     *
+     * <p>Chaque étoile est écrite, avec sa tuile, dans l'un des BUCKET_COUNT fichiers
+     * temporaires, qui regroupent chacun des tuiles consécutives. À l'écriture du fichier
+     * de tuiles, ces fichiers sont relus l'un après l'autre et leurs étoiles triées par
+     * tuile puis par magnitude : seules les étoiles d'un fichier temporaire, la table des
+     * noms et le nombre d'étoiles de chaque tuile sont en mémoire à la fois.</p>
+     */
+    public static final class Writer implements Closeable {
+
+        private static final int BUCKET_COUNT = 64;
+
+        private final IntPredicate alwaysBright;
+        private final double cellSize;
+        private final double[] levelLimits;
+        private final SkyPartition partition;
+        private final int[] tileCounts;
+        private final Map<String, Integer> nameIds;
+        private final List<String> names;
+        private final Path directory;
+        private final Path[] bucketPaths;
+        private final DataOutputStream[] buckets;
+
+        /**
+         * Construit un bâtisseur de fichier de tuiles, dont les fichiers temporaires sont
+         * créés dans le répertoire temporaire par défaut.
+         *
+         * @param alwaysBright prédicat sur le numéro Hipparcos des étoiles à placer dans le premier niveau.
+         * @param cellSize côté approximatif des cellules (Unité : radians).
+         * @param levelLimits magnitudes maximales des niveaux, croissantes, la dernière infinie.
+         * @throws IOException en cas d'erreur d'entrée/sortie.
+         * @throws IllegalArgumentException si les niveaux ne sont pas valides.
+         */
+        public Writer(IntPredicate alwaysBright, double cellSize, double[] levelLimits) throws IOException {
+            Preconditions.checkArgument(levelLimits.length > 0
+                    && levelLimits[levelLimits.length - 1] == Double.POSITIVE_INFINITY);
+            for(int level = 1; level < levelLimits.length; ++level)
+                Preconditions.checkArgument(levelLimits[level - 1] < levelLimits[level]);
+
+            this.alwaysBright = alwaysBright;
+            this.cellSize = cellSize;
+            this.levelLimits = levelLimits.clone();
+            partition = new SkyPartition(cellSize);
+            tileCounts = new int[levelLimits.length * partition.cellCount()];
+            nameIds = new HashMap<>();
+            names = new ArrayList<>();
+
+            directory = Files.createTempDirectory("rigel-tiles");
+            bucketPaths = new Path[BUCKET_COUNT];
+            buckets = new DataOutputStream[BUCKET_COUNT];
+            try {
+                for(int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+                    bucketPaths[bucket] = directory.resolve(bucket + ".stars");
+                    buckets[bucket] = new DataOutputStream(new BufferedOutputStream(
+                            Files.newOutputStream(bucketPaths[bucket])));
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Ajoute une étoile au fichier de tuiles en cours de construction.
+         *
+         * @param hipparcosId le numéro Hipparcos de l'étoile.
+         * @param name le nom de l'étoile.
+         * @param ra l'ascension droite de l'étoile (Unité : radians).
+         * @param dec la déclinaison de l'étoile (Unité : radians).
+         * @param magnitude la magnitude de l'étoile.
+         * @param colorIndex l'indice de couleur de l'étoile.
+         * @throws IOException en cas d'erreur d'entrée/sortie.
+         * @throws IllegalArgumentException si le numéro Hipparcos est négatif, si les
+         *          coordonnées ou l'indice de couleur ne sont pas valides.
+         */
+        public void add(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex)
+                throws IOException {
+            Preconditions.checkArgument(hipparcosId >= 0);
+            Preconditions.checkInInterval(StarTable.INTERVAL_RA, ra);
+            Preconditions.checkInInterval(StarTable.INTERVAL_DEC, dec);
+            Star.colorTemperature(colorIndex);
+
+            int level = 0;
+            if(!alwaysBright.test(hipparcosId))
+                while(magnitude > levelLimits[level])
+                    ++level;
+            int tile = level * partition.cellCount() + partition.cellOf(ra, dec);
+            int nameId = nameIds.computeIfAbsent(Objects.requireNonNull(name), n -> {
+                names.add(n);
+                return names.size() - 1;
+            });
+
+            DataOutputStream bucket = buckets[bucketOf(tile)];
+            bucket.writeInt(tile);
+            bucket.writeInt(hipparcosId);
+            bucket.writeInt(nameId);
+            bucket.writeDouble(ra);
+            bucket.writeDouble(dec);
+            bucket.writeFloat(magnitude);
+            bucket.writeFloat(colorIndex);
+            ++tileCounts[tile];
+        }
+
+        /**
+         * Écrit le fichier de tuiles des étoiles ajoutées jusqu'alors.
+         *
+         * @param outputStream flot dans lequel écrire le fichier.
+         * @throws IOException en cas d'erreur d'entrée/sortie.
+         */
+        public void writeTo(OutputStream outputStream) throws IOException {
+            for(DataOutputStream bucket : buckets)
+                bucket.flush();
+
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(headerBytes);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeDouble(cellSize);
+            header.writeInt(levelLimits.length);
+            for(double limit : levelLimits)
+                header.writeDouble(limit);
+            header.writeInt(names.size());
+            for(String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                header.writeShort(bytes.length);
+                header.write(bytes);
+            }
+            header.flush();
+
+            DataOutputStream output = new DataOutputStream(outputStream);
+            headerBytes.writeTo(output);
+            long offset = headerBytes.size() + (long) tileCounts.length * (Long.BYTES + Integer.BYTES);
+            for(int count : tileCounts) {
+                output.writeLong(offset);
+                output.writeInt(count);
+                offset += (long) count * STAR_SIZE;
+            }
+
+            for(int bucket = 0; bucket < BUCKET_COUNT; ++bucket)
+                writeBucket(bucket, output);
+            output.flush();
+        }
+
+        /**
+         * Supprime les fichiers temporaires.
+         *
+         * @throws IOException en cas d'erreur d'entrée/sortie.
+         */
+        @Override
+        public void close() throws IOException {
+            for(int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+                if(buckets[bucket] != null)
+                    buckets[bucket].close();
+                if(bucketPaths[bucket] != null)
+                    Files.deleteIfExists(bucketPaths[bucket]);
+            }
+            Files.deleteIfExists(directory);
+        }
+
+        /**
+         * Retourne le fichier temporaire de la tuile donnée ; les tuiles d'un fichier
+         * sont consécutives, et les fichiers dans l'ordre des tuiles.
+         */
+        private int bucketOf(int tile) {
+            return (int) ((long) tile * BUCKET_COUNT / tileCounts.length);
+        }
+
+        /**
+         * Écrit les tuiles du fichier temporaire donné, dont les étoiles sont relues puis
+         * triées par tuile et, dans chaque tuile, par magnitude croissante.
+         */
+        private void writeBucket(int bucket, DataOutputStream output) throws IOException {
+            int firstTile = 0;
+            while(bucketOf(firstTile) < bucket)
+                ++firstTile;
+            int endTile = firstTile;
+            while(endTile < tileCounts.length && bucketOf(endTile) == bucket)
+                ++endTile;
+
+            // Début des étoiles de chaque tuile du fichier temporaire.
+            int[] tileStart = new int[endTile - firstTile + 1];
+            for(int tile = firstTile; tile < endTile; ++tile)
+                tileStart[tile - firstTile + 1] = tileStart[tile - firstTile] + tileCounts[tile];
+            int size = tileStart[tileStart.length - 1];
+
+            int[] hipparcosIds = new int[size], starNameIds = new int[size];
+            double[] ra = new double[size], dec = new double[size];
+            float[] magnitudes = new float[size], colorIndexes = new float[size];
+            int[] next = Arrays.copyOf(tileStart, tileStart.length - 1);
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(bucketPaths[bucket])))) {
+                for(int k = 0; k < size; ++k) {
+                    int i = next[input.readInt() - firstTile]++;
+                    hipparcosIds[i] = input.readInt();
+                    starNameIds[i] = input.readInt();
+                    ra[i] = input.readDouble();
+                    dec[i] = input.readDouble();
+                    magnitudes[i] = input.readFloat();
+                    colorIndexes[i] = input.readFloat();
+                }
+            }
+
+            for(int t = 0; t < tileStart.length - 1; ++t) {
+                int from = tileStart[t], to = tileStart[t + 1];
+
+                // Chaque clé contient la magnitude, rendue triable comme un entier, dans ses
+                // 32 bits de poids fort et l'index de l'étoile dans ses 32 bits de poids faible.
+                long[] keys = new long[to - from];
+                for(int i = from; i < to; ++i) {
+                    int bits = Float.floatToIntBits(magnitudes[i]);
+                    int sortable = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+                    keys[i - from] = ((long) sortable << Integer.SIZE) | i;
+                }
+                Arrays.sort(keys);
+
+                for(long key : keys)
+                    output.writeInt(hipparcosIds[(int) key]);
+                for(long key : keys)
+                    output.writeInt(starNameIds[(int) key]);
+                for(long key : keys)
+                    output.writeDouble(ra[(int) key]);
+                for(long key : keys)
+                    output.writeDouble(dec[(int) key]);
+                for(long key : keys)
+                    output.writeFloat(magnitudes[(int) key]);
+                for(long key : keys)
+                    output.writeFloat(colorIndexes[(int) key]);
+            }
+        }
+    }
+
+    /**
+     * Lit une tuile de count étoiles, stockée par colonnes depuis la position courante.
+     */
+    private static StarTable tile(ByteBuffer buffer, int count, String[] names) {
+        int[] hipparcosIds = new int[count], nameIds = new int[count];
+        double[] ra = new double[count], dec = new double[count];
+        float[] magnitudes = new float[count], colorIndexes = new float[count];
+
+        buffer.asIntBuffer().get(hipparcosIds);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        buffer.asIntBuffer().get(nameIds);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        buffer.asDoubleBuffer().get(ra);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        buffer.asDoubleBuffer().get(dec);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        buffer.asFloatBuffer().get(magnitudes);
+        buffer.position(buffer.position() + count * Float.BYTES);
+        buffer.asFloatBuffer().get(colorIndexes);
+        buffer.position(buffer.position() + count * Float.BYTES);
+
+        StarTable.Builder stars = new StarTable.Builder(count);
+        for(int i = 0; i < count; ++i)
+            stars.add(hipparcosIds[i], names[nameIds[i]], ra[i], dec[i], magnitudes[i], colorIndexes[i]);
+        return stars.build();
+    }
+
+    private static void checkHeader(DataInputStream input) throws IOException {
+        if(input.readInt() != MAGIC)
+            throw new IOException("Fichier de tuiles invalide");
+        int version = input.readInt();
+        if(version != VERSION)
+            throw new IOException("Version de fichier de tuiles non supportée : " + version);
+    }
+
+    private static double[] readLevelLimits(DataInputStream input) throws IOException {
+        double[] limits = new double[input.readInt()];
+        for(int level = 0; level < limits.length; ++level)
+            limits[level] = input.readDouble();
+        return limits;
+    }
+
+    private static String[] readNames(DataInputStream input) throws IOException {
+        String[] names = new String[input.readInt()];
+        for(int i = 0; i < names.length; ++i) {
+            byte[] bytes = input.readNBytes(input.readUnsignedShort());
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+}
@@ -32,8 +32,36 @@ public final class EclipticToEquatorialConversion implements Function<EclipticCo
      * @param when année, mois, jour, heure, fuseau horaire.
      */
     public EclipticToEquatorialConversion(ZonedDateTime when) {
-        double T = Epoch.J2000.julianCenturiesUntil(when);
+        this(Epoch.J2000.julianCenturiesUntil(when));
+    }
+
+    /**
+     * Construit un transformateur de coordonnées, écliptiques vers équatoriales, à partir
+     * d'un instant exprimé en milli-secondes, sans passer par java.time.
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     */
+    public EclipticToEquatorialConversion(long epochMillis) {
+        this(Epoch.J2000.julianCenturiesUntil(epochMillis));
+    }
+
+    /**
+     * Retourne un transformateur de coordonnées, écliptiques vers équatoriales, à l'instant
+     * situé le nombre de jours donné après J2010 (à la milli-seconde près).
+     *
+     * @param daysSinceJ2010 nombre de jours depuis J2010 (peut être négatif).
+     * @return le transformateur à cet instant.
+     */
+    public static EclipticToEquatorialConversion ofDaysSinceJ2010(double daysSinceJ2010) {
+        return new EclipticToEquatorialConversion(Epoch.J2010.epochMillisAfter(daysSinceJ2010));
+    }
 
+    /**
+     * Construit un transformateur de coordonnées, écliptiques vers équatoriales.
+     *
+     * @param T nombre de siècles Julien écoulés depuis J2000.
+     */
+    private EclipticToEquatorialConversion(double T) {
         double epsilon = EQUATION.at(T);
 
         cosEpsilon = cos(epsilon);
@@ -59,6 +87,23 @@ public final class EclipticToEquatorialConversion implements Function<EclipticCo
         );
     }
 
+    /**
+     * Transforme les coordonnées écliptiques données et écrit l'ascension droite et la
+     * déclinaison obtenues à l'index donné des tableaux, sans créer d'objet.
+     *
+     * @param lon longitude écliptique (Unité : radians).
+     * @param lat latitude écliptique (Unité : radians).
+     * @param ra tableau des ascensions droites (Unité : radians).
+     * @param dec tableau des déclinaisons (Unité : radians).
+     * @param index index auquel écrire dans les tableaux.
+     */
+    public void apply(double lon, double lat, double[] ra, double[] dec, int index) {
+        double sinLambda = sin(lon);
+
+        ra[index] = rightAscension(sinLambda, cos(lon), tan(lat));
+        dec[index] = declination(sin(lat), cos(lat), sinLambda);
+    }
+
     /**
      * Calcule l'ascencion droite (Unité : radians).
      *
@@ -1,6 +1,7 @@
 package ch.epfl.rigel.coordinates;
 
 import ch.epfl.rigel.astronomy.SiderealTime;
+import ch.epfl.rigel.math.RotationMatrix;
 
 import java.time.ZonedDateTime;
 import java.util.function.Function;
@@ -27,11 +28,44 @@ public final class EquatorialToHorizontalConversion
      * @param where l'endroit où se trouve le point considéré.
      */
     public EquatorialToHorizontalConversion(ZonedDateTime when, GeographicCoordinates where) {
+        this(SiderealTime.local(when, where), where);
+    }
+
+    /**
+     * Retourne un transformateur de coordonnées, équatoriales vers horizontales, à partir
+     * d'un instant exprimé en milli-secondes, sans passer par java.time. (Une méthode de
+     * construction évite la confusion avec le constructeur prenant un temps sidéral.)
+     *
+     * @param epochMillis instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param where l'endroit où se trouve le point considéré.
+     * @return le transformateur à l'instant et au lieu donnés.
+     */
+    public static EquatorialToHorizontalConversion ofEpochMillis(long epochMillis, GeographicCoordinates where) {
+        return new EquatorialToHorizontalConversion(SiderealTime.local(epochMillis, where), where);
+    }
+
+    /**
+     * Construit un transformateur de coordonnées, équatoriales vers horizontales,
+     * à partir d'un temps sidéral local déjà connu.
+     *
+     * @param localSiderealTime le temps sidéral local (Unité : radians).
+     * @param where l'endroit où se trouve le point considéré.
+     */
+    public EquatorialToHorizontalConversion(double localSiderealTime, GeographicCoordinates where) {
         double phi = where.lat();
         cosPhi = cos(phi);
         sinPhi = sin(phi);
 
-        Sl = SiderealTime.local(when, where);
+        Sl = normalizePositive(localSiderealTime);
+    }
+
+    /**
+     * Retourne le temps sidéral local utilisé (Unité : radians).
+     *
+     * @return le temps sidéral local (Unité : radians).
+     */
+    public double localSiderealTime() {
+        return Sl;
     }
 
     @Override
@@ -51,6 +85,23 @@ public final class EquatorialToHorizontalConversion
         return HorizontalCoordinates.of(A, h);
     }
 
+    /**
+     * Retourne la matrice de rotation qui transforme le vecteur unitaire équatorial
+     * (cos(dec)cos(ra), cos(dec)sin(ra), sin(dec)) en vecteur unitaire horizontal
+     * dont les composantes sont dirigées vers le nord, l'est et le zénith.
+     *
+     * @return la matrice de rotation équatoriale vers horizontale.
+     */
+    public RotationMatrix rotationMatrix() {
+        double cosSl = cos(Sl), sinSl = sin(Sl);
+
+        return RotationMatrix.of(
+                -sinPhi * cosSl, -sinPhi * sinSl, cosPhi,
+                -sinSl, cosSl, 0,
+                cosPhi * cosSl, cosPhi * sinSl, sinPhi
+        );
+    }
+
     /**
      * Calcule la hauteur (Unité : radians).
      *
@@ -1,8 +1,11 @@
 package ch.epfl.rigel.coordinates;
 
+import ch.epfl.rigel.math.RotationMatrix;
+
 import java.util.Locale;
 import java.util.function.Function;
 
+import static ch.epfl.rigel.Preconditions.checkArgument;
 import static ch.epfl.rigel.math.Angle.normalizePositive;
 import static java.lang.Math.*;
 
@@ -16,6 +19,7 @@ public final class StereographicProjection
         implements Function<HorizontalCoordinates, CartesianCoordinates> {
 
     private final double cosPhi1, sinPhi1, lambda0,phi1;
+    private final RotationMatrix horizontalToProjection;
 
     /**
      * Construit un nouveau système de projection stéréographique.
@@ -27,6 +31,15 @@ public final class StereographicProjection
         cosPhi1 = cos(phi1);
         sinPhi1 = sin(phi1);
         lambda0 = center.az();
+
+        // Rotation du repère horizontal (nord, est, zénith) vers le repère de la
+        // projection, dont le troisième axe pointe vers le centre de projection.
+        double cosLambda0 = cos(lambda0), sinLambda0 = sin(lambda0);
+        horizontalToProjection = RotationMatrix.of(
+                -sinLambda0, cosLambda0, 0,
+                -sinPhi1 * cosLambda0, -sinPhi1 * sinLambda0, cosPhi1,
+                cosPhi1 * cosLambda0, cosPhi1 * sinLambda0, sinPhi1
+        );
     }
 
     /**
@@ -83,6 +96,101 @@ public final class StereographicProjection
         return CartesianCoordinates.of(x, y);
     }
 
+    /**
+     * Projette directement des vecteurs unitaires, sans créer de coordonnées
+     * intermédiaires. Les vecteurs sont d'abord transformés par la rotation
+     * 'toHorizontal', qui doit donner des vecteurs horizontaux dirigés vers
+     * le nord, l'est et le zénith, puis projetés dans le plan.
+     *
+     * @param toHorizontal rotation vers le repère horizontal.
+     * @param unitVectors composantes x, y, z des vecteurs unitaires à la suite.
+     * @param positions tableau recevant les coordonnées x, y des projections à la suite.
+     * @throws IllegalArgumentException si les tailles des tableaux ne correspondent pas.
+     */
+    public void applyToUnitVectors(RotationMatrix toHorizontal, double[] unitVectors, double[] positions) {
+        checkArgument(positions.length == unitVectors.length / 3 * 2);
+        project(horizontalToProjection.multiply(toHorizontal), unitVectors, positions, null, unitVectors.length / 3);
+    }
+
+    /**
+     * Projette directement les 'count' premiers vecteurs unitaires, comme
+     * applyToUnitVectors, dans les 'count' premières positions.
+     *
+     * @param toHorizontal rotation vers le repère horizontal.
+     * @param unitVectors composantes x, y, z des vecteurs unitaires à la suite.
+     * @param positions tableau recevant les coordonnées x, y des projections à la suite.
+     * @param count nombre de vecteurs à projeter.
+     * @throws IllegalArgumentException si les positions ne peuvent contenir 'count' projections
+     *          ou si count n'est pas compris entre 0 et le nombre de vecteurs.
+     */
+    public void applyToUnitVectors(RotationMatrix toHorizontal, double[] unitVectors, double[] positions, int count) {
+        checkArgument(0 <= count && count <= unitVectors.length / 3);
+        project(horizontalToProjection.multiply(toHorizontal), unitVectors, positions, null, count);
+    }
+
+    /**
+     * Projette directement les vecteurs unitaires d'indices donnés, comme
+     * applyToUnitVectors : la projection du vecteur indices[k] est écrite à la position k.
+     *
+     * @param toHorizontal rotation vers le repère horizontal.
+     * @param unitVectors composantes x, y, z des vecteurs unitaires à la suite.
+     * @param positions tableau recevant les coordonnées x, y des projections à la suite.
+     * @param indices indices des vecteurs à projeter.
+     * @throws IllegalArgumentException si les positions ne peuvent contenir une projection par indice.
+     * @throws IndexOutOfBoundsException si un indice n'est pas valide.
+     */
+    public void applyToUnitVectors(RotationMatrix toHorizontal, double[] unitVectors, double[] positions,
+                                   int[] indices) {
+        project(horizontalToProjection.multiply(toHorizontal), unitVectors, positions, indices, indices.length);
+    }
+
+    /**
+     * Retourne le vecteur unitaire dirigé vers le centre de la projection, exprimé
+     * dans le repère que la rotation 'toHorizontal' amène dans le repère horizontal.
+     *
+     * @param toHorizontal rotation vers le repère horizontal.
+     * @return les composantes x, y, z du vecteur unitaire du centre de projection.
+     */
+    public double[] centerUnitVector(RotationMatrix toHorizontal) {
+        RotationMatrix m = horizontalToProjection.multiply(toHorizontal);
+        return new double[] {m.at(2, 0), m.at(2, 1), m.at(2, 2)};
+    }
+
+    /**
+     * Projette 'count' vecteurs unitaires après les avoir transformés par la rotation
+     * 'm', qui doit les amener dans le repère de la projection : les 'count' premiers si
+     * 'indices' est null, ceux d'indices donnés sinon. La projection du k-ième vecteur
+     * projeté est écrite à la position k.
+     *
+     * @param m rotation vers le repère de la projection.
+     * @param unitVectors composantes x, y, z des vecteurs unitaires à la suite.
+     * @param positions tableau recevant les coordonnées x, y des projections à la suite.
+     * @param indices indices des vecteurs à projeter, ou null pour les premiers.
+     * @param count nombre de vecteurs à projeter.
+     * @throws IllegalArgumentException si les positions ne peuvent contenir 'count' projections.
+     */
+    private static void project(RotationMatrix m, double[] unitVectors, double[] positions, int[] indices,
+                                int count) {
+        checkArgument(unitVectors.length % 3 == 0);
+        checkArgument(positions.length >= 2 * count);
+
+        double m00 = m.at(0, 0), m01 = m.at(0, 1), m02 = m.at(0, 2);
+        double m10 = m.at(1, 0), m11 = m.at(1, 1), m12 = m.at(1, 2);
+        double m20 = m.at(2, 0), m21 = m.at(2, 1), m22 = m.at(2, 2);
+
+        double x, y, z, d;
+        for(int k = 0; k < count; ++k) {
+            int index = indices == null ? k : indices[k];
+            x = unitVectors[3 * index];
+            y = unitVectors[3 * index + 1];
+            z = unitVectors[3 * index + 2];
+
+            d = 1 / (1 + m20 * x + m21 * y + m22 * z);
+            positions[2 * k] = d * (m00 * x + m01 * y + m02 * z);
+            positions[2 * k + 1] = d * (m10 * x + m11 * y + m12 * z);
+        }
+    }
+
     /**
      * Retourne les coordonnées horizontales du point dont la projection est le point de coordonnées
      * cartésiennes xy.
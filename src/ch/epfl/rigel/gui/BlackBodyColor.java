@@ -25,7 +25,8 @@ public class BlackBodyColor {
     private static final String BBR_COLOR_NAME = "/bbr_color.txt";
     private static final ClosedInterval VALID_TEMPERATURE = ClosedInterval.of(1000, 40000);
 
-    private static Map<Integer, Color> colorsLinkToTemperature;
+    // Publiée une fois remplie : plusieurs fils peuvent demander des couleurs en même temps.
+    private static volatile Map<Integer, Color> colorsLinkToTemperature;
 
     private BlackBodyColor() {}
 
@@ -84,7 +85,7 @@ public class BlackBodyColor {
         try(BufferedReader br = new BufferedReader(new InputStreamReader(inputStream));
             inputStream)
         {
-            colorsLinkToTemperature = new HashMap<>();
+            Map<Integer, Color> colors = new HashMap<>();
 
             String line = br.readLine();
             String stringTemp;
@@ -95,10 +96,11 @@ public class BlackBodyColor {
                 if(interistingLine(line)) {
                     stringTemp = line.substring(1, 6).stripLeading();
                     currentTemp = Integer.parseInt(stringTemp);
-                    colorsLinkToTemperature.put(currentTemp, web(line.substring(80, 87)));
+                    colors.put(currentTemp, web(line.substring(80, 87)));
                 }
                 line = br.readLine();
             }
+            colorsLinkToTemperature = colors;
         }
     }
 
@@ -31,10 +31,9 @@ public class ConstellationDrawing {
                                         Point2D point1, Point2D point2) {
         ctx.save();
 
-        double angle = angleWithHorizontal(point1, point2);
-        rotate(ctx, angle + constellation.getDeltaAngle(), point1.getX(), point1.getY());
+        rotate(ctx, angle(constellation, point1, point2), point1.getX(), point1.getY());
 
-        double width = Math.sqrt(distanceSquare(point1, point2) * constellation.getScaleFactor());
+        double width = width(constellation, point1, point2);
         double height = (constellation.getHeight() * width) / constellation.getWidth();
 
         ctx.drawImage(constellation.getImage(), 0, 0, constellation.getWidth(),
@@ -42,6 +41,31 @@ public class ConstellationDrawing {
         ctx.restore();
     }
 
+    /**
+     * Retourne l'angle de rotation de l'image de la constellation, autour de la première étoile.
+     *
+     * @param constellation constellation à dessiner.
+     * @param point1 position de la première étoile.
+     * @param point2 position de la deuxième étoile.
+     * @return l'angle de rotation de l'image (Unité : degrés).
+     */
+    static double angle(Constellation constellation, Point2D point1, Point2D point2) {
+        return angleWithHorizontal(point1, point2) + constellation.getDeltaAngle();
+    }
+
+    /**
+     * Retourne la largeur dessinée de l'image de la constellation ; sa hauteur s'en déduit
+     * en conservant les proportions de l'image.
+     *
+     * @param constellation constellation à dessiner.
+     * @param point1 position de la première étoile.
+     * @param point2 position de la deuxième étoile.
+     * @return la largeur dessinée de l'image.
+     */
+    static double width(Constellation constellation, Point2D point1, Point2D point2) {
+        return Math.sqrt(distanceSquare(point1, point2) * constellation.getScaleFactor());
+    }
+
     /**
      * Définit la transformation pour appliquer une rotation de l'image.
      *
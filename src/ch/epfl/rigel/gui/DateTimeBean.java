@@ -1,15 +1,22 @@
 package ch.epfl.rigel.gui;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleObjectProperty;
 
 /**
- * Bean JavaFX contenant l'instant d'observation.
+ * Bean JavaFX contenant l'instant d'observation. L'instant est aussi disponible
+ * en milli-secondes (epochMillis), toujours à jour : c'est lui que suivent le
+ * calcul du ciel et l'animation, sans passer par java.time. Lorsqu'il est modifié
+ * directement, la date et l'heure ne sont mises à jour que si la seconde affichée
+ * change.
  *
  * @author Jean-Baptiste Moreau (296189)
  * @author Ali Raed Ben Mustapha (300392)
@@ -19,6 +26,18 @@ public final class DateTimeBean {
     private final ObjectProperty<LocalDate> date = new SimpleObjectProperty<>();
     private final ObjectProperty<LocalTime> time = new SimpleObjectProperty<>();
     private final ObjectProperty<ZoneId> zone = new SimpleObjectProperty<>();
+    private final SimpleLongProperty epochMillis = new SimpleLongProperty();
+    private boolean updating = false;
+
+    /**
+     * Construit un bean dont l'instant en milli-secondes suit la date, l'heure et
+     * la zone.
+     */
+    public DateTimeBean() {
+        date.addListener(e -> updateEpochMillis());
+        time.addListener(e -> updateEpochMillis());
+        zone.addListener(e -> updateEpochMillis());
+    }
 
     /**
      * Retourne un accès à la propriété date.
@@ -101,13 +120,52 @@ public final class DateTimeBean {
         this.zone.set(zone);
     }
 
+    /**
+     * Retourne la propriété non modifiable de l'extérieur contenant l'instant
+     * d'observation en milli-secondes.
+     *
+     * @return la propriété contenant l'instant d'observation en milli-secondes.
+     */
+    public ReadOnlyLongProperty epochMillisProperty() {
+        return epochMillis;
+    }
+
+    /**
+     * Retourne l'instant d'observation en milli-secondes.
+     *
+     * @return l'instant d'observation (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     */
+    public long getEpochMillis() {
+        return epochMillis.get();
+    }
+
+    /**
+     * Modifie l'instant d'observation, exprimé en milli-secondes, sans changer de zone.
+     * La date et l'heure ne sont recalculées que si la seconde change : appelée à chaque
+     * image d'une animation, cette méthode n'utilise le plus souvent pas java.time.
+     *
+     * @param epochMillis instant d'observation (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     */
+    public void setEpochMillis(long epochMillis) {
+        boolean sameSecond = Math.floorDiv(epochMillis, 1000) == Math.floorDiv(getEpochMillis(), 1000);
+        this.epochMillis.set(epochMillis);
+        if(sameSecond)
+            return;
+
+        ZonedDateTime dateTime = Instant.ofEpochMilli(epochMillis).atZone(getZone());
+        updating = true;
+        setDate(dateTime.toLocalDate());
+        setTime(dateTime.toLocalTime());
+        updating = false;
+    }
+
     /**
      * Retourne l'instant d'observation.
      *
      * @return l'instant d'observation sous la forme d'une valeur de type ZonedDateTime.
      */
     public ZonedDateTime getZonedDateTime() {
-        return ZonedDateTime.of(getDate(), getTime(), getZone());
+        return Instant.ofEpochMilli(getEpochMillis()).atZone(getZone());
     }
 
     /**
@@ -117,8 +175,20 @@ public final class DateTimeBean {
      * @param observationInstant instant d'observation.
      */
     public void setZonedDateTime(ZonedDateTime observationInstant) {
+        updating = true;
         setDate(observationInstant.toLocalDate());
         setTime(observationInstant.toLocalTime());
         setZone(observationInstant.getZone());
+        updating = false;
+        updateEpochMillis();
+    }
+
+    /**
+     * Recalcule l'instant en milli-secondes à partir de la date, de l'heure et de la
+     * zone, sauf pendant une mise à jour de celles-ci par le bean lui-même.
+     */
+    private void updateEpochMillis() {
+        if(!updating && getDate() != null && getTime() != null && getZone() != null)
+            epochMillis.set(ZonedDateTime.of(getDate(), getTime(), getZone()).toInstant().toEpochMilli());
     }
 }
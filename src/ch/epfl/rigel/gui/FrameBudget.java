@@ -0,0 +1,180 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.metrics.Metrics;
+
+/**
+ * Budget de durée des images : à partir de la durée mesurée de chaque image, il choisit
+ * le niveau de détail du ciel dessiné. Lorsque la durée lissée des images dépasse le
+ * budget, le détail est réduit d'un niveau ; lorsqu'elle reste nettement sous le budget,
+ * il est rétabli d'un niveau. Après chaque changement de niveau, quelques images sont
+ * dessinées avant de juger le nouveau niveau, le temps que son effet soit mesurable.
+ *
+ * <p>Le détail complet peut aussi être rétabli d'un coup, par exemple lorsque la vue
+ * ne bouge plus : une image lente ne gêne pas une vue immobile.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class FrameBudget {
+
+    /**
+     * Budget par défaut, un peu sous la durée d'une image à 60 Hz (Unité : milli-secondes).
+     */
+    public static final double DEFAULT_TARGET_MILLIS = 16;
+
+    // Poids de la dernière image dans la durée lissée.
+    private static final double SMOOTHING = 0.25;
+    // Images dessinées à un niveau avant de le juger.
+    private static final int SETTLING_FRAMES = 3;
+    // Images rapides nécessaires pour rétablir un niveau, et fraction du budget sous laquelle une image est rapide.
+    private static final int RESTORE_FRAMES = 60;
+    private static final double RESTORE_FRACTION = 0.5;
+
+    /**
+     * Niveaux de détail, du plus complet au plus réduit. Chaque niveau garde les
+     * réductions des niveaux précédents.
+     */
+    public enum Level {
+        /**
+         * Détail complet.
+         */
+        FULL(0, true, 0),
+        /**
+         * Astérismes simplifiés : les étoiles proches du dernier sommet tracé sont sautées.
+         */
+        SIMPLE_ASTERISMS(8, true, 0),
+        /**
+         * Constellations imagées non dessinées.
+         */
+        NO_CONSTELLATION_IMAGES(8, false, 0),
+        /**
+         * Magnitude limite abaissée d'une unité : moins d'étoiles calculées et dessinées.
+         */
+        FEWER_STARS(8, false, 1),
+        /**
+         * Magnitude limite abaissée de deux unités.
+         */
+        FEWEST_STARS(8, false, 2);
+
+        private final double asterismTolerance;
+        private final boolean drawsConstellationImages;
+        private final double magnitudeOffset;
+
+        /**
+         * Caractéristiques d'un niveau de détail.
+         *
+         * @param asterismTolerance distance minimale entre deux sommets tracés d'un astérisme (Unité : pixels).
+         * @param drawsConstellationImages vrai si les constellations imagées sont dessinées.
+         * @param magnitudeOffset réduction de la magnitude limite.
+         */
+        Level(double asterismTolerance, boolean drawsConstellationImages, double magnitudeOffset) {
+            this.asterismTolerance = asterismTolerance;
+            this.drawsConstellationImages = drawsConstellationImages;
+            this.magnitudeOffset = magnitudeOffset;
+        }
+
+        /**
+         * Retourne la distance minimale entre deux sommets tracés d'un astérisme.
+         *
+         * @return la distance minimale (Unité : pixels), 0 si toutes les étoiles sont reliées.
+         */
+        public double asterismTolerance() {
+            return asterismTolerance;
+        }
+
+        /**
+         * Retourne vrai si et seulement si les constellations imagées sont dessinées.
+         *
+         * @return vrai si les constellations imagées sont dessinées.
+         */
+        public boolean drawsConstellationImages() {
+            return drawsConstellationImages;
+        }
+
+        /**
+         * Retourne la réduction de la magnitude limite.
+         *
+         * @return la réduction de la magnitude limite, positive ou nulle.
+         */
+        public double magnitudeOffset() {
+            return magnitudeOffset;
+        }
+    }
+
+    private static final Level[] LEVELS = Level.values();
+
+    private final double targetMillis;
+    private Level level;
+    private double smoothedMillis;
+    private int framesAtLevel;
+    private int fastFrames;
+
+    /**
+     * Construit un budget au détail complet.
+     *
+     * @param targetMillis durée visée des images (Unité : milli-secondes).
+     * @throws IllegalArgumentException si la durée visée n'est pas strictement positive.
+     */
+    public FrameBudget(double targetMillis) {
+        Preconditions.checkArgument(targetMillis > 0);
+        this.targetMillis = targetMillis;
+        level = Level.FULL;
+    }
+
+    /**
+     * Retourne le niveau de détail actuel.
+     *
+     * @return le niveau de détail actuel.
+     */
+    public Level level() {
+        return level;
+    }
+
+    /**
+     * Ajoute la durée d'une image dessinée au niveau actuel, et change de niveau si
+     * nécessaire.
+     *
+     * @param frameNanos durée de l'image (Unité : nano-secondes).
+     * @return vrai si et seulement si le niveau de détail a changé.
+     */
+    public boolean record(long frameNanos) {
+        double millis = frameNanos / 1e6;
+        smoothedMillis = framesAtLevel == 0 ? millis : SMOOTHING * millis + (1 - SMOOTHING) * smoothedMillis;
+        framesAtLevel += 1;
+        fastFrames = millis < RESTORE_FRACTION * targetMillis ? fastFrames + 1 : 0;
+
+        if(framesAtLevel < SETTLING_FRAMES)
+            return false;
+        if(smoothedMillis > targetMillis && level.ordinal() < LEVELS.length - 1) {
+            Metrics.counter("budget.degrade").increment();
+            setLevel(LEVELS[level.ordinal() + 1]);
+            return true;
+        }
+        if(fastFrames >= RESTORE_FRAMES && level != Level.FULL) {
+            Metrics.counter("budget.restore").increment();
+            setLevel(LEVELS[level.ordinal() - 1]);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Rétablit le détail complet.
+     *
+     * @return vrai si et seulement si le niveau de détail a changé.
+     */
+    public boolean restore() {
+        if(level == Level.FULL)
+            return false;
+        Metrics.counter("budget.restore").increment();
+        setLevel(Level.FULL);
+        return true;
+    }
+
+    private void setLevel(Level level) {
+        this.level = level;
+        framesAtLevel = 0;
+        fastFrames = 0;
+    }
+}
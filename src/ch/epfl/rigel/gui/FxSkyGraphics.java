@@ -0,0 +1,109 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.astronomy.Constellation;
+import javafx.geometry.Point2D;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Surface de dessin JavaFX, qui dessine sur un Canvas.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+final class FxSkyGraphics implements SkyGraphics {
+
+    private final Canvas canvas;
+    private final GraphicsContext ctx;
+    private WritableImage image;
+
+    /**
+     * Construit une surface qui dessine sur le canvas donné.
+     *
+     * @param canvas dessin.
+     */
+    FxSkyGraphics(Canvas canvas) {
+        this.canvas = canvas;
+        ctx = canvas.getGraphicsContext2D();
+    }
+
+    @Override
+    public double width() {
+        return canvas.getWidth();
+    }
+
+    @Override
+    public double height() {
+        return canvas.getHeight();
+    }
+
+    @Override
+    public void clear(Color color) {
+        ctx.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        ctx.setFill(color);
+        ctx.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+    }
+
+    @Override
+    public void fillCircle(double x, double y, double diameter, Color color) {
+        ctx.setFill(color);
+        double radius = diameter / 2.0;
+        ctx.fillOval(x - radius, y - radius, diameter, diameter);
+    }
+
+    @Override
+    public void strokeCircle(double x, double y, double diameter, double lineWidth, Color color) {
+        ctx.setStroke(color);
+        ctx.setLineWidth(lineWidth);
+        double radius = diameter / 2.0;
+        ctx.strokeOval(x - radius, y - radius, diameter, diameter);
+    }
+
+    @Override
+    public void beginPath() {
+        ctx.beginPath();
+    }
+
+    @Override
+    public void moveTo(double x, double y) {
+        ctx.moveTo(x, y);
+    }
+
+    @Override
+    public void lineTo(double x, double y) {
+        ctx.lineTo(x, y);
+    }
+
+    @Override
+    public void strokePath(double lineWidth, Color color) {
+        ctx.setStroke(color);
+        ctx.setLineWidth(lineWidth);
+        ctx.stroke();
+    }
+
+    @Override
+    public void fillText(String text, double x, double y, Color color) {
+        ctx.setFill(color);
+        ctx.setTextBaseline(VPos.TOP);
+        ctx.setTextAlign(TextAlignment.CENTER);
+        ctx.fillText(text, x, y);
+    }
+
+    @Override
+    public void drawConstellation(Constellation constellation, Point2D point1, Point2D point2) {
+        ConstellationDrawing.drawRotatedImage(ctx, constellation, point1, point2);
+    }
+
+    @Override
+    public void drawPixels(int[] pixels, int width, int height) {
+        if(image == null || image.getWidth() != width || image.getHeight() != height)
+            image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        ctx.drawImage(image, 0, 0);
+    }
+}
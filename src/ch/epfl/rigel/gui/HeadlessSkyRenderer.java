@@ -0,0 +1,191 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.astronomy.HorizontalSky;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import javafx.beans.property.BooleanProperty;
+import javafx.scene.transform.Transform;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static ch.epfl.rigel.math.Angle.ofDeg;
+
+/**
+ * Dessinateur de ciel sans affichage : il dessine des ciels observés dans une image en
+ * mémoire, sans initialiser la boîte à outils JavaFX, et peut les écrire au format PNG.
+ * Le ciel est dessiné comme dans l'interface, les étoiles étant plaquées par
+ * StarRasterizer. Un dessinateur réutilise son image d'un ciel à l'autre et ne doit
+ * être utilisé que par un fil à la fois ; pour dessiner en parallèle, il faut un
+ * dessinateur par fil.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class HeadlessSkyRenderer {
+
+    /**
+     * Qualité de compression PNG : une compression légère est bien plus rapide, pour des
+     * fichiers à peine plus gros (le fond du ciel est uniforme).
+     */
+    private static final float PNG_COMPRESSION_QUALITY = 0.75f;
+
+    private static final int[] RGB_MASKS = {0xFF0000, 0xFF00, 0xFF};
+
+    private final RasterSkyGraphics graphics;
+    private final BufferedImage opaqueImage;
+    private final SkyCanvasPainter painter;
+    private final StarRasterizer starRasterizer;
+    private Transform planeToCanvas;
+    private double viewRadius;
+
+    /**
+     * Construit un dessinateur d'images de la taille donnée.
+     *
+     * @param width largeur des images (Unité : pixels).
+     * @param height hauteur des images (Unité : pixels).
+     * @param fieldOfViewDeg champ de vue horizontal (Unité : degrés).
+     * @throws IllegalArgumentException si la largeur ou la hauteur n'est pas strictement positive.
+     */
+    public HeadlessSkyRenderer(int width, int height, double fieldOfViewDeg) {
+        graphics = new RasterSkyGraphics(width, height);
+        // Le fond du ciel étant opaque, les pixels prémultipliés sont aussi des pixels RGB :
+        // cette vue sans copie s'encode deux fois plus vite que l'image avec transparence.
+        WritableRaster raster = Raster.createPackedRaster(graphics.image().getRaster().getDataBuffer(),
+                width, height, width, RGB_MASKS, null);
+        opaqueImage = new BufferedImage(new DirectColorModel(24, RGB_MASKS[0], RGB_MASKS[1], RGB_MASKS[2]),
+                raster, false, null);
+        painter = new SkyCanvasPainter(graphics);
+        starRasterizer = new StarRasterizer();
+        setFieldOfViewDeg(fieldOfViewDeg);
+    }
+
+    /**
+     * Change le champ de vue des ciels observés et dessinés ensuite.
+     *
+     * @param fieldOfViewDeg champ de vue horizontal (Unité : degrés).
+     */
+    public void setFieldOfViewDeg(double fieldOfViewDeg) {
+        int width = graphics.image().getWidth();
+        int height = graphics.image().getHeight();
+        planeToCanvas = SkyCanvasPainter.planeToCanvas(width, height, ofDeg(fieldOfViewDeg));
+        viewRadius = SkyCanvasPainter.viewRadius(width, height, planeToCanvas);
+    }
+
+    /**
+     * Retourne la transformation du plan de projection vers l'image, pour le champ de vue actuel.
+     *
+     * @return la transformation du plan vers l'image.
+     */
+    public Transform planeToCanvas() {
+        return planeToCanvas;
+    }
+
+    /**
+     * Retourne le ciel observé dans la direction donnée, en ne projetant, comme
+     * l'interface, que les étoiles du cône de vue assez brillantes pour être dessinées.
+     *
+     * @param horizontalSky ciel en coordonnées horizontales.
+     * @param center centre de la vue.
+     * @return le ciel observé à dessiner.
+     */
+    public ObservedSky observe(HorizontalSky horizontalSky, HorizontalCoordinates center) {
+        StereographicProjection projection = new StereographicProjection(center);
+        double halfDegreeDiameter = planeToCanvas.deltaTransform(
+                SkyCanvasPainter.halfDegreeSize(projection), 0).magnitude();
+        double limitingMagnitude = Math.ceil(10 * SkyCanvasPainter.limitingMagnitude(halfDegreeDiameter)) / 10;
+
+        return new ObservedSky(horizontalSky, projection, limitingMagnitude, viewRadius, false);
+    }
+
+    /**
+     * Dessine le ciel observé et retourne l'image obtenue. L'image est celle du
+     * dessinateur : elle est redessinée par l'appel suivant.
+     *
+     * @param sky ciel observé à dessiner.
+     * @return l'image du ciel, au format TYPE_INT_ARGB_PRE.
+     */
+    public BufferedImage render(ObservedSky sky) {
+        StereographicProjection projection = sky.projection();
+        int width = graphics.image().getWidth();
+        int height = graphics.image().getHeight();
+
+        painter.clear(sky.sunPosHorizontalCoords());
+        painter.drawConstellations(sky, planeToCanvas);
+        painter.drawAsterisms(sky, planeToCanvas);
+        painter.drawPixels(starRasterizer.pixels(sky, planeToCanvas, width, height), width, height);
+        painter.drawPlanets(sky, projection, planeToCanvas);
+        painter.drawSun(sky, projection, planeToCanvas);
+        painter.drawMoon(sky, projection, planeToCanvas);
+        painter.drawHorizon(projection, planeToCanvas);
+        return graphics.image();
+    }
+
+    /**
+     * Dessine le ciel observé et l'écrit au format PNG dans le flot donné, sans le fermer.
+     *
+     * @param sky ciel observé à dessiner.
+     * @param output flot dans lequel écrire l'image.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    public void writePng(ObservedSky sky, OutputStream output) throws IOException {
+        render(sky);
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            ImageWriteParam parameters = writer.getDefaultWriteParam();
+            if(parameters.canWriteCompressed()) {
+                parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                parameters.setCompressionQuality(PNG_COMPRESSION_QUALITY);
+            }
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(opaqueImage, null, null), parameters);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Dessine le ciel observé et écrit ses pixels bruts dans le flot donné, sans le fermer :
+     * quatre octets par pixel (rouge, vert, bleu, opacité), ligne par ligne depuis le haut.
+     *
+     * @param sky ciel observé à dessiner.
+     * @param output flot dans lequel écrire les pixels.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    public void writeRgba(ObservedSky sky, OutputStream output) throws IOException {
+        render(sky);
+
+        // Le fond étant opaque, les pixels prémultipliés sont égaux aux pixels non prémultipliés.
+        int[] pixels = graphics.pixels();
+        byte[] bytes = new byte[4 * pixels.length];
+        for(int i = 0; i < pixels.length; ++i) {
+            int pixel = pixels[i];
+            bytes[4 * i] = (byte) (pixel >> 16);
+            bytes[4 * i + 1] = (byte) (pixel >> 8);
+            bytes[4 * i + 2] = (byte) pixel;
+            bytes[4 * i + 3] = (byte) (pixel >>> 24);
+        }
+        output.write(bytes);
+    }
+
+    /**
+     * Retourne un accès à la propriété dayNightCycle du peintre, qui définit si le fond
+     * du ciel dépend de la hauteur du Soleil.
+     *
+     * @return un accès à la propriété dayNightCycle.
+     */
+    public BooleanProperty dayNightCycleProperty() {
+        return painter.dayNightCycleProperty();
+    }
+}
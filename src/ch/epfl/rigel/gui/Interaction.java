@@ -0,0 +1,180 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Interaction enregistrée : changement, à un instant de la session, d'une des valeurs
+ * dont dépend le ciel dessiné par SkyCanvasManager. Une session est enregistrée par
+ * InteractionRecorder et rejouée par InteractionReplay ; elle s'écrit dans un fichier
+ * texte, une interaction par ligne : « instant type première seconde ».
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class Interaction {
+
+    /**
+     * Types d'interactions, avec la signification de leurs deux valeurs.
+     */
+    public enum Type {
+        /**
+         * Taille du canvas : largeur et hauteur (Unité : pixels).
+         */
+        CANVAS_SIZE,
+        /**
+         * Instant d'observation, modifié à la main ou par l'animateur : milli-secondes depuis
+         * le 1er janvier 1970 UTC, et 0.
+         */
+        TIME,
+        /**
+         * Position de l'observateur : longitude et latitude (Unité : degrés).
+         */
+        OBSERVER,
+        /**
+         * Centre de la vue, déplacé par les touches fléchées ou le traqueur : azimut et
+         * hauteur (Unité : degrés).
+         */
+        CENTER,
+        /**
+         * Champ de vue, modifié par la molette : champ de vue horizontal (Unité : degrés),
+         * et 0.
+         */
+        FIELD_OF_VIEW,
+        /**
+         * Position de la souris sur le canvas : abscisse et ordonnée (Unité : pixels).
+         */
+        MOUSE,
+        /**
+         * Démarrage ou arrêt de l'animateur de temps : 1 s'il tourne, 0 sinon, et 0.
+         */
+        ANIMATOR
+    }
+
+    private final long millis;
+    private final Type type;
+    private final double first;
+    private final double second;
+
+    /**
+     * Construit une interaction.
+     *
+     * @param millis instant de l'interaction (Unité : milli-secondes depuis le début de la session).
+     * @param type type de l'interaction.
+     * @param first première valeur.
+     * @param second seconde valeur.
+     * @throws IllegalArgumentException si l'instant est négatif.
+     */
+    public Interaction(long millis, Type type, double first, double second) {
+        Preconditions.checkArgument(millis >= 0);
+        this.millis = millis;
+        this.type = type;
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Retourne l'instant de l'interaction.
+     *
+     * @return l'instant de l'interaction (Unité : milli-secondes depuis le début de la session).
+     */
+    public long millis() {
+        return millis;
+    }
+
+    /**
+     * Retourne le type de l'interaction.
+     *
+     * @return le type de l'interaction.
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * Retourne la première valeur de l'interaction.
+     *
+     * @return la première valeur.
+     */
+    public double first() {
+        return first;
+    }
+
+    /**
+     * Retourne la seconde valeur de l'interaction.
+     *
+     * @return la seconde valeur.
+     */
+    public double second() {
+        return second;
+    }
+
+    /**
+     * Retourne l'interaction décrite par la ligne donnée, au format de toString.
+     *
+     * @param line ligne décrivant l'interaction.
+     * @return l'interaction décrite.
+     * @throws IllegalArgumentException si la ligne est mal formée.
+     */
+    public static Interaction parse(String line) {
+        String[] fields = line.strip().split("\\s+");
+        Preconditions.checkArgument(fields.length == 4);
+        return new Interaction(Long.parseLong(fields[0]), Type.valueOf(fields[1]),
+                Double.parseDouble(fields[2]), Double.parseDouble(fields[3]));
+    }
+
+    /**
+     * Lit une session dans le fichier donné, en ignorant les lignes vides.
+     *
+     * @param path fichier de la session.
+     * @return les interactions de la session, dans l'ordre du fichier.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     * @throws IllegalArgumentException si une ligne est mal formée.
+     */
+    public static List<Interaction> read(Path path) throws IOException {
+        List<Interaction> interactions = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            while((line = reader.readLine()) != null)
+                if(!line.isBlank())
+                    interactions.add(parse(line));
+        }
+        return interactions;
+    }
+
+    /**
+     * Écrit une session dans le fichier donné.
+     *
+     * @param interactions interactions de la session.
+     * @param path fichier de la session.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    public static void write(List<Interaction> interactions, Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            for(Interaction interaction : interactions) {
+                writer.write(interaction.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Retourne la ligne décrivant l'interaction. Les valeurs sont écrites de façon à être
+     * relues exactement.
+     *
+     * @return la ligne décrivant l'interaction.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d %s %s %s", millis, type, first, second);
+    }
+}
@@ -0,0 +1,130 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.gui.Interaction.Type;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.input.MouseEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enregistreur d'interactions : pendant l'enregistrement, il note avec leur instant les
+ * changements de la taille du canvas d'un SkyCanvasManager, de l'instant d'observation,
+ * de la position de l'observateur, du centre et du champ de vue, les mouvements de la
+ * souris ainsi que les démarrages et arrêts de l'animateur de temps.
+ *
+ * <p>Les déplacements au clavier et les zooms à la molette sont enregistrés par leur
+ * effet sur les paramètres de la vue, et les pas de l'animateur par les instants
+ * d'observation qu'il produit : la session rejouée reproduit exactement les ciels
+ * demandés, quels que soient les réglages de sensibilité. L'enregistreur doit être
+ * utilisé sur le fil JavaFX.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class InteractionRecorder {
+
+    private final Canvas canvas;
+    private final DateTimeBean dateTimeBean;
+    private final ObserverLocationBean observerLocationBean;
+    private final ViewingParametersBean viewingParametersBean;
+    private final TimeAnimator timeAnimator;
+
+    private final List<Interaction> interactions;
+    private boolean recording;
+    private long startNanos;
+
+    /**
+     * Construit un enregistreur des interactions avec le gestionnaire de canvas et les
+     * beans donnés, et installe ses auditeurs. L'enregistrement ne commence qu'à l'appel
+     * de start.
+     *
+     * @param canvasManager gestionnaire du canvas.
+     * @param dateTimeBean instant d'observation.
+     * @param timeAnimator animateur de temps.
+     * @param observerLocationBean position de l'observateur.
+     * @param viewingParametersBean paramètres de la vue.
+     */
+    public InteractionRecorder(SkyCanvasManager canvasManager, DateTimeBean dateTimeBean,
+                               TimeAnimator timeAnimator, ObserverLocationBean observerLocationBean,
+                               ViewingParametersBean viewingParametersBean) {
+        this.canvas = canvasManager.canvas();
+        this.dateTimeBean = dateTimeBean;
+        this.observerLocationBean = observerLocationBean;
+        this.viewingParametersBean = viewingParametersBean;
+        this.timeAnimator = timeAnimator;
+        interactions = new ArrayList<>();
+
+        // Un filtre, pour ne pas remplacer le gestionnaire de la souris du canvas.
+        canvas.addEventFilter(MouseEvent.MOUSE_MOVED, e -> record(Type.MOUSE, e.getX(), e.getY()));
+        canvas.widthProperty().addListener(e -> recordCanvasSize());
+        canvas.heightProperty().addListener(e -> recordCanvasSize());
+        dateTimeBean.epochMillisProperty().addListener(e -> recordTime());
+        observerLocationBean.coordinatesProperty().addListener(e -> recordObserver());
+        viewingParametersBean.centerProperty().addListener(e -> recordCenter());
+        viewingParametersBean.fieldOfViewDegProperty().addListener(e -> recordFieldOfView());
+        timeAnimator.getRunning().addListener(e -> recordAnimator());
+    }
+
+    /**
+     * Commence un nouvel enregistrement, qui débute par l'état actuel.
+     */
+    public void start() {
+        interactions.clear();
+        startNanos = System.nanoTime();
+        recording = true;
+
+        recordCanvasSize();
+        recordTime();
+        recordObserver();
+        recordCenter();
+        recordFieldOfView();
+        recordAnimator();
+    }
+
+    /**
+     * Termine l'enregistrement et retourne la session enregistrée.
+     *
+     * @return les interactions enregistrées, dans l'ordre.
+     */
+    public List<Interaction> stop() {
+        recording = false;
+        return List.copyOf(interactions);
+    }
+
+    private void recordCanvasSize() {
+        record(Type.CANVAS_SIZE, canvas.getWidth(), canvas.getHeight());
+    }
+
+    private void recordTime() {
+        record(Type.TIME, dateTimeBean.getEpochMillis(), 0);
+    }
+
+    private void recordObserver() {
+        GeographicCoordinates where = observerLocationBean.getCoordinates();
+        record(Type.OBSERVER, where.lonDeg(), where.latDeg());
+    }
+
+    private void recordCenter() {
+        HorizontalCoordinates center = viewingParametersBean.getCenter();
+        record(Type.CENTER, center.azDeg(), center.altDeg());
+    }
+
+    private void recordFieldOfView() {
+        record(Type.FIELD_OF_VIEW, viewingParametersBean.getFieldOfViewDeg(), 0);
+    }
+
+    private void recordAnimator() {
+        record(Type.ANIMATOR, timeAnimator.getRunning().get() ? 1 : 0, 0);
+    }
+
+    /**
+     * Ajoute une interaction à l'instant actuel, si l'enregistrement est en cours.
+     */
+    private void record(Type type, double first, double second) {
+        if(recording)
+            interactions.add(new Interaction((System.nanoTime() - startNanos) / 1_000_000, type, first, second));
+    }
+}
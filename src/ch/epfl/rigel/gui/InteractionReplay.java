@@ -0,0 +1,356 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.EphemerisCache;
+import ch.epfl.rigel.astronomy.HorizontalSky;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.CartesianCoordinates;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.metrics.Metrics;
+import javafx.geometry.Point2D;
+import javafx.scene.transform.NonInvertibleTransformException;
+import javafx.scene.transform.Transform;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Rejoue sans affichage une session enregistrée par InteractionRecorder et mesure le
+ * temps de calcul et de dessin de chaque image, ainsi que la mémoire allouée.
+ *
+ * <p>La session est rejouée en temps simulé, par pulsations de PULSE_MILLIS comme
+ * l'interface : à chaque pulsation, les interactions échues sont appliquées et, si
+ * quelque chose a changé, l'image est calculée comme par SkyCanvasManager (ciel
+ * horizontal, ciel observé, objet sous la souris) puis dessinée par un
+ * HeadlessSkyRenderer. Le rejeu ne dépend ni de l'horloge ni de la boîte à outils
+ * JavaFX : deux rejeux d'une même session font exactement les mêmes calculs, ce qui
+ * permet de comparer deux versions du programme sur des sessions réalistes.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class InteractionReplay {
+
+    /**
+     * Intervalle entre deux pulsations, auxquelles l'interface redessine au plus une fois
+     * le ciel (Unité : milli-secondes).
+     */
+    public static final long PULSE_MILLIS = 16;
+
+    private static final int DEFAULT_RUNS = 5;
+
+    private final StarCatalogue catalogue;
+    private final List<Interaction> interactions;
+
+    /**
+     * Construit un rejeu de la session donnée.
+     *
+     * @param catalogue catalogue contenant les étoiles, les astérismes et les constellations.
+     * @param interactions interactions de la session, dans l'ordre chronologique.
+     * @throws IllegalArgumentException si les interactions ne sont pas dans l'ordre chronologique.
+     */
+    public InteractionReplay(StarCatalogue catalogue, List<Interaction> interactions) {
+        for(int i = 1; i < interactions.size(); ++i)
+            Preconditions.checkArgument(interactions.get(i - 1).millis() <= interactions.get(i).millis());
+        this.catalogue = catalogue;
+        this.interactions = List.copyOf(interactions);
+    }
+
+    /**
+     * Rejoue la session depuis un état vide (sans ciel ni cache) et retourne les mesures.
+     * Les pulsations antérieures à la connaissance de tout l'état (taille du canvas,
+     * instant, observateur, vue) sont ignorées.
+     *
+     * @return les mesures des images calculées.
+     */
+    public Report replay() {
+        int maxFrames = interactions.isEmpty()
+                ? 0 : (int) (interactions.get(interactions.size() - 1).millis() / PULSE_MILLIS) + 1;
+        long[] computeNanos = new long[maxFrames];
+        long[] paintNanos = new long[maxFrames];
+        long[] allocatedBytes = new long[maxFrames];
+        int frames = 0, redrawnFrames = 0, hoveredFrames = 0;
+
+        State state = new State();
+        EphemerisCache ephemerides = new EphemerisCache();
+        HeadlessSkyRenderer renderer = null;
+        HorizontalSky horizontalSky = null;
+        ObservedSky sky = null;
+
+        int next = 0;
+        for(long pulse = 0; next < interactions.size(); pulse += PULSE_MILLIS) {
+            while(next < interactions.size() && interactions.get(next).millis() <= pulse)
+                state.apply(interactions.get(next++));
+            if(!state.changed() || !state.isComplete())
+                continue;
+
+            long allocatedStart = allocatedBytes();
+            long computeStart = System.nanoTime();
+
+            if(renderer == null || state.sizeChanged)
+                renderer = new HeadlessSkyRenderer(state.width, state.height, state.fieldOfViewDeg);
+            else if(state.fieldOfViewChanged)
+                renderer.setFieldOfViewDeg(state.fieldOfViewDeg);
+
+            if(horizontalSky == null)
+                horizontalSky = new HorizontalSky(state.epochMillis, state.where, catalogue, ephemerides);
+            else if(state.skyChanged)
+                horizontalSky = horizontalSky.at(state.epochMillis, state.where);
+
+            boolean redraw = sky == null || state.skyChanged || state.sizeChanged
+                    || state.fieldOfViewChanged || state.centerChanged;
+            if(redraw)
+                sky = renderer.observe(horizontalSky, state.center);
+            if(state.hasMouse() && objectUnderMouse(sky, renderer.planeToCanvas(), state.mouseX, state.mouseY)
+                    .isPresent())
+                hoveredFrames += 1;
+
+            long paintStart = System.nanoTime();
+            if(redraw)
+                renderer.render(sky);
+            long paintEnd = System.nanoTime();
+
+            computeNanos[frames] = paintStart - computeStart;
+            allocatedBytes[frames] = allocatedStart < 0 ? -1 : allocatedBytes() - allocatedStart;
+            frames += 1;
+            if(redraw)
+                paintNanos[redrawnFrames++] = paintEnd - paintStart;
+            state.clearChanges();
+        }
+
+        return new Report(Arrays.copyOf(computeNanos, frames), Arrays.copyOf(paintNanos, redrawnFrames),
+                Arrays.copyOf(allocatedBytes, frames), hoveredFrames);
+    }
+
+    /**
+     * Retourne l'objet céleste sous la souris, comme SkyCanvasManager pour la barre
+     * d'informations, ou rien si la transformation n'est pas inversible.
+     */
+    private static Optional<CelestialObject> objectUnderMouse(ObservedSky sky, Transform planeToCanvas,
+                                                              double mouseX, double mouseY) {
+        try {
+            Point2D point = planeToCanvas.inverseTransform(mouseX, mouseY);
+            double distance = planeToCanvas.inverseDeltaTransform(SkyCanvasManager.MAX_DISTANCE, 0).magnitude();
+            return sky.objectClosestTo(CartesianCoordinates.of(point.getX(), point.getY()), distance);
+        } catch (NonInvertibleTransformException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Retourne le nombre d'octets alloués jusqu'ici par le fil courant, ou -1 si la
+     * machine virtuelle ne le mesure pas.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(!(threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * État de l'interface reconstitué à partir des interactions, avec ce qui a changé
+     * depuis la dernière image.
+     */
+    private static final class State {
+
+        private int width, height;
+        private long epochMillis = Long.MIN_VALUE;
+        private GeographicCoordinates where;
+        private HorizontalCoordinates center;
+        private double fieldOfViewDeg = Double.NaN;
+        private double mouseX = Double.NaN, mouseY = Double.NaN;
+
+        private boolean sizeChanged, skyChanged, centerChanged, fieldOfViewChanged, mouseChanged;
+
+        private void apply(Interaction interaction) {
+            switch(interaction.type()) {
+                case CANVAS_SIZE:
+                    width = (int) interaction.first();
+                    height = (int) interaction.second();
+                    sizeChanged = true;
+                    break;
+                case TIME:
+                    epochMillis = (long) interaction.first();
+                    skyChanged = true;
+                    break;
+                case OBSERVER:
+                    where = GeographicCoordinates.ofDeg(interaction.first(), interaction.second());
+                    skyChanged = true;
+                    break;
+                case CENTER:
+                    center = HorizontalCoordinates.ofDeg(interaction.first(), interaction.second());
+                    centerChanged = true;
+                    break;
+                case FIELD_OF_VIEW:
+                    fieldOfViewDeg = interaction.first();
+                    fieldOfViewChanged = true;
+                    break;
+                case MOUSE:
+                    mouseX = interaction.first();
+                    mouseY = interaction.second();
+                    mouseChanged = true;
+                    break;
+                case ANIMATOR:
+                    // Les pas de l'animateur sont enregistrés comme des changements d'instant.
+                    break;
+            }
+        }
+
+        private boolean isComplete() {
+            return width > 0 && height > 0 && epochMillis != Long.MIN_VALUE && where != null
+                    && center != null && !Double.isNaN(fieldOfViewDeg);
+        }
+
+        private boolean changed() {
+            return sizeChanged || skyChanged || centerChanged || fieldOfViewChanged || mouseChanged;
+        }
+
+        private boolean hasMouse() {
+            return !Double.isNaN(mouseX);
+        }
+
+        private void clearChanges() {
+            sizeChanged = skyChanged = centerChanged = fieldOfViewChanged = mouseChanged = false;
+        }
+    }
+
+    /**
+     * Mesures d'un rejeu. Une image est calculée à chaque pulsation où quelque chose a
+     * changé ; elle n'est redessinée que si le ciel ou la vue a changé (pas pour un simple
+     * mouvement de la souris). Le nombre d'images où un objet était sous la souris permet
+     * de vérifier que deux rejeux ont fait les mêmes calculs.
+     */
+    public static final class Report {
+
+        private final long[] computeNanos;
+        private final long[] paintNanos;
+        private final long[] allocatedBytes;
+        private final int hoveredFrames;
+
+        private Report(long[] computeNanos, long[] paintNanos, long[] allocatedBytes, int hoveredFrames) {
+            this.computeNanos = computeNanos;
+            this.paintNanos = paintNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.hoveredFrames = hoveredFrames;
+        }
+
+        /**
+         * Retourne le nombre d'images calculées.
+         *
+         * @return le nombre d'images calculées.
+         */
+        public int frames() {
+            return computeNanos.length;
+        }
+
+        /**
+         * Retourne le nombre d'images redessinées.
+         *
+         * @return le nombre d'images redessinées.
+         */
+        public int redrawnFrames() {
+            return paintNanos.length;
+        }
+
+        /**
+         * Retourne le nombre d'images où un objet céleste était sous la souris.
+         *
+         * @return le nombre d'images avec un objet sous la souris.
+         */
+        public int hoveredFrames() {
+            return hoveredFrames;
+        }
+
+        /**
+         * Retourne le centile donné des temps de calcul des images.
+         *
+         * @param percentile centile, entre 0 (exclu) et 100.
+         * @return le centile des temps de calcul (Unité : milli-secondes), NaN s'il n'y a pas d'image.
+         * @throws IllegalArgumentException si le centile n'est pas entre 0 (exclu) et 100.
+         */
+        public double computeMillis(double percentile) {
+            return percentileMillis(computeNanos, percentile);
+        }
+
+        /**
+         * Retourne le centile donné des temps de dessin des images redessinées.
+         *
+         * @param percentile centile, entre 0 (exclu) et 100.
+         * @return le centile des temps de dessin (Unité : milli-secondes), NaN s'il n'y a pas d'image.
+         * @throws IllegalArgumentException si le centile n'est pas entre 0 (exclu) et 100.
+         */
+        public double paintMillis(double percentile) {
+            return percentileMillis(paintNanos, percentile);
+        }
+
+        /**
+         * Retourne la mémoire allouée en moyenne par image, calcul et dessin compris.
+         *
+         * @return le nombre moyen d'octets alloués par image, NaN si la machine virtuelle ne
+         *          le mesure pas ou s'il n'y a pas d'image.
+         */
+        public double allocatedBytesPerFrame() {
+            if(allocatedBytes.length == 0 || allocatedBytes[0] < 0)
+                return Double.NaN;
+            return Arrays.stream(allocatedBytes).average().orElse(Double.NaN);
+        }
+
+        /**
+         * Retourne le centile donné des durées, par la méthode du rang le plus proche.
+         */
+        private static double percentileMillis(long[] nanos, double percentile) {
+            Preconditions.checkArgument(percentile > 0 && percentile <= 100);
+            if(nanos.length == 0)
+                return Double.NaN;
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(rank, 1) - 1] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%d images (%d redessinées, %d avec un objet sous la souris) ; calcul p50 %.2f p95 %.2f "
+                            + "p99 %.2f ms ; dessin p50 %.2f p95 %.2f p99 %.2f ms ; %.0f Ko alloués par image",
+                    frames(), redrawnFrames(), hoveredFrames(), computeMillis(50), computeMillis(95), computeMillis(99),
+                    paintMillis(50), paintMillis(95), paintMillis(99), allocatedBytesPerFrame() / 1024);
+        }
+    }
+
+    /**
+     * Rejoue la session du fichier donné en premier argument : un premier rejeu non mesuré
+     * laisse le JIT compiler le programme, puis chaque rejeu mesuré (cinq par défaut, ou le
+     * nombre donné en second argument) affiche ses mesures. Le catalogue est chargé comme
+     * par l'interface ; le résumé du registre Metrics, cumulé sur tous les rejeux, est
+     * affiché à la fin.
+     *
+     * @param args fichier de la session et, facultativement, nombre de rejeux mesurés.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 1 && args.length != 2) {
+            System.err.println("Usage : InteractionReplay <session> [rejeux]");
+            System.exit(1);
+        }
+        System.setProperty("java.awt.headless", "true");
+
+        List<Interaction> session = Interaction.read(Path.of(args[0]));
+        int runs = args.length == 2 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+        InteractionReplay replay = new InteractionReplay(Main.loadCatalogue(), session);
+
+        replay.replay();
+        for(int i = 0; i < runs; ++i)
+            System.out.println(replay.replay());
+        System.out.println(Metrics.report());
+    }
+}
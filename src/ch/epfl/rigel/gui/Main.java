@@ -1,9 +1,11 @@
 package ch.epfl.rigel.gui;
 
 import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.BinaryCatalogueLoader;
 import ch.epfl.rigel.astronomy.ConstellationDrawLoader;
 import ch.epfl.rigel.astronomy.HygDatabaseLoader;
 import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.TiledStarFile;
 import ch.epfl.rigel.coordinates.GeographicCoordinates;
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
 import javafx.application.Application;
@@ -28,6 +30,10 @@ import javafx.util.converter.NumberStringConverter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -48,6 +54,11 @@ public class Main extends Application {
     private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
     private static final String ASTERISM_CATALOGUE_NAME = "/asterisms.txt";
     private static final String CONSTELLATION_NAME = "/constellation_drawing.txt";
+    private static final String CATALOGUE_IMAGE_NAME = "/catalogue.bin";
+    private static final String TILED_STARS_PROPERTY = "rigel.tiles";
+    private static final String TILED_STARS_BUDGET_PROPERTY = "rigel.tiles.budget";
+    private static final String RECORD_PROPERTY = "rigel.record";
+    private static final long DEFAULT_TILED_STARS_BUDGET_MB = 256;
     private static final double EPFL_LONGITUDE = 6.57;
     private static final double EPFL_LATITUDE = 46.52;
     private static final HorizontalCoordinates INITIAL_OBSERV_POS
@@ -81,78 +92,159 @@ public class Main extends Application {
     private Stage windowAccelerator;
     private Stage windowTracking;
     private BooleanProperty acceleratorsDisableProperty;
+    private InteractionRecorder interactionRecorder;
 
     public static void main(String[] args) {
         launch(args);
     }
 
-    private InputStream resourceStream(String resourceName) {
-        return getClass().getResourceAsStream(resourceName);
+    private static InputStream resourceStream(String resourceName) {
+        return Main.class.getResourceAsStream(resourceName);
+    }
+
+    /**
+     * Retourne le chemin de la ressource donnée si c'est un fichier ordinaire, et null
+     * sinon (ressource absente ou contenue dans une archive, par exemple).
+     *
+     * @param resourceName nom de la ressource.
+     * @return le chemin du fichier de la ressource, ou null.
+     */
+    private static Path resourceFile(String resourceName) {
+        URL url = Main.class.getResource(resourceName);
+        if(url == null || !"file".equals(url.getProtocol()))
+            return null;
+        try {
+            Path path = Path.of(url.toURI());
+            return Files.isRegularFile(path) ? path : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
     }
 
     @Override
     public void start(Stage stage) throws Exception {
-        try (InputStream hygStream = resourceStream(HYG_CATALOGUE_NAME);
-             InputStream asterismStream = resourceStream(ASTERISM_CATALOGUE_NAME);
-             InputStream constellationStream = resourceStream(CONSTELLATION_NAME)) {
-            StarCatalogue catalogue = new StarCatalogue.Builder()
-                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
-                    .loadFrom(asterismStream, AsterismLoader.INSTANCE)
-                    .loadFrom(constellationStream, ConstellationDrawLoader.INSTANCE)
-                    .build();
+        StarCatalogue catalogue = loadCatalogue();
+
+        dateTimeBean = new DateTimeBean();
+        dateTimeBean.setZonedDateTime(ZonedDateTime.now());
+        timeAnimator = new TimeAnimator(dateTimeBean);
+
+        observerLocationBean = new ObserverLocationBean();
+        observerLocationBean.setCoordinates(
+                GeographicCoordinates.ofDeg(EPFL_LONGITUDE, EPFL_LATITUDE));
+
+        viewingParametersBean = new ViewingParametersBean();
+        viewingParametersBean.setCenter(INITIAL_OBSERV_POS);
+        viewingParametersBean.setFieldOfViewDeg(INITIAL_FIELD_OF_VIEW);
+
+        canvasManager = new SkyCanvasManager(
+                catalogue,
+                dateTimeBean,
+                timeAnimator,
+                observerLocationBean,
+                viewingParametersBean
+        );
 
-            dateTimeBean = new DateTimeBean();
-            dateTimeBean.setZonedDateTime(ZonedDateTime.now());
-            timeAnimator = new TimeAnimator(dateTimeBean);
-
-            observerLocationBean = new ObserverLocationBean();
-            observerLocationBean.setCoordinates(
-                    GeographicCoordinates.ofDeg(EPFL_LONGITUDE, EPFL_LATITUDE));
-
-            viewingParametersBean = new ViewingParametersBean();
-            viewingParametersBean.setCenter(INITIAL_OBSERV_POS);
-            viewingParametersBean.setFieldOfViewDeg(INITIAL_FIELD_OF_VIEW);
-
-            canvasManager = new SkyCanvasManager(
-                    catalogue,
-                    dateTimeBean,
-                    timeAnimator,
-                    observerLocationBean,
-                    viewingParametersBean
-            );
+        if(System.getProperty(RECORD_PROPERTY) != null) {
+            interactionRecorder = new InteractionRecorder(canvasManager, dateTimeBean, timeAnimator,
+                    observerLocationBean, viewingParametersBean);
+            interactionRecorder.start();
+        }
 
-            sky = canvasManager.canvas();
-            Pane paneSky = new Pane(sky);
+        sky = canvasManager.canvas();
+        Pane paneSky = new Pane(sky);
 
-            sky.widthProperty().bind(paneSky.widthProperty());
-            sky.heightProperty().bind(paneSky.heightProperty());
+        sky.widthProperty().bind(paneSky.widthProperty());
+        sky.heightProperty().bind(paneSky.heightProperty());
 
-            BorderPane root = new BorderPane(
-                    paneSky,
-                    controlBar(),
-                    null,
-                    infoBar(),
-                    null
-            );
+        BorderPane root = new BorderPane(
+                paneSky,
+                controlBar(),
+                null,
+                infoBar(),
+                null
+        );
 
-            mapManager = new MapManager(observerLocationBean);
-            windowMap = windowMap(stage);
-            windowSettings = windowSettings(stage);
-            windowDisplay = windowDisplay(stage);
-            windowAccelerator = windowAccelerator(stage);
-            windowTracking = windowTracking(stage, catalogue.getNameOfCelestialObjects());
-            closeWindowsWhenClickOnSky();
+        mapManager = new MapManager(observerLocationBean);
+        windowMap = windowMap(stage);
+        windowSettings = windowSettings(stage);
+        windowDisplay = windowDisplay(stage);
+        windowAccelerator = windowAccelerator(stage);
+        windowTracking = windowTracking(stage, catalogue.getNameOfCelestialObjects());
+        closeWindowsWhenClickOnSky();
 
-            stage.setTitle(PROGRAM_NAME);
-            stage.setMinWidth(CANVAS_WIDTH);
-            stage.setMinHeight(CANVAS_HEIGHT);
+        stage.setTitle(PROGRAM_NAME);
+        stage.setMinWidth(CANVAS_WIDTH);
+        stage.setMinHeight(CANVAS_HEIGHT);
 
-            stage.setScene(new Scene(root));
-            stage.show();
+        stage.setScene(new Scene(root));
+        stage.show();
 
-            sky.requestFocus();
+        sky.requestFocus();
+    }
+
+    /**
+     * Écrit la session enregistrée dans le fichier donné par la propriété système
+     * rigel.record, s'il y en a un (voir InteractionReplay).
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    @Override
+    public void stop() throws IOException {
+        if(interactionRecorder != null)
+            Interaction.write(interactionRecorder.stop(), Path.of(System.getProperty(RECORD_PROPERTY)));
+    }
+
+    /**
+     * Charge le catalogue depuis le fichier de tuiles donné par la propriété système
+     * rigel.tiles s'il y en a un, sinon depuis son image binaire si elle est présente
+     * (voir CatalogueCompiler), projetée en mémoire si c'est un fichier ordinaire, et
+     * sinon depuis les fichiers textes.
+     *
+     * @return le catalogue des étoiles, astérismes et constellations.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    static StarCatalogue loadCatalogue() throws IOException {
+        String tiledStarsPath = System.getProperty(TILED_STARS_PROPERTY);
+        if(tiledStarsPath != null) {
+            Path path = Path.of(tiledStarsPath);
+            long budget = Long.getLong(TILED_STARS_BUDGET_PROPERTY, DEFAULT_TILED_STARS_BUDGET_MB) << 20;
+            TiledStarFile tiledStars = new TiledStarFile(path, budget);
+
+            try (InputStream tilesStream = Files.newInputStream(path);
+                 InputStream asterismStream = resourceStream(ASTERISM_CATALOGUE_NAME);
+                 InputStream constellationStream = resourceStream(CONSTELLATION_NAME)) {
+                return new StarCatalogue.Builder()
+                        .loadFrom(tilesStream, tiledStars)
+                        .loadFrom(asterismStream, AsterismLoader.INSTANCE)
+                        .loadFrom(constellationStream, ConstellationDrawLoader.INSTANCE)
+                        .build();
+            }
+        }
+
+        Path imagePath = resourceFile(CATALOGUE_IMAGE_NAME);
+        if(imagePath != null) {
+            StarCatalogue.Builder builder = new StarCatalogue.Builder();
+            BinaryCatalogueLoader.INSTANCE.load(imagePath, builder);
+            return builder.build();
         }
 
+        try (InputStream imageStream = resourceStream(CATALOGUE_IMAGE_NAME)) {
+            if(imageStream != null)
+                return new StarCatalogue.Builder()
+                        .loadFrom(imageStream, BinaryCatalogueLoader.INSTANCE)
+                        .build();
+        }
+
+        try (InputStream hygStream = resourceStream(HYG_CATALOGUE_NAME);
+             InputStream asterismStream = resourceStream(ASTERISM_CATALOGUE_NAME);
+             InputStream constellationStream = resourceStream(CONSTELLATION_NAME)) {
+            return new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(asterismStream, AsterismLoader.INSTANCE)
+                    .loadFrom(constellationStream, ConstellationDrawLoader.INSTANCE)
+                    .build();
+        }
     }
 
     /**
@@ -303,6 +395,10 @@ public class Main extends Application {
                 true, canvasManager.enDrawHorizonProperty());
         CheckBox enableDayNightCycle = checkBoxLinkedProperty("le cycle jour/nuit",
                 false, canvasManager.dayNightCycleProperty());
+        CheckBox enableFrameTimes = checkBoxLinkedProperty("les durées des images",
+                false, canvasManager.frameTimeOverlayProperty());
+        CheckBox enableAdaptiveDetail = checkBoxLinkedProperty("la qualité adaptative",
+                true, canvasManager.adaptiveDetailProperty());
 
         VBox vbox = new VBox(
                 intro,
@@ -313,7 +409,9 @@ public class Main extends Application {
                 enableAsterisms,
                 enableConstellations,
                 enableHorizon,
-                enableDayNightCycle
+                enableDayNightCycle,
+                enableFrameTimes,
+                enableAdaptiveDetail
         );
         vbox.setSpacing(2);
         BorderPane.setMargin(vbox, BORDER_WINDOWS);
@@ -437,9 +535,8 @@ public class Main extends Application {
      *                          objets célestes.
      */
     private void dateTimeBeanListeners(CheckBox activeTracking, ComboBox<String> celestialComboBox) {
-        dateTimeBean.dateProperty().addListener(e -> setCenterIfIsTracking(activeTracking, celestialComboBox));
-        dateTimeBean.timeProperty().addListener(e -> setCenterIfIsTracking(activeTracking, celestialComboBox));
-        dateTimeBean.zoneProperty().addListener(e -> setCenterIfIsTracking(activeTracking, celestialComboBox));
+        dateTimeBean.epochMillisProperty().addListener(e ->
+                setCenterIfIsTracking(activeTracking, celestialComboBox));
         observerLocationBean.coordinatesProperty().addListener(e ->
                 setCenterIfIsTracking(activeTracking, celestialComboBox));
     }
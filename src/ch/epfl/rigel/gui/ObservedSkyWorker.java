@@ -0,0 +1,223 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.astronomy.EphemerisCache;
+import ch.epfl.rigel.astronomy.HorizontalSky;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import ch.epfl.rigel.metrics.Metrics;
+import ch.epfl.rigel.metrics.ObservedSkyPhaseEvent;
+import ch.epfl.rigel.metrics.Timer;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleObjectProperty;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Calcule le ciel observé sur un fil dédié. Le fil JavaFX ne fait que demander
+ * un ciel et lire le dernier ciel terminé ; une demande encore en attente
+ * lorsqu'une nouvelle arrive est abandonnée. Le Soleil, la Lune et les planètes
+ * sont obtenus d'un cache d'éphémérides gardé d'un ciel à l'autre.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class ObservedSkyWorker {
+
+    /**
+     * Chronomètre du calcul complet d'un ciel (voir Metrics).
+     */
+    static final Timer COMPUTE_TIMER = Metrics.timer("sky.compute");
+
+    private final StarCatalogue catalogue;
+    private final EphemerisCache ephemerides;
+    private final Executor executor;
+    private final AtomicReference<Request> pending;
+    private final SimpleObjectProperty<ObservedSky> observedSky;
+    private final SimpleLongProperty droppedRequests;
+    private final SimpleLongProperty computeNanos;
+    private volatile Request lastRequest;
+
+    // Utilisés uniquement par le fil de calcul (et par le constructeur, avant son démarrage).
+    private HorizontalSky lastHorizontalSky;
+    private long lastWhen;
+
+    /**
+     * Construit un calculateur de ciel et calcule immédiatement le premier ciel,
+     * sur le fil appelant, afin qu'un ciel soit toujours disponible.
+     *
+     * @param catalogue catalogue contenant les étoiles et les astérismes.
+     * @param when instant d'observation initial (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param where position d'observation initiale.
+     * @param projection projection stéréographique initiale.
+     * @param limitingMagnitude magnitude limite initiale des étoiles projetées.
+     * @param viewRadius rayon angulaire initial du cône de vue (Unité : radians).
+     * @param cullBelowHorizon vrai si les régions du ciel sous l'horizon sont initialement ignorées.
+     */
+    public ObservedSkyWorker(StarCatalogue catalogue, long when, GeographicCoordinates where,
+                             StereographicProjection projection, double limitingMagnitude,
+                             double viewRadius, boolean cullBelowHorizon) {
+        this.catalogue = catalogue;
+        ephemerides = new EphemerisCache();
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "rigel-observed-sky");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pending = new AtomicReference<>();
+        droppedRequests = new SimpleLongProperty(0);
+        lastRequest = new Request(when, where, projection, limitingMagnitude, viewRadius, cullBelowHorizon);
+        long start = System.nanoTime();
+        observedSky = new SimpleObjectProperty<>(compute(lastRequest));
+        computeNanos = new SimpleLongProperty(System.nanoTime() - start);
+
+        // Le ciel est recalculé chaque fois qu'une tuile d'étoiles faibles a été chargée.
+        catalogue.tiledStars().ifPresent(tiles -> tiles.addLoadListener(this::requestAgain));
+    }
+
+    /**
+     * Demande le calcul du ciel pour l'instant, le lieu, la projection, la magnitude
+     * limite et le cône de vue donnés. Doit être appelée depuis le fil JavaFX.
+     *
+     * @param when instant d'observation (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param where position d'observation.
+     * @param projection projection stéréographique à utiliser.
+     * @param limitingMagnitude magnitude limite des étoiles projetées.
+     * @param viewRadius rayon angulaire du cône de vue (Unité : radians).
+     * @param cullBelowHorizon vrai si les régions du ciel sous l'horizon sont ignorées.
+     */
+    public void request(long when, GeographicCoordinates where, StereographicProjection projection,
+                        double limitingMagnitude, double viewRadius, boolean cullBelowHorizon) {
+        Request request = new Request(when, where, projection, limitingMagnitude, viewRadius, cullBelowHorizon);
+        lastRequest = request;
+        if(pending.getAndSet(request) != null)
+            droppedRequests.set(droppedRequests.get() + 1);
+        else
+            executor.execute(this::computePending);
+    }
+
+    /**
+     * Demande à nouveau le calcul de la dernière demande, si aucune n'est en attente.
+     * Peut être appelée depuis n'importe quel fil.
+     */
+    private void requestAgain() {
+        if(pending.compareAndSet(null, lastRequest))
+            executor.execute(this::computePending);
+    }
+
+    /**
+     * Calcule la demande la plus récente et publie le ciel obtenu, avec la durée de
+     * son calcul, sur le fil JavaFX.
+     */
+    private void computePending() {
+        Request request = pending.getAndSet(null);
+        if(request == null)
+            return;
+
+        long start = System.nanoTime();
+        ObservedSky sky = compute(request);
+        long nanos = System.nanoTime() - start;
+        Platform.runLater(() -> {
+            computeNanos.set(nanos);
+            observedSky.set(sky);
+        });
+    }
+
+    /**
+     * Calcule le ciel observé d'une demande. Le ciel en coordonnées horizontales
+     * précédent est réutilisé tel quel si seuls la projection, la magnitude
+     * limite ou le cône de vue ont changé, et sert
+     * de référence si seul l'instant a changé. L'index des positions des étoiles,
+     * utilisé pour trouver l'objet sous la souris, est construit ici plutôt que par le
+     * fil JavaFX à la première recherche.
+     *
+     * @param request demande à calculer.
+     * @return le ciel observé correspondant.
+     */
+    private ObservedSky compute(Request request) {
+        long start = System.nanoTime();
+        ObservedSkyPhaseEvent event = new ObservedSkyPhaseEvent(COMPUTE_TIMER.name());
+
+        if(lastHorizontalSky == null)
+            lastHorizontalSky = new HorizontalSky(request.when, request.where, catalogue, ephemerides);
+        else if(request.when != lastWhen || !isSameLocation(request.where))
+            lastHorizontalSky = lastHorizontalSky.at(request.when, request.where);
+        lastWhen = request.when;
+
+        ObservedSky sky = new ObservedSky(lastHorizontalSky, request.projection, request.limitingMagnitude,
+                request.viewRadius, request.cullBelowHorizon);
+        sky.starsPositionIndex();
+        COMPUTE_TIMER.commit(event, start);
+        return sky;
+    }
+
+    /**
+     * Retourne vrai si et seulement si le lieu donné est celui du dernier ciel calculé.
+     *
+     * @param where position d'observation.
+     * @return vrai si le lieu n'a pas changé.
+     */
+    private boolean isSameLocation(GeographicCoordinates where) {
+        GeographicCoordinates lastWhere = lastHorizontalSky.where();
+        return where.lon() == lastWhere.lon() && where.lat() == lastWhere.lat();
+    }
+
+    /**
+     * Retourne la propriété non modifiable de l'extérieur contenant le dernier
+     * ciel observé calculé. Elle n'est modifiée que sur le fil JavaFX.
+     *
+     * @return la propriété contenant le dernier ciel observé.
+     */
+    public ReadOnlyObjectProperty<ObservedSky> observedSkyProperty() {
+        return observedSky;
+    }
+
+    /**
+     * Retourne la propriété non modifiable de l'extérieur contenant le nombre de
+     * demandes abandonnées parce qu'une demande plus récente les a remplacées
+     * avant leur calcul.
+     *
+     * @return la propriété contenant le nombre de demandes abandonnées.
+     */
+    public ReadOnlyLongProperty droppedRequestsProperty() {
+        return droppedRequests;
+    }
+
+    /**
+     * Retourne la propriété non modifiable de l'extérieur contenant la durée du calcul
+     * du dernier ciel observé. Elle est modifiée, sur le fil JavaFX, juste avant le ciel.
+     *
+     * @return la propriété contenant la durée du calcul du dernier ciel (Unité : nano-secondes).
+     */
+    public ReadOnlyLongProperty computeNanosProperty() {
+        return computeNanos;
+    }
+
+    /**
+     * Demande de calcul d'un ciel observé.
+     */
+    private static final class Request {
+
+        private final long when;
+        private final GeographicCoordinates where;
+        private final StereographicProjection projection;
+        private final double limitingMagnitude, viewRadius;
+        private final boolean cullBelowHorizon;
+
+        private Request(long when, GeographicCoordinates where, StereographicProjection projection,
+                        double limitingMagnitude, double viewRadius, boolean cullBelowHorizon) {
+            this.when = when;
+            this.where = where;
+            this.projection = projection;
+            this.limitingMagnitude = limitingMagnitude;
+            this.viewRadius = viewRadius;
+            this.cullBelowHorizon = cullBelowHorizon;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.astronomy.Constellation;
+import javafx.geometry.Point2D;
+import javafx.scene.paint.Color;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.lang.Math.round;
+
+/**
+ * Surface de dessin matricielle en Java pur, qui dessine dans une BufferedImage dont
+ * les pixels ARGB prémultipliés sont accessibles directement. Elle n'utilise pas la
+ * boîte à outils JavaFX et peut donc servir sur un serveur sans affichage (avec
+ * java.awt.headless=true). Une surface ne doit être utilisée que par un fil à la fois.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class RasterSkyGraphics implements SkyGraphics {
+
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final Graphics2D graphics;
+    private final Path2D.Double path;
+    private final Map<String, BufferedImage> constellationImages;
+
+    /**
+     * Construit une surface transparente de la taille donnée.
+     *
+     * @param width largeur de la surface (Unité : pixels).
+     * @param height hauteur de la surface (Unité : pixels).
+     * @throws IllegalArgumentException si la largeur ou la hauteur n'est pas strictement positive.
+     */
+    public RasterSkyGraphics(int width, int height) {
+        Preconditions.checkArgument(width > 0 && height > 0);
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+        path = new Path2D.Double();
+        constellationImages = new HashMap<>();
+    }
+
+    /**
+     * Retourne l'image dans laquelle la surface dessine.
+     *
+     * @return l'image de la surface, au format TYPE_INT_ARGB_PRE.
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Retourne les pixels ARGB prémultipliés de l'image, ligne par ligne. Le tableau est
+     * celui de l'image : il reflète tout dessin ultérieur.
+     *
+     * @return les pixels de l'image.
+     */
+    public int[] pixels() {
+        return pixels;
+    }
+
+    @Override
+    public double width() {
+        return image.getWidth();
+    }
+
+    @Override
+    public double height() {
+        return image.getHeight();
+    }
+
+    @Override
+    public void clear(Color color) {
+        Arrays.fill(pixels, argbPremultiplied(color));
+    }
+
+    @Override
+    public void fillCircle(double x, double y, double diameter, Color color) {
+        double radius = diameter / 2.0;
+        graphics.setColor(awtColor(color));
+        graphics.fill(new Ellipse2D.Double(x - radius, y - radius, diameter, diameter));
+    }
+
+    @Override
+    public void strokeCircle(double x, double y, double diameter, double lineWidth, Color color) {
+        double radius = diameter / 2.0;
+        graphics.setColor(awtColor(color));
+        graphics.setStroke(new BasicStroke((float) lineWidth));
+        graphics.draw(new Ellipse2D.Double(x - radius, y - radius, diameter, diameter));
+    }
+
+    @Override
+    public void beginPath() {
+        path.reset();
+    }
+
+    @Override
+    public void moveTo(double x, double y) {
+        path.moveTo(x, y);
+    }
+
+    @Override
+    public void lineTo(double x, double y) {
+        // Comme JavaFX, un segment sans point de départ part de son extrémité.
+        if(path.getCurrentPoint() == null)
+            path.moveTo(x, y);
+        else
+            path.lineTo(x, y);
+    }
+
+    @Override
+    public void strokePath(double lineWidth, Color color) {
+        graphics.setColor(awtColor(color));
+        graphics.setStroke(new BasicStroke((float) lineWidth));
+        graphics.draw(path);
+    }
+
+    @Override
+    public void fillText(String text, double x, double y, Color color) {
+        FontMetrics metrics = graphics.getFontMetrics();
+        graphics.setColor(awtColor(color));
+        graphics.drawString(text, (float) (x - metrics.stringWidth(text) / 2.0), (float) (y + metrics.getAscent()));
+    }
+
+    @Override
+    public void drawConstellation(Constellation constellation, Point2D point1, Point2D point2) {
+        BufferedImage constellationImage = constellationImages.computeIfAbsent(
+                constellation.getImageName(), RasterSkyGraphics::readImage);
+
+        double width = ConstellationDrawing.width(constellation, point1, point2);
+        double height = constellationImage.getHeight() * width / constellationImage.getWidth();
+
+        AffineTransform transform = AffineTransform.getRotateInstance(
+                Math.toRadians(ConstellationDrawing.angle(constellation, point1, point2)),
+                point1.getX(), point1.getY());
+        transform.translate(point1.getX(), point1.getY());
+        transform.scale(width / constellationImage.getWidth(), height / constellationImage.getHeight());
+        graphics.drawImage(constellationImage, transform, null);
+    }
+
+    @Override
+    public void drawPixels(int[] layer, int width, int height) {
+        int w = Math.min(width, image.getWidth());
+        int h = Math.min(height, image.getHeight());
+
+        for(int y = 0; y < h; ++y) {
+            int layerRow = y * width, row = y * image.getWidth();
+            for(int x = 0; x < w; ++x) {
+                int src = layer[layerRow + x];
+                int alpha = src >>> 24;
+                if(alpha == 0)
+                    continue;
+                if(alpha == 255) {
+                    pixels[row + x] = src;
+                    continue;
+                }
+
+                // Composition « par-dessus » de pixels prémultipliés.
+                int dst = pixels[row + x];
+                int inverse = 255 - alpha;
+                int a = alpha + ((dst >>> 24) * inverse + 127) / 255;
+                int r = ((src >> 16) & 0xFF) + (((dst >> 16) & 0xFF) * inverse + 127) / 255;
+                int g = ((src >> 8) & 0xFF) + (((dst >> 8) & 0xFF) * inverse + 127) / 255;
+                int b = (src & 0xFF) + ((dst & 0xFF) * inverse + 127) / 255;
+                pixels[row + x] = (a << 24) | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    /**
+     * Retourne la couleur AWT correspondant à la couleur JavaFX donnée.
+     *
+     * @param color couleur JavaFX.
+     * @return la couleur AWT correspondante.
+     */
+    private static java.awt.Color awtColor(Color color) {
+        return new java.awt.Color((float) color.getRed(), (float) color.getGreen(),
+                (float) color.getBlue(), (float) color.getOpacity());
+    }
+
+    /**
+     * Retourne la couleur donnée sous forme ARGB prémultipliée.
+     *
+     * @param color couleur.
+     * @return la couleur sous forme ARGB prémultipliée.
+     */
+    private static int argbPremultiplied(Color color) {
+        double opacity = color.getOpacity();
+        return (int) round(opacity * 255) << 24
+                | (int) round(color.getRed() * opacity * 255) << 16
+                | (int) round(color.getGreen() * opacity * 255) << 8
+                | (int) round(color.getBlue() * opacity * 255);
+    }
+
+    /**
+     * Lit l'image de la ressource donnée.
+     *
+     * @param name nom de la ressource.
+     * @return l'image lue.
+     * @throws UncheckedIOException en cas d'erreur d'entrée/sortie.
+     */
+    private static BufferedImage readImage(String name) {
+        try (InputStream stream = Objects.requireNonNull(RasterSkyGraphics.class.getResourceAsStream(name))) {
+            return ImageIO.read(stream);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ch.epfl.rigel.gui;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.SimpleLongProperty;
+
+/**
+ * Planificateur de redessins : les demandes marquent le dessin comme invalide,
+ * et il est refait au plus une fois par pulsation JavaFX. Le minuteur n'est actif
+ * que lorsqu'un redessin est en attente.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class RedrawScheduler extends AnimationTimer {
+
+    private final Runnable redraw;
+    private final SimpleLongProperty redraws;
+    private final SimpleLongProperty coalescedRedraws;
+    private boolean dirty;
+
+    /**
+     * Construit un planificateur de redessins.
+     *
+     * @param redraw action qui redessine, exécutée sur le fil JavaFX.
+     */
+    public RedrawScheduler(Runnable redraw) {
+        this.redraw = redraw;
+        redraws = new SimpleLongProperty(0);
+        coalescedRedraws = new SimpleLongProperty(0);
+        dirty = false;
+    }
+
+    /**
+     * Demande un redessin lors de la prochaine pulsation. Si un redessin est déjà
+     * en attente, la demande est fusionnée avec lui.
+     */
+    public void requestRedraw() {
+        if(dirty) {
+            coalescedRedraws.set(coalescedRedraws.get() + 1);
+        } else {
+            dirty = true;
+            start();
+        }
+    }
+
+    @Override
+    public void handle(long now) {
+        stop();
+        dirty = false;
+        redraw.run();
+        redraws.set(redraws.get() + 1);
+    }
+
+    /**
+     * Retourne la propriété non modifiable de l'extérieur contenant le nombre de
+     * redessins effectués.
+     *
+     * @return la propriété contenant le nombre de redessins effectués.
+     */
+    public ReadOnlyLongProperty redrawsProperty() {
+        return redraws;
+    }
+
+    /**
+     * Retourne la propriété non modifiable de l'extérieur contenant le nombre de
+     * demandes de redessin fusionnées avec un redessin déjà en attente.
+     *
+     * @return la propriété contenant le nombre de redessins fusionnés.
+     */
+    public ReadOnlyLongProperty coalescedRedrawsProperty() {
+        return coalescedRedraws;
+    }
+}
@@ -5,12 +5,18 @@ import static ch.epfl.rigel.gui.Main.CANVAS_WIDTH;
 import static ch.epfl.rigel.gui.NamedTimeAccelerator.DAY;
 import static ch.epfl.rigel.gui.NamedTimeAccelerator.SIDEREAL_DAY;
 import static java.lang.Math.abs;
-import static java.lang.Math.tan;
 
 import ch.epfl.rigel.astronomy.*;
 import ch.epfl.rigel.coordinates.*;
+import ch.epfl.rigel.gui.FrameBudget.Level;
 import ch.epfl.rigel.math.ClosedInterval;
 import ch.epfl.rigel.math.RightOpenInterval;
+import ch.epfl.rigel.metrics.FrameEvent;
+import ch.epfl.rigel.metrics.Metrics;
+import ch.epfl.rigel.metrics.RedrawRequestEvent;
+import ch.epfl.rigel.metrics.SkyRequestEvent;
+import ch.epfl.rigel.metrics.Timer;
+import javafx.animation.PauseTransition;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
 import javafx.beans.binding.DoubleBinding;
@@ -18,7 +24,9 @@ import javafx.beans.binding.ObjectBinding;
 import javafx.beans.property.*;
 import javafx.geometry.Point2D;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.image.Image;
 import javafx.scene.transform.Transform;
+import javafx.util.Duration;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -39,7 +47,10 @@ public class SkyCanvasManager {
     private final static int DEFAULT_EXPANSION_FACTOR = 1300;
     private final static int LON_STEP_DISPLACEMENT = 10;
     private final static int LAT_STEP_DISPLACEMENT = 5;
-    private final static int MAX_DISTANCE = 10;
+    final static int MAX_DISTANCE = 10;
+    private final static Timer FRAME_TIMER = Metrics.timer("frame");
+    private final static double HISTOGRAM_MARGIN = 100;
+    private final static double IDLE_MILLIS = 500;
 
     private final DoubleBinding mouseAzDeg;
     private final DoubleBinding mouseAltDeg;
@@ -47,7 +58,10 @@ public class SkyCanvasManager {
 
     private final ObjectBinding<StereographicProjection> projection;
     private final ObjectBinding<Transform> planeToCanvas;
-    private final ObjectBinding<ObservedSky> observedSky;
+    private final DoubleBinding limitingMagnitude;
+    private final DoubleBinding viewRadius;
+    private final ObservedSkyWorker observedSkyWorker;
+    private final ReadOnlyObjectProperty<ObservedSky> observedSky;
     private final ObjectProperty<CartesianCoordinates> mousePosition;
     private final ObjectBinding<Point2D> mousePointTransform;
     private final ObjectBinding<HorizontalCoordinates> mouseHorizontalPosition;
@@ -56,10 +70,18 @@ public class SkyCanvasManager {
 
     private final Canvas canvas;
     private final SkyCanvasPainter painter;
+    private final SkyLayer constellationsLayer;
+    private final SkyLayer asterismsLayer;
+    private final SkyLayer starsLayer;
+    private final SkyLayer horizonLayer;
+    private final StarRasterizer starRasterizer;
     private final ViewingParametersBean viewingParametersBean;
     private final DateTimeBean dateTimeBean;
     private final ObserverLocationBean observerLocationBean;
     private final TimeAnimator timeAnimator;
+    private final RedrawScheduler redrawScheduler;
+    private final FrameBudget frameBudget;
+    private final PauseTransition idleTimer;
 
     private final DoubleProperty horFactor;
     private final DoubleProperty verFactor;
@@ -72,7 +94,12 @@ public class SkyCanvasManager {
     private final BooleanProperty enDrawHorizon;
     private final BooleanProperty enDrawAsterisms;
     private final BooleanProperty enDrawConstellations;
+    private final BooleanProperty rasterStars;
+    private final BooleanProperty cullBelowHorizon;
     private final BooleanProperty isTrackingCelestial;
+    private final BooleanProperty frameTimeOverlay;
+    private final BooleanProperty adaptiveDetail;
+    private final DoubleProperty magnitudeOffset;
 
     private String nameObjectTracked;
     private final List<HorizontalCoordinates> horCoords;
@@ -92,6 +119,14 @@ public class SkyCanvasManager {
         viewingParametersBean = viewParaBean;
         canvas = new Canvas(CANVAS_WIDTH, CANVAS_HEIGHT);
         painter = new SkyCanvasPainter(canvas);
+        constellationsLayer = new SkyLayer(canvas, painter);
+        asterismsLayer = new SkyLayer(canvas, painter);
+        starsLayer = new SkyLayer(canvas, painter);
+        horizonLayer = new SkyLayer(canvas, painter);
+        starRasterizer = new StarRasterizer();
+        redrawScheduler = new RedrawScheduler(this::drawSky);
+        frameBudget = new FrameBudget(FrameBudget.DEFAULT_TARGET_MILLIS);
+        idleTimer = new PauseTransition(Duration.millis(IDLE_MILLIS));
         this.observerLocationBean = observerLocationBean;
         this.dateTimeBean = dateTimeBean;
         this.timeAnimator = timeAnimator;
@@ -110,36 +145,56 @@ public class SkyCanvasManager {
         enDrawHorizon = new SimpleBooleanProperty(true);
         enDrawAsterisms = new SimpleBooleanProperty(true);
         enDrawConstellations = new SimpleBooleanProperty(true);
+        rasterStars = new SimpleBooleanProperty(true);
+        cullBelowHorizon = new SimpleBooleanProperty(false);
         isTrackingCelestial = new SimpleBooleanProperty(false);
+        frameTimeOverlay = new SimpleBooleanProperty(false);
+        adaptiveDetail = new SimpleBooleanProperty(true);
+        magnitudeOffset = new SimpleDoubleProperty(0);
 
         projection = Bindings.createObjectBinding(
                 () -> new StereographicProjection(viewingParametersBean.getCenter()),
             viewingParametersBean.centerProperty());
 
-        observedSky = Bindings.createObjectBinding(
-                () -> new ObservedSky(dateTimeBean.getZonedDateTime(),
-                        observerLocationBean.getCoordinates(), projection.get(), catalogue),
-            this.dateTimeBean.dateProperty(),
-            this.dateTimeBean.timeProperty(),
-            this.dateTimeBean.zoneProperty(),
-            this.observerLocationBean.coordinatesProperty(),
-            projection);
-
         planeToCanvas = Bindings.createObjectBinding( () -> {
-                double expansionFactor =
-                        canvas.getWidth() / (2 * tan(viewingParametersBean.getFieldOfView() / 4));
+                if(canvas.getWidth() == 0)                      // Évite des erreurs lors
+                    return Transform.affine(DEFAULT_EXPANSION_FACTOR, 0, 0, -DEFAULT_EXPANSION_FACTOR,
+                            0, canvas.getHeight() / 2);         // de l'initialisation
 
-                if(expansionFactor == 0)                        // Évite des erreurs lors
-                    expansionFactor = DEFAULT_EXPANSION_FACTOR; // de l'initialisation
-
-                return Transform.affine(expansionFactor, 0, 0, -expansionFactor,
-                            canvas.getWidth() / 2, canvas.getHeight() / 2);
+                return SkyCanvasPainter.planeToCanvas(canvas.getWidth(), canvas.getHeight(),
+                        viewingParametersBean.getFieldOfView());
                 },
             viewingParametersBean.fieldOfViewDegProperty(),
             canvas.widthProperty(),
             canvas.heightProperty(),
             projection);
 
+        // Les étoiles dessinées sur moins d'un demi-pixel ne sont pas projetées.
+        // La limite est arrondie au dixième supérieur pour ne pas recalculer le ciel à chaque pixel.
+        // Elle est abaissée lorsque le budget des images réduit le détail ; elle est d'abord
+        // bornée par la magnitude de l'étoile la plus faible du catalogue (elle peut être
+        // infinie), pour que l'abaisser retire toujours des étoiles.
+        double faintestMagnitude = catalogue.faintestMagnitude();
+        limitingMagnitude = Bindings.createDoubleBinding( () -> {
+                double halfDegreeDiameter = planeToCanvas.get()
+                        .deltaTransform(SkyCanvasPainter.halfDegreeSize(projection.get()), 0).magnitude();
+                double limit = Math.ceil(10 * SkyCanvasPainter.limitingMagnitude(halfDegreeDiameter)) / 10;
+                return Math.min(limit, faintestMagnitude) - magnitudeOffset.get();
+                },
+            planeToCanvas,
+            magnitudeOffset);
+
+        // Rayon angulaire du cône de vue, du centre aux coins du canvas.
+        viewRadius = Bindings.createDoubleBinding(
+                () -> SkyCanvasPainter.viewRadius(canvas.getWidth(), canvas.getHeight(), planeToCanvas.get()),
+            planeToCanvas);
+
+        // Le ciel est calculé sur un fil dédié ; seul le dernier ciel terminé est dessiné.
+        observedSkyWorker = new ObservedSkyWorker(catalogue, dateTimeBean.getEpochMillis(),
+                observerLocationBean.getCoordinates(), projection.get(), limitingMagnitude.get(),
+                viewRadius.get(), cullBelowHorizon.get());
+        observedSky = observedSkyWorker.observedSkyProperty();
+
         mousePosition = new SimpleObjectProperty<>(DEFAULT_MOUSE_POSITION);
 
         mousePointTransform = Bindings.createObjectBinding( () -> {
@@ -236,31 +291,62 @@ public class SkyCanvasManager {
             e.consume();
         });
 
-        canvas.widthProperty().addListener(e -> drawSky());
-        canvas.heightProperty().addListener(e -> drawSky());
+        canvas.widthProperty().addListener(e -> requestRedraw("canvasWidth"));
+        canvas.heightProperty().addListener(e -> requestRedraw("canvasHeight"));
     }
 
     /**
      * Installe les autres listeners utiles.
      */
     private void othersListeners() {
-        viewingParametersBean.centerProperty().addListener(e -> drawSky());
-        viewingParametersBean.fieldOfViewDegProperty().addListener(e -> drawSky());
-
-        dateTimeBean.dateProperty().addListener(e -> drawSky());
-        dateTimeBean.timeProperty().addListener(e -> drawSky());
-        dateTimeBean.zoneProperty().addListener(e -> drawSky());
+        projection.addListener(e -> requestObservedSky("projection"));
+        dateTimeBean.epochMillisProperty().addListener(e -> requestObservedSky("time"));
+        observerLocationBean.coordinatesProperty().addListener(e -> requestObservedSky("observer"));
+        limitingMagnitude.addListener(e -> requestObservedSky("limitingMagnitude"));
+        viewRadius.addListener(e -> requestObservedSky("viewRadius"));
+        cullBelowHorizon.addListener(e -> requestObservedSky("cullBelowHorizon"));
+
+        observedSky.addListener(e -> requestRedraw("observedSky"));
+        viewingParametersBean.fieldOfViewDegProperty().addListener(e -> requestRedraw("fieldOfView"));
+
+        enDrawStars.addListener(e -> requestRedraw("enDrawStars"));
+        enDrawPlanets.addListener(e -> requestRedraw("enDrawPlanets"));
+        enDrawSun.addListener(e -> requestRedraw("enDrawSun"));
+        enDrawMoon.addListener(e -> requestRedraw("enDrawMoon"));
+        enDrawHorizon.addListener(e -> requestRedraw("enDrawHorizon"));
+        enDrawAsterisms.addListener(e -> requestRedraw("enDrawAsterisms"));
+        enDrawConstellations.addListener(e -> requestRedraw("enDrawConstellations"));
+        rasterStars.addListener(e -> requestRedraw("rasterStars"));
+        painter.dayNightCycleProperty().addListener(e -> requestRedraw("dayNightCycle"));
+        frameTimeOverlay.addListener(e -> requestRedraw("frameTimeOverlay"));
+
+        // Le détail complet est rétabli lorsque la vue ne bouge plus, ou si le budget est désactivé.
+        idleTimer.setOnFinished(e -> restoreFullDetail("idle"));
+        adaptiveDetail.addListener(e -> restoreFullDetail("adaptiveDetail"));
+    }
 
-        observerLocationBean.coordinatesProperty().addListener(e -> drawSky());
+    /**
+     * Rétablit le détail complet du ciel, s'il était réduit, et redessine le ciel.
+     *
+     * @param trigger nom de ce qui a déclenché le rétablissement.
+     */
+    private void restoreFullDetail(String trigger) {
+        if(frameBudget.restore()) {
+            magnitudeOffset.set(0);
+            requestRedraw(trigger);
+        }
+    }
 
-        enDrawStars.addListener(e -> drawSky());
-        enDrawPlanets.addListener(e -> drawSky());
-        enDrawSun.addListener(e -> drawSky());
-        enDrawMoon.addListener(e -> drawSky());
-        enDrawHorizon.addListener(e -> drawSky());
-        enDrawAsterisms.addListener(e -> drawSky());
-        enDrawConstellations.addListener(e -> drawSky());
-        painter.dayNightCycleProperty().addListener(e -> drawSky());
+    /**
+     * Compte une demande de redessin déclenchée par la propriété donnée (compteur
+     * redraw.<propriété>, voir Metrics), puis la transmet au planificateur.
+     *
+     * @param trigger nom de la propriété qui a changé.
+     */
+    private void requestRedraw(String trigger) {
+        Metrics.counter("redraw." + trigger).increment();
+        new RedrawRequestEvent(trigger).commit();
+        redrawScheduler.requestRedraw();
     }
 
     /**
@@ -309,37 +395,96 @@ public class SkyCanvasManager {
         viewingParametersBean.setCenter(newCoordinates);
     }
 
+    /**
+     * Demande le calcul du ciel observé à l'instant, au lieu, avec la projection, la
+     * magnitude limite et le cône de vue actuels. La demande est comptée comme
+     * déclenchée par la propriété donnée (compteur sky.<propriété>, voir Metrics).
+     *
+     * @param trigger nom de la propriété qui a changé.
+     */
+    private void requestObservedSky(String trigger) {
+        Metrics.counter("sky." + trigger).increment();
+        new SkyRequestEvent(trigger).commit();
+        observedSkyWorker.request(dateTimeBean.getEpochMillis(),
+                observerLocationBean.getCoordinates(), projection.get(), limitingMagnitude.get(),
+                viewRadius.get(), cullBelowHorizon.get());
+    }
+
     /**
      * Nettoie le canvas puis appelle toutes les méthodes pour dessiner tout le ciel.
+     * Le ciel dessiné est le dernier ciel calculé, avec sa propre projection.
+     * Les constellations, les astérismes, les étoiles et l'horizon sont des couches
+     * (voir SkyLayer), mises en cache lorsque le ciel et la vue ne changent pas d'une
+     * image à l'autre.
+     * Si la qualité adaptative est activée, le détail dessiné est celui choisi par le
+     * budget des images (voir FrameBudget), à partir de la plus longue des durées de
+     * cette image et du calcul du ciel dessiné : le ciel étant calculé sur un autre fil,
+     * le plus lent des deux limite le rythme des images.
      */
     private void drawSky() {
-        painter.clear(observedSky.get().sunPosHorizontalCoords());
+        long start = System.nanoTime();
+        FrameEvent event = new FrameEvent();
+
+        ObservedSky sky = observedSky.get();
+        StereographicProjection skyProjection = sky.projection();
+        Transform transform = planeToCanvas.get();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
 
-        if(enDrawConstellations.getValue())
-            painter.drawConstellations(observedSky.get(), planeToCanvas.get());
+        Level level = frameBudget.level();
+
+        painter.clear(sky.sunPosHorizontalCoords());
+
+        if(enDrawConstellations.getValue() && level.drawsConstellationImages())
+            constellationsLayer.draw(p -> p.drawConstellations(sky, transform), sky, transform);
 
         if(enDrawAsterisms.getValue())
-            painter.drawAsterisms(observedSky.get(), planeToCanvas.get());
+            asterismsLayer.draw(p -> p.drawAsterisms(sky, transform, level.asterismTolerance()),
+                    sky, transform, level);
 
         if(isTrackingCelestialProperty().get() && timeAnimatorNotDayOrSideral.get()
                 && timeAnimator.getRunning().get())
-            painter.drawPath(horCoords, projection.get(), planeToCanvas.get());
+            painter.drawPath(horCoords, skyProjection, transform);
         else horCoords.clear();
 
-        if(enDrawStars.getValue())
-            painter.drawStars(observedSky.get(), projection.get(), planeToCanvas.get());
+        if(enDrawStars.getValue() && rasterStars.getValue())
+            drawLayer(starRasterizer.image(sky, transform, width, height));
+        else if(enDrawStars.getValue())
+            starsLayer.draw(p -> p.drawStars(sky, skyProjection, transform), sky, transform);
 
         if(enDrawPlanets.getValue())
-            painter.drawPlanets(observedSky.get(), projection.get(), planeToCanvas.get());
+            painter.drawPlanets(sky, skyProjection, transform);
 
         if(enDrawSun.getValue())
-            painter.drawSun(observedSky.get(), projection.get(), planeToCanvas.get());
+            painter.drawSun(sky, skyProjection, transform);
 
         if(enDrawMoon.getValue())
-            painter.drawMoon(observedSky.get(), projection.get(), planeToCanvas.get());
+            painter.drawMoon(sky, skyProjection, transform);
 
         if(enDrawHorizon.getValue())
-            painter.drawHorizon(projection.get(), planeToCanvas.get());
+            horizonLayer.draw(p -> p.drawHorizon(skyProjection, transform), skyProjection, transform);
+        FRAME_TIMER.commit(event, start);
+
+        long frameNanos = Math.max(System.nanoTime() - start, observedSkyWorker.computeNanosProperty().get());
+        if(adaptiveDetail.get() && frameBudget.record(frameNanos))
+            magnitudeOffset.set(frameBudget.level().magnitudeOffset());
+        if(frameBudget.level() != Level.FULL)
+            idleTimer.playFromStart();
+
+        // Les histogrammes ne comptent pas dans la durée de l'image.
+        if(frameTimeOverlay.get()) {
+            painter.drawHistogram(FRAME_TIMER, HISTOGRAM_MARGIN, height - HISTOGRAM_MARGIN / 4);
+            painter.drawHistogram(ObservedSkyWorker.COMPUTE_TIMER, width / 2, height - HISTOGRAM_MARGIN / 4);
+        }
+    }
+
+    /**
+     * Dessine une image de la taille du canvas sur tout le canvas.
+     *
+     * @param layer image de la couche, de la taille du canvas.
+     */
+    private void drawLayer(Image layer) {
+        canvas.getGraphicsContext2D().drawImage(layer, 0, 0);
     }
 
     /**
@@ -383,6 +528,26 @@ public class SkyCanvasManager {
         horCoords.clear();
     }
 
+    /**
+     * Retourne la propriété non modifiable contenant le nombre de demandes de
+     * redessin du ciel fusionnées avec un redessin déjà en attente.
+     *
+     * @return la propriété contenant le nombre de redessins fusionnés.
+     */
+    public ReadOnlyLongProperty coalescedRedrawsProperty() {
+        return redrawScheduler.coalescedRedrawsProperty();
+    }
+
+    /**
+     * Retourne la propriété non modifiable contenant le nombre de demandes de
+     * calcul du ciel abandonnées au profit d'une demande plus récente.
+     *
+     * @return la propriété contenant le nombre de demandes abandonnées.
+     */
+    public ReadOnlyLongProperty droppedSkyRequestsProperty() {
+        return observedSkyWorker.droppedRequestsProperty();
+    }
+
     /**
      * Retourne un accès à la propriété mouseAzDeg qui est l'azimut de la
      * position du curseur de la souris.
@@ -552,6 +717,26 @@ public class SkyCanvasManager {
         return enDrawConstellations;
     }
 
+    /**
+     * Retourne un accès à la propriété rasterStars qui définit si les étoiles
+     * sont dessinées d'un bloc dans une image, ou une à une sur le canvas.
+     *
+     * @return un accès à la propriété rasterStars.
+     */
+    public BooleanProperty rasterStarsProperty() {
+        return rasterStars;
+    }
+
+    /**
+     * Retourne un accès à la propriété cullBelowHorizon qui définit si les étoiles
+     * des régions du ciel entièrement sous l'horizon sont ignorées.
+     *
+     * @return un accès à la propriété cullBelowHorizon.
+     */
+    public BooleanProperty cullBelowHorizonProperty() {
+        return cullBelowHorizon;
+    }
+
     /**
      * Retourne un accès à la propriété dayNightCycle qui définit si on doit
      * dessiner le cycle jour/nuit.
@@ -572,4 +757,26 @@ public class SkyCanvasManager {
         return isTrackingCelestial;
     }
 
+    /**
+     * Retourne un accès à la propriété frameTimeOverlay qui définit si on doit
+     * dessiner par-dessus le ciel les histogrammes des durées récentes des images
+     * et des calculs du ciel.
+     *
+     * @return un accès à la propriété frameTimeOverlay.
+     */
+    public BooleanProperty frameTimeOverlayProperty() {
+        return frameTimeOverlay;
+    }
+
+    /**
+     * Retourne un accès à la propriété adaptiveDetail qui définit si on doit réduire
+     * le détail du ciel lorsque les images dépassent leur budget de durée (voir
+     * FrameBudget).
+     *
+     * @return un accès à la propriété adaptiveDetail.
+     */
+    public BooleanProperty adaptiveDetailProperty() {
+        return adaptiveDetail;
+    }
+
 }
@@ -5,24 +5,28 @@ import ch.epfl.rigel.coordinates.CartesianCoordinates;
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
 import ch.epfl.rigel.coordinates.StereographicProjection;
 import ch.epfl.rigel.math.ClosedInterval;
+import ch.epfl.rigel.metrics.Metrics;
+import ch.epfl.rigel.metrics.PaintLayerEvent;
+import ch.epfl.rigel.metrics.Timer;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
-import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
-import javafx.geometry.VPos;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import javafx.scene.text.TextAlignment;
 import javafx.scene.transform.Transform;
 
 import java.util.List;
+import java.util.Locale;
 
 import static ch.epfl.rigel.math.Angle.ofDeg;
+import static java.lang.Math.atan;
+import static java.lang.Math.hypot;
+import static java.lang.Math.tan;
 import static javafx.scene.paint.Color.*;
 
 /**
- * Peintre de ciel.
+ * Peintre de ciel. Il dessine sur une surface (SkyGraphics), qui peut être un Canvas
+ * JavaFX ou une image en mémoire (RasterSkyGraphics) pour dessiner sans affichage.
  *
  * @author Jean-Baptiste Moreau (296189)
  * @author Ali Raed Ben Mustapha (300392)
@@ -31,6 +35,7 @@ public class SkyCanvasPainter {
 
     private static final ClosedInterval MAGNITUDE_INTERVAL = ClosedInterval.of(-2, 5);
     private static final double HALF_DEGREE = 0.5;
+    private static final double MIN_STAR_DIAMETER = 0.5;
     private static final double OPACITY_SUN_HALO = 0.25;
     private static final int DEFAULT_VALUE = 1;
     private static final int TAU_DEG = 360;
@@ -42,21 +47,46 @@ public class SkyCanvasPainter {
     private static final HorizontalCoordinates CENTER = HorizontalCoordinates.of(0, 0);
     private static final ClosedInterval BLUE_COLOR_INTERVAL = ClosedInterval.of(0, 1);
     private static final ClosedInterval GREEN_COLOR_INTERVAL = ClosedInterval.of(0, 0.75);
-
-    private final Canvas canvas;
-    private final GraphicsContext ctx;
+    private static final double LINE_WIDTH = 1;
+    private static final double HORIZON_LINE_WIDTH = 2;
+    private static final double VIEW_RADIUS_MARGIN_DEG = 1;
+    private static final int HISTOGRAM_BUCKETS = 20;
+    private static final double HISTOGRAM_BUCKET_MILLIS = 2;
+    private static final double HISTOGRAM_BAR_WIDTH = 6;
+    private static final double HISTOGRAM_HEIGHT = 50;
+    private static final double FRAME_BUDGET_MILLIS = 1000.0 / 60;
+
+    // Chronomètres des couches (voir Metrics).
+    private static final Timer PIXELS_TIMER = Metrics.timer("paint.pixels");
+    private static final Timer CONSTELLATIONS_TIMER = Metrics.timer("paint.constellations");
+    private static final Timer ASTERISMS_TIMER = Metrics.timer("paint.asterisms");
+    private static final Timer PATH_TIMER = Metrics.timer("paint.path");
+    private static final Timer STARS_TIMER = Metrics.timer("paint.stars");
+    private static final Timer PLANETS_TIMER = Metrics.timer("paint.planets");
+    private static final Timer SUN_TIMER = Metrics.timer("paint.sun");
+    private static final Timer MOON_TIMER = Metrics.timer("paint.moon");
+    private static final Timer HORIZON_TIMER = Metrics.timer("paint.horizon");
+
+    private final SkyGraphics graphics;
     private final BooleanProperty dayNightCycle;
 
     /**
-     * Constructeur d'un nouveau peintre de ciel.
+     * Constructeur d'un nouveau peintre de ciel, qui dessine sur un canvas JavaFX.
      *
      * @param canvas dessin.
      */
     public SkyCanvasPainter(Canvas canvas){
-        this.canvas = canvas;
-        ctx = canvas.getGraphicsContext2D();
-        dayNightCycle = new SimpleBooleanProperty(false);
+        this(new FxSkyGraphics(canvas));
+    }
 
+    /**
+     * Constructeur d'un nouveau peintre de ciel, qui dessine sur la surface donnée.
+     *
+     * @param graphics surface de dessin.
+     */
+    public SkyCanvasPainter(SkyGraphics graphics) {
+        this.graphics = graphics;
+        dayNightCycle = new SimpleBooleanProperty(false);
     }
 
     /**
@@ -65,16 +95,13 @@ public class SkyCanvasPainter {
      * @param sunPos coordonnées horizontales du Soleil.
      */
     public void clear(HorizontalCoordinates sunPos) {
-        ctx.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-
         Color color;
         if(dayNightCycle.getValue())
             color = colorBasedOnSunPosition(sunPos);
         else
             color = BLACK;
 
-        ctx.setFill(color);
-        ctx.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        graphics.clear(color);
     }
 
     /**
@@ -92,6 +119,21 @@ public class SkyCanvasPainter {
         return Color.color(0, colorGreen, colorBlue);
     }
 
+    /**
+     * Compose sur tout le canvas une couche donnée sous forme de pixels ARGB prémultipliés.
+     *
+     * @param pixels pixels de la couche, ligne par ligne.
+     * @param width largeur de la couche.
+     * @param height hauteur de la couche.
+     */
+    public void drawPixels(int[] pixels, int width, int height) {
+        long start = System.nanoTime();
+        PaintLayerEvent event = new PaintLayerEvent(PIXELS_TIMER.name());
+
+        graphics.drawPixels(pixels, width, height);
+        PIXELS_TIMER.commit(event, start);
+    }
+
     /**
      * Dessine les constellations sur le canvas.
      *
@@ -99,6 +141,9 @@ public class SkyCanvasPainter {
      * @param transformer transformation entre le repère de la projection et celui du canevas.
      */
     public void drawConstellations(ObservedSky sky, Transform transformer) {
+        long start = System.nanoTime();
+        PaintLayerEvent event = new PaintLayerEvent(CONSTELLATIONS_TIMER.name());
+
         List<Constellation> constellations = sky.constellations();
 
         CartesianCoordinates coords1, coords2;
@@ -112,9 +157,9 @@ public class SkyCanvasPainter {
             point2 = transformer.transform(coords2.x(), coords2.y());
 
             if(!noPointInCanvas(point1, point2))
-                ConstellationDrawing.drawRotatedImage(ctx, constellation, point1, point2);
+                graphics.drawConstellation(constellation, point1, point2);
         }
-
+        CONSTELLATIONS_TIMER.commit(event, start);
     }
 
     /**
@@ -124,30 +169,50 @@ public class SkyCanvasPainter {
      * @param transformer transformation entre le repère de la projection et celui du canevas.
      */
     public void drawAsterisms(ObservedSky sky, Transform transformer) {
-        List<Integer> starsIndexInCatalogue;
-        double[] starsPosition = sky.starsPositions();
+        drawAsterisms(sky, transformer, 0);
+    }
+
+    /**
+     * Dessine les astérismes sur le canvas avec la précision donnée : les étoiles à moins
+     * de tolerance pixels du dernier sommet tracé sont sautées, sauf la dernière étoile
+     * de chaque astérisme.
+     *
+     * @param sky ciel observé à dessiner.
+     * @param transformer transformation entre le repère de la projection et celui du canevas.
+     * @param tolerance distance minimale entre deux sommets tracés (Unité : pixels), 0 pour tout relier.
+     */
+    public void drawAsterisms(ObservedSky sky, Transform transformer, double tolerance) {
+        long start = System.nanoTime();
+        PaintLayerEvent event = new PaintLayerEvent(ASTERISMS_TIMER.name());
+
+        List<Integer> starsIndex;
+        double[] starsPosition = sky.asterismStarsPositions();
         Point2D pos1, pos2;
 
-        ctx.setStroke(BLUE);
-        ctx.beginPath();
+        graphics.beginPath();
 
         for(Asterism asterism : sky.asterisms()) {
-            starsIndexInCatalogue = sky.starsIndex(asterism);
+            starsIndex = sky.asterismStarsIndex(asterism);
+            int size = asterism.stars().size();
 
-            pos2 = position(0, starsIndexInCatalogue, starsPosition, transformer);
-            ctx.moveTo(pos2.getX(), pos2.getY());
+            pos2 = position(0, starsIndex, starsPosition, transformer);
+            graphics.moveTo(pos2.getX(), pos2.getY());
 
-            for(int i = 1; i < asterism.stars().size(); ++i) {
+            for(int i = 1; i < size; ++i) {
+                Point2D pos = position(i, starsIndex, starsPosition, transformer);
+                if(i < size - 1 && pos.distance(pos2) < tolerance)
+                    continue;
                 pos1 = pos2;
-                pos2 = position(i, starsIndexInCatalogue, starsPosition, transformer);
+                pos2 = pos;
 
                 if(noPointInCanvas(pos1, pos2))
-                    ctx.moveTo(pos2.getX(), pos2.getY());
+                    graphics.moveTo(pos2.getX(), pos2.getY());
                 else
-                    ctx.lineTo(pos2.getX(), pos2.getY());
+                    graphics.lineTo(pos2.getX(), pos2.getY());
             }
         }
-        ctx.stroke();
+        graphics.strokePath(LINE_WIDTH, BLUE);
+        ASTERISMS_TIMER.commit(event, start);
     }
 
     /**
@@ -161,8 +226,10 @@ public class SkyCanvasPainter {
      */
     public void drawPath(List<HorizontalCoordinates> horCoords, StereographicProjection projection,
                          Transform transformer) {
-        ctx.setStroke(PURPLE);
-        ctx.beginPath();
+        long start = System.nanoTime();
+        PaintLayerEvent event = new PaintLayerEvent(PATH_TIMER.name());
+
+        graphics.beginPath();
         CartesianCoordinates xyCoords;
         Point2D pos;
         boolean initialPosNotFind = true;
@@ -173,11 +240,12 @@ public class SkyCanvasPainter {
 
             if(initialPosNotFind) {
                 initialPosNotFind = false;
-                ctx.moveTo(pos.getX(), pos.getY());
+                graphics.moveTo(pos.getX(), pos.getY());
             } else
-                ctx.lineTo(pos.getX(), pos.getY());
+                graphics.lineTo(pos.getX(), pos.getY());
         }
-        ctx.stroke();
+        graphics.strokePath(LINE_WIDTH, PURPLE);
+        PATH_TIMER.commit(event, start);
     }
 
     /**
@@ -188,21 +256,37 @@ public class SkyCanvasPainter {
      * @param transformer transformation entre le repère de la projection et celui du canevas.
      */
     public void drawStars(ObservedSky sky, StereographicProjection projection, Transform transformer) {
-        Star star ;
-        double xStar, yStar;
+        long start = System.nanoTime();
+        PaintLayerEvent event = new PaintLayerEvent(STARS_TIMER.name());
+
+        double xStar, yStar, size;
         Color color;
-        List<Star> stars = sky.stars();
+        StarTable stars = sky.starTable();
         double[] starsPositions = sky.starsPositions();
-        
-        for(int i = 0; i < stars.size(); i++)
+        int[] projectedStars = sky.projectedStars();
+
+        // Les étoiles au-delà de la magnitude limite ou hors du cône de vue ne sont pas projetées.
+        for(int k = 0; k < projectedStars.length; k++)
         {
-            star = stars.get(i);
-            xStar = starsPositions[i*2];
-            yStar = starsPositions[i*2+1];
+            int i = projectedStars[k];
+            xStar = starsPositions[k*2];
+            yStar = starsPositions[k*2+1];
 
-            color = BlackBodyColor.colorForTemperature(star.colorTemperature());
-            drawCelestialObject(star, xStar, yStar, color, projection, transformer);
+            color = BlackBodyColor.colorForTemperature(stars.colorTemperature(i));
+            size = sizeBasedOnMagnitude(stars.magnitude(i), projection);
+            drawCelestialObject(xStar, yStar, size, color, transformer);
         }
+
+        // Étoiles faibles chargées depuis le fichier de tuiles du catalogue
+        StarTable faintStars = sky.faintStarTable();
+        double[] faintStarsPositions = sky.faintStarsPositions();
+        for(int i = 0; i < faintStars.size(); i++)
+        {
+            color = BlackBodyColor.colorForTemperature(faintStars.colorTemperature(i));
+            size = sizeBasedOnMagnitude(faintStars.magnitude(i), projection);
+            drawCelestialObject(faintStarsPositions[i*2], faintStarsPositions[i*2+1], size, color, transformer);
+        }
+        STARS_TIMER.commit(event, start);
     }
 
     /**
@@ -213,6 +297,9 @@ public class SkyCanvasPainter {
      * @param transformer transformation entre le repère de la projection et celui du canevas.
      */
     public void drawPlanets(ObservedSky sky, StereographicProjection projection, Transform transformer) {
+        long start = System.nanoTime();
+        PaintLayerEvent event = new PaintLayerEvent(PLANETS_TIMER.name());
+
         Planet planet;
         double xPlanet, yPlanet;
 
@@ -227,6 +314,7 @@ public class SkyCanvasPainter {
 
             drawCelestialObject(planet, xPlanet, yPlanet, LIGHTGREY, projection, transformer);
         }
+        PLANETS_TIMER.commit(event, start);
     }
 
     /**
@@ -237,6 +325,9 @@ public class SkyCanvasPainter {
      * @param transformer transformation entre le repère de la projection et celui du canevas.
      */
     public void drawSun(ObservedSky sky, StereographicProjection projection, Transform transformer) {
+        long start = System.nanoTime();
+        PaintLayerEvent event = new PaintLayerEvent(SUN_TIMER.name());
+
         Sun sun = sky.sun();
         double xSun = sky.sunPositon().x();
         double ySun = sky.sunPositon().y();
@@ -252,6 +343,7 @@ public class SkyCanvasPainter {
         fillCircleWithColor(pos.getX(), pos.getY(), diameter * 2.2, color);
         fillCircleWithColor(pos.getX(), pos.getY(), diameter + 2, YELLOW);
         fillCircleWithColor(pos.getX(), pos.getY(), diameter, WHITE);
+        SUN_TIMER.commit(event, start);
     }
 
     /**
@@ -262,6 +354,9 @@ public class SkyCanvasPainter {
      * @param transformer transformation entre le repère de la projection et celui du canevas.
      */
     public void drawMoon(ObservedSky sky, StereographicProjection projection, Transform transformer) {
+        long start = System.nanoTime();
+        PaintLayerEvent event = new PaintLayerEvent(MOON_TIMER.name());
+
         double xMoon = sky.moonPositon().x();
         double yMoon = sky.moonPositon().y();
 
@@ -269,6 +364,7 @@ public class SkyCanvasPainter {
         double size = projection.applyToAngle(moon.angularSize());
 
         drawCelestialObject(xMoon, yMoon, size, WHITE, transformer);
+        MOON_TIMER.commit(event, start);
     }
 
     /**
@@ -278,6 +374,9 @@ public class SkyCanvasPainter {
      * @param transformer transformation entre le repère de la projection et celui du canevas.
      */
     public void drawHorizon(StereographicProjection projection, Transform transformer) {
+        long start = System.nanoTime();
+        PaintLayerEvent event = new PaintLayerEvent(HORIZON_TIMER.name());
+
         CartesianCoordinates coords = projection.circleCenterForParallel(CENTER);
 
         Point2D pos = transformer.transform(coords.x(), coords.y());
@@ -287,12 +386,7 @@ public class SkyCanvasPainter {
         if(diameter < 0)
             diameter = - diameter;
 
-        ctx.setStroke(Color.RED);
-        ctx.setLineWidth(2);
-        ctx.setTextBaseline(VPos.TOP);
-        ctx.setTextAlign(TextAlignment.CENTER);
-        strokeCircle(pos.getX(), pos.getY(), diameter);
-        ctx.setFill(Color.RED);
+        graphics.strokeCircle(pos.getX(), pos.getY(), diameter, HORIZON_LINE_WIDTH, RED);
 
         HorizontalCoordinates hor;
         for(int lonDeg = 0; lonDeg < TAU_DEG; lonDeg += POLE_POSITION) {
@@ -301,8 +395,9 @@ public class SkyCanvasPainter {
             coords = projection.apply(hor);
 
             pos = transformer.transform(coords.x(), coords.y());
-            ctx.fillText(hor.azOctantName(NORTH, EAST, SOUTH, WEST), pos.getX(), pos.getY());
+            graphics.fillText(hor.azOctantName(NORTH, EAST, SOUTH, WEST), pos.getX(), pos.getY(), RED);
         }
+        HORIZON_TIMER.commit(event, start);
     }
 
     /**
@@ -345,20 +440,7 @@ public class SkyCanvasPainter {
      * @param diameter diamètre du cercle à dessiner.
      */
     private void fillCircleWithColor(double x, double y, double diameter, Color color) {
-        ctx.setFill(color);
-        double radius = diameter / 2.0;
-        ctx.fillOval(x - radius, y - radius, diameter, diameter);
-    }
-    /**
-     * Dessine un rond vide sur le canvas.
-     *
-     * @param x coordonnée x où dessiner le rond.
-     * @param y coordonnée y où dessiner le rond.
-     * @param diameter diamètre du cercle à dessiner.
-     */
-    private void strokeCircle(double x, double y, double diameter) {
-        double radius = diameter / 2.0;
-        ctx.strokeOval(x - radius, y - radius, diameter, diameter);
+        graphics.fillCircle(x, y, diameter, color);
     }
 
     /**
@@ -369,9 +451,79 @@ public class SkyCanvasPainter {
      * @return la taille de l'objet céleste en fonction de sa magnitude.
      */
     private double sizeBasedOnMagnitude(double magnitude, StereographicProjection projection) {
+        return magnitudeFactor(magnitude) * halfDegreeSize(projection);
+    }
+
+    /**
+     * Retourne le facteur de taille d'un objet céleste en fonction de sa magnitude,
+     * relatif à la taille d'un objet de un demi-degré.
+     *
+     * @param magnitude magnitude de l'objet céleste.
+     * @return le facteur de taille de l'objet céleste.
+     */
+    static double magnitudeFactor(double magnitude) {
         double mPrime = MAGNITUDE_INTERVAL.clip(magnitude);
-        double f = (99 - 17 * mPrime) / 140.0;
-        return f * projection.applyToAngle(ofDeg(HALF_DEGREE));
+        return (99 - 17 * mPrime) / 140.0;
+    }
+
+    /**
+     * Retourne la magnitude limite des étoiles à dessiner : les étoiles plus faibles
+     * auraient un diamètre inférieur à MIN_STAR_DIAMETER pixel sur le canevas. Elle est
+     * infinie si même les étoiles les plus faibles sont assez grandes.
+     *
+     * @param halfDegreeDiameter diamètre sur le canevas d'un objet de un demi-degré (Unité : pixels).
+     * @return la magnitude limite des étoiles à dessiner.
+     */
+    static double limitingMagnitude(double halfDegreeDiameter) {
+        double minFactor = MIN_STAR_DIAMETER / halfDegreeDiameter;
+        if(magnitudeFactor(MAGNITUDE_INTERVAL.high()) >= minFactor)
+            return Double.POSITIVE_INFINITY;
+        // Inverse de magnitudeFactor sur l'intervalle des magnitudes.
+        return (99 - 140 * minFactor) / 17;
+    }
+
+    /**
+     * Retourne la taille projetée d'un objet céleste de un demi-degré.
+     *
+     * @param projection projection stéréographique utilisée.
+     * @return la taille projetée d'un objet de un demi-degré.
+     */
+    static double halfDegreeSize(StereographicProjection projection) {
+        return projection.applyToAngle(ofDeg(HALF_DEGREE));
+    }
+
+    /**
+     * Retourne la transformation entre le repère de la projection et celui d'un canevas
+     * de la taille donnée, pour le champ de vue donné.
+     *
+     * @param width largeur du canvas.
+     * @param height hauteur du canvas.
+     * @param fieldOfView champ de vue horizontal (Unité : radians).
+     * @return la transformation entre le repère de la projection et celui du canevas.
+     */
+    static Transform planeToCanvas(double width, double height, double fieldOfView) {
+        double expansionFactor = width / (2 * tan(fieldOfView / 4));
+        return Transform.affine(expansionFactor, 0, 0, -expansionFactor, width / 2, height / 2);
+    }
+
+    /**
+     * Retourne le rayon angulaire du cône de vue, du centre aux coins d'un canvas de la
+     * taille donnée, avec une marge pour les étoiles à cheval sur le bord. Il est arrondi
+     * au degré supérieur pour ne pas recalculer le ciel à chaque pixel.
+     *
+     * @param width largeur du canvas.
+     * @param height hauteur du canvas.
+     * @param planeToCanvas transformation entre le repère de la projection et celui du canevas.
+     * @return le rayon angulaire du cône de vue (Unité : radians), π pour tout le ciel.
+     */
+    static double viewRadius(double width, double height, Transform planeToCanvas) {
+        double canvasRadius = hypot(width, height) / 2;
+        if(canvasRadius == 0)   // Tout le ciel tant que le canvas n'a pas de taille
+            return Math.PI;
+
+        double planeRadius = canvasRadius / planeToCanvas.getMxx();
+        double radiusDeg = Math.toDegrees(2 * atan(planeRadius)) + VIEW_RADIUS_MARGIN_DEG;
+        return Math.min(Math.PI, Math.toRadians(Math.ceil(radiusDeg)));
     }
 
     /**
@@ -383,24 +535,70 @@ public class SkyCanvasPainter {
      * @return True si aucun point n'appartient au canvas, False sinon.
      */
     private boolean noPointInCanvas(Point2D pos1, Point2D pos2) {
-        Bounds canvasBounds = canvas.getBoundsInLocal();
-        return !canvasBounds.contains(pos1) && !canvasBounds.contains(pos2);
+        return !inCanvas(pos1) && !inCanvas(pos2);
+    }
+
+    /**
+     * Retourne True si le point appartient au canvas, bords compris.
+     *
+     * @param pos point.
+     * @return True si le point appartient au canvas, False sinon.
+     */
+    private boolean inCanvas(Point2D pos) {
+        return pos.getX() >= 0 && pos.getX() <= graphics.width() && pos.getY() >= 0 && pos.getY() <= graphics.height();
     }
 
     /**
      * Retourne la position.
      *
      * @param index indice de l'étoile dans l'astérisme.
-     * @param indexInCatalogue liste d'indices des étoiles de l'astérisme dans le catalogue.
+     * @param indexInPositions liste d'indices des positions des étoiles de l'astérisme.
      * @param positions coordonnées cartésiennes des étoiles dans un tableau de double.
      * @param transformer transformation entre le repère de la projection et celui du canevas.
      * @return la position sous forme d'un Point2D.
      */
-    private Point2D position(int index, List<Integer> indexInCatalogue, double[] positions, Transform transformer) {
-        int starIndex = 2 * indexInCatalogue.get(index);
+    private Point2D position(int index, List<Integer> indexInPositions, double[] positions, Transform transformer) {
+        int starIndex = 2 * indexInPositions.get(index);
         return transformer.transform(positions[starIndex], positions[starIndex + 1]);
     }
 
+    /**
+     * Dessine l'histogramme des durées récentes du chronomètre donné, par tranches de
+     * HISTOGRAM_BUCKET_MILLIS (la dernière regroupant les durées plus longues), surmonté
+     * de son nom et de ses centiles. Les durées qui dépassent le budget d'une image à
+     * 60 Hz sont en rouge.
+     *
+     * @param timer chronomètre dont dessiner les durées.
+     * @param x abscisse du coin inférieur gauche de l'histogramme.
+     * @param y ordonnée du coin inférieur gauche de l'histogramme.
+     */
+    public void drawHistogram(Timer timer, double x, double y) {
+        int[] counts = new int[HISTOGRAM_BUCKETS];
+        int maxCount = 1;
+        for(long nanos : timer.recentNanos()) {
+            int bucket = (int) Math.min(nanos / 1e6 / HISTOGRAM_BUCKET_MILLIS, HISTOGRAM_BUCKETS - 1);
+            counts[bucket] += 1;
+            maxCount = Math.max(maxCount, counts[bucket]);
+        }
+
+        for(boolean overBudget : new boolean[] {false, true}) {
+            graphics.beginPath();
+            for(int i = 0; i < HISTOGRAM_BUCKETS; ++i) {
+                if((i * HISTOGRAM_BUCKET_MILLIS >= FRAME_BUDGET_MILLIS) != overBudget || counts[i] == 0)
+                    continue;
+                double barX = x + (i + 0.5) * HISTOGRAM_BAR_WIDTH;
+                graphics.moveTo(barX, y);
+                graphics.lineTo(barX, y - HISTOGRAM_HEIGHT * counts[i] / maxCount);
+            }
+            graphics.strokePath(HISTOGRAM_BAR_WIDTH - 1, overBudget ? RED : LIGHTGREEN);
+        }
+
+        String label = String.format(Locale.ROOT, "%s p50 %.1f p95 %.1f p99 %.1f ms", timer.name(),
+                timer.percentileMillis(50), timer.percentileMillis(95), timer.percentileMillis(99));
+        graphics.fillText(label, x + HISTOGRAM_BUCKETS * HISTOGRAM_BAR_WIDTH / 2,
+                y - HISTOGRAM_HEIGHT - 20, WHITE);
+    }
+
     /**
      * Retourne un accès à la propriété dayNightCycle qui définit si on doit
      * dessiner ou non le cycle jour/nuit.
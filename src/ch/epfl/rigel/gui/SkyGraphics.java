@@ -0,0 +1,117 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.astronomy.Constellation;
+import javafx.geometry.Point2D;
+import javafx.scene.paint.Color;
+
+/**
+ * Surface de dessin utilisée par SkyCanvasPainter. Les coordonnées sont celles de la
+ * surface (Unité : pixels), l'origine étant en haut à gauche.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public interface SkyGraphics {
+
+    /**
+     * Retourne la largeur de la surface.
+     *
+     * @return la largeur de la surface (Unité : pixels).
+     */
+    public abstract double width();
+
+    /**
+     * Retourne la hauteur de la surface.
+     *
+     * @return la hauteur de la surface (Unité : pixels).
+     */
+    public abstract double height();
+
+    /**
+     * Efface toute la surface et la remplit de la couleur donnée.
+     *
+     * @param color couleur de fond.
+     */
+    public abstract void clear(Color color);
+
+    /**
+     * Remplit un disque.
+     *
+     * @param x abscisse du centre.
+     * @param y ordonnée du centre.
+     * @param diameter diamètre du disque.
+     * @param color couleur du disque.
+     */
+    public abstract void fillCircle(double x, double y, double diameter, Color color);
+
+    /**
+     * Trace un cercle.
+     *
+     * @param x abscisse du centre.
+     * @param y ordonnée du centre.
+     * @param diameter diamètre du cercle.
+     * @param lineWidth épaisseur du trait.
+     * @param color couleur du trait.
+     */
+    public abstract void strokeCircle(double x, double y, double diameter, double lineWidth, Color color);
+
+    /**
+     * Commence un nouveau chemin, vide.
+     */
+    public abstract void beginPath();
+
+    /**
+     * Commence un nouveau sous-chemin au point donné.
+     *
+     * @param x abscisse du point.
+     * @param y ordonnée du point.
+     */
+    public abstract void moveTo(double x, double y);
+
+    /**
+     * Ajoute au chemin un segment jusqu'au point donné.
+     *
+     * @param x abscisse du point.
+     * @param y ordonnée du point.
+     */
+    public abstract void lineTo(double x, double y);
+
+    /**
+     * Trace le chemin commencé par beginPath.
+     *
+     * @param lineWidth épaisseur du trait.
+     * @param color couleur du trait.
+     */
+    public abstract void strokePath(double lineWidth, Color color);
+
+    /**
+     * Écrit un texte centré horizontalement sur le point donné, le haut du texte étant à
+     * son ordonnée.
+     *
+     * @param text texte à écrire.
+     * @param x abscisse du centre du texte.
+     * @param y ordonnée du haut du texte.
+     * @param color couleur du texte.
+     */
+    public abstract void fillText(String text, double x, double y, Color color);
+
+    /**
+     * Dessine l'image d'une constellation, tournée et mise à l'échelle selon la position
+     * de ses deux étoiles de référence (voir ConstellationDrawing).
+     *
+     * @param constellation constellation à dessiner.
+     * @param point1 position de la première étoile.
+     * @param point2 position de la deuxième étoile.
+     */
+    public abstract void drawConstellation(Constellation constellation, Point2D point1, Point2D point2);
+
+    /**
+     * Compose par-dessus la surface, à partir de son coin supérieur gauche, une image
+     * donnée sous forme de pixels ARGB prémultipliés, ligne par ligne.
+     *
+     * @param pixels pixels de l'image.
+     * @param width largeur de l'image.
+     * @param height hauteur de l'image.
+     */
+    public abstract void drawPixels(int[] pixels, int width, int height);
+}
@@ -0,0 +1,100 @@
+package ch.epfl.rigel.gui;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.function.Consumer;
+
+/**
+ * Couche du ciel, mise en cache hors écran lorsqu'elle est redessinée à l'identique.
+ * Tant que les données dont elle dépend (comparées par identité, ces données étant
+ * immuables) changent d'une image à l'autre, par exemple pendant une animation ou un
+ * déplacement de la vue, la couche est dessinée directement sur le canvas : la mettre
+ * en cache coûterait un dessin hors écran et une copie sans jamais servir. Dès que les
+ * mêmes données reviennent deux images de suite, la couche est dessinée hors écran
+ * puis copiée, et l'image en cache sert tant que ces données et la taille du canvas
+ * ne changent pas.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+final class SkyLayer {
+
+    private final Canvas canvas;
+    private final SkyCanvasPainter canvasPainter;
+    private final Canvas layerCanvas;
+    private final SkyCanvasPainter painter;
+    private final SnapshotParameters snapshotParameters;
+    private WritableImage image;
+    private Object[] imageInputs;
+    private Object[] lastInputs;
+
+    /**
+     * Construit une couche vide, dessinée sur le canvas donné.
+     *
+     * @param canvas canvas sur lequel dessiner la couche.
+     * @param canvasPainter peintre du canvas, pour dessiner la couche directement.
+     */
+    SkyLayer(Canvas canvas, SkyCanvasPainter canvasPainter) {
+        this.canvas = canvas;
+        this.canvasPainter = canvasPainter;
+        layerCanvas = new Canvas();
+        painter = new SkyCanvasPainter(layerCanvas);
+        snapshotParameters = new SnapshotParameters();
+        snapshotParameters.setFill(Color.TRANSPARENT);
+        imageInputs = new Object[0];
+        lastInputs = new Object[0];
+    }
+
+    /**
+     * Dessine la couche sur tout le canvas : depuis le cache s'il correspond aux données,
+     * sinon en la mettant en cache si les données sont celles de l'image précédente, et
+     * directement sinon.
+     *
+     * @param drawing dessin de la couche, à l'aide du peintre donné.
+     * @param inputs données dont dépend le dessin.
+     */
+    void draw(Consumer<SkyCanvasPainter> drawing, Object... inputs) {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        boolean sameSize = image != null && layerCanvas.getWidth() == width && layerCanvas.getHeight() == height;
+
+        if(!sameSize || !sameInputs(imageInputs, inputs)) {
+            if(!sameInputs(lastInputs, inputs)) {
+                drawing.accept(canvasPainter);
+                lastInputs = inputs;
+                return;
+            }
+
+            layerCanvas.setWidth(width);
+            layerCanvas.setHeight(height);
+            layerCanvas.getGraphicsContext2D().clearRect(0, 0, width, height);
+            drawing.accept(painter);
+
+            if(image == null || image.getWidth() != (int) width || image.getHeight() != (int) height)
+                image = null;
+            image = layerCanvas.snapshot(snapshotParameters, image);
+            imageInputs = inputs;
+        }
+        lastInputs = inputs;
+        canvas.getGraphicsContext2D().drawImage(image, 0, 0);
+    }
+
+    /**
+     * Retourne vrai si et seulement si les données sont identiques deux à deux.
+     *
+     * @param previous données précédentes.
+     * @param inputs données dont dépend le dessin.
+     * @return vrai si les données sont identiques.
+     */
+    private static boolean sameInputs(Object[] previous, Object[] inputs) {
+        if(inputs.length != previous.length)
+            return false;
+        for(int i = 0; i < inputs.length; ++i)
+            if(inputs[i] != previous[i])
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,382 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.StarTable;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.round;
+
+/**
+ * Dessinateur matriciel des étoiles : toutes les étoiles sont plaquées dans un
+ * tableau de pixels ARGB à l'aide de disques précalculés par classe de diamètre
+ * (calculés au placage au-delà de MAX_SPRITE_DIAMETER), par bandes de lignes traitées
+ * en parallèle, puis copiées en une seule fois dans une image JavaFX ou composées sur
+ * une surface sans JavaFX (voir pixels). Les pixels et l'image sont conservés tant que
+ * le ciel et la transformation ne changent pas.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+final class StarRasterizer {
+
+    /**
+     * Nombre de classes de diamètre par pixel.
+     */
+    private static final int DIAMETER_CLASSES_PER_PIXEL = 4;
+
+    /**
+     * Diamètre maximal des disques précalculés : les disques plus grands, rares et
+     * seulement aux petits champs de vue, sont calculés au placage (Unité : pixels).
+     */
+    private static final int MAX_SPRITE_DIAMETER = 64;
+
+    /**
+     * Diamètre maximal d'un disque, pour que sa taille tienne dans un int (Unité : pixels).
+     */
+    private static final double MAX_DIAMETER = 1 << 20;
+
+    /**
+     * Nombre d'échantillons par côté de pixel pour l'anticrénelage des disques.
+     */
+    private static final int SUBSAMPLES = 4;
+
+    /**
+     * Hauteur d'une bande de lignes (Unité : pixels).
+     */
+    private static final int BAND_HEIGHT = 32;
+
+    private final Sprite[] sprites;
+
+    private StarTable stars, faintStars;
+    private int[] colors, faintColors;
+    private double[] magnitudeFactors, faintMagnitudeFactors;
+
+    private ObservedSky lastSky, imageSky;
+    private Transform lastTransform, imageTransform;
+    private int[] pixels;
+    private int pixelsWidth, pixelsHeight;
+    private WritableImage image;
+
+    /**
+     * Construit un dessinateur matriciel des étoiles.
+     */
+    StarRasterizer() {
+        sprites = new Sprite[MAX_SPRITE_DIAMETER * DIAMETER_CLASSES_PER_PIXEL + 1];
+    }
+
+    /**
+     * Retourne l'image des étoiles du ciel, de la taille donnée.
+     *
+     * @param sky ciel observé à dessiner.
+     * @param transform transformation entre le repère de la projection et celui du canevas.
+     * @param width largeur du canvas.
+     * @param height hauteur du canvas.
+     * @return l'image des étoiles, transparente hors des étoiles.
+     */
+    Image image(ObservedSky sky, Transform transform, double width, double height) {
+        int w = Math.max((int) width, 1);
+        int h = Math.max((int) height, 1);
+
+        if(image != null && sky == imageSky && transform == imageTransform
+                && image.getWidth() == w && image.getHeight() == h)
+            return image;
+
+        if(image == null || image.getWidth() != w || image.getHeight() != h)
+            image = new WritableImage(w, h);
+
+        image.getPixelWriter().setPixels(0, 0, w, h,
+                PixelFormat.getIntArgbPreInstance(), pixels(sky, transform, w, h), 0, w);
+
+        imageSky = sky;
+        imageTransform = transform;
+        return image;
+    }
+
+    /**
+     * Retourne les pixels ARGB prémultipliés des étoiles du ciel, ligne par ligne, pour une
+     * image de la taille donnée. Le tableau est réutilisé par l'appel suivant.
+     *
+     * @param sky ciel observé à dessiner.
+     * @param transform transformation entre le repère de la projection et celui du canevas.
+     * @param w largeur de l'image.
+     * @param h hauteur de l'image.
+     * @return les pixels des étoiles, transparents hors des étoiles.
+     */
+    int[] pixels(ObservedSky sky, Transform transform, int w, int h) {
+        if(pixels != null && sky == lastSky && transform == lastTransform && w == pixelsWidth && h == pixelsHeight)
+            return pixels;
+
+        if(pixels == null || w != pixelsWidth || h != pixelsHeight) {
+            pixels = new int[w * h];
+            pixelsWidth = w;
+            pixelsHeight = h;
+        }
+
+        rasterize(sky, transform, w, h);
+        lastSky = sky;
+        lastTransform = transform;
+        return pixels;
+    }
+
+    /**
+     * Plaque les étoiles du ciel dans le tableau de pixels.
+     *
+     * @param sky ciel observé à dessiner.
+     * @param transform transformation entre le repère de la projection et celui du canevas.
+     * @param w largeur de l'image.
+     * @param h hauteur de l'image.
+     */
+    private void rasterize(ObservedSky sky, Transform transform, int w, int h) {
+        StarTable table = sky.starTable();
+        if(table != stars) {
+            stars = table;
+            colors = colors(table);
+            magnitudeFactors = magnitudeFactors(table);
+        }
+        StarTable faintTable = sky.faintStarTable();
+        if(faintTable != faintStars) {
+            faintStars = faintTable;
+            faintColors = colors(faintTable);
+            faintMagnitudeFactors = magnitudeFactors(faintTable);
+        }
+
+        double[] positions = sky.starsPositions();
+        int[] projected = sky.projectedStars();
+        double[] faintPositions = sky.faintStarsPositions();
+        double halfDegree = transform.deltaTransform(SkyCanvasPainter.halfDegreeSize(sky.projection()), 0)
+                .magnitude();
+        double mxx = transform.getMxx(), mxy = transform.getMxy(), tx = transform.getTx();
+        double myx = transform.getMyx(), myy = transform.getMyy(), ty = transform.getTy();
+
+        // Position du coin supérieur gauche et disque de chaque étoile, puis
+        // répartition des étoiles dans les bandes qu'elles touchent. Seules les étoiles
+        // visibles du cône de vue sont projetées ; les étoiles faibles des tuiles les suivent.
+        int visible = projected.length;
+        int count = visible + faintTable.size();
+        int[] left = new int[count];
+        int[] top = new int[count];
+        int[] starColors = new int[count];
+        Sprite[] starSprites = new Sprite[count];
+
+        int bands = (h + BAND_HEIGHT - 1) / BAND_HEIGHT;
+        int[] bandStart = new int[bands + 1];
+
+        for(int i = 0; i < count; ++i) {
+            boolean faint = i >= visible;
+            int j = faint ? i - visible : i;
+            double x = faint ? faintPositions[2 * j] : positions[2 * j];
+            double y = faint ? faintPositions[2 * j + 1] : positions[2 * j + 1];
+            int star = faint ? j : projected[j];
+            Sprite sprite = sprite((faint ? faintMagnitudeFactors[star] : magnitudeFactors[star]) * halfDegree);
+            starSprites[i] = sprite;
+            starColors[i] = faint ? faintColors[star] : colors[star];
+
+            double xCanvas = mxx * x + mxy * y + tx - sprite.size / 2.0;
+            double yCanvas = myx * x + myy * y + ty - sprite.size / 2.0;
+            if(!(xCanvas > -sprite.size && xCanvas < w && yCanvas > -sprite.size && yCanvas < h)) {
+                // Hors de l'image : l'étoile n'est dans aucune bande.
+                top[i] = -sprite.size;
+                continue;
+            }
+            left[i] = (int) round(xCanvas);
+            top[i] = (int) round(yCanvas);
+
+            for(int band = firstBand(top[i], bands); band <= lastBand(top[i] + sprite.size - 1, h, bands); ++band)
+                bandStart[band + 1] += 1;
+        }
+        for(int band = 0; band < bands; ++band)
+            bandStart[band + 1] += bandStart[band];
+
+        int[] bandStars = new int[bandStart[bands]];
+        int[] fill = bandStart.clone();
+        for(int i = 0; i < count; ++i)
+            for(int band = firstBand(top[i], bands); band <= lastBand(top[i] + starSprites[i].size - 1, h, bands); ++band)
+                bandStars[fill[band]++] = i;
+
+        IntStream.range(0, bands).parallel().forEach(band -> {
+            int yMin = band * BAND_HEIGHT;
+            int yMax = Math.min(yMin + BAND_HEIGHT, h);
+            Arrays.fill(pixels, yMin * w, yMax * w, 0);
+
+            for(int k = bandStart[band]; k < bandStart[band + 1]; ++k) {
+                int i = bandStars[k];
+                blend(starSprites[i], left[i], top[i], starColors[i], yMin, yMax, w);
+            }
+        });
+    }
+
+    /**
+     * Compose un disque par-dessus les pixels de la bande [yMin, yMax[.
+     *
+     * @param sprite disque à composer.
+     * @param left abscisse du coin supérieur gauche du disque.
+     * @param top ordonnée du coin supérieur gauche du disque.
+     * @param color couleur ARGB opaque de l'étoile.
+     * @param yMin première ligne de la bande.
+     * @param yMax ligne suivant la dernière ligne de la bande.
+     * @param w largeur de l'image.
+     */
+    private void blend(Sprite sprite, int left, int top, int color, int yMin, int yMax, int w) {
+        int red = (color >> 16) & 0xFF, green = (color >> 8) & 0xFF, blue = color & 0xFF;
+
+        int yFrom = Math.max(top, yMin), yTo = Math.min(top + sprite.size, yMax);
+        int xFrom = Math.max(left, 0), xTo = Math.min(left + sprite.size, w);
+
+        for(int y = yFrom; y < yTo; ++y) {
+            int row = (y - top) * sprite.size - left;
+            for(int x = xFrom; x < xTo; ++x) {
+                int alpha = sprite.alphas != null ? sprite.alphas[row + x] : sprite.coverage(x - left, y - top);
+                if(alpha == 0)
+                    continue;
+
+                int dst = pixels[y * w + x];
+                int inverse = 255 - alpha;
+                int a = alpha + ((dst >>> 24) * inverse + 127) / 255;
+                int r = (red * alpha + ((dst >> 16) & 0xFF) * inverse + 127) / 255;
+                int g = (green * alpha + ((dst >> 8) & 0xFF) * inverse + 127) / 255;
+                int b = (blue * alpha + (dst & 0xFF) * inverse + 127) / 255;
+                pixels[y * w + x] = (a << 24) | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    /**
+     * Retourne la couleur ARGB des étoiles de la table.
+     *
+     * @param table table des étoiles.
+     * @return la couleur de chaque étoile.
+     */
+    private static int[] colors(StarTable table) {
+        int[] colors = new int[table.size()];
+        for(int i = 0; i < table.size(); ++i)
+            colors[i] = argb(BlackBodyColor.colorForTemperature(table.colorTemperature(i)));
+        return colors;
+    }
+
+    /**
+     * Retourne le facteur de taille des étoiles de la table.
+     *
+     * @param table table des étoiles.
+     * @return le facteur de taille de chaque étoile.
+     */
+    private static double[] magnitudeFactors(StarTable table) {
+        double[] factors = new double[table.size()];
+        for(int i = 0; i < table.size(); ++i)
+            factors[i] = SkyCanvasPainter.magnitudeFactor(table.magnitude(i));
+        return factors;
+    }
+
+    /**
+     * Retourne le disque de la classe du diamètre donné : le disque précalculé, créé à
+     * la première demande, jusqu'à MAX_SPRITE_DIAMETER ; au-delà, un disque dont les
+     * opacités sont calculées au placage, sur les seuls pixels de l'image.
+     *
+     * @param diameter diamètre de l'étoile (Unité : pixels).
+     * @return le disque correspondant.
+     */
+    private Sprite sprite(double diameter) {
+        long diameterClass = round(Math.min(diameter, MAX_DIAMETER) * DIAMETER_CLASSES_PER_PIXEL);
+        if(diameterClass >= sprites.length)
+            return new Sprite((double) diameterClass / DIAMETER_CLASSES_PER_PIXEL, false);
+
+        int index = (int) diameterClass;
+        if(sprites[index] == null)
+            sprites[index] = new Sprite((double) index / DIAMETER_CLASSES_PER_PIXEL, true);
+        return sprites[index];
+    }
+
+    /**
+     * Retourne l'indice de la première bande touchée par une ligne.
+     */
+    private static int firstBand(int y, int bands) {
+        return Math.min(Math.max(y, 0) / BAND_HEIGHT, bands);
+    }
+
+    /**
+     * Retourne l'indice de la dernière bande touchée par une ligne, ou -1 si elle est au-dessus de l'image.
+     */
+    private static int lastBand(int y, int h, int bands) {
+        return y < 0 ? -1 : Math.min(y, h - 1) / BAND_HEIGHT;
+    }
+
+    /**
+     * Retourne la couleur opaque donnée sous forme ARGB.
+     *
+     * @param color couleur.
+     * @return la couleur sous forme ARGB.
+     */
+    private static int argb(Color color) {
+        return 0xFF000000
+                | (int) round(color.getRed() * 255) << 16
+                | (int) round(color.getGreen() * 255) << 8
+                | (int) round(color.getBlue() * 255);
+    }
+
+    /**
+     * Disque anticrénelé d'un diamètre donné, sous forme d'opacités de 0 à 255,
+     * précalculées ou calculées à la demande.
+     */
+    private static final class Sprite {
+
+        /**
+         * Marge sur la distance du centre d'un pixel au bord du disque au-delà de laquelle
+         * il est entièrement dans le disque ou hors du disque : ses échantillons sont à
+         * moins de √2 / 2 de son centre.
+         */
+        private static final double PIXEL_MARGIN = 0.75;
+
+        private final int size;
+        private final double center, radius, radiusSquare;
+        private final int[] alphas;
+
+        /**
+         * Construit un disque du diamètre donné, dont les opacités sont précalculées si
+         * cached est vrai, et sinon calculées par coverage.
+         */
+        private Sprite(double diameter, boolean cached) {
+            size = (int) ceil(diameter) + 1;
+            center = size / 2.0;
+            radius = diameter / 2;
+            radiusSquare = diameter * diameter / 4;
+
+            if(cached) {
+                alphas = new int[size * size];
+                for(int y = 0; y < size; ++y)
+                    for(int x = 0; x < size; ++x)
+                        alphas[y * size + x] = coverage(x, y);
+            } else
+                alphas = null;
+        }
+
+        /**
+         * Retourne l'opacité du pixel (x, y) du carré du disque, proportionnelle au nombre
+         * de ses échantillons dans le disque.
+         */
+        private int coverage(int x, int y) {
+            double cx = x + 0.5 - center, cy = y + 0.5 - center;
+            double distance = Math.sqrt(cx * cx + cy * cy);
+            if(distance + PIXEL_MARGIN < radius)
+                return 255;
+            if(distance - PIXEL_MARGIN > radius)
+                return 0;
+
+            int covered = 0;
+            for(int sy = 0; sy < SUBSAMPLES; ++sy)
+                for(int sx = 0; sx < SUBSAMPLES; ++sx) {
+                    double dx = x + (sx + 0.5) / SUBSAMPLES - center;
+                    double dy = y + (sy + 0.5) / SUBSAMPLES - center;
+                    if(dx * dx + dy * dy <= radiusSquare)
+                        ++covered;
+                }
+            return covered * 255 / (SUBSAMPLES * SUBSAMPLES);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package ch.epfl.rigel.gui;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 
 
@@ -19,13 +20,24 @@ public interface TimeAccelerator {
    int SPEED_THREE_THOUSAND = 3000;
 
    /**
-    * Retourne le temps simulé.
+    * Retourne le temps simulé, sans passer par java.time.
+    *
+    * @param T0 temps simulé intial (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+    * @param deltaT temps réel écoulé depuis le début de l'animation (Unité : nano-secondes).
+    * @return le temps simulé (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+    */
+   long adjust(long T0, long deltaT);
+
+   /**
+    * Retourne le temps simulé, à la milli-seconde près.
     *
     * @param T0 temps simulé intial.
     * @param deltaT temps réel écoulé depuis le début de l'animation (Unité : nano-secondes).
     * @return le temps simulé.
     */
-   ZonedDateTime adjust(ZonedDateTime T0, long deltaT);
+   default ZonedDateTime adjust(ZonedDateTime T0, long deltaT) {
+      return Instant.ofEpochMilli(adjust(T0.toInstant().toEpochMilli(), deltaT)).atZone(T0.getZone());
+   }
 
    /**
     * Retourne un accélérateur continu.
@@ -34,7 +46,7 @@ public interface TimeAccelerator {
     * @return un accélérateur continu.
     */
    static TimeAccelerator continuous(int alpha) {
-      return (T0, deltaT) ->  T0.plusNanos(alpha * deltaT);
+      return (T0, deltaT) -> T0 + Math.floorDiv(alpha * deltaT, 1_000_000L);
    }
 
    /**
@@ -45,6 +57,7 @@ public interface TimeAccelerator {
     * @return un accélérateur discret.
     */
    static TimeAccelerator discrete(int v, Duration S) {
-      return (T0, deltaT) -> T0.plusNanos((int)(v * deltaT * 1e-9) * S.toNanos());
+      long step = S.toMillis();
+      return (T0, deltaT) -> T0 + (int)(v * deltaT * 1e-9) * step;
    }
 }
@@ -3,10 +3,9 @@ package ch.epfl.rigel.gui;
 import javafx.animation.AnimationTimer;
 import javafx.beans.property.*;
 
-import java.time.ZonedDateTime;
-
 /**
- * Animateur de temps.
+ * Animateur de temps. L'instant simulé est calculé en milli-secondes, sans
+ * passer par java.time à chaque image.
  *
  * @author Jean-Baptiste Moreau (296189)
  * @author Ali Raed Ben Mustapha (300392)
@@ -17,7 +16,7 @@ public final class TimeAnimator extends AnimationTimer {
     private final ObjectProperty<TimeAccelerator> accelerator;
     private final SimpleBooleanProperty running;
     private final DateTimeBean dateTimeBean;
-    private ZonedDateTime simulatedStart;
+    private long simulatedStart;
     private final DoubleProperty accelerationValue;
     private final BooleanProperty personalAcceleration;
 
@@ -40,21 +39,21 @@ public final class TimeAnimator extends AnimationTimer {
         if(timeStart == 0) timeStart = now;
         long timePassed = now - timeStart;
 
-        ZonedDateTime adjustDateTime;
+        long adjustEpochMillis;
 
         if(personalAcceleration.getValue()) {
-            adjustDateTime = TimeAccelerator
+            adjustEpochMillis = TimeAccelerator
                     .continuous((int) accelerationValue.doubleValue())
                     .adjust(simulatedStart, timePassed);
         } else
-            adjustDateTime = accelerator.get().adjust(simulatedStart, timePassed);
+            adjustEpochMillis = accelerator.get().adjust(simulatedStart, timePassed);
 
-        dateTimeBean.setZonedDateTime(adjustDateTime);
+        dateTimeBean.setEpochMillis(adjustEpochMillis);
     }
 
     @Override
     public void start() {
-        simulatedStart = dateTimeBean.getZonedDateTime();
+        simulatedStart = dateTimeBean.getEpochMillis();
         running.setValue(true);
         super.start();
     }
@@ -70,7 +69,7 @@ public final class TimeAnimator extends AnimationTimer {
      *
      */
     public void resetSimulationTime() {
-        simulatedStart = dateTimeBean.getZonedDateTime();
+        simulatedStart = dateTimeBean.getEpochMillis();
         timeStart = 0;
     }
 
@@ -0,0 +1,260 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.astronomy.EphemerisCache;
+import ch.epfl.rigel.astronomy.HorizontalSky;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exportateur d'accélérés : calcule et dessine sans affichage les images du ciel d'une
+ * période, à intervalle régulier, et les écrit dans des fichiers numérotés.
+ *
+ * <p>Les images sont calculées, dessinées et encodées en parallèle par un groupe de fils,
+ * chacun avec son propre dessinateur, puis écrites dans l'ordre par le fil appelant. Un
+ * tampon de réordonnancement borné bloque les fils en avance : la mémoire utilisée ne
+ * dépend que du nombre de fils, et non de la longueur de l'accéléré.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class TimeLapseExporter {
+
+    /**
+     * Formats des fichiers écrits.
+     */
+    public enum Format {
+        /**
+         * Image PNG.
+         */
+        PNG("png"),
+        /**
+         * Pixels bruts : quatre octets par pixel (rouge, vert, bleu, opacité), ligne par ligne.
+         */
+        RGBA("rgba");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * Nombre d'images encodées que le tampon de réordonnancement peut contenir, par fil.
+     */
+    private static final int BUFFERED_FRAMES_PER_THREAD = 2;
+    private static final String FILE_NAME_FORMAT = "frame_%06d.%s";
+
+    private final StarCatalogue catalogue;
+    private final GeographicCoordinates where;
+    private final HorizontalCoordinates center;
+    private final double fieldOfViewDeg;
+    private final int width, height;
+    private final int threads;
+
+    /**
+     * Construit un exportateur d'accélérés.
+     *
+     * @param catalogue catalogue contenant les étoiles, les astérismes et les constellations.
+     * @param where position d'observation.
+     * @param center centre de la vue.
+     * @param fieldOfViewDeg champ de vue horizontal (Unité : degrés).
+     * @param width largeur des images (Unité : pixels).
+     * @param height hauteur des images (Unité : pixels).
+     * @param threads nombre de fils calculant les images.
+     * @throws IllegalArgumentException si la taille des images ou le nombre de fils n'est pas
+     *          strictement positif.
+     */
+    public TimeLapseExporter(StarCatalogue catalogue, GeographicCoordinates where, HorizontalCoordinates center,
+                             double fieldOfViewDeg, int width, int height, int threads) {
+        Preconditions.checkArgument(width > 0 && height > 0 && threads > 0);
+        this.catalogue = catalogue;
+        this.where = where;
+        this.center = center;
+        this.fieldOfViewDeg = fieldOfViewDeg;
+        this.width = width;
+        this.height = height;
+        this.threads = threads;
+    }
+
+    /**
+     * Exporte les images du ciel aux instants start, start + step, ... jusqu'à end compris,
+     * dans les fichiers frame_000000, frame_000001, ... du répertoire donné, créé si
+     * nécessaire.
+     *
+     * @param start premier instant (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param end dernier instant possible (Unité : milli-secondes depuis le 1er janvier 1970 UTC).
+     * @param step intervalle entre deux images (Unité : milli-secondes).
+     * @param directory répertoire dans lequel écrire les fichiers.
+     * @param format format des fichiers.
+     * @return le nombre d'images exportées.
+     * @throws IllegalArgumentException si la fin précède le début, si l'intervalle n'est pas
+     *          strictement positif ou s'il y a trop d'images.
+     * @throws IOException en cas d'erreur d'entrée/sortie ou d'échec du calcul d'une image.
+     * @throws InterruptedException si le fil appelant est interrompu.
+     */
+    public int export(long start, long end, long step, Path directory, Format format)
+            throws IOException, InterruptedException {
+        Preconditions.checkArgument(end >= start && step > 0 && (end - start) / step < Integer.MAX_VALUE);
+        int frames = (int) ((end - start) / step) + 1;
+        Files.createDirectories(directory);
+
+        EphemerisCache ephemerides = new EphemerisCache();
+        ReorderBuffer buffer = new ReorderBuffer(BUFFERED_FRAMES_PER_THREAD * threads);
+        AtomicInteger nextFrame = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "Rigel time-lapse");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for(int i = 0; i < threads; ++i)
+                pool.execute(() -> renderFrames(frames, start, step, format, ephemerides, nextFrame, buffer));
+
+            for(int frame = 0; frame < frames; ++frame)
+                Files.write(directory.resolve(String.format(Locale.ROOT, FILE_NAME_FORMAT, frame, format.extension)),
+                        buffer.take());
+        } finally {
+            pool.shutdownNow();
+        }
+        return frames;
+    }
+
+    /**
+     * Calcule, dessine et encode des images tant qu'il en reste à prendre, puis les dépose
+     * dans le tampon. Exécutée par chaque fil du groupe.
+     */
+    private void renderFrames(int frames, long start, long step, Format format, EphemerisCache ephemerides,
+                              AtomicInteger nextFrame, ReorderBuffer buffer) {
+        try {
+            HeadlessSkyRenderer renderer = new HeadlessSkyRenderer(width, height, fieldOfViewDeg);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            HorizontalSky horizontalSky = null;
+
+            for(int frame = nextFrame.getAndIncrement(); frame < frames; frame = nextFrame.getAndIncrement()) {
+                long when = start + frame * step;
+                horizontalSky = horizontalSky == null
+                        ? new HorizontalSky(when, where, catalogue, ephemerides)
+                        : horizontalSky.at(when, where);
+                ObservedSky sky = renderer.observe(horizontalSky, center);
+
+                bytes.reset();
+                if(format == Format.PNG)
+                    renderer.writePng(sky, bytes);
+                else
+                    renderer.writeRgba(sky, bytes);
+                buffer.put(frame, bytes.toByteArray());
+            }
+        } catch(InterruptedException e) {
+            // Export abandonné : le groupe de fils est arrêté.
+        } catch(Throwable e) {
+            buffer.fail(e);
+        }
+    }
+
+    /**
+     * Tampon de réordonnancement : les images y sont déposées dans un ordre quelconque et
+     * en sont retirées dans l'ordre. Une image trop en avance sur la prochaine à retirer
+     * attend qu'une place se libère.
+     */
+    private static final class ReorderBuffer {
+
+        private final int capacity;
+        private final Map<Integer, byte[]> frames;
+        private int next;
+        private Throwable failure;
+
+        private ReorderBuffer(int capacity) {
+            this.capacity = capacity;
+            frames = new HashMap<>();
+        }
+
+        /**
+         * Dépose l'image donnée, après avoir attendu qu'elle soit parmi les capacity
+         * prochaines images à retirer.
+         */
+        private synchronized void put(int frame, byte[] bytes) throws InterruptedException {
+            while(frame >= next + capacity)
+                wait();
+            frames.put(frame, bytes);
+            notifyAll();
+        }
+
+        /**
+         * Retire la prochaine image, après avoir attendu qu'elle soit déposée.
+         *
+         * @throws IOException si le calcul d'une image a échoué.
+         */
+        private synchronized byte[] take() throws IOException, InterruptedException {
+            while(!frames.containsKey(next)) {
+                if(failure != null)
+                    throw new IOException("Échec du calcul d'une image", failure);
+                wait();
+            }
+            byte[] bytes = frames.remove(next);
+            next += 1;
+            notifyAll();
+            return bytes;
+        }
+
+        /**
+         * Signale l'échec du calcul d'une image.
+         */
+        private synchronized void fail(Throwable e) {
+            if(failure == null)
+                failure = e;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Exporte un accéléré. Arguments : premier et dernier instants (par exemple
+     * 2020-02-17T20:15Z), intervalle entre deux images (par exemple PT1M), longitude et
+     * latitude de l'observateur, azimut et hauteur du centre de la vue et champ de vue
+     * (Unité : degrés), largeur et hauteur des images, répertoire de sortie et,
+     * facultativement, format (png ou rgba). Le catalogue est chargé comme par l'interface.
+     *
+     * @param args arguments de l'export.
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     * @throws InterruptedException si l'export est interrompu.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length != 11 && args.length != 12) {
+            System.err.println("Usage : TimeLapseExporter <début> <fin> <intervalle> <longitude> <latitude> "
+                    + "<azimut> <hauteur> <champ de vue> <largeur> <hauteur image> <répertoire> [png|rgba]");
+            System.exit(1);
+        }
+
+        long start = ZonedDateTime.parse(args[0]).toInstant().toEpochMilli();
+        long end = ZonedDateTime.parse(args[1]).toInstant().toEpochMilli();
+        long step = Duration.parse(args[2]).toMillis();
+        GeographicCoordinates where = GeographicCoordinates.ofDeg(Double.parseDouble(args[3]),
+                Double.parseDouble(args[4]));
+        HorizontalCoordinates center = HorizontalCoordinates.ofDeg(Double.parseDouble(args[5]),
+                Double.parseDouble(args[6]));
+        Format format = args.length == 12 ? Format.valueOf(args[11].toUpperCase(Locale.ROOT)) : Format.PNG;
+
+        TimeLapseExporter exporter = new TimeLapseExporter(Main.loadCatalogue(), where, center,
+                Double.parseDouble(args[7]), Integer.parseInt(args[8]), Integer.parseInt(args[9]),
+                Runtime.getRuntime().availableProcessors());
+        int frames = exporter.export(start, end, step, Path.of(args[10]), format);
+        System.out.println(frames + " images exportées dans " + args[10]);
+    }
+}
@@ -0,0 +1,94 @@
+package ch.epfl.rigel.math;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Une matrice de rotation 3x3.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class RotationMatrix {
+
+    private static final int SIZE = 3;
+
+    private final double[] coefficients;
+
+    /**
+     * Construit une matrice à partir de ses coefficients ligne par ligne.
+     *
+     * @param coefficients les neuf coefficients ligne par ligne.
+     */
+    private RotationMatrix(double[] coefficients) {
+        this.coefficients = coefficients;
+    }
+
+    /**
+     * Retourne la matrice dont les lignes sont données.
+     *
+     * @param m00 coefficient ligne 0, colonne 0.
+     * @param m01 coefficient ligne 0, colonne 1.
+     * @param m02 coefficient ligne 0, colonne 2.
+     * @param m10 coefficient ligne 1, colonne 0.
+     * @param m11 coefficient ligne 1, colonne 1.
+     * @param m12 coefficient ligne 1, colonne 2.
+     * @param m20 coefficient ligne 2, colonne 0.
+     * @param m21 coefficient ligne 2, colonne 1.
+     * @param m22 coefficient ligne 2, colonne 2.
+     * @return la matrice correspondante.
+     */
+    public static RotationMatrix of(double m00, double m01, double m02,
+                                    double m10, double m11, double m12,
+                                    double m20, double m21, double m22) {
+        return new RotationMatrix(new double[] {m00, m01, m02, m10, m11, m12, m20, m21, m22});
+    }
+
+    /**
+     * Retourne le coefficient de la matrice à la ligne et la colonne données.
+     *
+     * @param row ligne (entre 0 et 2).
+     * @param column colonne (entre 0 et 2).
+     * @return le coefficient à la ligne et la colonne données.
+     */
+    public double at(int row, int column) {
+        return coefficients[Objects.checkIndex(row, SIZE) * SIZE + Objects.checkIndex(column, SIZE)];
+    }
+
+    /**
+     * Retourne le produit de cette matrice (à gauche) par la matrice donnée (à droite),
+     * c'est-à-dire la rotation qui applique d'abord 'that' puis 'this'.
+     *
+     * @param that matrice de droite.
+     * @return le produit des deux matrices.
+     */
+    public RotationMatrix multiply(RotationMatrix that) {
+        double[] product = new double[SIZE * SIZE];
+
+        for(int row = 0; row < SIZE; ++row)
+            for(int column = 0; column < SIZE; ++column)
+                for(int k = 0; k < SIZE; ++k)
+                    product[row * SIZE + column] +=
+                            coefficients[row * SIZE + k] * that.coefficients[k * SIZE + column];
+
+        return new RotationMatrix(product);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "[[%.4f, %.4f, %.4f], [%.4f, %.4f, %.4f], [%.4f, %.4f, %.4f]]",
+                coefficients[0], coefficients[1], coefficients[2],
+                coefficients[3], coefficients[4], coefficients[5],
+                coefficients[6], coefficients[7], coefficients[8]);
+    }
+
+    @Override
+    public final int hashCode() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,33 @@
+package ch.epfl.rigel.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR : chargement d'une partie du catalogue par un chargeur.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@Name("ch.epfl.rigel.CatalogueLoad")
+@Label("Chargement du catalogue")
+@Category({"Rigel", "Catalogue"})
+@StackTrace(false)
+public final class CatalogueLoadEvent extends Event {
+
+    @Label("Chargeur")
+    private String loader;
+
+    /**
+     * Construit et commence un événement.
+     *
+     * @param loader nom du chargeur.
+     */
+    public CatalogueLoadEvent(String loader) {
+        this.loader = loader;
+        begin();
+    }
+}
@@ -0,0 +1,27 @@
+package ch.epfl.rigel.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR : dessin complet d'une image du ciel par SkyCanvasManager.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@Name("ch.epfl.rigel.Frame")
+@Label("Image")
+@Category({"Rigel", "Dessin"})
+@StackTrace(false)
+public final class FrameEvent extends Event {
+
+    /**
+     * Construit et commence un événement.
+     */
+    public FrameEvent() {
+        begin();
+    }
+}
@@ -0,0 +1,82 @@
+package ch.epfl.rigel.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Registre des mesures du programme : chronomètres et compteurs nommés, créés au
+ * premier usage et partagés par tout le programme. Les noms sont de la forme
+ * « domaine.détail », par exemple paint.stars ou redraw.fieldOfView.
+ *
+ * <p>Les mêmes mesures sont publiées sous forme d'événements JFR (catégorie Rigel),
+ * enregistrés seulement si un enregistrement JFR est en cours, par exemple avec
+ * -XX:StartFlightRecording.</p>
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class Metrics {
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {}
+
+    /**
+     * Retourne le chronomètre de nom donné, en le créant s'il n'existe pas.
+     *
+     * @param name nom du chronomètre.
+     * @return le chronomètre.
+     */
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * Retourne le compteur de nom donné, en le créant s'il n'existe pas.
+     *
+     * @param name nom du compteur.
+     * @return le compteur.
+     */
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Retourne tous les chronomètres, par ordre alphabétique de leur nom.
+     *
+     * @return une vue non modifiable des chronomètres.
+     */
+    public static Map<String, Timer> timers() {
+        return Collections.unmodifiableMap(TIMERS);
+    }
+
+    /**
+     * Retourne tous les compteurs, par ordre alphabétique de leur nom.
+     *
+     * @return une vue non modifiable des compteurs.
+     */
+    public static Map<String, LongAdder> counters() {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+
+    /**
+     * Retourne un résumé de toutes les mesures, un chronomètre ou un compteur par ligne.
+     *
+     * @return le résumé des mesures.
+     */
+    public static String report() {
+        String timers = TIMERS.values().stream()
+                .map(Timer::toString)
+                .collect(Collectors.joining(System.lineSeparator()));
+        String counters = COUNTERS.entrySet().stream()
+                .map(e -> e.getKey() + " : " + e.getValue().sum())
+                .collect(Collectors.joining(System.lineSeparator()));
+        return timers.isEmpty() || counters.isEmpty()
+                ? timers + counters
+                : timers + System.lineSeparator() + counters;
+    }
+}
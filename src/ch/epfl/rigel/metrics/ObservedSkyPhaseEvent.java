@@ -0,0 +1,33 @@
+package ch.epfl.rigel.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR : phase du calcul d'un ciel (Soleil, Lune, planètes, étoiles ou calcul complet).
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@Name("ch.epfl.rigel.ObservedSkyPhase")
+@Label("Phase du ciel observé")
+@Category({"Rigel", "Calcul"})
+@StackTrace(false)
+public final class ObservedSkyPhaseEvent extends Event {
+
+    @Label("Phase")
+    private String phase;
+
+    /**
+     * Construit et commence un événement.
+     *
+     * @param phase nom de la phase.
+     */
+    public ObservedSkyPhaseEvent(String phase) {
+        this.phase = phase;
+        begin();
+    }
+}
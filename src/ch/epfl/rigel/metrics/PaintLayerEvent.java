@@ -0,0 +1,33 @@
+package ch.epfl.rigel.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR : dessin d'une couche du ciel par SkyCanvasPainter.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@Name("ch.epfl.rigel.PaintLayer")
+@Label("Dessin d'une couche")
+@Category({"Rigel", "Dessin"})
+@StackTrace(false)
+public final class PaintLayerEvent extends Event {
+
+    @Label("Couche")
+    private String layer;
+
+    /**
+     * Construit et commence un événement.
+     *
+     * @param layer nom de la couche.
+     */
+    public PaintLayerEvent(String layer) {
+        this.layer = layer;
+        begin();
+    }
+}
@@ -0,0 +1,34 @@
+package ch.epfl.rigel.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR instantané : demande d'un redessin par SkyCanvasManager, avec la
+ * propriété qui l'a déclenchée. Les demandes de calcul d'un ciel sont des
+ * SkyRequestEvent.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@Name("ch.epfl.rigel.RedrawRequest")
+@Label("Demande de redessin")
+@Category({"Rigel", "Dessin"})
+@StackTrace(false)
+public final class RedrawRequestEvent extends Event {
+
+    @Label("Déclencheur")
+    private String trigger;
+
+    /**
+     * Construit un événement.
+     *
+     * @param trigger nom de la propriété qui a déclenché la demande.
+     */
+    public RedrawRequestEvent(String trigger) {
+        this.trigger = trigger;
+    }
+}
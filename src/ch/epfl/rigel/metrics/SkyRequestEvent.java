@@ -0,0 +1,33 @@
+package ch.epfl.rigel.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR instantané : demande de calcul d'un nouveau ciel par
+ * SkyCanvasManager, avec la propriété qui l'a déclenchée.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@Name("ch.epfl.rigel.SkyRequest")
+@Label("Demande de ciel")
+@Category({"Rigel", "Calcul"})
+@StackTrace(false)
+public final class SkyRequestEvent extends Event {
+
+    @Label("Déclencheur")
+    private String trigger;
+
+    /**
+     * Construit un événement.
+     *
+     * @param trigger nom de la propriété qui a déclenché la demande.
+     */
+    public SkyRequestEvent(String trigger) {
+        this.trigger = trigger;
+    }
+}
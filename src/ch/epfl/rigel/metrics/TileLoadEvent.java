@@ -0,0 +1,43 @@
+package ch.epfl.rigel.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR : chargement d'une tuile de la carte.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+@Name("ch.epfl.rigel.TileLoad")
+@Label("Chargement d'une tuile")
+@Category({"Rigel", "Carte"})
+@StackTrace(false)
+public final class TileLoadEvent extends Event {
+
+    @Label("Niveau de zoom")
+    private int zoom;
+
+    @Label("Abscisse")
+    private int x;
+
+    @Label("Ordonnée")
+    private int y;
+
+    /**
+     * Construit et commence un événement.
+     *
+     * @param zoom niveau de zoom de la tuile.
+     * @param x abscisse de la tuile.
+     * @param y ordonnée de la tuile.
+     */
+    public TileLoadEvent(int zoom, int x, int y) {
+        this.zoom = zoom;
+        this.x = x;
+        this.y = y;
+        begin();
+    }
+}
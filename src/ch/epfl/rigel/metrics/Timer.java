@@ -0,0 +1,125 @@
+package ch.epfl.rigel.metrics;
+
+import ch.epfl.rigel.Preconditions;
+import jdk.jfr.Event;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Chronomètre nommé du registre Metrics : il compte les durées mesurées, en fait la
+ * somme et garde les RECENT_SAMPLES plus récentes, sur lesquelles sont calculés les
+ * centiles. Un chronomètre peut être utilisé par plusieurs fils.
+ *
+ * @author Jean-Baptiste Moreau (296189)
+ * @author Ali Raed Ben Mustapha (300392)
+ */
+public final class Timer {
+
+    /**
+     * Nombre de durées récentes gardées.
+     */
+    public static final int RECENT_SAMPLES = 256;
+
+    private final String name;
+    private final long[] recentNanos;
+    private long count;
+    private long totalNanos;
+
+    /**
+     * Construit un chronomètre sans mesure.
+     *
+     * @param name nom du chronomètre.
+     */
+    Timer(String name) {
+        this.name = name;
+        recentNanos = new long[RECENT_SAMPLES];
+    }
+
+    /**
+     * Retourne le nom du chronomètre.
+     *
+     * @return le nom du chronomètre.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Ajoute une durée mesurée.
+     *
+     * @param nanos durée (Unité : nano-secondes).
+     */
+    public synchronized void record(long nanos) {
+        recentNanos[(int) (count % RECENT_SAMPLES)] = nanos;
+        count += 1;
+        totalNanos += nanos;
+    }
+
+    /**
+     * Termine et enregistre l'événement JFR donné, s'il est activé, puis ajoute la durée
+     * écoulée depuis l'instant donné.
+     *
+     * @param event événement commencé en même temps que la mesure.
+     * @param startNanos début de la mesure, donné par System.nanoTime.
+     */
+    public void commit(Event event, long startNanos) {
+        event.commit();
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Retourne le nombre de durées mesurées depuis la création du chronomètre.
+     *
+     * @return le nombre de durées mesurées.
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * Retourne la moyenne de toutes les durées mesurées.
+     *
+     * @return la durée moyenne (Unité : milli-secondes), NaN s'il n'y a pas de mesure.
+     */
+    public synchronized double meanMillis() {
+        return count == 0 ? Double.NaN : totalNanos / 1e6 / count;
+    }
+
+    /**
+     * Retourne les durées récentes, de la plus ancienne à la plus récente.
+     *
+     * @return les durées récentes (Unité : nano-secondes).
+     */
+    public synchronized long[] recentNanos() {
+        int size = (int) Math.min(count, RECENT_SAMPLES);
+        int oldest = (int) ((count - size) % RECENT_SAMPLES);
+        long[] recent = new long[size];
+        for(int i = 0; i < size; ++i)
+            recent[i] = recentNanos[(oldest + i) % RECENT_SAMPLES];
+        return recent;
+    }
+
+    /**
+     * Retourne le centile donné des durées récentes, par la méthode du rang le plus proche.
+     *
+     * @param percentile centile, entre 0 (exclu) et 100.
+     * @return le centile des durées récentes (Unité : milli-secondes), NaN s'il n'y a pas de mesure.
+     * @throws IllegalArgumentException si le centile n'est pas entre 0 (exclu) et 100.
+     */
+    public double percentileMillis(double percentile) {
+        Preconditions.checkArgument(percentile > 0 && percentile <= 100);
+        long[] recent = recentNanos();
+        if(recent.length == 0)
+            return Double.NaN;
+        Arrays.sort(recent);
+        int rank = (int) Math.ceil(percentile / 100 * recent.length);
+        return recent[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s : %d mesures, moyenne %.3f ms, p50 %.3f p95 %.3f p99 %.3f ms",
+                name, count(), meanMillis(), percentileMillis(50), percentileMillis(95), percentileMillis(99));
+    }
+}
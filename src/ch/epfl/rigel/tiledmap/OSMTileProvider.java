@@ -2,6 +2,9 @@ package ch.epfl.rigel.tiledmap;
 
 import ch.epfl.rigel.coordinates.CartesianCoordinates;
 import ch.epfl.rigel.coordinates.OSMCoordinates;
+import ch.epfl.rigel.metrics.Metrics;
+import ch.epfl.rigel.metrics.TileLoadEvent;
+import ch.epfl.rigel.metrics.Timer;
 import javafx.scene.image.Image;
 
 import java.util.Objects;
@@ -14,12 +17,17 @@ import java.util.Objects;
  */
 public class OSMTileProvider implements TileProvider {
     private static final String MAPS_PACKAGE_NAME = "/maps/";
-    
+    private static final Timer TILE_TIMER = Metrics.timer("tile.load");
+
     @Override
     public Tile tileAt(int zoom, int x, int y) {
+        long start = System.nanoTime();
+        TileLoadEvent event = new TileLoadEvent(zoom, x, y);
+
         OSMCoordinates tileOSMCor = OSMCoordinates.of(zoom, CartesianCoordinates.of(x,y));
         String imageName = MAPS_PACKAGE_NAME + zoom + '_' + x + '_' + y +".png";
         Image tileImage = new Image(Objects.requireNonNull(getClass().getResourceAsStream(imageName)));
+        TILE_TIMER.commit(event, start);
 
         return new Tile(tileOSMCor, tileImage);
     }